@@ -23,8 +23,10 @@ import java.util.TooManyListenersException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jgentleframework.configure.REF;
+import org.jgentleframework.context.injecting.AbstractBeanCacher;
 import org.jgentleframework.context.injecting.ObjectBeanFactory;
 import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.context.injecting.SingletonRegistry;
 import org.jgentleframework.context.injecting.scope.InvalidAddingOperationException;
 import org.jgentleframework.context.injecting.scope.InvalidRemovingOperationException;
 import org.jgentleframework.context.injecting.scope.ScopeImplementation;
@@ -105,7 +107,7 @@ public enum Scope implements ScopeImplementation {
 		Object result = null;
 		Provider provider = objFactory.getProvider();
 		Map<String, ScopeInstance> scopeList = objFactory.getScopeList();
-		Map<String, Object> mapDirectList = objFactory.getMapDirectList();
+		SingletonRegistry registry = objFactory.getSingletonRegistry();
 		synchronized (scopeList) {
 			if (!scopeList.containsKey(scopeName)) {
 				scopeList.put(scopeName, this);
@@ -113,9 +115,7 @@ public enum Scope implements ScopeImplementation {
 		}
 		// If is Singleton scope
 		if (this.equals(Scope.SINGLETON)) {
-			synchronized (mapDirectList) {
-				result = mapDirectList.put(scopeName, bean);
-			}
+			result = registry.put(scopeName, bean);
 		}
 		else if (this.equals(Scope.PROTOTYPE)) {
 			throw new InvalidAddingOperationException(
@@ -149,15 +149,20 @@ public enum Scope implements ScopeImplementation {
 
 		Object result = null;
 		Provider provider = objFactory.getProvider();
-		Map<String, Object> mapDirectList = objFactory.getMapDirectList();
+		SingletonRegistry registry = objFactory.getSingletonRegistry();
 		ServiceHandler serviceHandler = provider.getServiceHandler();
 		// If is Singleton scope
 		if (this.equals(Scope.SINGLETON)) {
-			synchronized (scopeName) {
-				synchronized (mapDirectList) {
-					if (mapDirectList.containsKey(scopeName)) {
-						return mapDirectList.get(scopeName);
-					}
+			result = registry.lookup(scopeName);
+			if (result != AbstractBeanCacher.NULL_SHAREDOBJECT) {
+				return result;
+			}
+			// Only the bean bound to the scope name is locked, the creation
+			// of other singletons is never blocked.
+			synchronized (registry.getCreationLock(scopeName)) {
+				result = registry.lookup(scopeName);
+				if (result != AbstractBeanCacher.NULL_SHAREDOBJECT) {
+					return result;
 				}
 				CoreInstantiationSelector coreSelector = null;
 				String referenceName = null;
@@ -177,8 +182,9 @@ public enum Scope implements ScopeImplementation {
 						return referenceName;
 					}
 				}
+				result = null;
 				try {
-					result = serviceHandler.getService(this,
+					result = serviceHandler.dispatchService(this,
 							BeanCreationProcessor.class, selector);
 				}
 				catch (TooManyListenersException e) {
@@ -189,15 +195,13 @@ public enum Scope implements ScopeImplementation {
 				if (result == NullClass.class)
 					result = null;
 				// Đưa object vừa khởi tạo vào danh sách singleton cache
-				synchronized (mapDirectList) {
-					mapDirectList.put(scopeName, result);
-				}
+				registry.put(scopeName, result);
 			}
 		}
 		// if prototype
 		else if (this.equals(Scope.PROTOTYPE)) {
 			try {
-				result = serviceHandler.getService(this,
+				result = serviceHandler.dispatchService(this,
 						BeanCreationProcessor.class, selector);
 			}
 			catch (TooManyListenersException e) {
@@ -238,12 +242,13 @@ public enum Scope implements ScopeImplementation {
 		Object result = null;
 		Provider provider = objFactory.getProvider();
 		Map<String, ScopeInstance> scopeList = objFactory.getScopeList();
-		Map<String, Object> mapDirectList = objFactory.getMapDirectList();
+		SingletonRegistry registry = objFactory.getSingletonRegistry();
 		synchronized (scopeList) {
 			if (scopeList.containsKey(scopeName)) {
 				scopeList.remove(scopeName);
 			}
 		}
+		objFactory.notifyBindingChanged();
 		// If is Prototype scope
 		if (this != null) {
 			if (this.equals(Scope.PROTOTYPE)) {
@@ -252,9 +257,7 @@ public enum Scope implements ScopeImplementation {
 			}
 			// If is Singleton scope
 			else if (this.equals(Scope.SINGLETON)) {
-				synchronized (mapDirectList) {
-					result = mapDirectList.remove(scopeName);
-				}
+				result = registry.remove(scopeName);
 				return result;
 			}
 			else if (this.equals(Scope.REQUEST) || this.equals(Scope.SESSION)
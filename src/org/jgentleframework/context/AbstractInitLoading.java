@@ -19,8 +19,12 @@ package org.jgentleframework.context;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,8 +37,10 @@ import org.jgentleframework.context.injecting.AbstractBeanFactory;
 import org.jgentleframework.context.injecting.AbstractLoadingFactory;
 import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.core.JGentleException;
+import org.jgentleframework.core.handling.DefinitionManager;
 import org.jgentleframework.reflection.DefinitionPostProcessor;
 import org.jgentleframework.reflection.annohandler.AnnotationBeanProcessor;
+import org.jgentleframework.reflection.metadata.Definition;
 import org.jgentleframework.utils.ReflectUtils;
 
 /**
@@ -105,8 +111,15 @@ public abstract class AbstractInitLoading {
 		 * Registers all Extension-Points
 		 */
 		if (loadingFactory != null) {
+			long start = System.nanoTime();
 			loadingFactory.load_DefinitionPostProcessor(dppList);
 			loadingFactory.load_AnnotationBeanProcessor(abpHash);
+			ParallelBootstrap.logPhase("extension points", start);
+			if (ParallelBootstrap.isEnabled()) {
+				prewarmDefinitions(provider.getDefinitionManager(), oaList,
+						beanClassList, obcList);
+			}
+			start = System.nanoTime();
 			/*
 			 * configured annotation bean loading
 			 */
@@ -119,6 +132,8 @@ public abstract class AbstractInitLoading {
 			loadingFactory.load_ObjectBindingConstantList(obcList, notLazyList,
 					true, annotateIDList);
 			AbstractBeanFactory.buildDefBeanAnnotate(provider, annotateIDList);
+			ParallelBootstrap.logPhase("annotation beans", start);
+			start = System.nanoTime();
 			/*
 			 * configured bean loading
 			 */
@@ -129,11 +144,16 @@ public abstract class AbstractInitLoading {
 					Types.NON_ANNOTATION);
 			loadingFactory.load_ObjectBindingConstantList(obcList, notLazyList,
 					false);
+			ParallelBootstrap.logPhase("beans", start);
+			start = System.nanoTime();
 			provider.getDetectorController().handling(OLArray);
+			ParallelBootstrap.logPhase("detectors", start);
+			start = System.nanoTime();
 			/*
 			 * Creates object beans is non lazy-init.
 			 */
 			AbstractBeanFactory.buildObjectBeanFromInfo(provider, notLazyList);
+			ParallelBootstrap.logPhase("non lazy-init beans", start);
 		}
 		else {
 			if (log.isFatalEnabled()) {
@@ -142,4 +162,46 @@ public abstract class AbstractInitLoading {
 			}
 		}
 	}
+
+	/**
+	 * Builds in parallel the {@link Definition definitions} of the bean
+	 * classes which are going to be loaded, so that they are already available
+	 * when beans are loaded sequentially.
+	 * 
+	 * @param defManager
+	 *            the definition manager
+	 * @param oaList
+	 *            the object attach list
+	 * @param beanClassList
+	 *            the bean class list
+	 * @param obcList
+	 *            the object binding constant list
+	 */
+	private static void prewarmDefinitions(final DefinitionManager defManager,
+			List<ObjectAttach<?>> oaList, List<Class<?>> beanClassList,
+			List<ObjectBindingConstant> obcList) {
+
+		Set<Class<?>> classes = new LinkedHashSet<Class<?>>(beanClassList);
+		for (ObjectAttach<?> oa : oaList) {
+			for (Entry<Class<?>, Class<?>> entry : oa.getMappingEntrySet()) {
+				classes.add(entry.getValue());
+			}
+		}
+		for (ObjectBindingConstant obc : obcList) {
+			if (obc.getInClass() != null) {
+				classes.add(obc.getInClass());
+			}
+		}
+		List<Callable<Definition>> tasks = new ArrayList<Callable<Definition>>();
+		for (final Class<?> clazz : classes) {
+			tasks.add(new Callable<Definition>() {
+				@Override
+				public Definition call() {
+
+					return defManager.getDefinition(clazz);
+				}
+			});
+		}
+		ParallelBootstrap.invokeAll("definitions", tasks);
+	}
 }
@@ -90,9 +90,11 @@ public abstract class AbstractServiceManagement extends ProviderCoreCreator
 		String mappingName = asc.ref;
 		CoreInstantiationSelector coreSelector = new CoreInstantiationSelectorImpl(
 				type, targetClass, asc.ref, definition);
-		ScopeInstance scope = null;
-		synchronized (scopeList) {
-			scope = scopeList.get(asc.scopeName);
+		ScopeInstance scope = asc.scope;
+		if (scope == null) {
+			synchronized (scopeList) {
+				scope = scopeList.get(asc.scopeName);
+			}
 		}
 		try {
 			if (scope != null && !scope.equals(Scope.SINGLETON)) {
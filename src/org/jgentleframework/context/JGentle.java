@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -248,22 +249,16 @@ public abstract class JGentle {
 					absCfgList);
 		}
 		// Khởi tạo config instance
-		List<Configurable> objectList = new ArrayList<Configurable>();
+		long start = System.nanoTime();
+		List<Callable<List<Configurable>>> tasks = new ArrayList<Callable<List<Configurable>>>();
 		for (Class<? extends Configurable> targetClass : absCfgList) {
-			Configurable result = ConfigurationProxy.createProxy(targetClass,
-					argsType, args);
-			result.configure();
-			// Tìm các imported configurable class nếu có
-			List<ConfigurableImporter> importingList = result
-					.getImportsCfgLst();
-			List<Configurable> allResults = new ArrayList<Configurable>();
-			if (importingList != null && importingList.size() != 0) {
-				for (ConfigurableImporter ci : importingList) {
-					allResults.add(ConfigurationProxy.createProxy(ci
-							.getConfigurableClass(), ci.argsType(), ci.args()));
-				}
-			}
-			allResults.add(result);
+			tasks.add(new ConfigurableTask(targetClass, argsType, args));
+		}
+		// config instances are merged in the order of config classes
+		List<Configurable> objectList = new ArrayList<Configurable>();
+		for (List<Configurable> allResults : ParallelBootstrap.invokeAll(
+				"configure", tasks)) {
+			Configurable result = allResults.get(allResults.size() - 1);
 			for (Configurable objResult : allResults) {
 				// Nếu context khởi tạo là một Services Context
 				if (serviceProvider) {
@@ -295,9 +290,12 @@ public abstract class JGentle {
 				objectList.add(objResult);
 			}
 		}
+		ParallelBootstrap.logPhase("configurations", start);
+		start = System.nanoTime();
 		Context result = null;
 		result = buildContext(serviceHandler, serviceProvider, objectList
 				.toArray(new Configurable[objectList.size()]));
+		ParallelBootstrap.logPhase("context", start);
 		/*
 		 * Clear toàn bộ config object
 		 */
@@ -781,4 +779,64 @@ public abstract class JGentle {
 		}
 		return (T) JGentle.configObjClassList.remove(interfaze);
 	}
+
+	/**
+	 * Creates and configures the config instance of a configurable class and
+	 * creates the config instances of its imported configurable classes. The
+	 * config instance of the configurable class is the last element of the
+	 * returned list.
+	 */
+	private static final class ConfigurableTask implements
+			Callable<List<Configurable>> {
+		/** The configurable class. */
+		private final Class<? extends Configurable>	targetClass;
+
+		/** The args type. */
+		private final Class<?>[]					argsType;
+
+		/** The args. */
+		private final Object[]						args;
+
+		/**
+		 * Instantiates a new configurable task.
+		 * 
+		 * @param targetClass
+		 *            the configurable class
+		 * @param argsType
+		 *            the args type
+		 * @param args
+		 *            the args
+		 */
+		ConfigurableTask(Class<? extends Configurable> targetClass,
+				Class<?>[] argsType, Object[] args) {
+
+			this.targetClass = targetClass;
+			this.argsType = argsType;
+			this.args = args;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public List<Configurable> call() {
+
+			Configurable result = ConfigurationProxy.createProxy(
+					this.targetClass, this.argsType, this.args);
+			result.configure();
+			// Tìm các imported configurable class nếu có
+			List<ConfigurableImporter> importingList = result
+					.getImportsCfgLst();
+			List<Configurable> allResults = new ArrayList<Configurable>();
+			if (importingList != null && importingList.size() != 0) {
+				for (ConfigurableImporter ci : importingList) {
+					allResults.add(ConfigurationProxy.createProxy(ci
+							.getConfigurableClass(), ci.argsType(), ci.args()));
+				}
+			}
+			allResults.add(result);
+			return allResults;
+		}
+	}
 }
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jgentleframework.configure.BindingException;
 import org.jgentleframework.configure.Configurable;
@@ -45,6 +46,7 @@ import org.jgentleframework.context.injecting.AbstractBeanFactory;
 import org.jgentleframework.context.injecting.AnnotatingExecutor;
 import org.jgentleframework.context.injecting.ObjectBeanFactory;
 import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.context.injecting.SingletonRegistry;
 import org.jgentleframework.context.injecting.scope.InvalidAddingOperationException;
 import org.jgentleframework.context.injecting.scope.ScopeImplementation;
 import org.jgentleframework.context.injecting.scope.ScopeInstance;
@@ -82,8 +84,8 @@ abstract class ObjectBeanFactoryImpl implements ObjectBeanFactory {
 	/** The {@link Map map} holds mapping list which has mapping name. */
 	protected Map<String, Entry<Class<?>, Class<?>>>	aliasMap			= new HashMap<String, Entry<Class<?>, Class<?>>>();
 
-	/** The {@link Map map} holds mapping constants. */
-	protected Map<String, Object>						mapDirectList		= new HashMap<String, Object>();
+	/** The {@link Map map} holds mapping constants and shared singletons. */
+	protected SingletonRegistry							mapDirectList		= new SingletonRegistry();
 
 	/** The {@link Map map} holds mapping scoped list. */
 	protected Map<String, ScopeInstance>				scopeList			= new HashMap<String, ScopeInstance>();
@@ -91,6 +93,9 @@ abstract class ObjectBeanFactoryImpl implements ObjectBeanFactory {
 	/** The {@link Map map} holds mapping list. */
 	protected Map<Class<?>, Class<?>>					mappingList			= new HashMap<Class<?>, Class<?>>();
 
+	/** The binding version. */
+	private final AtomicInteger							bindingVersion		= new AtomicInteger();
+
 	/**
 	 * Instantiates a new object bean factory impl.
 	 * 
@@ -531,6 +536,7 @@ abstract class ObjectBeanFactoryImpl implements ObjectBeanFactory {
 				}
 			}
 		}
+		notifyBindingChanged();
 	}
 
 	/*
@@ -601,6 +607,7 @@ abstract class ObjectBeanFactoryImpl implements ObjectBeanFactory {
 		String scopeName = Utils.createScopeName(inClass, inClass,
 				this.definitionManager.getDefinition(ID), null);
 		this.scopeList.put(scopeName, objBndCst.getScope());
+		notifyBindingChanged();
 	}
 
 	/*
@@ -628,6 +635,7 @@ abstract class ObjectBeanFactoryImpl implements ObjectBeanFactory {
 				}
 			}
 		}
+		notifyBindingChanged();
 	}
 
 	/*
@@ -703,6 +711,42 @@ abstract class ObjectBeanFactoryImpl implements ObjectBeanFactory {
 		return this.mapDirectList;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.context.injecting.ObjectBeanFactory#getSingletonRegistry
+	 * ()
+	 */
+	@Override
+	public SingletonRegistry getSingletonRegistry() {
+
+		return this.mapDirectList;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.context.injecting.ObjectBeanFactory#getBindingVersion
+	 * ()
+	 */
+	@Override
+	public int getBindingVersion() {
+
+		return this.bindingVersion.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.context.injecting.ObjectBeanFactory#notifyBindingChanged
+	 * ()
+	 */
+	@Override
+	public void notifyBindingChanged() {
+
+		this.bindingVersion.incrementAndGet();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
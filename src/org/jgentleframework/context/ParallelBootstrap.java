@@ -0,0 +1,212 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.core.JGentleRuntimeException;
+
+/**
+ * Runs the independent tasks of container bootstrap in parallel and reports
+ * the time spent in each bootstrap phase. Results are always returned in the
+ * order the tasks were given, so that merging them into the container is
+ * deterministic regardless of the order in which the tasks complete.
+ * <p>
+ * Parallel bootstrap is optional, it is enabled through the system property
+ * {@value #PARALLEL_BOOTSTRAP_PROPERTY}. When it is disabled, tasks run
+ * sequentially in the calling thread. Phase timings are logged at
+ * <code>INFO</code> level when parallel bootstrap is enabled, otherwise at
+ * <code>DEBUG</code> level.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see JGentle
+ * @see AbstractInitLoading
+ */
+final class ParallelBootstrap {
+	/** The system property enabling parallel bootstrap. */
+	static final String			PARALLEL_BOOTSTRAP_PROPERTY	= "jgentle.parallelBootstrap";
+
+	/** The log. */
+	private static final Log	log							= LogFactory
+																	.getLog(ParallelBootstrap.class);
+
+	/** Whether parallel bootstrap is enabled. */
+	private static final boolean	enabled						= Boolean
+																	.getBoolean(PARALLEL_BOOTSTRAP_PROPERTY);
+
+	/**
+	 * Instantiates a new parallel bootstrap.
+	 */
+	private ParallelBootstrap() {
+
+	}
+
+	/**
+	 * Returns <b>true</b> if parallel bootstrap is enabled.
+	 */
+	static boolean isEnabled() {
+
+		return enabled;
+	}
+
+	/**
+	 * Executes the given tasks and returns their results in the same order.
+	 * If one of the tasks fails, its exception is rethrown once all tasks
+	 * have completed.
+	 *
+	 * @param phase
+	 *            the bootstrap phase name
+	 * @param tasks
+	 *            the tasks
+	 * @return the results
+	 */
+	static <T> List<T> invokeAll(String phase,
+			List<? extends Callable<T>> tasks) {
+
+		long start = System.nanoTime();
+		List<T> result = new ArrayList<T>(tasks.size());
+		int threads = Math.min(tasks.size(), Runtime.getRuntime()
+				.availableProcessors());
+		if (!enabled || threads < 2) {
+			for (Callable<T> task : tasks) {
+				try {
+					result.add(task.call());
+				}
+				catch (Exception e) {
+					throw rethrow(phase, e);
+				}
+			}
+		}
+		else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads,
+					new BootstrapThreadFactory(phase));
+			try {
+				List<Future<T>> futures = executor.invokeAll(tasks);
+				for (Future<T> future : futures) {
+					result.add(future.get());
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw rethrow(phase, e);
+			}
+			catch (ExecutionException e) {
+				throw rethrow(phase, e.getCause());
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+		logPhase(phase + " (" + tasks.size() + " tasks)", start);
+		return result;
+	}
+
+	/**
+	 * Logs the time spent in the given phase.
+	 *
+	 * @param phase
+	 *            the bootstrap phase name
+	 * @param start
+	 *            the start time of the phase, in nanoseconds.
+	 */
+	static void logPhase(String phase, long start) {
+
+		if (enabled ? log.isInfoEnabled() : log.isDebugEnabled()) {
+			String message = "Bootstrap phase [" + phase + "] took "
+					+ (System.nanoTime() - start) / 1000000 + " ms";
+			if (enabled)
+				log.info(message);
+			else
+				log.debug(message);
+		}
+	}
+
+	/**
+	 * Rethrows the given exception thrown by a bootstrap task.
+	 *
+	 * @param phase
+	 *            the bootstrap phase name
+	 * @param e
+	 *            the exception
+	 * @return never returns normally
+	 */
+	private static RuntimeException rethrow(String phase, Throwable e) {
+
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		}
+		else if (e instanceof Error) {
+			throw (Error) e;
+		}
+		JGentleRuntimeException ex = new JGentleRuntimeException(
+				"Bootstrap phase [" + phase + "] failed !");
+		ex.initCause(e);
+		throw ex;
+	}
+
+	/**
+	 * The factory of bootstrap worker threads.
+	 */
+	private static final class BootstrapThreadFactory implements
+			ThreadFactory {
+		/** The phase name. */
+		private final String		phase;
+
+		/** The thread counter. */
+		private final AtomicInteger	counter	= new AtomicInteger();
+
+		/**
+		 * Instantiates a new bootstrap thread factory.
+		 *
+		 * @param phase
+		 *            the phase name
+		 */
+		BootstrapThreadFactory(String phase) {
+
+			this.phase = phase;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+		 */
+		@Override
+		public Thread newThread(Runnable r) {
+
+			Thread thread = new Thread(r, "jgentle-bootstrap-" + this.phase
+					+ "-" + this.counter.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setContextClassLoader(Thread.currentThread()
+					.getContextClassLoader());
+			return thread;
+		}
+	}
+}
@@ -30,6 +30,7 @@ import org.jgentleframework.context.injecting.AbstractBeanFactory;
 import org.jgentleframework.context.injecting.AppropriateScopeNameClass;
 import org.jgentleframework.context.injecting.ObjectBeanFactory;
 import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.context.injecting.SingletonInstanceScopeName;
 import org.jgentleframework.context.injecting.autodetect.AutoLoadingDefinitionDetector;
 import org.jgentleframework.context.injecting.autodetect.Detector;
 import org.jgentleframework.context.injecting.autodetect.ExtensionPointsDetector;
@@ -104,6 +105,7 @@ class ProviderCoreCreator extends AbstractBeanFactory implements Provider {
 		};
 		this.mappingList = this.objectBeanFactory.getMappingList();
 		this.mapDirectList = this.objectBeanFactory.getMapDirectList();
+		this.singletonRegistry = this.objectBeanFactory.getSingletonRegistry();
 		this.aliasMap = this.objectBeanFactory.getAliasMap();
 		this.scopeList = this.objectBeanFactory.getScopeList();
 		this.detectorController = new FirstDetector(this);
@@ -322,7 +324,13 @@ class ProviderCoreCreator extends AbstractBeanFactory implements Provider {
 	@Override
 	public Object getRefInstance(String refInstance) {
 
-		Object result = null;
+		// a reference resolved to a shared object is served by a single map
+		// hit, before it is parsed.
+		Object result = returnSharedObject(this.rootScopeName.get(refInstance));
+		if (result != NULL_SHAREDOBJECT) {
+			return result;
+		}
+		result = null;
 		if (refInstance.equals(Configurable.REF_MAPPING)) {
 			if (log.isErrorEnabled()) {
 				log.error("Mapping type reference is not supported !",
@@ -338,6 +346,11 @@ class ProviderCoreCreator extends AbstractBeanFactory implements Provider {
 				else {
 					String scopeName = Utils.createScopeName(values[1]);
 					result = this.mapDirectList.get(scopeName);
+					if (result != null) {
+						this.rootScopeName.put(refInstance,
+								new SingletonInstanceScopeName(scopeName,
+										NULL_SHAREDOBJECT));
+					}
 				}
 			}
 			// TODO fix other Configurable.REF_MAPPING
@@ -353,8 +366,15 @@ class ProviderCoreCreator extends AbstractBeanFactory implements Provider {
 					}
 					result = this.getBean(clazz);
 				}
-				else
+				else {
 					result = this.getBeanBoundToMapping(values[1]);
+					// the reference shares the slot of its singleton alias.
+					SingletonInstanceScopeName sisn = this.rootScopeName
+							.get(Configurable.REF_MAPPING + values[1]);
+					if (result != null && sisn != null) {
+						this.rootScopeName.put(refInstance, sisn);
+					}
+				}
 			}
 			else if (values[0].startsWith(Configurable.REF_ID)) {
 				result = this.getBeanBoundToDefinition(values[1]);
@@ -21,6 +21,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,6 +35,9 @@ import org.jgentleframework.context.support.CoreInstantiationSelector;
 import org.jgentleframework.core.AmbiguousException;
 import org.jgentleframework.core.factory.support.CachedConstructor;
 import org.jgentleframework.core.factory.support.CommonFactory;
+import org.jgentleframework.core.factory.support.CompiledInjector;
+import org.jgentleframework.core.factory.support.MetaDefObject;
+import org.jgentleframework.core.handling.DefinitionManager;
 import org.jgentleframework.reflection.metadata.Definition;
 import org.jgentleframework.utils.ReflectUtils;
 import org.jgentleframework.utils.Utils;
@@ -53,6 +57,11 @@ public abstract class AbstractBeanCacher extends AbstractLoadingFactory
 	/** The caching list. */
 	protected Map<Definition, CachedConstructor>		cachingList			= new HashMap<Definition, CachedConstructor>();
 
+	/** The container metrics, <b>null</b> if metrics are disabled. */
+	protected final ContainerMetrics					containerMetrics	= ContainerMetrics
+																					.isEnabled() ? new ContainerMetrics()
+																					: null;
+
 	/** The log. */
 	protected final Log									log					= LogFactory
 																					.getLog(this
@@ -67,8 +76,11 @@ public abstract class AbstractBeanCacher extends AbstractLoadingFactory
 	/** The NULL sharedobject. */
 	public static final Object							NULL_SHAREDOBJECT	= new Object();
 
+	/** The resolution plans, keyed by lookup root. */
+	protected final Map<Object, AppropriateScopeNameClass>	resolutionPlans	= new ConcurrentHashMap<Object, AppropriateScopeNameClass>();
+
 	/** The root scope name. */
-	protected Map<Object, SingletonInstanceScopeName>	rootScopeName		= new HashMap<Object, SingletonInstanceScopeName>();
+	protected Map<Object, SingletonInstanceScopeName>	rootScopeName		= new ConcurrentHashMap<Object, SingletonInstanceScopeName>();
 
 	/** The {@link ScopeController}. */
 	protected ScopeController							scopeController		= new ScopeController();
@@ -79,15 +91,70 @@ public abstract class AbstractBeanCacher extends AbstractLoadingFactory
 	/** The {@link ServiceHandler}. */
 	protected ServiceHandler							serviceHandler		= null;
 
+	/** The {@link SingletonRegistry} backing the map direct list. */
+	protected SingletonRegistry							singletonRegistry	= null;
+
 	/**
-	 * Do appropriate scope name.
+	 * Returns the current binding version, combining the binding version of
+	 * {@link ObjectBeanFactory} and the version of {@link DefinitionManager}.
+	 * Both of them only increase, so any binding or definition change results
+	 * in a different value.
+	 * 
+	 * @return the binding version
+	 */
+	protected int currentBindingVersion() {
+
+		return this.objectBeanFactory.getBindingVersion()
+				+ this.definitionManager.getVersion();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.context.injecting.Provider#getContainerMetrics()
+	 */
+	@Override
+	public ContainerMetrics getContainerMetrics() {
+
+		return this.containerMetrics;
+	}
+
+	/**
+	 * Do appropriate scope name. The resolved {@link AppropriateScopeNameClass}
+	 * is cached as a resolution plan keyed by the given lookup root, so that
+	 * subsequent lookups are served by a single map hit until binding data or
+	 * definitions are changed.
 	 * 
 	 * @param obj
-	 *            the obj
+	 *            the lookup root, a {@link Class}, a {@link Definition} or a
+	 *            reference string.
 	 * @return the appropriate scope name class
 	 */
 	protected AppropriateScopeNameClass doAppropriateScopeName(Object obj) {
 
+		int version = currentBindingVersion();
+		AppropriateScopeNameClass result = this.resolutionPlans.get(obj);
+		if (result != null && result.version == version) {
+			return result;
+		}
+		result = resolveAppropriateScopeName(obj);
+		result.version = version;
+		// the plan is only cached when the scope has already been bound.
+		if (result.scope != null) {
+			this.resolutionPlans.put(obj, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves appropriate scope name.
+	 * 
+	 * @param obj
+	 *            the lookup root
+	 * @return the appropriate scope name class
+	 */
+	private AppropriateScopeNameClass resolveAppropriateScopeName(Object obj) {
+
 		Class<?> clazz = null;
 		Class<?> targetClass = null;
 		Definition definition = null;
@@ -115,7 +182,7 @@ public abstract class AbstractBeanCacher extends AbstractLoadingFactory
 		else if (ReflectUtils.isCast(String.class, obj)) {
 			String str = (String) obj;
 			if (str.startsWith(Configurable.REF_MAPPING)) {
-				ref = str.replaceFirst(Configurable.REF_MAPPING, "").trim();
+				ref = str.substring(Configurable.REF_MAPPING.length()).trim();
 				Entry<Class<?>, Class<?>> entry = aliasMap.get(ref);
 				if (entry == null) {
 					throw new AmbiguousException("The alias name [" + ref
@@ -131,8 +198,8 @@ public abstract class AbstractBeanCacher extends AbstractLoadingFactory
 						definition, mappingName);
 			}
 			else if (str.startsWith(Configurable.REF_CONSTANT)) {
-				String instanceName = str.replaceFirst(
-						Configurable.REF_CONSTANT, "").trim();
+				String instanceName = str.substring(
+						Configurable.REF_CONSTANT.length()).trim();
 				ref = REF.REF_CONSTANT + instanceName;
 				root = str;
 				scopeName = Utils.createScopeName(instanceName);
@@ -149,8 +216,10 @@ public abstract class AbstractBeanCacher extends AbstractLoadingFactory
 			this.rootScopeName.put(root, new SingletonInstanceScopeName(
 					scopeName, AbstractBeanCacher.NULL_SHAREDOBJECT));
 		}
-		return new AppropriateScopeNameClass(clazz, targetClass, definition,
-				ref, scopeName, mappingName);
+		AppropriateScopeNameClass result = new AppropriateScopeNameClass(
+				clazz, targetClass, definition, ref, scopeName, mappingName);
+		result.scope = scope;
+		return result;
 	}
 
 	/**
@@ -182,40 +251,57 @@ public abstract class AbstractBeanCacher extends AbstractLoadingFactory
 		Definition definition = targetSelector.getDefinition();
 		// find in cache
 		CachedConstructor cons = cachingList.get(definition);
-		if (cons != null) {
-			int hashcodeID = cons.hashcodeID();
-			if (hashcodeID == (definition.hashCode() ^ cons.hashCode())) {
-				result = cons.newInstance(targetSelector.getArgs());
-				CommonFactory.singleton().executeProcessAfterBeanCreated(
-						targetSelector.getTargetClass(),
-						cons.getMetaDefObject(), this, result, definition);
-				return result;
+		boolean hit = cons != null
+				&& cons.hashcodeID() == (definition.hashCode() ^ cons
+						.hashCode());
+		if (this.containerMetrics != null) {
+			this.containerMetrics.cachedConstructorLookup(hit);
+		}
+		if (hit) {
+			long start = this.containerMetrics != null ? System.nanoTime() : 0;
+			MetaDefObject mdo = cons.getMetaDefObject();
+			// the bean is created again, its wiring is worth compiling
+			if (CompiledInjector.isEnabled() && mdo != null
+					&& definition.getKey() instanceof Class<?>) {
+				mdo.compileInjector((Class<?>) definition.getKey());
+			}
+			result = cons.newInstance(targetSelector.getArgs());
+			CommonFactory.singleton().executeProcessAfterBeanCreated(
+					targetSelector.getTargetClass(), mdo, this, result,
+					definition);
+			if (this.containerMetrics != null) {
+				this.containerMetrics.beanInstantiated(definition, System
+						.nanoTime() - start);
 			}
 		}
 		return result;
 	}
 
 	/**
-	 * Returns shared object.
+	 * Returns shared object. This method never locks, the shared instance is
+	 * read from the {@link SingletonRegistry} and then cached in the given
+	 * {@link SingletonInstanceScopeName}.
 	 * 
-	 * @param scopeName
-	 *            the scope name
-	 * @return the object
+	 * @param sisn
+	 *            the singleton instance scope name
+	 * @return the shared object if it was created, otherwise returns
+	 *         {@link #NULL_SHAREDOBJECT}.
 	 */
 	protected Object returnSharedObject(SingletonInstanceScopeName sisn) {
 
 		Object instance = NULL_SHAREDOBJECT;
 		if (sisn != null) {
-			String scopeName = sisn.scopeName;
 			instance = sisn.sharedSingleton;
 			if (instance == NULL_SHAREDOBJECT) {
-				synchronized (scopeName) {
-					if (mapDirectList.containsKey(scopeName)) {
-						instance = mapDirectList.get(scopeName);
-						sisn.sharedSingleton = instance;
-					}
+				instance = singletonRegistry.lookup(sisn.scopeName);
+				if (instance != NULL_SHAREDOBJECT) {
+					sisn.sharedSingleton = instance;
 				}
 			}
+			if (this.containerMetrics != null) {
+				this.containerMetrics
+						.singletonRegistryLookup(instance != NULL_SHAREDOBJECT);
+			}
 		}
 		return instance;
 	}
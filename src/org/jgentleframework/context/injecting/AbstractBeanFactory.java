@@ -350,9 +350,11 @@ public abstract class AbstractBeanFactory extends AbstractBeanCacher implements
 	protected Object getBeanInstance(AppropriateScopeNameClass asc) {
 
 		Object result = null;
-		ScopeInstance scope = null;
-		synchronized (scopeList) {
-			scope = scopeList.get(asc.scopeName);
+		ScopeInstance scope = asc.scope;
+		if (scope == null) {
+			synchronized (scopeList) {
+				scope = scopeList.get(asc.scopeName);
+			}
 		}
 		CoreInstantiationSelector coreSelector = new CoreInstantiationSelectorImpl(
 				asc.clazz, asc.targetClass, asc.mappingName, null, null,
@@ -443,18 +445,20 @@ public abstract class AbstractBeanFactory extends AbstractBeanCacher implements
 				String nameScopeFac = scopeName + ":"
 						+ FactoryBean.class.toString();
 				if (factoryBean.isSingleton()) {
-					synchronized (mapDirectList) {
-						if (mapDirectList.containsKey(nameScopeFac)) {
-							return this.objectBeanFactory.getMapDirectList()
-									.get(nameScopeFac);
-						}
-						else {
-							Object resultFac = CommonFactory.singleton()
+					Object resultFac = singletonRegistry.lookup(nameScopeFac);
+					if (resultFac != NULL_SHAREDOBJECT) {
+						return resultFac;
+					}
+					synchronized (singletonRegistry
+							.getCreationLock(nameScopeFac)) {
+						resultFac = singletonRegistry.lookup(nameScopeFac);
+						if (resultFac == NULL_SHAREDOBJECT) {
+							resultFac = CommonFactory.singleton()
 									.executeFactoryBean(factoryBean,
 											targetClass);
-							mapDirectList.put(nameScopeFac, resultFac);
-							return resultFac;
+							singletonRegistry.put(nameScopeFac, resultFac);
 						}
+						return resultFac;
 					}
 				}
 				else {
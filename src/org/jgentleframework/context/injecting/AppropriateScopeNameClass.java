@@ -17,10 +17,13 @@
  */
 package org.jgentleframework.context.injecting;
 
+import org.jgentleframework.context.injecting.scope.ScopeInstance;
 import org.jgentleframework.reflection.metadata.Definition;
 
 /**
- * The Class AppropriateScopeNameClass.
+ * The Class AppropriateScopeNameClass. Instances of this class are the
+ * resolution plans cached by {@link AbstractBeanCacher}, they must not be
+ * modified once they are published.
  * 
  * @author Quoc Chung - mailto: <a
  *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
@@ -79,4 +82,10 @@ public class AppropriateScopeNameClass {
 
 	/** The mapping name. */
 	String				mappingName	= null;
+
+	/** The scope resolved from scope name. */
+	public ScopeInstance	scope		= null;
+
+	/** The binding version this plan was resolved against. */
+	int					version		= 0;
 }
@@ -0,0 +1,718 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.context.injecting;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.core.factory.support.CachedConstructor;
+import org.jgentleframework.reflection.metadata.Definition;
+import org.jgentleframework.utils.data.LatencyHistogram;
+import org.jgentleframework.utils.data.StripedCounter;
+
+/**
+ * Collects the runtime statistics of one {@link Provider}: instantiation
+ * counts and latencies per {@link Definition}, {@link CachedConstructor} hit
+ * rates, {@link SingletonRegistry} hits, proxy class generation and
+ * interceptor chain depths. The statistics are exposed through
+ * {@link #snapshot()} and, once {@link #registerMBean() registered}, as a JMX
+ * MBean.
+ * <p>
+ * Metrics are optional, they are enabled through the system property
+ * {@value #METRICS_PROPERTY}. When they are disabled, the provider has no
+ * {@link ContainerMetrics} and instrumented code paths only perform a null
+ * check. Recording never locks, counters are striped between threads.
+ * <p>
+ * The provider does not register its metrics as an MBean, since the MBean
+ * server would keep the whole container reachable. Callers who want them in
+ * JMX call {@link #registerMBean()}, and {@link #unregisterMBean()} once the
+ * container is discarded.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see Provider#getContainerMetrics()
+ */
+public class ContainerMetrics implements ContainerMetricsMBean {
+	/** The system property enabling metrics. */
+	public static final String								METRICS_PROPERTY			= "jgentle.metrics";
+
+	/** The JMX domain of registered MBeans. */
+	public static final String								JMX_DOMAIN					= "org.jgentleframework";
+
+	/** Whether metrics are enabled. */
+	private static final boolean							enabled						= Boolean
+																								.getBoolean(METRICS_PROPERTY);
+
+	/** The MBean id counter. */
+	private static final AtomicInteger						idCounter					= new AtomicInteger();
+
+	/** The log. */
+	private static final Log								log							= LogFactory
+																								.getLog(ContainerMetrics.class);
+
+	/** The instantiation latencies, keyed by definition key. */
+	private final ConcurrentMap<Object, LatencyHistogram>	instantiations				= new ConcurrentHashMap<Object, LatencyHistogram>();
+
+	/** The cached constructor hits. */
+	private final StripedCounter							cachedConstructorHits		= new StripedCounter();
+
+	/** The cached constructor misses. */
+	private final StripedCounter							cachedConstructorMisses		= new StripedCounter();
+
+	/** The singleton registry hits. */
+	private final StripedCounter							singletonRegistryHits		= new StripedCounter();
+
+	/** The singleton registry misses. */
+	private final StripedCounter							singletonRegistryMisses		= new StripedCounter();
+
+	/** The proxy class requests. */
+	private final StripedCounter							proxyClassRequests			= new StripedCounter();
+
+	/** The distinct proxy classes. */
+	private final ConcurrentMap<Class<?>, Boolean>			proxyClasses				= new ConcurrentHashMap<Class<?>, Boolean>();
+
+	/** The number of intercepted methods. */
+	private final StripedCounter							interceptedMethods			= new StripedCounter();
+
+	/** The total length of interceptor chains. */
+	private final StripedCounter							interceptorChainLength		= new StripedCounter();
+
+	/** The longest interceptor chain. */
+	private final AtomicLong								maxInterceptorChainDepth	= new AtomicLong();
+
+	/** The registered MBean name, or <b>null</b>. */
+	private ObjectName										objectName					= null;
+
+	/**
+	 * Returns <b>true</b> if metrics are enabled.
+	 */
+	public static boolean isEnabled() {
+
+		return enabled;
+	}
+
+	/**
+	 * Records the creation of a bean instance.
+	 *
+	 * @param definition
+	 *            the definition of the bean
+	 * @param nanos
+	 *            the creation time, in nanoseconds.
+	 */
+	public void beanInstantiated(Definition definition, long nanos) {
+
+		Object key = definition == null ? null : definition.getKey();
+		if (key == null) {
+			return;
+		}
+		LatencyHistogram histogram = this.instantiations.get(key);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			LatencyHistogram existing = this.instantiations.putIfAbsent(key,
+					histogram);
+			histogram = existing != null ? existing : histogram;
+		}
+		histogram.record(nanos);
+	}
+
+	/**
+	 * Records a {@link CachedConstructor} lookup.
+	 *
+	 * @param hit
+	 *            <b>true</b> if a cached constructor was found.
+	 */
+	public void cachedConstructorLookup(boolean hit) {
+
+		(hit ? this.cachedConstructorHits : this.cachedConstructorMisses)
+				.increment();
+	}
+
+	/**
+	 * Records a {@link SingletonRegistry} lookup.
+	 *
+	 * @param hit
+	 *            <b>true</b> if a shared instance was found.
+	 */
+	public void singletonRegistryLookup(boolean hit) {
+
+		(hit ? this.singletonRegistryHits : this.singletonRegistryMisses)
+				.increment();
+	}
+
+	/**
+	 * Records a proxy class obtained from the class generator.
+	 *
+	 * @param proxyClass
+	 *            the proxy class
+	 */
+	public void proxyClassCreated(Class<?> proxyClass) {
+
+		this.proxyClassRequests.increment();
+		if (!this.proxyClasses.containsKey(proxyClass)) {
+			this.proxyClasses.putIfAbsent(proxyClass, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Records the interceptor chain of an intercepted method.
+	 *
+	 * @param depth
+	 *            the number of interceptors
+	 */
+	public void interceptorChainCreated(int depth) {
+
+		this.interceptedMethods.increment();
+		this.interceptorChainLength.add(depth);
+		long current = this.maxInterceptorChainDepth.get();
+		while (depth > current
+				&& !this.maxInterceptorChainDepth.compareAndSet(current, depth)) {
+			current = this.maxInterceptorChainDepth.get();
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the current statistics.
+	 */
+	public Snapshot snapshot() {
+
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Registers this object to the platform MBean server under the domain
+	 * {@value #JMX_DOMAIN}. Calling this method again has no effect.
+	 *
+	 * @return the name of the registered MBean, or <b>null</b> if it could not
+	 *         be registered.
+	 */
+	public synchronized ObjectName registerMBean() {
+
+		if (this.objectName == null) {
+			try {
+				ObjectName name = new ObjectName(JMX_DOMAIN
+						+ ":type=ContainerMetrics,id="
+						+ idCounter.incrementAndGet());
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+						name);
+				this.objectName = name;
+			}
+			catch (JMException e) {
+				if (log.isWarnEnabled()) {
+					log.warn("Could not register container metrics MBean !", e);
+				}
+			}
+		}
+		return this.objectName;
+	}
+
+	/**
+	 * Unregisters this object from the platform MBean server.
+	 */
+	public synchronized void unregisterMBean() {
+
+		if (this.objectName != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			try {
+				server.unregisterMBean(this.objectName);
+			}
+			catch (JMException e) {
+				if (log.isWarnEnabled()) {
+					log.warn("Could not unregister container metrics MBean !",
+							e);
+				}
+			}
+			this.objectName = null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getInstantiationCount()
+	 */
+	@Override
+	public long getInstantiationCount() {
+
+		long result = 0;
+		for (LatencyHistogram histogram : this.instantiations.values()) {
+			result += histogram.getCount();
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getCachedConstructorHits()
+	 */
+	@Override
+	public long getCachedConstructorHits() {
+
+		return this.cachedConstructorHits.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getCachedConstructorMisses()
+	 */
+	@Override
+	public long getCachedConstructorMisses() {
+
+		return this.cachedConstructorMisses.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getCachedConstructorHitRate()
+	 */
+	@Override
+	public double getCachedConstructorHitRate() {
+
+		long hits = this.cachedConstructorHits.sum();
+		long total = hits + this.cachedConstructorMisses.sum();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getSingletonRegistryHits()
+	 */
+	@Override
+	public long getSingletonRegistryHits() {
+
+		return this.singletonRegistryHits.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getSingletonRegistryMisses()
+	 */
+	@Override
+	public long getSingletonRegistryMisses() {
+
+		return this.singletonRegistryMisses.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getProxyClassRequests()
+	 */
+	@Override
+	public long getProxyClassRequests() {
+
+		return this.proxyClassRequests.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getProxyClassCount()
+	 */
+	@Override
+	public long getProxyClassCount() {
+
+		return this.proxyClasses.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getInterceptedMethodCount()
+	 */
+	@Override
+	public long getInterceptedMethodCount() {
+
+		return this.interceptedMethods.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getMeanInterceptorChainDepth()
+	 */
+	@Override
+	public double getMeanInterceptorChainDepth() {
+
+		long methods = this.interceptedMethods.sum();
+		return methods == 0 ? 0 : (double) this.interceptorChainLength.sum()
+				/ methods;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getMaxInterceptorChainDepth()
+	 */
+	@Override
+	public long getMaxInterceptorChainDepth() {
+
+		return this.maxInterceptorChainDepth.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.context.injecting.ContainerMetricsMBean#
+	 * getDefinitionStatistics()
+	 */
+	@Override
+	public String[] getDefinitionStatistics() {
+
+		Map<String, DefinitionStatistics> map = snapshot().getDefinitions();
+		String[] result = new String[map.size()];
+		int i = 0;
+		for (DefinitionStatistics statistics : map.values()) {
+			result[i++] = statistics.toString();
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.context.injecting.ContainerMetricsMBean#reset()
+	 */
+	@Override
+	public void reset() {
+
+		this.instantiations.clear();
+		this.cachedConstructorHits.reset();
+		this.cachedConstructorMisses.reset();
+		this.singletonRegistryHits.reset();
+		this.singletonRegistryMisses.reset();
+		this.proxyClassRequests.reset();
+		this.proxyClasses.clear();
+		this.interceptedMethods.reset();
+		this.interceptorChainLength.reset();
+		this.maxInterceptorChainDepth.set(0);
+	}
+
+	/**
+	 * Returns the display name of the given definition key.
+	 */
+	private static String nameOf(Object key) {
+
+		return key instanceof Class<?> ? ((Class<?>) key).getName() : String
+				.valueOf(key);
+	}
+
+	/**
+	 * An immutable copy of the statistics of a {@link ContainerMetrics}.
+	 */
+	public static final class Snapshot {
+		/** The cached constructor hits. */
+		private final long								cachedConstructorHits;
+
+		/** The cached constructor misses. */
+		private final long								cachedConstructorMisses;
+
+		/** The singleton registry hits. */
+		private final long								singletonRegistryHits;
+
+		/** The singleton registry misses. */
+		private final long								singletonRegistryMisses;
+
+		/** The proxy class requests. */
+		private final long								proxyClassRequests;
+
+		/** The number of distinct proxy classes. */
+		private final long								proxyClassCount;
+
+		/** The number of intercepted methods. */
+		private final long								interceptedMethodCount;
+
+		/** The mean interceptor chain depth. */
+		private final double							meanInterceptorChainDepth;
+
+		/** The max interceptor chain depth. */
+		private final long								maxInterceptorChainDepth;
+
+		/** The statistics of each definition, sorted by name. */
+		private final Map<String, DefinitionStatistics>	definitions;
+
+		/**
+		 * Copies the statistics of the given metrics.
+		 *
+		 * @param metrics
+		 *            the metrics
+		 */
+		Snapshot(ContainerMetrics metrics) {
+
+			this.cachedConstructorHits = metrics.getCachedConstructorHits();
+			this.cachedConstructorMisses = metrics.getCachedConstructorMisses();
+			this.singletonRegistryHits = metrics.getSingletonRegistryHits();
+			this.singletonRegistryMisses = metrics.getSingletonRegistryMisses();
+			this.proxyClassRequests = metrics.getProxyClassRequests();
+			this.proxyClassCount = metrics.getProxyClassCount();
+			this.interceptedMethodCount = metrics.getInterceptedMethodCount();
+			this.meanInterceptorChainDepth = metrics
+					.getMeanInterceptorChainDepth();
+			this.maxInterceptorChainDepth = metrics
+					.getMaxInterceptorChainDepth();
+			Map<String, DefinitionStatistics> map = new TreeMap<String, DefinitionStatistics>();
+			for (Entry<Object, LatencyHistogram> entry : metrics.instantiations
+					.entrySet()) {
+				String name = nameOf(entry.getKey());
+				map.put(name, new DefinitionStatistics(name, entry.getValue()));
+			}
+			this.definitions = Collections.unmodifiableMap(map);
+		}
+
+		/**
+		 * Returns the number of bean instances created by the container.
+		 */
+		public long getInstantiationCount() {
+
+			long result = 0;
+			for (DefinitionStatistics statistics : this.definitions.values()) {
+				result += statistics.getCount();
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the cached constructor hits.
+		 */
+		public long getCachedConstructorHits() {
+
+			return this.cachedConstructorHits;
+		}
+
+		/**
+		 * Returns the cached constructor misses.
+		 */
+		public long getCachedConstructorMisses() {
+
+			return this.cachedConstructorMisses;
+		}
+
+		/**
+		 * Returns the singleton registry hits.
+		 */
+		public long getSingletonRegistryHits() {
+
+			return this.singletonRegistryHits;
+		}
+
+		/**
+		 * Returns the singleton registry misses.
+		 */
+		public long getSingletonRegistryMisses() {
+
+			return this.singletonRegistryMisses;
+		}
+
+		/**
+		 * Returns the proxy class requests.
+		 */
+		public long getProxyClassRequests() {
+
+			return this.proxyClassRequests;
+		}
+
+		/**
+		 * Returns the number of distinct proxy classes.
+		 */
+		public long getProxyClassCount() {
+
+			return this.proxyClassCount;
+		}
+
+		/**
+		 * Returns the number of intercepted methods.
+		 */
+		public long getInterceptedMethodCount() {
+
+			return this.interceptedMethodCount;
+		}
+
+		/**
+		 * Returns the mean interceptor chain depth.
+		 */
+		public double getMeanInterceptorChainDepth() {
+
+			return this.meanInterceptorChainDepth;
+		}
+
+		/**
+		 * Returns the max interceptor chain depth.
+		 */
+		public long getMaxInterceptorChainDepth() {
+
+			return this.maxInterceptorChainDepth;
+		}
+
+		/**
+		 * Returns the statistics of each definition, keyed and sorted by
+		 * definition name.
+		 */
+		public Map<String, DefinitionStatistics> getDefinitions() {
+
+			return this.definitions;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			StringBuilder result = new StringBuilder();
+			result.append("instantiations=").append(getInstantiationCount());
+			result.append(", cachedConstructor(hits=").append(
+					this.cachedConstructorHits).append(", misses=").append(
+					this.cachedConstructorMisses).append(")");
+			result.append(", singletonRegistry(hits=").append(
+					this.singletonRegistryHits).append(", misses=").append(
+					this.singletonRegistryMisses).append(")");
+			result.append(", proxyClasses(requests=").append(
+					this.proxyClassRequests).append(", distinct=").append(
+					this.proxyClassCount).append(")");
+			result.append(", interceptorChains(methods=").append(
+					this.interceptedMethodCount).append(", mean=").append(
+					String.format("%.2f", this.meanInterceptorChainDepth))
+					.append(", max=").append(this.maxInterceptorChainDepth)
+					.append(")");
+			for (DefinitionStatistics statistics : this.definitions.values()) {
+				result.append("\n  ").append(statistics);
+			}
+			return result.toString();
+		}
+	}
+
+	/**
+	 * The instantiation statistics of one {@link Definition}. Latencies are in
+	 * nanoseconds, percentiles are upper bounds with a relative error of at
+	 * most a factor of two.
+	 */
+	public static final class DefinitionStatistics {
+		/** The definition name. */
+		private final String	name;
+
+		/** The number of instantiations. */
+		private final long		count;
+
+		/** The mean latency. */
+		private final long		mean;
+
+		/** The median latency. */
+		private final long		p50;
+
+		/** The 99th percentile latency. */
+		private final long		p99;
+
+		/** The max latency. */
+		private final long		max;
+
+		/**
+		 * Copies the given histogram.
+		 *
+		 * @param name
+		 *            the definition name
+		 * @param histogram
+		 *            the histogram
+		 */
+		DefinitionStatistics(String name, LatencyHistogram histogram) {
+
+			this.name = name;
+			this.count = histogram.getCount();
+			this.mean = histogram.getMean();
+			this.p50 = histogram.getPercentile(50);
+			this.p99 = histogram.getPercentile(99);
+			this.max = histogram.getMax();
+		}
+
+		/**
+		 * Returns the definition name.
+		 */
+		public String getName() {
+
+			return this.name;
+		}
+
+		/**
+		 * Returns the number of instantiations.
+		 */
+		public long getCount() {
+
+			return this.count;
+		}
+
+		/**
+		 * Returns the mean latency.
+		 */
+		public long getMean() {
+
+			return this.mean;
+		}
+
+		/**
+		 * Returns the median latency.
+		 */
+		public long getP50() {
+
+			return this.p50;
+		}
+
+		/**
+		 * Returns the 99th percentile latency.
+		 */
+		public long getP99() {
+
+			return this.p99;
+		}
+
+		/**
+		 * Returns the max latency.
+		 */
+		public long getMax() {
+
+			return this.max;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			return this.name + " count=" + this.count + " mean=" + this.mean
+					+ "ns p50<=" + this.p50 + "ns p99<=" + this.p99 + "ns max="
+					+ this.max + "ns";
+		}
+	}
+}
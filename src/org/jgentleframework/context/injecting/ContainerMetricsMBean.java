@@ -0,0 +1,96 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.context.injecting;
+
+/**
+ * The management interface of {@link ContainerMetrics}.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see ContainerMetrics
+ */
+public interface ContainerMetricsMBean {
+	/**
+	 * Returns the number of bean instances created by the container.
+	 */
+	public long getInstantiationCount();
+
+	/**
+	 * Returns the number of bean instances created from a cached constructor.
+	 */
+	public long getCachedConstructorHits();
+
+	/**
+	 * Returns the number of lookups which did not find a cached constructor.
+	 */
+	public long getCachedConstructorMisses();
+
+	/**
+	 * Returns the ratio of cached constructor hits, between <b>0</b> and
+	 * <b>1</b>.
+	 */
+	public double getCachedConstructorHitRate();
+
+	/**
+	 * Returns the number of shared instances found in the singleton registry.
+	 */
+	public long getSingletonRegistryHits();
+
+	/**
+	 * Returns the number of lookups which did not find a shared instance.
+	 */
+	public long getSingletonRegistryMisses();
+
+	/**
+	 * Returns the number of proxy classes requested from the class generator.
+	 */
+	public long getProxyClassRequests();
+
+	/**
+	 * Returns the number of distinct proxy classes obtained from the class
+	 * generator.
+	 */
+	public long getProxyClassCount();
+
+	/**
+	 * Returns the number of intercepted methods of created proxy classes.
+	 */
+	public long getInterceptedMethodCount();
+
+	/**
+	 * Returns the mean length of the interceptor chain of intercepted methods.
+	 */
+	public double getMeanInterceptorChainDepth();
+
+	/**
+	 * Returns the length of the longest interceptor chain.
+	 */
+	public long getMaxInterceptorChainDepth();
+
+	/**
+	 * Returns the instantiation statistics of each definition, one line per
+	 * definition.
+	 */
+	public String[] getDefinitionStatistics();
+
+	/**
+	 * Resets all counters.
+	 */
+	public void reset();
+}
@@ -219,6 +219,31 @@ public interface ObjectBeanFactory {
 	 */
 	public Map<String, Object> getMapDirectList();
 
+	/**
+	 * Returns the {@link SingletonRegistry} backing the map direct list.
+	 * 
+	 * @return the singleton registry
+	 * @see #getMapDirectList()
+	 */
+	public SingletonRegistry getSingletonRegistry();
+
+	/**
+	 * Returns the current binding version of this {@link ObjectBeanFactory}.
+	 * The version is increased whenever binding data (scope list, mapping list
+	 * or alias map) is changed.
+	 * 
+	 * @return the binding version
+	 * @see #notifyBindingChanged()
+	 */
+	public int getBindingVersion();
+
+	/**
+	 * Notifies this {@link ObjectBeanFactory} that its binding data has been
+	 * changed. Cached bean resolutions depending on the previous binding data
+	 * will be re-resolved.
+	 */
+	public void notifyBindingChanged();
+
 	/**
 	 * Gets the mapping list.
 	 * 
@@ -60,6 +60,15 @@ public interface Provider extends IAbstractBeanFactory, Context {
 	 */
 	public <T> T getBean(Class<T> type);
 
+	/**
+	 * Returns the {@link ContainerMetrics} of this container.
+	 * 
+	 * @return the container metrics, or <b>null</b> if metrics are not
+	 *         enabled.
+	 * @see ContainerMetrics#isEnabled()
+	 */
+	public ContainerMetrics getContainerMetrics();
+
 	/**
 	 * Gets the root scope name {@link Map map}.
 	 * 
@@ -29,7 +29,7 @@ public final class SingletonInstanceScopeName {
 	public String	scopeName		= null;
 
 	/** The shared singleton. */
-	public Object	sharedSingleton	= null;
+	public volatile Object	sharedSingleton	= null;
 
 	/**
 	 * Instantiates a new singleton instance scope name.
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.context.injecting;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The registry of shared singleton instances and constants of a
+ * {@link Provider}, keyed by scope name. Reads never lock: once a bean has
+ * been published with {@link #put(String, Object)}, every thread observes it
+ * through a plain {@link ConcurrentHashMap} lookup. Creation of a singleton is
+ * guarded by a per-scope-name monitor returned from
+ * {@link #getCreationLock(String)}, so that each bean is created once only
+ * without serializing unrelated beans on a global lock.
+ * <p>
+ * <b>null</b> bean instances are permitted and are masked internally, since
+ * {@link ConcurrentHashMap} does not accept <b>null</b> values.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see AbstractBeanCacher
+ * @see ObjectBeanFactory#getSingletonRegistry()
+ */
+public class SingletonRegistry extends AbstractMap<String, Object> {
+	/** The masked <b>null</b> value. */
+	private static final Object					NULL_VALUE		= new Object();
+
+	/** The creation locks. */
+	private final ConcurrentMap<String, Object>	creationLocks	= new ConcurrentHashMap<String, Object>();
+
+	/** The registered instances. */
+	private final ConcurrentMap<String, Object>	registry		= new ConcurrentHashMap<String, Object>();
+
+	/** The entry set view. */
+	private transient Set<Entry<String, Object>>	entrySet		= null;
+
+	/**
+	 * Masks the given value.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the object
+	 */
+	private static Object mask(Object value) {
+
+		return value == null ? NULL_VALUE : value;
+	}
+
+	/**
+	 * Unmasks the given value.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the object
+	 */
+	private static Object unmask(Object value) {
+
+		return value == NULL_VALUE ? null : value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear() {
+
+		this.registry.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+
+		return key != null && this.registry.containsKey(key);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+
+		Set<Entry<String, Object>> result = this.entrySet;
+		if (result == null) {
+			result = new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+
+					final Iterator<Entry<String, Object>> it = registry
+							.entrySet().iterator();
+					return new Iterator<Entry<String, Object>>() {
+						@Override
+						public boolean hasNext() {
+
+							return it.hasNext();
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+
+							Entry<String, Object> entry = it.next();
+							return new SimpleImmutableEntry<String, Object>(
+									entry.getKey(), unmask(entry.getValue()));
+						}
+
+						@Override
+						public void remove() {
+
+							it.remove();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+
+					return registry.size();
+				}
+			};
+			this.entrySet = result;
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public Object get(Object key) {
+
+		return key == null ? null : unmask(this.registry.get(key));
+	}
+
+	/**
+	 * Returns the monitor guarding creation of the bean bound to the given
+	 * scope name. The same monitor is always returned for equal scope names,
+	 * regardless of whether the given string is interned.
+	 *
+	 * @param scopeName
+	 *            the scope name
+	 * @return the creation lock
+	 */
+	public Object getCreationLock(String scopeName) {
+
+		Object lock = this.creationLocks.get(scopeName);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = this.creationLocks.putIfAbsent(scopeName, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Returns the instance bound to the given scope name. Unlike
+	 * {@link #get(Object)} this method can tell a registered <b>null</b>
+	 * instance from a missing one.
+	 *
+	 * @param scopeName
+	 *            the scope name
+	 * @return the registered instance (possibly <b>null</b>), or
+	 *         {@link AbstractBeanCacher#NULL_SHAREDOBJECT} if nothing is bound
+	 *         to the given scope name.
+	 */
+	public Object lookup(String scopeName) {
+
+		Object result = this.registry.get(scopeName);
+		return result == null ? AbstractBeanCacher.NULL_SHAREDOBJECT
+				: unmask(result);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public Object put(String key, Object value) {
+
+		return unmask(this.registry.put(key, mask(value)));
+	}
+
+	/**
+	 * Binds the given instance to the given scope name only if no instance
+	 * has been bound yet.
+	 *
+	 * @param scopeName
+	 *            the scope name
+	 * @param value
+	 *            the value
+	 * @return the instance bound to the given scope name after this call.
+	 */
+	public Object putIfAbsent(String scopeName, Object value) {
+
+		Object previous = this.registry.putIfAbsent(scopeName, mask(value));
+		return previous == null ? value : unmask(previous);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	public Object remove(Object key) {
+
+		return key == null ? null : unmask(this.registry.remove(key));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+
+		return this.registry.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractMap#putAll(java.util.Map)
+	 */
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> m) {
+
+		for (Entry<? extends String, ? extends Object> entry : m.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+}
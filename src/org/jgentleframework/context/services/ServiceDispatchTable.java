@@ -0,0 +1,176 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.context.services;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jgentleframework.core.provider.Domain;
+import org.jgentleframework.core.provider.ServiceClass;
+
+/**
+ * An immutable dispatch table from object class types and alias names of
+ * registered {@link ServiceClass services} to the {@link Domain} providing
+ * them. The table mirrors the service registrations of the
+ * {@link java.beans.beancontext.BeanContextServicesSupport} of a
+ * {@link ServiceHandler}, where the first {@link Domain} registering a service
+ * class is the one providing it. A new table is built whenever a service or a
+ * domain is added or removed, lookups never lock.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see ServiceHandlerImpl
+ */
+final class ServiceDispatchTable {
+	/** The empty table. */
+	static final ServiceDispatchTable	EMPTY	= new ServiceDispatchTable(
+														new HashMap<Class<?>, Domain>(),
+														new HashMap<String, Class<? extends ServiceClass>>());
+
+	/** The alias names. */
+	private final Map<String, Class<? extends ServiceClass>>	aliases;
+
+	/** The providing domains. */
+	private final Map<Class<?>, Domain>						domains;
+
+	/**
+	 * Instantiates a new service dispatch table.
+	 *
+	 * @param domains
+	 *            the providing domains
+	 * @param aliases
+	 *            the alias names
+	 */
+	private ServiceDispatchTable(Map<Class<?>, Domain> domains,
+			Map<String, Class<? extends ServiceClass>> aliases) {
+
+		this.domains = Collections.unmodifiableMap(domains);
+		this.aliases = Collections.unmodifiableMap(aliases);
+	}
+
+	/**
+	 * Returns the {@link Domain} providing the given service class.
+	 *
+	 * @param serviceClass
+	 *            the service class
+	 * @return the domain, or <b>null</b> if the service class is not
+	 *         registered.
+	 */
+	Domain getDomain(Class<?> serviceClass) {
+
+		return this.domains.get(serviceClass);
+	}
+
+	/**
+	 * Returns the service class bound to the given alias name.
+	 *
+	 * @param alias
+	 *            the alias name
+	 * @return the service class, or <b>null</b> if the alias name is not
+	 *         registered.
+	 */
+	Class<? extends ServiceClass> getServiceClass(String alias) {
+
+		return this.aliases.get(alias);
+	}
+
+	/**
+	 * Returns a new table containing the given service class provided by the
+	 * given {@link Domain}. If the service class is already provided by
+	 * another domain, this table is returned.
+	 *
+	 * @param serviceClass
+	 *            the service class
+	 * @param domain
+	 *            the domain
+	 * @return the service dispatch table
+	 */
+	ServiceDispatchTable withService(
+			Class<? extends ServiceClass> serviceClass, Domain domain) {
+
+		Domain current = this.domains.get(serviceClass);
+		if (current != null && current != domain) {
+			return this;
+		}
+		Map<Class<?>, Domain> newDomains = new HashMap<Class<?>, Domain>(
+				this.domains);
+		Map<String, Class<? extends ServiceClass>> newAliases = new HashMap<String, Class<? extends ServiceClass>>(
+				this.aliases);
+		newDomains.put(serviceClass, domain);
+		for (Entry<String, Class<? extends ServiceClass>> entry : domain
+				.getAliasRegistered().entrySet()) {
+			if (entry.getValue() == serviceClass
+					&& !newAliases.containsKey(entry.getKey())) {
+				newAliases.put(entry.getKey(), serviceClass);
+			}
+		}
+		return new ServiceDispatchTable(newDomains, newAliases);
+	}
+
+	/**
+	 * Returns a new table without the given service class.
+	 *
+	 * @param serviceClass
+	 *            the service class
+	 * @return the service dispatch table
+	 */
+	ServiceDispatchTable withoutService(Class<?> serviceClass) {
+
+		if (!this.domains.containsKey(serviceClass)) {
+			return this;
+		}
+		Map<Class<?>, Domain> newDomains = new HashMap<Class<?>, Domain>(
+				this.domains);
+		Map<String, Class<? extends ServiceClass>> newAliases = new HashMap<String, Class<? extends ServiceClass>>(
+				this.aliases);
+		newDomains.remove(serviceClass);
+		newAliases.values().removeAll(Collections.singleton(serviceClass));
+		return new ServiceDispatchTable(newDomains, newAliases);
+	}
+
+	/**
+	 * Returns a new table without any service provided by the given
+	 * {@link Domain}.
+	 *
+	 * @param domain
+	 *            the domain
+	 * @return the service dispatch table
+	 */
+	ServiceDispatchTable withoutDomain(Domain domain) {
+
+		Map<Class<?>, Domain> newDomains = new HashMap<Class<?>, Domain>(
+				this.domains);
+		Map<String, Class<? extends ServiceClass>> newAliases = new HashMap<String, Class<? extends ServiceClass>>(
+				this.aliases);
+		Iterator<Entry<Class<?>, Domain>> it = newDomains.entrySet()
+				.iterator();
+		while (it.hasNext()) {
+			Entry<Class<?>, Domain> entry = it.next();
+			if (entry.getValue() == domain) {
+				it.remove();
+				newAliases.values().removeAll(
+						Collections.singleton(entry.getKey()));
+			}
+		}
+		return new ServiceDispatchTable(newDomains, newAliases);
+	}
+}
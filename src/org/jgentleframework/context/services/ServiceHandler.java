@@ -23,6 +23,7 @@ import java.util.TooManyListenersException;
 
 import org.jgentleframework.context.ServiceProvider;
 import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.context.support.Selector;
 import org.jgentleframework.core.JGentleException;
 import org.jgentleframework.core.handling.AnnotationRegister;
 import org.jgentleframework.core.handling.DefinitionManager;
@@ -216,6 +217,41 @@ public interface ServiceHandler extends DomainManager, AnnotationRegister {
 	 */
 	public DomainManager getDomainManager();
 
+	/**
+	 * Returns the result product of the specified service. Unlike
+	 * {@link #getService(Object, Class, Object)}, the {@link ServiceClass} is
+	 * looked up in a precomputed dispatch table and its
+	 * {@link ServiceClass#handle(Selector, Object)} method is invoked directly,
+	 * bypassing the {@link BeanContextServicesSupport} service machinery. If
+	 * the given service class is not registered, this method falls back to
+	 * {@link #getService(Object, Class, Object)}.
+	 * 
+	 * @param requestor
+	 *            the requestor
+	 * @param serviceClass
+	 *            the object class type ({@link ServiceClass} of service.
+	 * @param selector
+	 *            the selector
+	 * @throws TooManyListenersException
+	 */
+	public Object dispatchService(Object requestor, Class<?> serviceClass,
+			Selector selector) throws TooManyListenersException;
+
+	/**
+	 * Returns the result product of the specified service bound to the given
+	 * alias name, see {@link #dispatchService(Object, Class, Selector)}.
+	 * 
+	 * @param requestor
+	 *            the requestor
+	 * @param alias
+	 *            the alias name of the specified Service.
+	 * @param selector
+	 *            the selector
+	 * @throws TooManyListenersException
+	 */
+	public Object dispatchService(Object requestor, String alias,
+			Selector selector) throws TooManyListenersException;
+
 	/**
 	 * Returns the result product of the specified service.
 	 * 
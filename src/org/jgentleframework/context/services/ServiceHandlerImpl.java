@@ -34,6 +34,7 @@ import org.jgentleframework.configure.annotation.AnnotationClass;
 import org.jgentleframework.context.enums.RegisterAnnotationInjecting;
 import org.jgentleframework.context.enums.RegisterSystemAnnotation;
 import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.context.support.Selector;
 import org.jgentleframework.core.IllegalPropertyException;
 import org.jgentleframework.core.JGentleException;
 import org.jgentleframework.core.handling.AnnotationRegister;
@@ -72,6 +73,9 @@ public class ServiceHandlerImpl implements ServiceHandler {
 	/** The domain listener. */
 	private DomainListener				domainListener		= new DomainListener();
 
+	/** The service dispatch table. */
+	private volatile ServiceDispatchTable	dispatchTable		= ServiceDispatchTable.EMPTY;
+
 	/** The domain manager. */
 	private DomainManager				domainManager;
 
@@ -99,6 +103,23 @@ public class ServiceHandlerImpl implements ServiceHandler {
 				.addBeanContextMembershipListener(this.domainListener);
 		// Đăng kí các annotation liên quan và validator tương ứng
 		this.registerAnnotations(RegisterSystemAnnotation.class);
+		// keeps the dispatch table in sync with revoked services
+		this.serviceListener.addListener(ServiceDispatchTable.class.getName(),
+				new ServiceContextListener() {
+					@Override
+					public void serviceAvailable(Class<?> serviceClass) {
+
+					}
+
+					@Override
+					public void serviceRevoked(Class<?> serviceClass) {
+
+						synchronized (ServiceHandlerImpl.this) {
+							dispatchTable = dispatchTable
+									.withoutService(serviceClass);
+						}
+					}
+				});
 	}
 
 	/*
@@ -195,8 +216,13 @@ public class ServiceHandlerImpl implements ServiceHandler {
 
 		if (containsDomain(domain)) {
 			this.context.addService(serviceClass, domain);
-			return domain.registerService(provider, serviceClass, this.context,
-					argsType, args);
+			ObjectBeanService result = domain.registerService(provider,
+					serviceClass, this.context, argsType, args);
+			synchronized (this) {
+				this.dispatchTable = this.dispatchTable.withService(
+						serviceClass, domain);
+			}
+			return result;
 		}
 		else {
 			throw new RuntimeException("Domain:" + domain.getDomainName()
@@ -405,6 +431,45 @@ public class ServiceHandlerImpl implements ServiceHandler {
 		return this.domainManager.getDomainValues();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.context.services.ServiceHandler#dispatchService(java
+	 * .lang.Object, java.lang.Class,
+	 * org.jgentleframework.context.support.Selector)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public Object dispatchService(Object requestor, Class<?> serviceClass,
+			Selector selector) throws TooManyListenersException {
+
+		Domain domain = this.dispatchTable.getDomain(serviceClass);
+		if (domain == null) {
+			return getService(requestor, serviceClass, selector);
+		}
+		ServiceClass service = domain
+				.getServiceInstance((Class<? extends ServiceClass>) serviceClass);
+		return service.handle(selector, requestor);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.context.services.ServiceHandler#dispatchService(java
+	 * .lang.Object, java.lang.String,
+	 * org.jgentleframework.context.support.Selector)
+	 */
+	@Override
+	public Object dispatchService(Object requestor, String alias,
+			Selector selector) throws TooManyListenersException {
+
+		Class<?> serviceClass = this.dispatchTable.getServiceClass(alias);
+		if (serviceClass == null) {
+			return getService(requestor, alias, selector);
+		}
+		return dispatchService(requestor, serviceClass, selector);
+	}
+
 	/**
 	 * Gets the service.
 	 * 
@@ -776,7 +841,13 @@ public class ServiceHandlerImpl implements ServiceHandler {
 	@Override
 	public Domain removeDomain(String domain, BeanContextSupport domainContext) {
 
-		return this.domainManager.removeDomain(domain, domainContext);
+		Domain result = this.domainManager.removeDomain(domain, domainContext);
+		if (result != null) {
+			synchronized (this) {
+				this.dispatchTable = this.dispatchTable.withoutDomain(result);
+			}
+		}
+		return result;
 	}
 
 	/*
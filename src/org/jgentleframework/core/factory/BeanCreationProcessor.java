@@ -28,6 +28,7 @@ import org.apache.commons.logging.LogFactory;
 import org.jgentleframework.configure.annotation.BeanServices;
 import org.jgentleframework.configure.annotation.DefaultConstructor;
 import org.jgentleframework.context.beans.BeanPostInstantiation;
+import org.jgentleframework.context.injecting.ContainerMetrics;
 import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.context.support.CoreInstantiationSelector;
 import org.jgentleframework.context.support.CoreInstantiationSelectorImpl;
@@ -68,6 +69,9 @@ public class BeanCreationProcessor implements ServiceClass,
 	/** The processor. */
 	CoreProcessor				processor	= null;
 
+	/** The container metrics, <b>null</b> if metrics are disabled. */
+	final ContainerMetrics		metrics;
+
 	/** The log. */
 	private final Log			log			= LogFactory.getLog(getClass());
 
@@ -82,6 +86,7 @@ public class BeanCreationProcessor implements ServiceClass,
 
 		this.provider = provider;
 		processor = new CoreProcessorImpl(this.provider);
+		metrics = provider.getContainerMetrics();
 	}
 
 	/*
@@ -93,6 +98,7 @@ public class BeanCreationProcessor implements ServiceClass,
 	@Override
 	public Object handle(Selector targetSelector, Object requestor) {
 
+		long start = metrics != null ? System.nanoTime() : 0;
 		doBeforeBeanPost(targetSelector);
 		// creates bean
 		Object result = null;
@@ -164,6 +170,10 @@ public class BeanCreationProcessor implements ServiceClass,
 			}
 		}
 		doAfterBeanPost(targetSelector, result);
+		if (metrics != null && result != null) {
+			metrics.beanInstantiated(targetSelector.getDefinition(), System
+					.nanoTime() - start);
+		}
 		return result;
 	}
 
@@ -39,6 +39,7 @@ import org.jgentleframework.context.injecting.scope.InvalidAddingOperationExcept
 import org.jgentleframework.context.injecting.scope.ScopeImplementation;
 import org.jgentleframework.core.GenericException;
 import org.jgentleframework.core.InvalidOperationException;
+import org.jgentleframework.core.factory.support.CompiledInjector;
 import org.jgentleframework.reflection.metadata.Definition;
 import org.jgentleframework.utils.Assertor;
 import org.jgentleframework.utils.ReflectUtils;
@@ -243,6 +244,116 @@ public abstract class InOutExecutor {
 		return map;
 	}
 
+	/**
+	 * Executes injecting and filtering through the given
+	 * {@link CompiledInjector}. If the given injector is <b>null</b>, this
+	 * method is equivalent to
+	 * {@link #executesInjectingAndFiltering(Field[], Method[], Provider, Object, Definition)}
+	 * .
+	 * 
+	 * @param fields
+	 *            the fields
+	 * @param setters
+	 *            the setters
+	 * @param provider
+	 *            the provider
+	 * @param target
+	 *            the target
+	 * @param definition
+	 *            the definition
+	 * @param injector
+	 *            the compiled injector of the given fields and setters, may be
+	 *            <b>null</b>.
+	 * @return the map< field, object>
+	 * @throws IllegalArgumentException
+	 *             the illegal argument exception
+	 * @throws IllegalAccessException
+	 *             the illegal access exception
+	 * @throws InvocationTargetException
+	 *             the invocation target exception
+	 */
+	public static Map<Field, Object> executesInjectingAndFiltering(
+			Field[] fields, Method[] setters, Provider provider, Object target,
+			Definition definition, CompiledInjector injector)
+			throws IllegalArgumentException, IllegalAccessException,
+			InvocationTargetException {
+
+		if (injector == null) {
+			return executesInjectingAndFiltering(fields, setters, provider,
+					target, definition);
+		}
+		Map<Field, Object> map = new HashMap<Field, Object>();
+		// fields
+		for (int i = 0; i < injector.getInjectedFieldCount(); i++) {
+			Field field = injector.getField(i);
+			Definition defField = definition.getMemberDefinition(field);
+			if (defField != null && defField.isAnnotationPresent(Inject.class)) {
+				Inject inject = defField.getAnnotation(Inject.class);
+				Object injected = InOutExecutor.getInjectedDependency(inject,
+						field.getType(), provider);
+				Object current = injector.get(target, i);
+				if (inject.alwaysInject() == false && current != null) {
+					continue;
+				}
+				map.put(field, current);
+				injector.set(target, i, injected);
+			}
+		}
+		// setters
+		for (int i = 0; i < injector.getSetterCount(); i++) {
+			Method setter = injector.getSetter(i);
+			Definition defMethod = definition.getMemberDefinition(setter);
+			if (defMethod == null)
+				continue;
+			Object[] args = Utils.getInjectedParametersOf(setter, defMethod,
+					provider);
+			int index = injector.getSetterFieldIndex(i);
+			if (index >= 0) {
+				map.put(injector.getField(index), injector.get(target, index));
+			}
+			injector.invoke(target, i, args);
+		}
+		// Executes filtering
+		if (ReflectUtils.isCast(Filter.class, target)) {
+			Filter filter = (Filter) target;
+			filter.filters(map);
+		}
+		return map;
+	}
+
+	/**
+	 * Executes injecting and filtering through the given compiled
+	 * {@link InjectionPoint injection points}.
+	 * 
+	 * @param points
+	 *            the injection points
+	 * @param target
+	 *            the target
+	 * @return the map< field, object>
+	 * @throws IllegalArgumentException
+	 *             the illegal argument exception
+	 * @throws IllegalAccessException
+	 *             the illegal access exception
+	 * @throws InvocationTargetException
+	 *             the invocation target exception
+	 */
+	public static Map<Field, Object> executesInjectingAndFiltering(
+			InjectionPoint[] points, Object target)
+			throws IllegalArgumentException, IllegalAccessException,
+			InvocationTargetException {
+
+		Map<Field, Object> map = new HashMap<Field, Object>();
+		for (int i = 0; i < points.length; i++) {
+			points[i].inject(target, map);
+		}
+		// Executes filtering
+		if (ReflectUtils.isCast(Filter.class, target)) {
+			Filter filter = (Filter) target;
+			filter.filters(map);
+		}
+		return map;
+	}
+
 	/**
 	 * Executes disinjection.
 	 * 
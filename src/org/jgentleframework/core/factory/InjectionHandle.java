@@ -0,0 +1,202 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.factory;
+
+import java.util.Map;
+
+import org.jgentleframework.configure.Configurable;
+import org.jgentleframework.configure.annotation.Inject;
+import org.jgentleframework.context.injecting.AbstractBeanCacher;
+import org.jgentleframework.context.injecting.ObjectBeanFactory;
+import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.context.injecting.SingletonInstanceScopeName;
+import org.jgentleframework.core.handling.DefinitionManager;
+import org.jgentleframework.reflection.metadata.Definition;
+import org.jgentleframework.utils.data.NullClass;
+
+/**
+ * The resolution handle of one injected dependency. The dependency is resolved
+ * through {@link InOutExecutor#getInjectedDependency(Inject, Class, Provider)}
+ * , and when it turns out to be a shared singleton of the {@link Provider},
+ * the handle keeps a direct reference to it together with the
+ * {@link SingletonInstanceScopeName slot} it is shared through. Subsequent
+ * resolutions then only compare versions instead of walking the lookup path of
+ * the {@link Provider}.
+ * <p>
+ * The reference is dropped as soon as the binding version of
+ * {@link ObjectBeanFactory} or the version of {@link DefinitionManager}
+ * changes, or the slot no longer holds it. Dependencies of any other scope are
+ * resolved through the {@link Provider} every time.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see InjectionPoint
+ */
+public final class InjectionHandle {
+	/** The {@link Inject} annotation. */
+	private final Inject		inject;
+
+	/** The provider. */
+	private final Provider		provider;
+
+	/** The type of injected target. */
+	private final Class<?>		type;
+
+	/** The cached resolution, <b>null</b> if none. */
+	private volatile Resolution	resolution	= null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param inject
+	 *            the {@link Inject} annotation
+	 * @param type
+	 *            the type of injected target
+	 * @param provider
+	 *            the provider
+	 */
+	public InjectionHandle(Inject inject, Class<?> type, Provider provider) {
+
+		this.inject = inject;
+		this.type = type;
+		this.provider = provider;
+	}
+
+	/**
+	 * Returns the {@link Inject} annotation.
+	 */
+	public Inject getInject() {
+
+		return this.inject;
+	}
+
+	/**
+	 * Returns the type of injected target.
+	 */
+	public Class<?> getType() {
+
+		return this.type;
+	}
+
+	/**
+	 * Resolves the dependency.
+	 *
+	 * @return the dependency instance as returned by
+	 *         {@link InOutExecutor#getInjectedDependency(Inject, Class, Provider)}
+	 *         .
+	 */
+	public Object resolve() {
+
+		Resolution current = this.resolution;
+		if (current != null && current.version == currentVersion()
+				&& current.slot.sharedSingleton == current.instance) {
+			return current.instance;
+		}
+		int version = currentVersion();
+		Object result = InOutExecutor.getInjectedDependency(this.inject,
+				this.type, this.provider);
+		SingletonInstanceScopeName slot = sharedSlotOf(result);
+		this.resolution = slot != null ? new Resolution(slot, result, version)
+				: null;
+		return result;
+	}
+
+	/**
+	 * Returns the current version of binding data and definitions.
+	 */
+	private int currentVersion() {
+
+		return this.provider.getObjectBeanFactory().getBindingVersion()
+				+ this.provider.getDefinitionManager().getVersion();
+	}
+
+	/**
+	 * Returns the slot the given resolved instance is shared through, or
+	 * <b>null</b> if it is not a shared singleton. Only the lookup root the
+	 * {@link Provider} tries first is considered, so that the cached instance
+	 * is the one the {@link Provider} would return.
+	 *
+	 * @param instance
+	 *            the resolved instance
+	 */
+	private SingletonInstanceScopeName sharedSlotOf(Object instance) {
+
+		if (instance == null || instance == NullClass.class
+				|| instance == AbstractBeanCacher.NULL_SHAREDOBJECT) {
+			return null;
+		}
+		Map<Object, SingletonInstanceScopeName> rootScopeName = this.provider
+				.getRootScopeName();
+		if (rootScopeName == null) {
+			return null;
+		}
+		Object root = null;
+		String value = this.inject.value();
+		if (value == null || value.isEmpty()) {
+			root = this.type;
+		}
+		else if (value.indexOf(":") == -1) {
+			Definition definition = this.provider.getDefinitionManager()
+					.getDefinition(value);
+			if (definition != null) {
+				root = definition;
+			}
+			else if (this.provider.isContainsMappingName(value)) {
+				root = Configurable.REF_MAPPING + value;
+			}
+			else {
+				root = Configurable.REF_CONSTANT + value;
+			}
+		}
+		SingletonInstanceScopeName slot = root != null ? rootScopeName
+				.get(root) : null;
+		return slot != null && slot.sharedSingleton == instance ? slot : null;
+	}
+
+	/**
+	 * The cached resolution of a shared singleton.
+	 */
+	private static final class Resolution {
+		/** The slot the instance is shared through. */
+		final SingletonInstanceScopeName	slot;
+
+		/** The instance. */
+		final Object						instance;
+
+		/** The version the instance was resolved at. */
+		final int							version;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param slot
+		 *            the slot
+		 * @param instance
+		 *            the instance
+		 * @param version
+		 *            the version
+		 */
+		Resolution(SingletonInstanceScopeName slot, Object instance, int version) {
+
+			this.slot = slot;
+			this.instance = instance;
+			this.version = version;
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.factory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.jgentleframework.configure.annotation.Inject;
+import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.core.InvalidOperationException;
+import org.jgentleframework.reflection.metadata.Definition;
+import org.jgentleframework.utils.Utils;
+
+/**
+ * The compiled form of an injected field or setter. The {@link Inject}
+ * annotations of the member are read once, when the injection point is
+ * created, and each injected dependency is resolved through its own
+ * {@link InjectionHandle}, so that injecting does not look up the member
+ * definitions nor the annotations any more.
+ * <p>
+ * Injecting through an injection point is equivalent to
+ * {@link InOutExecutor#executesFieldInjecting(Field[], Provider, Object, Definition)}
+ * for a field and to
+ * {@link InOutExecutor#executesMethodInjecting(Method[], Provider, Object, Definition)}
+ * for a setter.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see InOutExecutor#executesInjectingAndFiltering(InjectionPoint[], Object)
+ */
+public final class InjectionPoint {
+	/** The member definition the injection point was created from. */
+	private final Definition		definition;
+
+	/** The error message of an invalid setter, <b>null</b> if none. */
+	private final String			error;
+
+	/**
+	 * The injected field, or the field corresponding to the setter,
+	 * <b>null</b> if none.
+	 */
+	private final Field				field;
+
+	/**
+	 * The handle of each injected dependency, one for a field or one per
+	 * parameter of the setter, <b>null</b> for parameters which are not
+	 * injected.
+	 */
+	private final InjectionHandle[]	handles;
+
+	/** The {@link Inject} annotations the handles were created from. */
+	private final Inject[]			injects;
+
+	/** The setter, <b>null</b> for a field. */
+	private final Method			setter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param field
+	 *            the field
+	 * @param setter
+	 *            the setter
+	 * @param definition
+	 *            the member definition
+	 * @param injects
+	 *            the {@link Inject} annotations
+	 * @param types
+	 *            the types of injected targets
+	 * @param provider
+	 *            the provider
+	 * @param error
+	 *            the error message
+	 */
+	private InjectionPoint(Field field, Method setter, Definition definition,
+			Inject[] injects, Class<?>[] types, Provider provider, String error) {
+
+		this.field = field;
+		this.setter = setter;
+		this.definition = definition;
+		this.injects = injects;
+		this.error = error;
+		this.handles = new InjectionHandle[injects.length];
+		for (int i = 0; i < injects.length; i++) {
+			if (injects[i] != null) {
+				this.handles[i] = new InjectionHandle(injects[i], types[i],
+						provider);
+			}
+		}
+	}
+
+	/**
+	 * Creates the injection point of the given field.
+	 *
+	 * @param field
+	 *            the field
+	 * @param defField
+	 *            the definition of the field
+	 * @param provider
+	 *            the provider
+	 * @return the injection point, or <b>null</b> if the field is not injected.
+	 */
+	public static InjectionPoint forField(Field field, Definition defField,
+			Provider provider) {
+
+		if (defField == null || !defField.isAnnotationPresent(Inject.class)) {
+			return null;
+		}
+		field.setAccessible(true);
+		return new InjectionPoint(field, null, defField,
+				new Inject[] { defField.getAnnotation(Inject.class) },
+				new Class<?>[] { field.getType() }, provider, null);
+	}
+
+	/**
+	 * Creates the injection point of the given setter.
+	 *
+	 * @param setter
+	 *            the setter
+	 * @param defMethod
+	 *            the definition of the setter
+	 * @param targetClass
+	 *            the class declaring the field corresponding to the setter
+	 * @param provider
+	 *            the provider
+	 * @return the injection point, or <b>null</b> if the setter has no
+	 *         definition.
+	 */
+	public static InjectionPoint forSetter(Method setter, Definition defMethod,
+			Class<?> targetClass, Provider provider) {
+
+		if (defMethod == null) {
+			return null;
+		}
+		String error = null;
+		Inject[] injects = null;
+		try {
+			injects = injectsOf(setter, defMethod);
+		}
+		catch (InOutDependencyException e) {
+			error = e.getMessage();
+			injects = new Inject[0];
+		}
+		Field field = null;
+		if (error == null) {
+			try {
+				field = Utils.getFieldOfDefaultSetGetter(setter, targetClass);
+				field.setAccessible(true);
+			}
+			catch (InvalidOperationException e) {
+				error = e.getMessage();
+			}
+			catch (NoSuchFieldException e) {
+			}
+		}
+		setter.setAccessible(true);
+		return new InjectionPoint(field, setter, defMethod, injects, setter
+				.getParameterTypes(), provider, error);
+	}
+
+	/**
+	 * Returns the {@link Inject} annotation of each parameter of the given
+	 * setter, as {@link Utils#getInjectedParametersOf(Method, Definition, Provider)}
+	 * reads them.
+	 *
+	 * @param setter
+	 *            the setter
+	 * @param defMethod
+	 *            the definition of the setter
+	 * @throws InOutDependencyException
+	 *             if the setter can not be injected.
+	 */
+	private static Inject[] injectsOf(Method setter, Definition defMethod) {
+
+		int length = setter.getParameterTypes().length;
+		if (length == 0)
+			throw new InOutDependencyException(
+					"Invalid setter! The setter method has no any parameter!");
+		Inject[] result = new Inject[length];
+		if (defMethod.isAnnotationPresent(Inject.class)) {
+			Arrays.fill(result, defMethod.getAnnotation(Inject.class));
+		}
+		if (defMethod.isAnnotationPresentOnAnyParameters(Inject.class)) {
+			Definition[] defLst = defMethod.getParameterDefList();
+			if (length != defLst.length)
+				throw new InOutDependencyException(
+						"Invalid definition! Could not execute the injecting !");
+			for (int i = 0; i < length; i++) {
+				if (defLst[i] != null
+						&& defLst[i].isAnnotationPresent(Inject.class)) {
+					result[i] = defLst[i].getAnnotation(Inject.class);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the injected field, or the field corresponding to the setter.
+	 */
+	public Field getField() {
+
+		return this.field;
+	}
+
+	/**
+	 * Returns the setter, <b>null</b> for a field.
+	 */
+	public Method getSetter() {
+
+		return this.setter;
+	}
+
+	/**
+	 * Returns <b>true</b> if this injection point is still up to date with
+	 * the given member definition, that is the definition is the one it was
+	 * created from and its {@link Inject} annotations are unchanged.
+	 *
+	 * @param memberDefinition
+	 *            the current definition of the member
+	 */
+	public boolean isCompiledFrom(Definition memberDefinition) {
+
+		if (memberDefinition != this.definition) {
+			return false;
+		}
+		if (this.setter == null) {
+			return memberDefinition.isAnnotationPresent(Inject.class)
+					&& this.injects[0].equals(memberDefinition
+							.getAnnotation(Inject.class));
+		}
+		try {
+			return this.error == null
+					&& Arrays.equals(this.injects, injectsOf(this.setter,
+							memberDefinition));
+		}
+		catch (InOutDependencyException e) {
+			return this.error != null;
+		}
+	}
+
+	/**
+	 * Injects the dependencies into the given target.
+	 *
+	 * @param target
+	 *            the target
+	 * @param previous
+	 *            the map the previous value of the injected field is put into
+	 * @throws IllegalAccessException
+	 *             the illegal access exception
+	 * @throws InvocationTargetException
+	 *             the invocation target exception
+	 */
+	public void inject(Object target, Map<Field, Object> previous)
+			throws IllegalAccessException, InvocationTargetException {
+
+		if (this.error != null) {
+			throw new InOutDependencyException(this.error);
+		}
+		if (this.setter == null) {
+			Object injected = this.handles[0].resolve();
+			Object current = this.field.get(target);
+			if (this.injects[0].alwaysInject() == false && current != null) {
+				return;
+			}
+			previous.put(this.field, current);
+			this.field.set(target, injected);
+		}
+		else {
+			Object[] args = new Object[this.handles.length];
+			for (int i = 0; i < args.length; i++) {
+				if (this.handles[i] != null) {
+					args[i] = this.handles[i].resolve();
+				}
+			}
+			if (this.field != null) {
+				previous.put(this.field, this.field.get(target));
+			}
+			this.setter.invoke(target, args);
+		}
+	}
+}
@@ -63,8 +63,8 @@ public abstract class AbstractProcesserChecker {
 			Definition definition) {
 
 		// find all injected fields
-		List<Field> injectedFields = definition != null ? definition
-				.getFieldsAnnotatedWith(Inject.class) : null;
+		List<Field> injectedFields = copyOf(definition != null ? definition
+				.getFieldsAnnotatedWith(Inject.class) : null);
 		boolean result = false;
 		if (injectedFields != null) {
 			for (int i = 0; i < injectedFields.size(); i++) {
@@ -80,8 +80,8 @@ public abstract class AbstractProcesserChecker {
 					.toArray(new Field[injectedFields.size()]));
 		}
 		// find all outjected fields
-		List<Field> outjectedFields = definition != null ? definition
-				.getFieldsAnnotatedWith(Outject.class) : null;
+		List<Field> outjectedFields = copyOf(definition != null ? definition
+				.getFieldsAnnotatedWith(Outject.class) : null);
 		if (outjectedFields != null) {
 			for (int i = 0; i < outjectedFields.size(); i++) {
 				Field field = outjectedFields.get(i);
@@ -96,8 +96,8 @@ public abstract class AbstractProcesserChecker {
 					.toArray(new Field[outjectedFields.size()]));
 		}
 		// find all injected methods (setter)
-		List<Method> injectedMethods = definition != null ? definition
-				.getMethodsAnnotatedWith(Inject.class) : null;
+		List<Method> injectedMethods = copyOf(definition != null ? definition
+				.getMethodsAnnotatedWith(Inject.class) : null);
 		if (injectedMethods != null) {
 			for (int i = 0; i < injectedMethods.size(); i++) {
 				Method method = injectedMethods.get(i);
@@ -114,8 +114,8 @@ public abstract class AbstractProcesserChecker {
 					.toArray(new Method[injectedMethods.size()]));
 		}
 		// find all outjected methods (getter)
-		List<Method> outjectedMethods = definition != null ? definition
-				.getMethodsAnnotatedWith(Outject.class) : null;
+		List<Method> outjectedMethods = copyOf(definition != null ? definition
+				.getMethodsAnnotatedWith(Outject.class) : null);
 		if (outjectedMethods != null) {
 			for (int i = 0; i < outjectedMethods.size(); i++) {
 				Method method = outjectedMethods.get(i);
@@ -134,6 +134,19 @@ public abstract class AbstractProcesserChecker {
 		return result;
 	}
 
+	/**
+	 * Returns a modifiable copy of the given list, the lists returned by
+	 * {@link Definition} are shared.
+	 * 
+	 * @param list
+	 *            the list, may be <b>null</b>.
+	 * @return the copy, or <b>null</b> if the given list is <b>null</b>.
+	 */
+	private static <T> List<T> copyOf(List<T> list) {
+
+		return list != null ? new ArrayList<T>(list) : null;
+	}
+
 	/**
 	 * Creates the construction proxy.
 	 * 
@@ -385,10 +398,8 @@ public abstract class AbstractProcesserChecker {
 			scope = scopeList.get(scopeName);
 		}
 		if (scope != null && scope.equals(Scope.SINGLETON)) {
-			synchronized (provider.getObjectBeanFactory().getMapDirectList()) {
-				provider.getObjectBeanFactory().getMapDirectList().put(
-						scopeName, result);
-			}
+			provider.getObjectBeanFactory().getSingletonRegistry().put(
+					scopeName, result);
 		}
 	}
 }
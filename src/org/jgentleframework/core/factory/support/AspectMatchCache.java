@@ -0,0 +1,348 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.factory.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.cglib.proxy.Enhancer;
+
+import org.aopalliance.intercept.FieldInterceptor;
+import org.aopalliance.intercept.Interceptor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.jgentleframework.core.handling.DefinitionManager;
+import org.jgentleframework.core.intercept.support.Matcher;
+import org.jgentleframework.core.intercept.weaving.WeavingSupport;
+import org.jgentleframework.core.interceptor.InterceptorUtils;
+import org.jgentleframework.reflection.metadata.Definition;
+import org.jgentleframework.utils.ReflectUtils;
+
+/**
+ * Caches the results of {@link ElementAspectFactory} for the members of a
+ * target class, so that the pointcuts are evaluated only once per definition,
+ * target class and interceptor set instead of on every bean creation.
+ * <p>
+ * The key holds the identity of every matcher together with the type of its
+ * interceptor, so registering or unregistering an interceptor results in a
+ * different key. The match results are stored as indexes into the given
+ * interceptor arrays, this way they stay valid for other instances of the
+ * same interceptors. Every table is stamped with the version of the
+ * {@link DefinitionManager} and is discarded as soon as a definition changes.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see ElementAspectFactory
+ */
+final class AspectMatchCache {
+	/** The maximum number of cached tables before the cache is cleared. */
+	static final int							MAX_TABLES	= 512;
+
+	/** The definition manager. */
+	private final DefinitionManager				definitionManager;
+
+	/** The cached tables. */
+	private final ConcurrentHashMap<Key, MatchTable>	tables		= new ConcurrentHashMap<Key, MatchTable>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param definitionManager
+	 *            the definition manager
+	 */
+	AspectMatchCache(DefinitionManager definitionManager) {
+
+		this.definitionManager = definitionManager;
+	}
+
+	/**
+	 * Returns the match table of the given target class, the pointcuts are
+	 * evaluated if it is not cached yet.
+	 *
+	 * @param definition
+	 *            the definition of target class
+	 * @param targetClass
+	 *            the target class
+	 * @param methodInterceptors
+	 *            the method interceptors
+	 * @param fieldInterceptors
+	 *            the field interceptors
+	 * @param map
+	 *            the map containing all interceptors according to their
+	 *            matchers.
+	 * @return the match table
+	 */
+	MatchTable lookup(Definition definition, Class<?> targetClass,
+			MethodInterceptor[] methodInterceptors,
+			FieldInterceptor[] fieldInterceptors,
+			Map<Interceptor, Matcher<Definition>> map) {
+
+		int version = this.definitionManager.getVersion();
+		Key key = new Key(definition, targetClass, methodInterceptors,
+				fieldInterceptors, map);
+		MatchTable result = this.tables.get(key);
+		if (result == null || result.version != version) {
+			result = new MatchTable(version, definition, targetClass,
+					methodInterceptors, fieldInterceptors, map);
+			if (this.tables.size() >= MAX_TABLES) {
+				this.tables.clear();
+			}
+			this.tables.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of cached tables.
+	 */
+	int size() {
+
+		return this.tables.size();
+	}
+
+	/**
+	 * Clears the cache.
+	 */
+	void clear() {
+
+		this.tables.clear();
+	}
+
+	/**
+	 * The key of a {@link MatchTable}.
+	 */
+	private static final class Key {
+		/** The definition. */
+		final Definition	definition;
+
+		/** The target class. */
+		final Class<?>		targetClass;
+
+		/** The number of method interceptors. */
+		final int			methodCount;
+
+		/** The matcher and the type of each interceptor. */
+		final Object[]		signature;
+
+		/** The hash code. */
+		final int			hash;
+
+		/**
+		 * Constructor.
+		 */
+		Key(Definition definition, Class<?> targetClass,
+				MethodInterceptor[] methodInterceptors,
+				FieldInterceptor[] fieldInterceptors,
+				Map<Interceptor, Matcher<Definition>> map) {
+
+			this.definition = definition;
+			this.targetClass = targetClass;
+			this.methodCount = methodInterceptors.length;
+			this.signature = new Object[(methodInterceptors.length + fieldInterceptors.length) * 2];
+			int i = 0;
+			for (Interceptor interceptor : methodInterceptors) {
+				this.signature[i++] = map.get(interceptor);
+				this.signature[i++] = interceptor.getClass();
+			}
+			for (Interceptor interceptor : fieldInterceptors) {
+				this.signature[i++] = map.get(interceptor);
+				this.signature[i++] = interceptor.getClass();
+			}
+			int h = System.identityHashCode(definition) * 31
+					+ targetClass.hashCode();
+			h = h * 31 + this.methodCount;
+			for (Object obj : this.signature) {
+				h = h * 31 + System.identityHashCode(obj);
+			}
+			this.hash = h;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (this.hash != other.hash
+					|| this.definition != other.definition
+					|| this.targetClass != other.targetClass
+					|| this.methodCount != other.methodCount
+					|| this.signature.length != other.signature.length) {
+				return false;
+			}
+			for (int i = 0; i < this.signature.length; i++) {
+				if (this.signature[i] != other.signature[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return this.hash;
+		}
+	}
+
+	/**
+	 * The pointcut evaluation results of a target class.
+	 */
+	static final class MatchTable {
+		/** The version of definition manager the table was built against. */
+		final int			version;
+
+		/** The methods of target class. */
+		final List<Method>	methods;
+
+		/** The declared fields of target class. */
+		final Field[]		fields;
+
+		/** The indexes of matching method interceptors, per method. */
+		final int[][]		methodMatches;
+
+		/** Whether each field has at least one matching field interceptor. */
+		final boolean[]		fieldMatches;
+
+		/** Whether any member requires invocation injection or outjection. */
+		final boolean		invocation;
+
+		/**
+		 * Constructor, evaluates all pointcuts.
+		 */
+		MatchTable(int version, Definition definition, Class<?> targetClass,
+				MethodInterceptor[] methodInterceptors,
+				FieldInterceptor[] fieldInterceptors,
+				Map<Interceptor, Matcher<Definition>> map) {
+
+			this.version = version;
+			List<Method> methodList = new ArrayList<Method>();
+			Enhancer.getMethods(targetClass, null, methodList);
+			WeavingSupport.addJoinPoints(targetClass, methodList);
+			this.methods = Collections.unmodifiableList(methodList);
+			this.fields = fieldsOf(targetClass);
+			ElementAspectFactory elementAspectFactory = new ElementAspectFactory();
+			boolean invocationINOUT = false;
+			this.methodMatches = new int[methodList.size()][];
+			for (int i = 0; i < methodList.size(); i++) {
+				Method method = methodList.get(i);
+				if (WeavingSupport.isGenerated(method)) {
+					this.methodMatches[i] = new int[0];
+					continue;
+				}
+				invocationINOUT = invocationINOUT
+						|| InterceptorUtils.isInvocation(definition, method);
+				MethodAspectPair aspectPair = elementAspectFactory
+						.analysesMethod(methodInterceptors, map, definition,
+								method);
+				this.methodMatches[i] = indexesOf(aspectPair.interceptors,
+						methodInterceptors);
+			}
+			this.fieldMatches = new boolean[this.fields.length];
+			if (!targetClass.isAnnotation()) {
+				for (int i = 0; i < this.fields.length; i++) {
+					Field field = this.fields[i];
+					invocationINOUT = invocationINOUT
+							|| InterceptorUtils.isInvocation(definition, field);
+					this.fieldMatches[i] = elementAspectFactory.analysesField(
+							fieldInterceptors, map, definition, field)
+							.hasInterceptors();
+				}
+			}
+			this.invocation = invocationINOUT;
+		}
+
+		/**
+		 * Returns the declared fields of the given class, except the fields
+		 * generated by the weaver.
+		 */
+		private static Field[] fieldsOf(Class<?> targetClass) {
+
+			Field[] fields = ReflectUtils.getDeclaredFields(targetClass, false,
+					true);
+			if (WeavingSupport.getWovenClass(targetClass) == null) {
+				return fields;
+			}
+			List<Field> result = new ArrayList<Field>();
+			for (Field field : fields) {
+				if (!WeavingSupport.isGenerated(field)) {
+					result.add(field);
+				}
+			}
+			return result.toArray(new Field[result.size()]);
+		}
+
+		/**
+		 * Returns the indexes of the given matched interceptors in the given
+		 * array.
+		 */
+		private static int[] indexesOf(List<MethodInterceptor> matched,
+				MethodInterceptor[] interceptors) {
+
+			int[] result = new int[matched.size()];
+			for (int i = 0; i < result.length; i++) {
+				MethodInterceptor interceptor = matched.get(i);
+				for (int j = 0; j < interceptors.length; j++) {
+					if (interceptors[j] == interceptor) {
+						result[i] = j;
+						break;
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Creates a new {@link MethodAspectPair} of the method at the given
+		 * index.
+		 *
+		 * @param index
+		 *            the index of method
+		 * @param interceptors
+		 *            the method interceptors the table was looked up with.
+		 * @return the method aspect pair
+		 */
+		MethodAspectPair createsMethodAspectPair(int index,
+				MethodInterceptor[] interceptors) {
+
+			MethodAspectPair result = new MethodAspectPair(this.methods
+					.get(index));
+			for (int i : this.methodMatches[index]) {
+				result.add(interceptors[i]);
+			}
+			return result;
+		}
+	}
+}
@@ -22,9 +22,6 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.List;
 
-import net.sf.cglib.reflect.FastClass;
-import net.sf.cglib.reflect.FastMethod;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jgentleframework.context.beans.DefinitionAware;
@@ -36,6 +33,7 @@ import org.jgentleframework.context.beans.TargetClassesAware;
 import org.jgentleframework.context.beans.annotation.InitializingMethod;
 import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.core.factory.InOutExecutor;
+import org.jgentleframework.core.intercept.MethodInvoker;
 import org.jgentleframework.reflection.metadata.Definition;
 import org.jgentleframework.utils.ReflectUtils;
 
@@ -101,10 +99,7 @@ public class CommonFactory {
 			if (methods != null && methods.size() != 0) {
 				for (Method method : methods) {
 					if (Modifier.isPublic(method.getModifiers())) {
-						FastClass fclass = FastClass.create(method
-								.getDeclaringClass());
-						FastMethod fmethod = fclass.getMethod(method);
-						fmethod.invoke(obj, null);
+						MethodInvoker.getInvoker(method).invoke(obj);
 					}
 					else {
 						if (log.isErrorEnabled()) {
@@ -241,7 +236,7 @@ public class CommonFactory {
 			 */
 			InOutExecutor.executesInjectingAndFiltering(metaObj
 					.getInjectedFields(), metaObj.getSetters(), provider,
-					result, definition);
+					result, definition, metaObj.getCompiledInjector());
 			// embed
 			embedProvider(provider, result);
 			embedDefinition(definition, result);
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.factory.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * The compiled wiring of a bean class. An instance is generated once per
+ * {@link MetaDefObject} by {@link CompiledInjectorGenerator}, it reads and
+ * writes the injected fields and invokes the injected setters through direct
+ * <code>getfield</code>/<code>putfield</code> and <code>invokevirtual</code>
+ * instructions instead of {@link Field#set(Object, Object)} and
+ * {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * Members which can not be reached from generated code (private members or
+ * members of inaccessible classes) are transparently handled through
+ * reflection, so that a {@link CompiledInjector} always covers every member of
+ * the {@link MetaDefObject} it was created from.
+ * <p>
+ * Compiled wiring is optional, it is enabled through the system property
+ * {@value #COMPILED_WIRING_PROPERTY}.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see MetaDefObject#compileInjector(Class)
+ */
+public abstract class CompiledInjector {
+	/** The system property enabling compiled wiring. */
+	public static final String	COMPILED_WIRING_PROPERTY	= "jgentle.compiledWiring";
+
+	/** Whether compiled wiring is enabled. */
+	private static final boolean	enabled						= Boolean
+																		.getBoolean(COMPILED_WIRING_PROPERTY);
+
+	/** The fields, injected fields first, followed by fields of setters. */
+	Field[]						fields;
+
+	/** The compiled flags of fields. */
+	boolean[]					compiledFields;
+
+	/** The number of injected fields. */
+	int							injectedFieldCount;
+
+	/** The setters. */
+	Method[]					setters;
+
+	/** The compiled flags of setters. */
+	boolean[]					compiledSetters;
+
+	/** The field index of each setter, or <b>-1</b> if none. */
+	int[]						setterFieldIndexes;
+
+	/** The parameter types of setters. */
+	Class<?>[][]				parameterTypes;
+
+	/**
+	 * Returns <b>true</b> if compiled wiring is enabled.
+	 */
+	public static boolean isEnabled() {
+
+		return enabled;
+	}
+
+	/**
+	 * Reads the field at the given index through generated code.
+	 *
+	 * @param target
+	 *            the target
+	 * @param index
+	 *            the field index
+	 */
+	protected abstract Object getCompiled(Object target, int index);
+
+	/**
+	 * Writes the field at the given index through generated code.
+	 *
+	 * @param target
+	 *            the target
+	 * @param index
+	 *            the field index
+	 * @param value
+	 *            the value
+	 */
+	protected abstract void setCompiled(Object target, int index, Object value);
+
+	/**
+	 * Invokes the setter at the given index through generated code.
+	 *
+	 * @param target
+	 *            the target
+	 * @param index
+	 *            the setter index
+	 * @param args
+	 *            the arguments
+	 */
+	protected abstract void invokeCompiled(Object target, int index,
+			Object[] args);
+
+	/**
+	 * Returns the number of injected fields.
+	 */
+	public int getInjectedFieldCount() {
+
+		return this.injectedFieldCount;
+	}
+
+	/**
+	 * Returns the number of setters.
+	 */
+	public int getSetterCount() {
+
+		return this.setters.length;
+	}
+
+	/**
+	 * Returns the field at the given index.
+	 *
+	 * @param index
+	 *            the field index
+	 */
+	public Field getField(int index) {
+
+		return this.fields[index];
+	}
+
+	/**
+	 * Returns the setter at the given index.
+	 *
+	 * @param index
+	 *            the setter index
+	 */
+	public Method getSetter(int index) {
+
+		return this.setters[index];
+	}
+
+	/**
+	 * Returns the index of the field corresponding to the setter at the given
+	 * index.
+	 *
+	 * @param index
+	 *            the setter index
+	 * @return the field index, or <b>-1</b> if the setter has no corresponding
+	 *         field.
+	 */
+	public int getSetterFieldIndex(int index) {
+
+		return this.setterFieldIndexes[index];
+	}
+
+	/**
+	 * Returns the value of the field at the given index.
+	 *
+	 * @param target
+	 *            the target
+	 * @param index
+	 *            the field index
+	 * @throws IllegalAccessException
+	 *             the illegal access exception
+	 */
+	public Object get(Object target, int index) throws IllegalAccessException {
+
+		if (this.compiledFields[index]
+				&& this.fields[index].getDeclaringClass().isInstance(target)) {
+			return getCompiled(target, index);
+		}
+		return this.fields[index].get(target);
+	}
+
+	/**
+	 * Sets the value of the field at the given index.
+	 *
+	 * @param target
+	 *            the target
+	 * @param index
+	 *            the field index
+	 * @param value
+	 *            the value
+	 * @throws IllegalAccessException
+	 *             the illegal access exception
+	 */
+	public void set(Object target, int index, Object value)
+			throws IllegalAccessException {
+
+		Field field = this.fields[index];
+		if (this.compiledFields[index]
+				&& field.getDeclaringClass().isInstance(target)
+				&& accepts(field.getType(), value)) {
+			setCompiled(target, index, value);
+		}
+		else {
+			this.fields[index].set(target, value);
+		}
+	}
+
+	/**
+	 * Returns <b>true</b> if the given target and arguments can be passed to
+	 * the compiled setter at the given index.
+	 *
+	 * @param target
+	 *            the target
+	 * @param index
+	 *            the setter index
+	 * @param args
+	 *            the arguments
+	 */
+	private boolean acceptsCompiled(Object target, int index, Object[] args) {
+
+		Class<?>[] types = this.parameterTypes[index];
+		if (!this.setters[index].getDeclaringClass().isInstance(target)
+				|| (args == null ? types.length != 0
+						: args.length != types.length)) {
+			return false;
+		}
+		for (int i = 0; i < types.length; i++) {
+			if (!accepts(types[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <b>true</b> if the given value can be passed to generated code
+	 * expecting the given type. Generated code only unboxes the exact wrapper
+	 * class of a primitive type, so values needing a widening conversion are
+	 * left to reflection, as are <b>null</b> primitive values and values of
+	 * other types, which reflection rejects with an
+	 * {@link IllegalArgumentException}.
+	 *
+	 * @param type
+	 *            the expected type
+	 * @param value
+	 *            the value
+	 */
+	private static boolean accepts(Class<?> type, Object value) {
+
+		if (value == null) {
+			return !type.isPrimitive();
+		}
+		return type.isPrimitive() ? value.getClass() == wrapperOf(type)
+				: type.isInstance(value);
+	}
+
+	/**
+	 * Returns the wrapper class of the given primitive type.
+	 *
+	 * @param type
+	 *            the primitive type
+	 */
+	static Class<?> wrapperOf(Class<?> type) {
+
+		if (type == int.class)
+			return Integer.class;
+		else if (type == long.class)
+			return Long.class;
+		else if (type == boolean.class)
+			return Boolean.class;
+		else if (type == double.class)
+			return Double.class;
+		else if (type == float.class)
+			return Float.class;
+		else if (type == char.class)
+			return Character.class;
+		else if (type == byte.class)
+			return Byte.class;
+		else
+			return Short.class;
+	}
+
+	/**
+	 * Invokes the setter at the given index.
+	 *
+	 * @param target
+	 *            the target
+	 * @param index
+	 *            the setter index
+	 * @param args
+	 *            the arguments
+	 * @throws IllegalAccessException
+	 *             the illegal access exception
+	 * @throws InvocationTargetException
+	 *             if the setter throws an exception.
+	 */
+	public void invoke(Object target, int index, Object[] args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		if (this.compiledSetters[index]
+				&& acceptsCompiled(target, index, args)) {
+			try {
+				invokeCompiled(target, index, args);
+			}
+			catch (Throwable e) {
+				// the target and arguments are checked, the setter threw.
+				throw new InvocationTargetException(e);
+			}
+		}
+		else {
+			this.setters[index].invoke(target, args);
+		}
+	}
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.factory.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.core.InvalidOperationException;
+import org.jgentleframework.utils.Utils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates {@link CompiledInjector} classes with ASM. The generated class is
+ * defined in the package and the class loader of the bean class, so that
+ * package-private members can be reached as well as public ones.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ */
+final class CompiledInjectorGenerator implements Opcodes {
+	/** The log. */
+	private static final Log			log				= LogFactory
+																.getLog(CompiledInjectorGenerator.class);
+
+	/** The internal name of {@link CompiledInjector}. */
+	private static final String			SUPER_NAME		= Type
+																.getInternalName(CompiledInjector.class);
+
+	/** The counter of generated class names. */
+	private static final AtomicInteger	counter			= new AtomicInteger();
+
+	/** The <code>ClassLoader.defineClass</code> method. */
+	private static Method				defineClass		= null;
+	static {
+		try {
+			defineClass = ClassLoader.class.getDeclaredMethod("defineClass",
+					String.class, byte[].class, int.class, int.class,
+					ProtectionDomain.class);
+			defineClass.setAccessible(true);
+		}
+		catch (Exception e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Compiled wiring is not supported !", e);
+			}
+		}
+	}
+
+	/**
+	 * Instantiates a new compiled injector generator.
+	 */
+	private CompiledInjectorGenerator() {
+
+	}
+
+	/**
+	 * Generates the {@link CompiledInjector} of the given bean class.
+	 *
+	 * @param beanClass
+	 *            the bean class
+	 * @param injectedFields
+	 *            the injected fields, may be <b>null</b>.
+	 * @param setters
+	 *            the setters, may be <b>null</b>.
+	 * @return the compiled injector, or <b>null</b> if the bean class can not
+	 *         be compiled.
+	 */
+	static CompiledInjector generate(Class<?> beanClass, Field[] injectedFields,
+			Method[] setters) {
+
+		ClassLoader loader = beanClass.getClassLoader();
+		if (defineClass == null || loader == null
+				|| !isVisible(CompiledInjector.class, beanClass)) {
+			return null;
+		}
+		injectedFields = injectedFields == null ? new Field[0]
+				: injectedFields;
+		setters = setters == null ? new Method[0] : setters;
+		// field list: injected fields followed by fields of setters
+		List<Field> fields = new ArrayList<Field>();
+		for (Field field : injectedFields) {
+			fields.add(field);
+		}
+		int[] setterFieldIndexes = new int[setters.length];
+		for (int i = 0; i < setters.length; i++) {
+			try {
+				Field field = Utils.getFieldOfDefaultSetGetter(setters[i],
+						beanClass);
+				setterFieldIndexes[i] = fields.size();
+				fields.add(field);
+			}
+			catch (InvalidOperationException e) {
+				// the reflective path reports it
+				return null;
+			}
+			catch (NoSuchFieldException e) {
+				setterFieldIndexes[i] = -1;
+			}
+		}
+		CompiledInjector result;
+		String className = beanClass.getName() + "$$InjectorByJGentle$$"
+				+ Integer.toHexString(counter.incrementAndGet());
+		boolean[] compiledFields = new boolean[fields.size()];
+		boolean[] compiledSetters = new boolean[setters.length];
+		Class<?>[][] parameterTypes = new Class<?>[setters.length][];
+		try {
+			for (int i = 0; i < compiledFields.length; i++) {
+				Field field = fields.get(i);
+				field.setAccessible(true);
+				int mod = field.getModifiers();
+				compiledFields[i] = !Modifier.isStatic(mod)
+						&& !Modifier.isFinal(mod)
+						&& isAccessible(field.getDeclaringClass(), mod,
+								beanClass)
+						&& isAccessible(field.getType(), beanClass);
+			}
+			for (int i = 0; i < setters.length; i++) {
+				Method setter = setters[i];
+				setter.setAccessible(true);
+				boolean compiled = !Modifier.isStatic(setter.getModifiers())
+						&& isAccessible(setter.getDeclaringClass(), setter
+								.getModifiers(), beanClass);
+				parameterTypes[i] = setter.getParameterTypes();
+				for (Class<?> type : parameterTypes[i]) {
+					compiled = compiled && isAccessible(type, beanClass);
+				}
+				compiledSetters[i] = compiled;
+			}
+			byte[] bytes = generateClass(className.replace('.', '/'), fields,
+					compiledFields, setters, compiledSetters);
+			Class<?> clazz = (Class<?>) defineClass.invoke(loader, className,
+					bytes, 0, bytes.length, beanClass.getProtectionDomain());
+			result = (CompiledInjector) clazz.newInstance();
+		}
+		catch (Throwable e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Could not compile wiring of [" + beanClass + "]", e);
+			}
+			return null;
+		}
+		result.fields = fields.toArray(new Field[fields.size()]);
+		result.compiledFields = compiledFields;
+		result.injectedFieldCount = injectedFields.length;
+		result.setters = setters;
+		result.compiledSetters = compiledSetters;
+		result.setterFieldIndexes = setterFieldIndexes;
+		result.parameterTypes = parameterTypes;
+		return result;
+	}
+
+	/**
+	 * Generates the class bytes.
+	 *
+	 * @param internalName
+	 *            the internal name
+	 * @param fields
+	 *            the fields
+	 * @param compiledFields
+	 *            the compiled flags of fields
+	 * @param setters
+	 *            the setters
+	 * @param compiledSetters
+	 *            the compiled flags of setters
+	 * @return the class bytes
+	 */
+	private static byte[] generateClass(String internalName,
+			List<Field> fields, boolean[] compiledFields, Method[] setters,
+			boolean[] compiledSetters) {
+
+		ClassWriter cw = new ClassWriter(true);
+		cw.visit(V1_5, ACC_PUBLIC | ACC_SUPER | ACC_SYNTHETIC, internalName,
+				null, SUPER_NAME, null);
+		// constructor
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null,
+				null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", "()V");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// getCompiled(Object, int)
+		mv = cw.visitMethod(ACC_PROTECTED, "getCompiled",
+				"(Ljava/lang/Object;I)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Label dflt = new Label();
+		Label[] labels = switchOn(mv, compiledFields, dflt);
+		for (int i = 0; i < labels.length; i++) {
+			if (compiledFields[i]) {
+				Field field = fields.get(i);
+				String owner = Type.getInternalName(field.getDeclaringClass());
+				mv.visitLabel(labels[i]);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitTypeInsn(CHECKCAST, owner);
+				mv.visitFieldInsn(GETFIELD, owner, field.getName(), Type
+						.getDescriptor(field.getType()));
+				box(mv, field.getType());
+				mv.visitInsn(ARETURN);
+			}
+		}
+		throwIllegalArgument(mv, dflt);
+		// setCompiled(Object, int, Object)
+		mv = cw.visitMethod(ACC_PROTECTED, "setCompiled",
+				"(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+		mv.visitCode();
+		dflt = new Label();
+		labels = switchOn(mv, compiledFields, dflt);
+		for (int i = 0; i < labels.length; i++) {
+			if (compiledFields[i]) {
+				Field field = fields.get(i);
+				String owner = Type.getInternalName(field.getDeclaringClass());
+				mv.visitLabel(labels[i]);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitTypeInsn(CHECKCAST, owner);
+				mv.visitVarInsn(ALOAD, 3);
+				unbox(mv, field.getType());
+				mv.visitFieldInsn(PUTFIELD, owner, field.getName(), Type
+						.getDescriptor(field.getType()));
+				mv.visitInsn(RETURN);
+			}
+		}
+		throwIllegalArgument(mv, dflt);
+		// invokeCompiled(Object, int, Object[])
+		mv = cw.visitMethod(ACC_PROTECTED, "invokeCompiled",
+				"(Ljava/lang/Object;I[Ljava/lang/Object;)V", null, null);
+		mv.visitCode();
+		dflt = new Label();
+		labels = switchOn(mv, compiledSetters, dflt);
+		for (int i = 0; i < labels.length; i++) {
+			if (compiledSetters[i]) {
+				Method setter = setters[i];
+				Class<?> declaring = setter.getDeclaringClass();
+				String owner = Type.getInternalName(declaring);
+				mv.visitLabel(labels[i]);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitTypeInsn(CHECKCAST, owner);
+				Class<?>[] types = setter.getParameterTypes();
+				for (int j = 0; j < types.length; j++) {
+					mv.visitVarInsn(ALOAD, 3);
+					mv.visitLdcInsn(Integer.valueOf(j));
+					mv.visitInsn(AALOAD);
+					unbox(mv, types[j]);
+				}
+				mv.visitMethodInsn(declaring.isInterface() ? INVOKEINTERFACE
+						: INVOKEVIRTUAL, owner, setter.getName(), Type
+						.getMethodDescriptor(setter));
+				Type returnType = Type.getReturnType(setter);
+				if (returnType.getSort() != Type.VOID) {
+					mv.visitInsn(returnType.getSize() == 2 ? POP2 : POP);
+				}
+				mv.visitInsn(RETURN);
+			}
+		}
+		throwIllegalArgument(mv, dflt);
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Emits a <code>tableswitch</code> on the index argument, indexes which are
+	 * not compiled jump to the given default label.
+	 *
+	 * @param mv
+	 *            the method visitor
+	 * @param compiled
+	 *            the compiled flags
+	 * @param dflt
+	 *            the default label
+	 * @return the case labels
+	 */
+	private static Label[] switchOn(MethodVisitor mv, boolean[] compiled,
+			Label dflt) {
+
+		Label[] labels = new Label[compiled.length];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = compiled[i] ? new Label() : dflt;
+		}
+		if (labels.length > 0) {
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitTableSwitchInsn(0, labels.length - 1, dflt, labels);
+		}
+		return labels;
+	}
+
+	/**
+	 * Emits the default label throwing an {@link IllegalArgumentException} and
+	 * ends the current method.
+	 *
+	 * @param mv
+	 *            the method visitor
+	 * @param dflt
+	 *            the default label
+	 */
+	private static void throwIllegalArgument(MethodVisitor mv, Label dflt) {
+
+		String type = Type.getInternalName(IllegalArgumentException.class);
+		mv.visitLabel(dflt);
+		mv.visitTypeInsn(NEW, type);
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, type, "<init>", "()V");
+		mv.visitInsn(ATHROW);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	/**
+	 * Boxes the value on top of the stack.
+	 *
+	 * @param mv
+	 *            the method visitor
+	 * @param type
+	 *            the value type
+	 */
+	private static void box(MethodVisitor mv, Class<?> type) {
+
+		if (type.isPrimitive()) {
+			Class<?> wrapper = CompiledInjector.wrapperOf(type);
+			mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapper),
+					"valueOf", "(" + Type.getDescriptor(type) + ")"
+							+ Type.getDescriptor(wrapper));
+		}
+	}
+
+	/**
+	 * Casts or unboxes the object on top of the stack to the given type.
+	 *
+	 * @param mv
+	 *            the method visitor
+	 * @param type
+	 *            the target type
+	 */
+	private static void unbox(MethodVisitor mv, Class<?> type) {
+
+		if (type.isPrimitive()) {
+			String wrapper = Type.getInternalName(CompiledInjector
+					.wrapperOf(type));
+			mv.visitTypeInsn(CHECKCAST, wrapper);
+			mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getName()
+					+ "Value", "()" + Type.getDescriptor(type));
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	/**
+	 * Returns <b>true</b> if a member with the given modifiers declared in the
+	 * given class can be reached from a class generated in the package of the
+	 * given bean class.
+	 *
+	 * @param declaring
+	 *            the declaring class
+	 * @param modifiers
+	 *            the member modifiers
+	 * @param beanClass
+	 *            the bean class
+	 */
+	private static boolean isAccessible(Class<?> declaring, int modifiers,
+			Class<?> beanClass) {
+
+		if (Modifier.isPrivate(modifiers) || !isAccessible(declaring, beanClass)) {
+			return false;
+		}
+		return (Modifier.isPublic(modifiers) && Modifier.isPublic(declaring
+				.getModifiers()))
+				|| isSamePackage(declaring, beanClass);
+	}
+
+	/**
+	 * Returns <b>true</b> if the given type can be referenced from a class
+	 * generated in the package of the given bean class.
+	 *
+	 * @param type
+	 *            the type
+	 * @param beanClass
+	 *            the bean class
+	 */
+	private static boolean isAccessible(Class<?> type, Class<?> beanClass) {
+
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive()) {
+			return true;
+		}
+		if (!isVisible(type, beanClass)
+				|| Modifier.isPrivate(type.getModifiers())) {
+			return false;
+		}
+		return Modifier.isPublic(type.getModifiers())
+				|| isSamePackage(type, beanClass);
+	}
+
+	/**
+	 * Returns <b>true</b> if the given type resolves to itself from the class
+	 * loader of the given bean class.
+	 *
+	 * @param type
+	 *            the type
+	 * @param beanClass
+	 *            the bean class
+	 */
+	private static boolean isVisible(Class<?> type, Class<?> beanClass) {
+
+		try {
+			return Class.forName(type.getName(), false, beanClass
+					.getClassLoader()) == type;
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns <b>true</b> if both classes belong to the same runtime package.
+	 *
+	 * @param type
+	 *            the type
+	 * @param beanClass
+	 *            the bean class
+	 */
+	private static boolean isSamePackage(Class<?> type, Class<?> beanClass) {
+
+		if (type.getClassLoader() != beanClass.getClassLoader()) {
+			return false;
+		}
+		String name = type.getName();
+		String beanName = beanClass.getName();
+		int index = name.lastIndexOf('.');
+		int beanIndex = beanName.lastIndexOf('.');
+		return index == beanIndex
+				&& name.regionMatches(0, beanName, 0, Math.max(index, 0));
+	}
+}
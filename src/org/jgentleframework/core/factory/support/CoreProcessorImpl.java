@@ -21,7 +21,6 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +36,7 @@ import org.aopalliance.intercept.MethodInterceptor;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jgentleframework.context.beans.annotation.AlwaysReload;
+import org.jgentleframework.context.injecting.ContainerMetrics;
 import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.context.support.CoreInstantiationSelector;
 import org.jgentleframework.context.support.CoreInstantiationSelectorImpl;
@@ -48,7 +48,10 @@ import org.jgentleframework.core.handling.DefinitionManager;
 import org.jgentleframework.core.intercept.InterceptionException;
 import org.jgentleframework.core.intercept.JGentleNamingPolicy;
 import org.jgentleframework.core.intercept.MethodInterceptorStackCallback;
+import org.jgentleframework.core.intercept.ProxyLayoutFilter;
 import org.jgentleframework.core.intercept.support.Matcher;
+import org.jgentleframework.core.intercept.weaving.WeavingSupport;
+import org.jgentleframework.core.intercept.weaving.WovenJoinPoint;
 import org.jgentleframework.core.interceptor.InterceptorUtils;
 import org.jgentleframework.core.interceptor.ReturnScopeName;
 import org.jgentleframework.core.interceptor.ReturnScopeNameMethodInterceptor;
@@ -78,6 +81,12 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 	/** The current {@link Provider}. */
 	private final Provider		provider;
 
+	/** The container metrics, <b>null</b> if metrics are disabled. */
+	private final ContainerMetrics	metrics;
+
+	/** The cached pointcut evaluation results. */
+	private final AspectMatchCache	aspectMatchCache;
+
 	/** The log. */
 	protected final Log			log					= LogFactory
 															.getLog(getClass());
@@ -92,6 +101,8 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 
 		this.provider = provider;
 		this.definitionManager = this.provider.getDefinitionManager();
+		this.metrics = this.provider.getContainerMetrics();
+		this.aspectMatchCache = new AspectMatchCache(this.definitionManager);
 	}
 
 	/*
@@ -162,25 +173,26 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 				Map<Method, MethodAspectPair> methodAspectList = new HashMap<Method, MethodAspectPair>();
 				Map<Interceptor, Matcher<Definition>> map = instSelector
 						.getMapMatcherInterceptor();
-				final List<Method> methodList = new ArrayList<Method>();
-				final Field[] fieldList = ReflectUtils.getDeclaredFields(
-						targetClass, false, true);
-				Enhancer.getMethods(targetClass, null, methodList);
-				boolean invocationINOUT = false;
-				ElementAspectFactory elementAspectFactory = new ElementAspectFactory();
+				MethodInterceptor[] methodIcptLst = instSelector
+						.getMethodInterceptors();
+				FieldInterceptor[] fieldIcpLst = instSelector
+						.getFieldInterceptors();
+				// pointcuts are evaluated once per definition and interceptor
+				// set
+				AspectMatchCache.MatchTable matchTable = this.aspectMatchCache
+						.lookup(definition, targetClass, methodIcptLst,
+								fieldIcpLst, map);
+				final List<Method> methodList = matchTable.methods;
+				final Field[] fieldList = matchTable.fields;
+				boolean invocationINOUT = matchTable.invocation;
 				/*
 				 * perform method interceptor
 				 */
-				MethodInterceptor[] methodIcptLst = instSelector
-						.getMethodInterceptors();
-				for (Method method : methodList) {
-					invocationINOUT = invocationINOUT == false ? InterceptorUtils
-							.isInvocation(definition, method)
-							: invocationINOUT;
+				for (int i = 0; i < methodList.size(); i++) {
+					Method method = methodList.get(i);
 					// creates Aspect Pair
-					MethodAspectPair aspectPair = elementAspectFactory
-							.analysesMethod(methodIcptLst, map, definition,
-									method);
+					MethodAspectPair aspectPair = matchTable
+							.createsMethodAspectPair(i, methodIcptLst);
 					// performs advice
 					executesAdvice(definition, method, provider,
 							runtimeLoading, aspectPair);
@@ -190,18 +202,10 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 				/*
 				 * perform field interceptor
 				 */
-				FieldInterceptor[] fieldIcpLst = instSelector
-						.getFieldInterceptors();
 				if (!targetClass.isAnnotation()) {
-					for (Field field : fieldList) {
-						invocationINOUT = invocationINOUT == false ? InterceptorUtils
-								.isInvocation(definition, field)
-								: invocationINOUT;
-						// creates Aspect Pair
-						FieldAspectPair fieldAspectPair = elementAspectFactory
-								.analysesField(fieldIcpLst, map, definition,
-										field);
-						if (fieldAspectPair.hasInterceptors()) {
+					for (int i = 0; i < fieldList.length; i++) {
+						Field field = fieldList[i];
+						if (matchTable.fieldMatches[i]) {
 							Method setter = Utils.getDefaultSetter(targetClass,
 									field.getName());
 							Method getter = Utils.getDefaultGetter(targetClass,
@@ -237,6 +241,9 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 				Callback[] callbacks = new Callback[methodList.size() + 1];
 				Class<? extends Callback>[] callbackTypes = new Class[methodList
 						.size() + 1];
+				Method[] wovenMethods = WeavingSupport
+						.getJoinPoints(targetClass);
+				WovenJoinPoint[] joinPoints = null;
 				for (int i = 0; i < methodList.size(); i++) {
 					MethodAspectPair pair = methodAspectList.get(methodList
 							.get(i));
@@ -245,13 +252,30 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 						callbackTypes[i] = NoOp.class;
 					}
 					else {
-						callbacks[i] = new MethodInterceptorStackCallback(
-								pair.getMethod(),
-								previousResult,
-								pair.interceptors
-										.toArray(new MethodInterceptor[pair.interceptors
-												.size()]));
-						callbackTypes[i] = net.sf.cglib.proxy.MethodInterceptor.class;
+						MethodInterceptor[] interceptors = pair.interceptors
+								.toArray(new MethodInterceptor[pair.interceptors
+										.size()]);
+						int index = previousResult == null ? WeavingSupport
+								.indexOf(wovenMethods, pair.getMethod()) : -1;
+						if (index >= 0) {
+							// woven classes intercept their own methods
+							joinPoints = joinPoints == null ? new WovenJoinPoint[wovenMethods.length]
+									: joinPoints;
+							joinPoints[index] = new WovenJoinPoint(index, pair
+									.getMethod(), interceptors);
+							callbacks[i] = NoOp.INSTANCE;
+							callbackTypes[i] = NoOp.class;
+						}
+						else {
+							callbacks[i] = new MethodInterceptorStackCallback(
+									pair.getMethod(), previousResult,
+									interceptors);
+							callbackTypes[i] = net.sf.cglib.proxy.MethodInterceptor.class;
+						}
+						if (this.metrics != null) {
+							this.metrics.interceptorChainCreated(pair.interceptors
+									.size());
+						}
 					}
 				}
 				callbacks[methodList.size()] = new ReturnScopeNameMethodInterceptor(
@@ -266,33 +290,41 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 				final Method returnScopeNameMethod = ReturnScopeName.class
 						.getDeclaredMethod("returnsScopeName");
 				Enhancer enhancer = new Enhancer();
+				Class<?>[] interfaces;
 				if (targetClass.isAnnotation() || targetClass.isInterface())
-					enhancer.setInterfaces(new Class<?>[] { targetClass,
-							ReturnScopeName.class });
+					interfaces = new Class<?>[] { targetClass,
+							ReturnScopeName.class };
 				else {
 					enhancer.setSuperclass(targetClass);
-					enhancer
-							.setInterfaces(new Class<?>[] { ReturnScopeName.class });
+					interfaces = new Class<?>[] { ReturnScopeName.class };
 				}
-				enhancer.setCallbackFilter(new CallbackFilter() {
-					public int accept(Method method) {
+				enhancer.setInterfaces(interfaces);
+				enhancer.setCallbackFilter(new ProxyLayoutFilter(targetClass,
+						interfaces, new CallbackFilter() {
+							public int accept(Method method) {
 
-						if (method.equals(returnScopeNameMethod))
-							return methodList.size();
-						return methodList.indexOf(method);
-					}
-				});
+								if (method.equals(returnScopeNameMethod))
+									return methodList.size();
+								return methodList.indexOf(method);
+							}
+						}));
 				enhancer.setCallbackTypes(callbackTypes);
 				enhancer.setUseFactory(false);
 				enhancer.setUseCache(true);
 				enhancer.setNamingPolicy(new JGentleNamingPolicy());
 				Class<?> proxied = enhancer.createClass();
-				Enhancer.registerStaticCallbacks(proxied, callbacks);
+				if (this.metrics != null) {
+					this.metrics.proxyClassCreated(proxied);
+				}
 				MetaDefObject metaObj = new MetaDefObject();
 				findInOutNonRuntime(metaObj, definition);
 				CachedConstructor cons = Utils.createConstructionProxy(
 						definition, proxied, instSelector.getArgTypes(),
-						metaObj);
+						metaObj, callbacks);
+				if (joinPoints != null) {
+					cons = new WovenCachedConstructor(definition, cons,
+							joinPoints);
+				}
 				selector.getCachingList().put(definition, cons);
 				result = cons.newInstance(instSelector.getArgs());
 				// executes process after bean is created
@@ -334,24 +366,29 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 				.getDeclaredMethod("returnsScopeName");
 		Class<? extends Callback>[] callbackTypes = new Class[] { NoOp.class,
 				net.sf.cglib.proxy.MethodInterceptor.class };
-		enhancer.setCallbackFilter(new CallbackFilter() {
-			@Override
-			public int accept(Method method) {
+		enhancer.setCallbackFilter(new ProxyLayoutFilter(selector
+				.getTargetClass(), new Class<?>[] { ReturnScopeName.class },
+				new CallbackFilter() {
+					@Override
+					public int accept(Method method) {
 
-				if (method.equals(returnScopeNameMethod))
-					return 1;
-				return 0;
-			}
-		});
+						if (method.equals(returnScopeNameMethod))
+							return 1;
+						return 0;
+					}
+				}));
 		enhancer.setCallbackTypes(callbackTypes);
 		enhancer.setUseFactory(false);
 		enhancer.setUseCache(true);
 		enhancer.setNamingPolicy(new JGentleNamingPolicy());
 		Class<?> proxied = enhancer.createClass();
-		// Store callbacks.
-		Enhancer.registerStaticCallbacks(proxied, callbacks);
+		if (this.metrics != null) {
+			this.metrics.proxyClassCreated(proxied);
+		}
+		// Callbacks are bound per instance, the class is shared.
 		CachedConstructor cons = Utils.createConstructionProxy(selector
-				.getDefinition(), proxied, selector.getArgTypes(), mdo);
+				.getDefinition(), proxied, selector.getArgTypes(), mdo,
+				callbacks);
 		return cons;
 	}
 
@@ -377,15 +414,16 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 		// Create
 		Enhancer enhancer = new Enhancer();
 		enhancer.setSuperclass(selector.getTargetClass());
+		Class<?>[] interfaces;
 		if (interfaze != null && interfaze.isAnnotation())
-			enhancer.setInterfaces(new Class<?>[] { interfaze,
-					Annotation.class, ReturnScopeName.class });
+			interfaces = new Class<?>[] { interfaze, Annotation.class,
+					ReturnScopeName.class };
 		else if (interfaze != null && interfaze.isInterface())
-			enhancer.setInterfaces(new Class<?>[] { interfaze,
-					ReturnScopeName.class });
+			interfaces = new Class<?>[] { interfaze, ReturnScopeName.class };
 		else {
-			enhancer.setInterfaces(new Class<?>[] { ReturnScopeName.class });
+			interfaces = new Class<?>[] { ReturnScopeName.class };
 		}
+		enhancer.setInterfaces(interfaces);
 		final Method returnScopeNameMethod = ReturnScopeName.class
 				.getDeclaredMethod("returnsScopeName");
 		Callback[] callbacks = new Callback[] { NoOp.INSTANCE, interceptor,
@@ -393,7 +431,8 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 		Class<? extends Callback>[] callbackTypes = new Class[] { NoOp.class,
 				net.sf.cglib.proxy.MethodInterceptor.class,
 				net.sf.cglib.proxy.MethodInterceptor.class };
-		enhancer.setCallbackFilter(new CallbackFilter() {
+		enhancer.setCallbackFilter(new ProxyLayoutFilter(selector
+				.getTargetClass(), interfaces, new CallbackFilter() {
 			@Override
 			public int accept(Method method) {
 
@@ -407,16 +446,19 @@ public class CoreProcessorImpl extends AbstractProcesserChecker implements
 				else
 					return 0;
 			}
-		});
+		}));
 		enhancer.setCallbackTypes(callbackTypes);
 		enhancer.setUseFactory(false);
 		enhancer.setUseCache(true);
 		enhancer.setNamingPolicy(new JGentleNamingPolicy());
 		Class<?> proxied = enhancer.createClass();
-		// Store callbacks.
-		Enhancer.registerStaticCallbacks(proxied, callbacks);
+		if (this.metrics != null) {
+			this.metrics.proxyClassCreated(proxied);
+		}
+		// Callbacks are bound per instance, the class is shared.
 		CachedConstructor cons = Utils.createConstructionProxy(selector
-				.getDefinition(), proxied, selector.getArgTypes(), mdo);
+				.getDefinition(), proxied, selector.getArgTypes(), mdo,
+				callbacks);
 		return cons;
 	}
 }
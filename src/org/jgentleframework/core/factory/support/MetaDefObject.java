@@ -29,13 +29,17 @@ import java.lang.reflect.Method;
  */
 public class MetaDefObject {
 	/** The injecter. */
-	Method[]	setters			= null;
+	Method[]					setters				= null;
 	/** The injected fields. */
-	Field[]		injectedFields	= null;
+	Field[]						injectedFields		= null;
 	/** The outjecter. */
-	Method[]	getters			= null;
+	Method[]					getters				= null;
 	/** The outjected fields. */
-	Field[]		outjectedFields	= null;
+	Field[]						outjectedFields		= null;
+	/** The compiled injector. */
+	volatile CompiledInjector	compiledInjector	= null;
+	/** Whether the injector has been compiled. */
+	volatile boolean			injectorCompiled	= false;
 
 	/**
 	 * Gets the setters.
@@ -122,4 +126,39 @@ public class MetaDefObject {
 		this.outjectedFields = outjectedFields != null ? outjectedFields
 				.clone() : null;
 	}
+
+	/**
+	 * Returns the {@link CompiledInjector} of this {@link MetaDefObject}.
+	 * 
+	 * @return the compiled injector, or <b>null</b> if it has not been
+	 *         compiled or if compiling failed.
+	 */
+	public CompiledInjector getCompiledInjector() {
+
+		return compiledInjector;
+	}
+
+	/**
+	 * Compiles the injected fields and setters of this {@link MetaDefObject}
+	 * once only. Subsequent calls return the cached result without locking.
+	 * 
+	 * @param beanClass
+	 *            the bean class declaring the injected members
+	 * @return the compiled injector, or <b>null</b> if the injected members
+	 *         could not be compiled.
+	 * @see CompiledInjector
+	 */
+	public CompiledInjector compileInjector(Class<?> beanClass) {
+
+		if (!injectorCompiled) {
+			synchronized (this) {
+				if (!injectorCompiled) {
+					compiledInjector = CompiledInjectorGenerator.generate(
+							beanClass, injectedFields, setters);
+					injectorCompiled = true;
+				}
+			}
+		}
+		return compiledInjector;
+	}
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import org.jgentleframework.core.intercept.weaving.Woven;
+import org.jgentleframework.core.intercept.weaving.WovenJoinPoint;
+import org.jgentleframework.reflection.metadata.Definition;
+
+/**
+ * A {@link CachedConstructor} binding the intercepted join points of a
+ * {@link Woven woven} class to each instance it creates. Join points are bound
+ * once the constructor returned, methods called by the constructor itself are
+ * not intercepted.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see CoreProcessorImpl
+ */
+class WovenCachedConstructor implements CachedConstructor {
+	/** The definition. */
+	private final Definition		definition;
+
+	/** The constructor of instances. */
+	private final CachedConstructor	constructor;
+
+	/** The join points bound to each instance. */
+	private final WovenJoinPoint[]	joinPoints;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param definition
+	 *            the definition
+	 * @param constructor
+	 *            the constructor of instances
+	 * @param joinPoints
+	 *            the join points bound to each instance
+	 */
+	WovenCachedConstructor(Definition definition,
+			CachedConstructor constructor, WovenJoinPoint[] joinPoints) {
+
+		this.definition = definition;
+		this.constructor = constructor;
+		this.joinPoints = joinPoints;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.core.factory.support.CachedConstructor#newInstance
+	 * (java.lang.Object[])
+	 */
+	@Override
+	public Object newInstance(Object... arguments)
+			throws InvocationTargetException {
+
+		Object result = this.constructor.newInstance(arguments);
+		((Woven) result).$jgentle$bind(this.joinPoints);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.core.factory.support.CachedConstructor#getMetaDefObject
+	 * ()
+	 */
+	@Override
+	public MetaDefObject getMetaDefObject() {
+
+		return this.constructor.getMetaDefObject();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.core.factory.support.CachedConstructor#setMetaDefObject
+	 * (org.jgentleframework.core.factory.support.MetaDefObject)
+	 */
+	@Override
+	public void setMetaDefObject(MetaDefObject mdo) {
+
+		this.constructor.setMetaDefObject(mdo);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.core.factory.support.CachedConstructor#getJavaConstructor
+	 * ()
+	 */
+	@Override
+	public Constructor<?> getJavaConstructor() {
+
+		return this.constructor.getJavaConstructor();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.core.factory.support.CachedConstructor#hashcodeID()
+	 */
+	@Override
+	public int hashcodeID() {
+
+		return this.definition.hashCode() ^ this.hashCode();
+	}
+}
@@ -0,0 +1,619 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.handling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.Map.Entry;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.configure.enums.Types;
+import org.jgentleframework.core.JGentleRuntimeException;
+import org.jgentleframework.reflection.metadata.Definition;
+import org.jgentleframework.utils.AnnotationUtils;
+import org.jgentleframework.utils.ReflectUtils;
+
+/**
+ * An ahead-of-time index of the object classes whose fields and methods
+ * (including those inherited from their super classes and interfaces) are not
+ * annotated. The {@link DefinitionManagerImpl} builds the {@link Definition}
+ * of an indexed class without scanning its fields and methods at all, only
+ * the annotations of the class itself and its constructors are read.
+ * Annotated classes are not indexed and are always built through reflection.
+ * <p>
+ * Staleness is checked per class path location, that is per jar file or class
+ * directory. The index records a stamp of the class files of each location a
+ * class hierarchy is loaded from, the stamp of a location is computed only
+ * once at runtime. An entry whose stamps do not match the loaded locations is
+ * stale and ignored.
+ * <p>
+ * The index is built at build time through the {@link #main(String[])}
+ * method, and is loaded lazily at runtime from the file given by the system
+ * property {@value #DEFINITION_INDEX_PROPERTY}, or else from the class path
+ * resource {@value #DEFINITION_INDEX_RESOURCE}.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see DefinitionManagerImpl
+ */
+public final class DefinitionIndex {
+	/** The system property specifying the index file. */
+	public static final String		DEFINITION_INDEX_PROPERTY	= "jgentle.definitionIndex";
+
+	/** The class path resource of the index. */
+	public static final String		DEFINITION_INDEX_RESOURCE	= "META-INF/jgentle/definition.index";
+
+	/** The empty index. */
+	static final DefinitionIndex	EMPTY						= new DefinitionIndex(
+																		new HashMap<String, long[]>());
+
+	/** The magic number of index files. */
+	private static final int		MAGIC						= 0x4A474449;
+
+	/**
+	 * The format version of index files. Version 1 listed the annotated
+	 * members of every class and stamped each class file.
+	 */
+	private static final int		FORMAT_VERSION				= 2;
+
+	/** The stamp of a location which can not be read. */
+	private static final long		UNAVAILABLE					= -1;
+
+	/** The log. */
+	private static final Log		log							= LogFactory
+																		.getLog(DefinitionIndex.class);
+
+	/** The default index, loaded lazily. */
+	private static volatile DefinitionIndex			defaultIndex	= null;
+
+	/**
+	 * The stamps of the loaded locations, keyed by protection domain since
+	 * all classes loaded from a location by a class loader share it.
+	 */
+	private static final Map<ProtectionDomain, Long>	locationStamps	= Collections
+																			.synchronizedMap(new WeakHashMap<ProtectionDomain, Long>());
+
+	/**
+	 * The entries, the sorted stamps of the locations of each indexed class
+	 * hierarchy keyed by class name.
+	 */
+	private final Map<String, long[]>				entries;
+
+	/**
+	 * The checked entries of loaded classes, a loaded class never changes so
+	 * that its entry only has to be checked once.
+	 */
+	private final Map<Class<?>, Boolean>			checkedEntries	= Collections
+																			.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
+
+	/**
+	 * Instantiates a new definition index.
+	 *
+	 * @param entries
+	 *            the entries
+	 */
+	private DefinitionIndex(Map<String, long[]> entries) {
+
+		this.entries = entries;
+	}
+
+	/**
+	 * Returns the default index. The default index is loaded on first call,
+	 * from the file given by the system property
+	 * {@value #DEFINITION_INDEX_PROPERTY}, or else from the class path resource
+	 * {@value #DEFINITION_INDEX_RESOURCE}. If neither exists or can be read, an
+	 * empty index is returned.
+	 */
+	public static DefinitionIndex getDefault() {
+
+		DefinitionIndex result = defaultIndex;
+		if (result == null) {
+			synchronized (DefinitionIndex.class) {
+				result = defaultIndex;
+				if (result == null) {
+					result = loadDefault();
+					defaultIndex = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Loads the default index.
+	 */
+	private static DefinitionIndex loadDefault() {
+
+		String path = System.getProperty(DEFINITION_INDEX_PROPERTY);
+		InputStream in = null;
+		try {
+			if (path != null && path.length() != 0) {
+				in = new FileInputStream(path);
+			}
+			else {
+				ClassLoader loader = Thread.currentThread()
+						.getContextClassLoader();
+				if (loader == null) {
+					loader = DefinitionIndex.class.getClassLoader();
+				}
+				URL url = loader == null ? null : loader
+						.getResource(DEFINITION_INDEX_RESOURCE);
+				if (url == null) {
+					return EMPTY;
+				}
+				path = url.toString();
+				in = url.openStream();
+			}
+			DefinitionIndex result = read(in);
+			if (log.isInfoEnabled()) {
+				log.info("Loaded definition index [" + path + "] of "
+						+ result.size() + " classes");
+			}
+			return result;
+		}
+		catch (IOException e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Could not load definition index [" + path + "] !", e);
+			}
+			return EMPTY;
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Reads an index from the given stream.
+	 *
+	 * @param in
+	 *            the input stream
+	 * @return the definition index
+	 * @throws IOException
+	 *             if the stream can not be read or is not an index.
+	 */
+	public static DefinitionIndex read(InputStream in) throws IOException {
+
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+			throw new IOException("Invalid definition index format !");
+		}
+		int count = data.readInt();
+		Map<String, long[]> entries = new HashMap<String, long[]>(count * 2);
+		for (int i = 0; i < count; i++) {
+			String name = data.readUTF();
+			long[] stamps = new long[data.readInt()];
+			for (int j = 0; j < stamps.length; j++) {
+				stamps[j] = data.readLong();
+			}
+			entries.put(name, stamps);
+		}
+		return new DefinitionIndex(entries);
+	}
+
+	/**
+	 * Builds the index of the given classes through reflection. Classes with
+	 * annotated fields or methods, or loaded from a location whose stamp can
+	 * not be computed, are left out.
+	 *
+	 * @param classes
+	 *            the classes
+	 * @return the definition index
+	 */
+	public static DefinitionIndex build(Class<?>... classes) {
+
+		Map<String, long[]> entries = new HashMap<String, long[]>();
+		for (Class<?> clazz : classes) {
+			if (hasAnnotatedMembers(clazz)) {
+				continue;
+			}
+			long[] stamps = stampsOf(clazz);
+			if (stamps != null) {
+				entries.put(clazz.getName(), stamps);
+			}
+		}
+		return new DefinitionIndex(entries);
+	}
+
+	/**
+	 * Returns <b>true</b> if a field or method of the given class is
+	 * annotated, in the same way the {@link DefinitionManagerImpl} defines
+	 * them.
+	 *
+	 * @param clazz
+	 *            the class
+	 */
+	private static boolean hasAnnotatedMembers(Class<?> clazz) {
+
+		for (Field field : ReflectUtils.getAllDeclaredFields(clazz)) {
+			if (AnnotationUtils.getAnnotations(field, Types.DEFAULT).length > 0) {
+				return true;
+			}
+		}
+		for (Method method : ReflectUtils.getAllDeclaredMethods(clazz)) {
+			if (AnnotationUtils.getAnnotations(method, Types.DEFAULT).length > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes this index to the given stream.
+	 *
+	 * @param out
+	 *            the output stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void write(OutputStream out) throws IOException {
+
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+				out));
+		data.writeInt(MAGIC);
+		data.writeInt(FORMAT_VERSION);
+		data.writeInt(this.entries.size());
+		for (Entry<String, long[]> entry : this.entries.entrySet()) {
+			data.writeUTF(entry.getKey());
+			data.writeInt(entry.getValue().length);
+			for (long stamp : entry.getValue()) {
+				data.writeLong(stamp);
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Returns the number of indexed classes.
+	 */
+	public int size() {
+
+		return this.entries.size();
+	}
+
+	/**
+	 * Returns <b>true</b> if the given class is indexed and its entry is up to
+	 * date, that is none of its fields and methods is annotated.
+	 *
+	 * @param clazz
+	 *            the class
+	 */
+	boolean isUnannotated(Class<?> clazz) {
+
+		long[] stamps = this.entries.get(clazz.getName());
+		if (stamps == null) {
+			return false;
+		}
+		Boolean result = this.checkedEntries.get(clazz);
+		if (result == null) {
+			result = Arrays.equals(stamps, stampsOf(clazz));
+			if (!result && log.isDebugEnabled()) {
+				log.debug("Definition index entry of [" + clazz.getName()
+						+ "] is stale");
+			}
+			this.checkedEntries.put(clazz, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the sorted stamps of the locations the class hierarchy of the
+	 * given class is loaded from, bootstrap classes are not stamped.
+	 *
+	 * @param clazz
+	 *            the class
+	 * @return the stamps, or <b>null</b> if the stamp of a location can not be
+	 *         computed.
+	 */
+	private static long[] stampsOf(Class<?> clazz) {
+
+		TreeSet<Long> stamps = new TreeSet<Long>();
+		if (!addStamps(clazz, stamps)) {
+			return null;
+		}
+		long[] result = new long[stamps.size()];
+		int i = 0;
+		for (Long stamp : stamps) {
+			result[i++] = stamp;
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the stamps of the locations of the given type, its super classes
+	 * and its interfaces to the given set. The hierarchy is walked directly
+	 * rather than through {@link ReflectUtils}, which reflects over the
+	 * members of every type.
+	 *
+	 * @param type
+	 *            the type
+	 * @param stamps
+	 *            the set of stamps
+	 * @return <b>false</b> if a stamp can not be computed.
+	 */
+	private static boolean addStamps(Class<?> type, TreeSet<Long> stamps) {
+
+		for (; type != null && type != Object.class; type = type
+				.getSuperclass()) {
+			if (!addStamp(type, stamps)) {
+				return false;
+			}
+			for (Class<?> interfaze : type.getInterfaces()) {
+				if (!addStamps(interfaze, stamps)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the stamp of the location of the given type to the given set.
+	 *
+	 * @param type
+	 *            the type
+	 * @param stamps
+	 *            the set of stamps
+	 * @return <b>false</b> if the stamp can not be computed.
+	 */
+	private static boolean addStamp(Class<?> type, TreeSet<Long> stamps) {
+
+		if (type.getClassLoader() == null) {
+			return true;
+		}
+		ProtectionDomain domain;
+		try {
+			domain = type.getProtectionDomain();
+		}
+		catch (SecurityException e) {
+			return false;
+		}
+		Long stamp = locationStamps.get(domain);
+		if (stamp == null) {
+			CodeSource source = domain.getCodeSource();
+			stamp = source == null || source.getLocation() == null ? UNAVAILABLE
+					: stampOf(source.getLocation());
+			locationStamps.put(domain, stamp);
+		}
+		if (stamp == UNAVAILABLE) {
+			return false;
+		}
+		stamps.add(stamp);
+		return true;
+	}
+
+	/**
+	 * Returns the stamp of the class files of the given location, computed
+	 * from the name, size and checksum of each class entry of a jar file, or
+	 * from the path and last modification time of each class file of a
+	 * directory.
+	 *
+	 * @param location
+	 *            the location
+	 * @return the stamp, or {@link #UNAVAILABLE} if the location can not be
+	 *         read.
+	 */
+	private static long stampOf(URL location) {
+
+		if (!"file".equals(location.getProtocol())) {
+			return UNAVAILABLE;
+		}
+		try {
+			File file = new File(location.toURI());
+			if (file.isDirectory()) {
+				return stampOf(file, "") & Long.MAX_VALUE;
+			}
+			ZipFile jar = new ZipFile(file);
+			try {
+				long result = 0;
+				for (Enumeration<? extends ZipEntry> en = jar.entries(); en
+						.hasMoreElements();) {
+					ZipEntry entry = en.nextElement();
+					if (entry.getName().endsWith(".class")) {
+						result += mix(entry.getName(), entry.getCrc(), entry
+								.getSize());
+					}
+				}
+				return result & Long.MAX_VALUE;
+			}
+			finally {
+				jar.close();
+			}
+		}
+		catch (IOException e) {
+			// stamp is not available
+		}
+		catch (URISyntaxException e) {
+			// stamp is not available
+		}
+		catch (IllegalArgumentException e) {
+			// stamp is not available
+		}
+		return UNAVAILABLE;
+	}
+
+	/**
+	 * Returns the stamp of the class files of the given directory.
+	 *
+	 * @param dir
+	 *            the directory
+	 * @param path
+	 *            the relative path of the directory
+	 */
+	private static long stampOf(File dir, String path) {
+
+		long result = 0;
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return result;
+		}
+		for (File file : files) {
+			String name = path + file.getName();
+			if (name.endsWith(".class")) {
+				result += mix(name, file.lastModified(), 0);
+			}
+			else if (file.isDirectory()) {
+				result += stampOf(file, name + "/");
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Mixes the given class file attributes into the stamp of a single class
+	 * file, stamps of class files are summed so that the order in which they
+	 * are listed does not matter.
+	 */
+	private static long mix(String name, long time, long size) {
+
+		long result = (name.hashCode() * 31L + time) * 31L + size;
+		result ^= result >>> 33;
+		result *= 0xff51afd7ed558ccdL;
+		result ^= result >>> 33;
+		return result;
+	}
+
+	/**
+	 * Closes the given stream quietly.
+	 *
+	 * @param in
+	 *            the input stream, may be <b>null</b>.
+	 */
+	private static void close(InputStream in) {
+
+		if (in != null) {
+			try {
+				in.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Builds the index of the given classes and writes it to the given file.
+	 * Arguments are the output file followed by class names or class path
+	 * directories, every class found in a given directory is indexed.
+	 *
+	 * @param args
+	 *            the arguments
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 2) {
+			System.err.println("Usage: DefinitionIndex <output file> "
+					+ "<class name | class directory>...");
+			return;
+		}
+		ClassLoader loader = DefinitionIndex.class.getClassLoader();
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (int i = 1; i < args.length; i++) {
+			File dir = new File(args[i]);
+			List<String> names = new ArrayList<String>();
+			if (dir.isDirectory()) {
+				collectClassNames(dir, "", names);
+			}
+			else {
+				names.add(args[i]);
+			}
+			for (String name : names) {
+				try {
+					classes.add(Class.forName(name, false, loader));
+				}
+				catch (ClassNotFoundException e) {
+					throw new JGentleRuntimeException("Could not load class ["
+							+ name + "] !");
+				}
+				catch (LinkageError e) {
+					if (log.isWarnEnabled()) {
+						log.warn("Could not index class [" + name + "] : "
+								+ e);
+					}
+				}
+			}
+		}
+		DefinitionIndex index = build(classes.toArray(new Class<?>[classes
+				.size()]));
+		OutputStream out = new FileOutputStream(args[0]);
+		try {
+			index.write(out);
+		}
+		finally {
+			out.close();
+		}
+		System.out.println("Indexed " + index.size() + " of "
+				+ classes.size() + " classes into " + args[0]);
+	}
+
+	/**
+	 * Collects the names of all classes found in the given directory.
+	 *
+	 * @param dir
+	 *            the directory
+	 * @param prefix
+	 *            the package prefix of the directory
+	 * @param names
+	 *            the list of names
+	 */
+	private static void collectClassNames(File dir, String prefix,
+			List<String> names) {
+
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				collectClassNames(file, prefix + name + ".", names);
+			}
+			else if (name.endsWith(".class")) {
+				names.add(prefix + name.substring(0, name.length() - 6));
+			}
+		}
+	}
+}
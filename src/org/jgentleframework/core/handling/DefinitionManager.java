@@ -149,6 +149,16 @@ public interface DefinitionManager extends IAnnotationVisitor,
 	 */
 	public Map<String, Definition> getDefListSub();
 
+	/**
+	 * Returns the current version of this {@link DefinitionManager}. The
+	 * version is increased whenever a {@link Definition} is replaced or removed,
+	 * so that callers caching resolved {@link Definition definitions} can
+	 * detect stale entries.
+	 * 
+	 * @return the version
+	 */
+	public int getVersion();
+
 	/**
 	 * @return the visitorHandler
 	 */
@@ -416,4 +426,4 @@ public interface DefinitionManager extends IAnnotationVisitor,
 	 */
 	public void validateAnnnotation(Annotation annotation,
 			Annotation[] annoList, Object object, Class<?> classez);
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -26,8 +26,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jgentleframework.configure.enums.Types;
+import org.jgentleframework.core.JGentleRuntimeException;
 import org.jgentleframework.core.factory.InOutDependencyException;
 import org.jgentleframework.core.provider.AnnotationValidator;
 import org.jgentleframework.reflection.metadata.Definition;
@@ -119,14 +126,40 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 		}
 	}
 
+	/**
+	 * The task building the {@link Definition} of a key, run by the first
+	 * thread looking the key up while other threads wait for its result.
+	 */
+	private static final class BuildingTask extends FutureTask<Definition> {
+		/** The building thread. */
+		final Thread	owner	= Thread.currentThread();
+
+		/**
+		 * Instantiates a new building task.
+		 * 
+		 * @param callable
+		 *            the callable
+		 */
+		BuildingTask(Callable<Definition> callable) {
+
+			super(callable);
+		}
+	}
+
 	/** contains all created {@link Definition}. */
-	private Map<Object, Definition>	defList		= new HashMap<Object, Definition>();
+	private final ConcurrentMap<Object, Definition>		defList		= new ConcurrentHashMap<Object, Definition>();
 
 	/**
-	 * The {@link HashMap} containing all created {@link Definition}s according
-	 * to ID.
+	 * The {@link ConcurrentMap} containing all created {@link Definition}s
+	 * according to ID.
 	 */
-	private Map<String, Definition>	defListSub	= new HashMap<String, Definition>();
+	private final ConcurrentMap<String, Definition>		defListSub	= new ConcurrentHashMap<String, Definition>();
+
+	/** The {@link Definition}s being built, according to key. */
+	private final ConcurrentMap<Object, BuildingTask>	building	= new ConcurrentHashMap<Object, BuildingTask>();
+
+	/** The version of definition data. */
+	private final AtomicInteger							version		= new AtomicInteger();
 
 	/**
 	 * Constructor.
@@ -312,22 +345,73 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	public Definition getDefinition(Object obj) {
 
 		Assertor.notNull(obj);
-		Definition result = null;
-		if (!this.defList.containsKey(obj) || this.defList.get(obj) == null) {
-			if (ReflectUtils.isMethod(obj))
-				this.loadDefinition((Method) obj);
-			else if (ReflectUtils.isField(obj))
-				this.loadDefinition((Field) obj);
-			else if (ReflectUtils.isConstructor(obj)) {
-				this.loadDefinition((Constructor<?>) obj);
-			}
-			else
-				this.putDefinition(obj, this.loadDefinition(obj));
+		Definition result = this.defList.get(obj);
+		if (result == null) {
+			result = obtainDefinition(obj);
 		}
-		result = this.defList.get(obj);
 		return result;
 	}
 
+	/**
+	 * Returns the {@link Definition} of the given key, building it if it does
+	 * not exist yet. Concurrent lookups of the same key build the
+	 * {@link Definition} only once, threads wait for the first one to finish.
+	 * 
+	 * @param obj
+	 *            the key
+	 * @return the definition
+	 */
+	private Definition obtainDefinition(final Object obj) {
+
+		BuildingTask task = new BuildingTask(new Callable<Definition>() {
+			@Override
+			public Definition call() {
+
+				Definition result = defList.get(obj);
+				if (result == null) {
+					result = loadDefinition(obj);
+					Definition current = defList.putIfAbsent(obj, result);
+					if (current != null) {
+						result = current;
+					}
+				}
+				return result;
+			}
+		});
+		BuildingTask current = this.building.putIfAbsent(obj, task);
+		if (current == null) {
+			current = task;
+			try {
+				task.run();
+			}
+			finally {
+				this.building.remove(obj, task);
+			}
+		}
+		else if (current.owner == Thread.currentThread() && !current.isDone()) {
+			// the definition is looked up again while being built.
+			return loadDefinition(obj);
+		}
+		try {
+			return current.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JGentleRuntimeException(
+					"Interrupted while building definition of '" + obj + "'");
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new JGentleRuntimeException(cause.getMessage());
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -337,9 +421,12 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	@Override
 	public Definition getDefinition(Class<?> clazz) {
 
-		if (!containsDefinition(clazz))
-			this.loadDefinition(clazz);
-		return this.defList.get(clazz);
+		Assertor.notNull(clazz);
+		Definition result = this.defList.get(clazz);
+		if (result == null) {
+			result = obtainDefinition(clazz);
+		}
+		return result;
 	}
 
 	/*
@@ -350,7 +437,7 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	@Override
 	public Definition getDefinition(String ID) {
 
-		return this.defListSub.get(ID);
+		return ID == null ? null : this.defListSub.get(ID);
 	}
 
 	/*
@@ -375,6 +462,16 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 		return defListSub;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.core.handling.DefinitionManager#getVersion()
+	 */
+	@Override
+	public int getVersion() {
+
+		return this.version.get();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @seeorg.jgentleframework.core.metadatahandling.aohhandling.defhandling.
@@ -674,7 +771,7 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	 *            the object
 	 * @return the definition
 	 */
-	private synchronized Definition loadDefinition(Object object) {
+	private Definition loadDefinition(Object object) {
 
 		// validate thông tin annotation trước khi
 		// diễn dịch thành definition.
@@ -723,8 +820,12 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 		// Nếu đối tượng truyền vào là một Class
 		else if (ReflectUtils.isClass(object)) {
 			Class<?> clazz = (Class<?>) object;
+			// fields and methods of indexed classes are not annotated.
+			boolean scansMembers = !DefinitionIndex.getDefault().isUnannotated(
+					clazz);
 			// Khởi tạo definition cho field của class nếu có
-			Field[] fieldList = ReflectUtils.getAllDeclaredFields(clazz);
+			Field[] fieldList = scansMembers ? ReflectUtils
+					.getAllDeclaredFields(clazz) : null;
 			if (fieldList != null && fieldList.length != 0) {
 				for (Field field : fieldList) {
 					int check = 0;
@@ -749,7 +850,8 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 			}
 			// creates definition of all methods and their parameters in this
 			// declaring class if they exist.
-			Method[] methodList = ReflectUtils.getAllDeclaredMethods(clazz);
+			Method[] methodList = scansMembers ? ReflectUtils
+					.getAllDeclaredMethods(clazz) : null;
 			if (methodList != null && methodList.length != 0) {
 				for (Method method : methodList) {
 					int check = 0;
@@ -776,10 +878,11 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	 * @param definition
 	 *            the definition
 	 */
-	private synchronized void putDefinition(Object sourceObject,
+	private void putDefinition(Object sourceObject,
 			Definition definition) {
 
-		this.defList.put(sourceObject, definition);
+		if (this.defList.put(sourceObject, definition) != null)
+			this.version.incrementAndGet();
 	}
 
 	/**
@@ -790,9 +893,10 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	 * @param definition
 	 *            the definition
 	 */
-	private synchronized void putDefinition(String ID, Definition definition) {
+	private void putDefinition(String ID, Definition definition) {
 
-		this.defListSub.put(ID, definition);
+		if (this.defListSub.put(ID, definition) != null)
+			this.version.incrementAndGet();
 	}
 
 	/*
@@ -803,6 +907,7 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	@Override
 	public Definition removeDefinition(Class<?> clazz) {
 
+		this.version.incrementAndGet();
 		return this.defList.remove((Object) clazz);
 	}
 
@@ -815,6 +920,7 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	@Override
 	public Definition removeDefinition(Constructor<?> constructor) {
 
+		this.version.incrementAndGet();
 		return this.defList.remove((Object) constructor);
 	}
 
@@ -826,6 +932,7 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	@Override
 	public Definition removeDefinition(Field field) {
 
+		this.version.incrementAndGet();
 		return this.defList.remove((Object) field);
 	}
 
@@ -837,6 +944,7 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	@Override
 	public Definition removeDefinition(Method method) {
 
+		this.version.incrementAndGet();
 		return this.defList.remove((Object) method);
 	}
 
@@ -847,6 +955,7 @@ public class DefinitionManagerImpl extends AbstractDefinitionController
 	 */
 	public Definition removeDefinition(Object obj) {
 
+		this.version.incrementAndGet();
 		return this.defList.remove(obj);
 	}
 
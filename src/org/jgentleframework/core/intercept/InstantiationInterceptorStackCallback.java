@@ -28,6 +28,8 @@ import org.apache.commons.logging.LogFactory;
 import org.jgentleframework.configure.enums.MetadataKey;
 import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.context.support.InstantiationSelector;
+import org.jgentleframework.core.intercept.InterceptionProfiler.JoinPointProfile;
+import org.jgentleframework.core.intercept.InterceptionProfiler.Recorder;
 import org.jgentleframework.reflection.metadata.Definition;
 import org.jgentleframework.reflection.metadata.MetadataController;
 import org.jgentleframework.reflection.metadata.MetadataImpl;
@@ -55,6 +57,9 @@ public class InstantiationInterceptorStackCallback {
 		/** The index. */
 		int							index				= -1;
 
+		/** The profiling buffer, <b>null</b> if profiling is disabled. */
+		Recorder					recorder			= null;
+
 		private final Log			log					= LogFactory
 																.getLog(getClass());
 
@@ -203,6 +208,8 @@ public class InstantiationInterceptorStackCallback {
 		@Override
 		public Object proceed() throws Throwable {
 
+			Recorder recorder = this.recorder;
+			long start = recorder != null ? System.nanoTime() : 0L;
 			Object result = null;
 			try {
 				index++;
@@ -216,6 +223,9 @@ public class InstantiationInterceptorStackCallback {
 				}
 			}
 			finally {
+				if (recorder != null) {
+					recorder.time(profile, index, System.nanoTime() - start);
+				}
 				index--;
 				previousResult = null;
 			}
@@ -250,6 +260,9 @@ public class InstantiationInterceptorStackCallback {
 	/** The previous result. */
 	Object								previousResult	= null;
 
+	/** The profile of the join point, <b>null</b> if profiling is disabled. */
+	final JoinPointProfile				profile;
+
 	/** The service handler. */
 	final Provider						provider;
 
@@ -302,6 +315,8 @@ public class InstantiationInterceptorStackCallback {
 				: interceptors;
 		this.definition = definition;
 		this.provider = provider;
+		this.profile = InterceptionProfiler.joinPointOf(this.targetClass,
+				this.interceptors);
 	}
 
 	/**
@@ -344,6 +359,8 @@ public class InstantiationInterceptorStackCallback {
 				.size()]);
 		this.definition = selector.getDefinition();
 		this.provider = provider;
+		this.profile = InterceptionProfiler.joinPointOf(this.targetClass,
+				this.interceptors);
 	}
 
 	/*
@@ -354,7 +371,19 @@ public class InstantiationInterceptorStackCallback {
 	 */
 	public Object instantiate() throws Throwable {
 
-		return new InterceptedObjectInstantiation(this.definition, null, null)
-				.proceed();
+		InterceptedObjectInstantiation instantiation = new InterceptedObjectInstantiation(
+				this.definition, null, null);
+		if (this.profile == null) {
+			return instantiation.proceed();
+		}
+		Recorder recorder = this.profile.recorder();
+		long allocated = recorder.begin();
+		instantiation.recorder = recorder;
+		try {
+			return instantiation.proceed();
+		}
+		finally {
+			recorder.end(this.profile, allocated);
+		}
 	}
 }
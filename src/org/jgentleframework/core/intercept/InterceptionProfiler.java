@@ -0,0 +1,837 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.context.injecting.ContainerMetrics;
+
+/**
+ * Profiles the cost of interception. For each join point, that is an
+ * intercepted method or an intercepted instantiation together with its stack
+ * of interceptors, the profiler records the number of invocations, the time
+ * spent inside each interceptor excluding the rest of the stack, the time
+ * spent inside the target and, when the JVM supports it, the number of bytes
+ * allocated by the invocations. The statistics are exposed through
+ * {@link #report()} and as a JMX MBean.
+ * <p>
+ * Profiling is optional, it is enabled through the system property
+ * {@value #PROFILING_PROPERTY}. When it is disabled, there is no
+ * {@link InterceptionProfiler} and the interceptor stacks only perform a null
+ * check. Each thread records into its own buffer, written by that thread only
+ * and without locking, buffers are summed when a report is requested.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see MethodInterceptorStackCallback
+ * @see InstantiationInterceptorStackCallback
+ */
+public final class InterceptionProfiler implements InterceptionProfilerMBean {
+	/** The system property enabling profiling. */
+	public static final String								PROFILING_PROPERTY	= "jgentle.profiling";
+
+	/** The log. */
+	private static final Log								log					= LogFactory
+																						.getLog(InterceptionProfiler.class);
+
+	/** The profiler, <b>null</b> if profiling is disabled. */
+	private static final InterceptionProfiler				instance			= Boolean.getBoolean(PROFILING_PROPERTY) ? new InterceptionProfiler() : null;
+
+	/** The join points, by name and interceptors. */
+	private final ConcurrentMap<String, JoinPointProfile>	joinPoints			= new ConcurrentHashMap<String, JoinPointProfile>();
+
+	/** The number of allocated buffer slots. */
+	private final AtomicInteger								slots				= new AtomicInteger();
+
+	/** The buffers of live threads. */
+	private final List<Recorder>							recorders			= new CopyOnWriteArrayList<Recorder>();
+
+	/** The buffer of each thread. */
+	private final ThreadLocal<Recorder>						recorder			= new ThreadLocal<Recorder>();
+
+	/** The thread bean, <b>null</b> if allocations are not tracked. */
+	private final com.sun.management.ThreadMXBean			threadBean;
+
+	/** The totals of the buffers of terminated threads. */
+	private long[]											retired				= new long[0];
+
+	/** The totals at the last reset. */
+	private long[]											baseline			= new long[0];
+
+	/** The registered MBean name, or <b>null</b>. */
+	private ObjectName										objectName			= null;
+
+	/**
+	 * Constructor.
+	 */
+	private InterceptionProfiler() {
+
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean threadBean = null;
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+			try {
+				if (!threadBean.isThreadAllocatedMemorySupported()
+						|| !threadBean.isThreadAllocatedMemoryEnabled()) {
+					threadBean = null;
+				}
+			}
+			catch (UnsupportedOperationException e) {
+				threadBean = null;
+			}
+		}
+		this.threadBean = threadBean;
+		try {
+			ObjectName name = new ObjectName(ContainerMetrics.JMX_DOMAIN
+					+ ":type=InterceptionProfiler");
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					name);
+			this.objectName = name;
+		}
+		catch (JMException e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Could not register interception profiler MBean !", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns <b>true</b> if profiling is enabled.
+	 */
+	public static boolean isEnabled() {
+
+		return instance != null;
+	}
+
+	/**
+	 * Returns the profiler, or <b>null</b> if profiling is disabled.
+	 */
+	public static InterceptionProfiler getInstance() {
+
+		return instance;
+	}
+
+	/**
+	 * Returns the profile of the join point of the given intercepted method.
+	 *
+	 * @param method
+	 *            the intercepted method
+	 * @param interceptors
+	 *            the interceptors
+	 * @return the profile, or <b>null</b> if profiling is disabled.
+	 */
+	public static JoinPointProfile joinPointOf(Method method,
+			Object[] interceptors) {
+
+		if (instance == null) {
+			return null;
+		}
+		StringBuilder name = new StringBuilder(method.getDeclaringClass()
+				.getName());
+		name.append('.').append(method.getName()).append('(');
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			name.append(i == 0 ? "" : ", ").append(
+					parameterTypes[i].getSimpleName());
+		}
+		return instance.joinPoint(name.append(')').toString(), interceptors);
+	}
+
+	/**
+	 * Returns the profile of the join point of the given intercepted
+	 * instantiation.
+	 *
+	 * @param targetClass
+	 *            the instantiated class
+	 * @param interceptors
+	 *            the interceptors
+	 * @return the profile, or <b>null</b> if profiling is disabled.
+	 */
+	public static JoinPointProfile joinPointOf(Class<?> targetClass,
+			Object[] interceptors) {
+
+		if (instance == null) {
+			return null;
+		}
+		return instance.joinPoint("new "
+				+ (targetClass != null ? targetClass.getName() : "?"),
+				interceptors);
+	}
+
+	/**
+	 * Returns the profile of the given join point, registering it at the
+	 * first call.
+	 */
+	private JoinPointProfile joinPoint(String name, Object[] interceptors) {
+
+		String[] names = new String[interceptors.length];
+		StringBuilder key = new StringBuilder(name);
+		for (int i = 0; i < interceptors.length; i++) {
+			names[i] = nameOf(interceptors[i]);
+			key.append(' ').append(names[i]);
+		}
+		JoinPointProfile result = this.joinPoints.get(key.toString());
+		if (result == null) {
+			synchronized (this.joinPoints) {
+				result = this.joinPoints.get(key.toString());
+				if (result == null) {
+					result = new JoinPointProfile(this, name, names,
+							this.slots.getAndAdd(names.length + 3));
+					this.joinPoints.put(key.toString(), result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the display name of the given interceptor, its string
+	 * representation if its class overrides {@link Object#toString()}, its
+	 * class name otherwise, without the suffix of generated proxy classes.
+	 */
+	private static String nameOf(Object interceptor) {
+
+		if (interceptor == null) {
+			return "null";
+		}
+		try {
+			if (interceptor.getClass().getMethod("toString")
+					.getDeclaringClass() != Object.class) {
+				return interceptor.toString();
+			}
+		}
+		catch (NoSuchMethodException e) {
+			// can not happen.
+		}
+		String result = interceptor.getClass().getName();
+		int index = result.indexOf("$$");
+		return index > 0 ? result.substring(0, index) : result;
+	}
+
+	/**
+	 * Returns the buffer of the current thread.
+	 */
+	Recorder recorder() {
+
+		Recorder result = this.recorder.get();
+		if (result == null) {
+			result = new Recorder(this.threadBean);
+			this.recorder.set(result);
+			this.recorders.add(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the totals of all buffers since the last reset. The buffers of
+	 * terminated threads are folded into the retired totals.
+	 */
+	private synchronized long[] totals() {
+
+		long[] result = new long[this.slots.get()];
+		List<Recorder> terminated = new ArrayList<Recorder>();
+		for (Recorder recorder : this.recorders) {
+			Thread thread = recorder.thread.get();
+			if (thread == null || !thread.isAlive()) {
+				terminated.add(recorder);
+			}
+			recorder.addTo(result);
+		}
+		if (!terminated.isEmpty()) {
+			this.recorders.removeAll(terminated);
+			long[] retired = new long[result.length];
+			for (Recorder recorder : terminated) {
+				recorder.addTo(retired);
+			}
+			this.retired = add(retired, this.retired);
+		}
+		result = add(result, this.retired);
+		for (int i = 0; i < result.length && i < this.baseline.length; i++) {
+			result[i] -= this.baseline[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the given totals to the given array, which is at least as long.
+	 */
+	private static long[] add(long[] target, long[] totals) {
+
+		for (int i = 0; i < totals.length; i++) {
+			target[i] += totals[i];
+		}
+		return target;
+	}
+
+	/**
+	 * Returns a report of the current statistics.
+	 */
+	public Report report() {
+
+		long[] totals = totals();
+		List<JoinPointStatistics> list = new ArrayList<JoinPointStatistics>();
+		for (JoinPointProfile profile : this.joinPoints.values()) {
+			if (profile.offset + profile.interceptors.length + 3 <= totals.length) {
+				JoinPointStatistics statistics = new JoinPointStatistics(
+						profile, totals);
+				if (statistics.getInvocationCount() != 0) {
+					list.add(statistics);
+				}
+			}
+		}
+		Collections.sort(list, new Comparator<JoinPointStatistics>() {
+			@Override
+			public int compare(JoinPointStatistics o1, JoinPointStatistics o2) {
+
+				long d = o2.getInterceptorNanos() - o1.getInterceptorNanos();
+				return d < 0 ? -1 : d > 0 ? 1 : o1.getName().compareTo(
+						o2.getName());
+			}
+		});
+		return new Report(list, this.threadBean != null);
+	}
+
+	/**
+	 * Unregisters this object from the platform MBean server.
+	 */
+	public synchronized void unregisterMBean() {
+
+		if (this.objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+						this.objectName);
+			}
+			catch (JMException e) {
+				if (log.isWarnEnabled()) {
+					log.warn(
+							"Could not unregister interception profiler MBean !",
+							e);
+				}
+			}
+			this.objectName = null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.core.intercept.InterceptionProfilerMBean#getJoinPointCount
+	 * ()
+	 */
+	@Override
+	public int getJoinPointCount() {
+
+		return report().getJoinPoints().size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.core.intercept.InterceptionProfilerMBean#
+	 * getInvocationCount()
+	 */
+	@Override
+	public long getInvocationCount() {
+
+		return report().getInvocationCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.core.intercept.InterceptionProfilerMBean#
+	 * getInterceptorNanos()
+	 */
+	@Override
+	public long getInterceptorNanos() {
+
+		return report().getInterceptorNanos();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.core.intercept.InterceptionProfilerMBean#getTargetNanos
+	 * ()
+	 */
+	@Override
+	public long getTargetNanos() {
+
+		return report().getTargetNanos();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.core.intercept.InterceptionProfilerMBean#
+	 * isAllocationTracked()
+	 */
+	@Override
+	public boolean isAllocationTracked() {
+
+		return this.threadBean != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.core.intercept.InterceptionProfilerMBean#
+	 * getJoinPointStatistics()
+	 */
+	@Override
+	public String[] getJoinPointStatistics() {
+
+		List<JoinPointStatistics> list = report().getJoinPoints();
+		String[] result = new String[list.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = list.get(i).toString();
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.core.intercept.InterceptionProfilerMBean#reset()
+	 */
+	@Override
+	public synchronized void reset() {
+
+		this.baseline = new long[0];
+		this.baseline = totals();
+	}
+
+	/**
+	 * A profiled join point. The statistics of a join point occupy
+	 * consecutive slots of the thread buffers: the number of invocations, the
+	 * allocated bytes, then the time spent at each level of the stack, that is
+	 * inside each interceptor including the rest of the stack, and last inside
+	 * the target.
+	 */
+	public static final class JoinPointProfile {
+		/** The profiler. */
+		final InterceptionProfiler	profiler;
+
+		/** The join point name. */
+		final String				name;
+
+		/** The interceptor names. */
+		final String[]				interceptors;
+
+		/** The first slot of the join point. */
+		final int					offset;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param profiler
+		 *            the profiler
+		 * @param name
+		 *            the join point name
+		 * @param interceptors
+		 *            the interceptor names
+		 * @param offset
+		 *            the first slot
+		 */
+		JoinPointProfile(InterceptionProfiler profiler, String name,
+				String[] interceptors, int offset) {
+
+			this.profiler = profiler;
+			this.name = name;
+			this.interceptors = interceptors;
+			this.offset = offset;
+		}
+
+		/**
+		 * Returns the buffer of the current thread.
+		 */
+		public Recorder recorder() {
+
+			return this.profiler.recorder();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			return this.name;
+		}
+	}
+
+	/**
+	 * The buffer of one thread. Only its thread writes into it, with ordered
+	 * stores and without locking, the profiler reads it when a report is
+	 * requested.
+	 */
+	public static final class Recorder {
+		/** The thread. */
+		final WeakReference<Thread>						thread;
+
+		/** The thread id. */
+		private final long								threadId;
+
+		/** The thread bean, <b>null</b> if allocations are not tracked. */
+		private final com.sun.management.ThreadMXBean	threadBean;
+
+		/** The slots. */
+		private volatile AtomicLongArray				values	= new AtomicLongArray(
+																		64);
+
+		/**
+		 * Constructor.
+		 *
+		 * @param threadBean
+		 *            the thread bean
+		 */
+		Recorder(com.sun.management.ThreadMXBean threadBean) {
+
+			Thread current = Thread.currentThread();
+			this.thread = new WeakReference<Thread>(current);
+			this.threadId = current.getId();
+			this.threadBean = threadBean;
+		}
+
+		/**
+		 * Starts an invocation.
+		 *
+		 * @return the number of bytes allocated by the thread so far, <b>0</b>
+		 *         if allocations are not tracked.
+		 */
+		public long begin() {
+
+			return this.threadBean != null ? this.threadBean
+					.getThreadAllocatedBytes(this.threadId) : 0L;
+		}
+
+		/**
+		 * Ends an invocation of the given join point.
+		 *
+		 * @param profile
+		 *            the join point
+		 * @param allocated
+		 *            the value returned by {@link #begin()}
+		 */
+		public void end(JoinPointProfile profile, long allocated) {
+
+			add(profile.offset, 1);
+			if (this.threadBean != null) {
+				add(profile.offset + 1, this.threadBean
+						.getThreadAllocatedBytes(this.threadId)
+						- allocated);
+			}
+		}
+
+		/**
+		 * Records the time spent at the given level of the stack of the given
+		 * join point.
+		 *
+		 * @param profile
+		 *            the join point
+		 * @param level
+		 *            the index of interceptor, or the number of interceptors
+		 *            for the target.
+		 * @param nanos
+		 *            the time, in nanoseconds.
+		 */
+		public void time(JoinPointProfile profile, int level, long nanos) {
+
+			add(profile.offset + 2 + level, nanos);
+		}
+
+		/**
+		 * Adds the given value to the given slot.
+		 */
+		private void add(int slot, long value) {
+
+			AtomicLongArray values = this.values;
+			if (slot >= values.length()) {
+				AtomicLongArray grown = new AtomicLongArray(Math.max(values
+						.length() * 2, slot + 64));
+				for (int i = 0; i < values.length(); i++) {
+					grown.lazySet(i, values.get(i));
+				}
+				this.values = grown;
+				values = grown;
+			}
+			values.lazySet(slot, values.get(slot) + value);
+		}
+
+		/**
+		 * Adds the slots of this buffer to the given totals.
+		 */
+		void addTo(long[] totals) {
+
+			AtomicLongArray values = this.values;
+			for (int i = 0; i < totals.length && i < values.length(); i++) {
+				totals[i] += values.get(i);
+			}
+		}
+	}
+
+	/**
+	 * An immutable report of the statistics of an {@link InterceptionProfiler}.
+	 */
+	public static final class Report {
+		/** The statistics of each join point. */
+		private final List<JoinPointStatistics>	joinPoints;
+
+		/** Whether allocations are tracked. */
+		private final boolean					allocationTracked;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param joinPoints
+		 *            the statistics of each join point
+		 * @param allocationTracked
+		 *            whether allocations are tracked
+		 */
+		Report(List<JoinPointStatistics> joinPoints, boolean allocationTracked) {
+
+			this.joinPoints = Collections.unmodifiableList(joinPoints);
+			this.allocationTracked = allocationTracked;
+		}
+
+		/**
+		 * Returns the statistics of each invoked join point, sorted by
+		 * decreasing interceptor time.
+		 */
+		public List<JoinPointStatistics> getJoinPoints() {
+
+			return this.joinPoints;
+		}
+
+		/**
+		 * Returns <b>true</b> if allocations are tracked.
+		 */
+		public boolean isAllocationTracked() {
+
+			return this.allocationTracked;
+		}
+
+		/**
+		 * Returns the number of intercepted invocations.
+		 */
+		public long getInvocationCount() {
+
+			long result = 0;
+			for (JoinPointStatistics statistics : this.joinPoints) {
+				result += statistics.getInvocationCount();
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the time spent inside interceptors, in nanoseconds.
+		 */
+		public long getInterceptorNanos() {
+
+			long result = 0;
+			for (JoinPointStatistics statistics : this.joinPoints) {
+				result += statistics.getInterceptorNanos();
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the time spent inside targets, in nanoseconds.
+		 */
+		public long getTargetNanos() {
+
+			long result = 0;
+			for (JoinPointStatistics statistics : this.joinPoints) {
+				result += statistics.getTargetNanos();
+			}
+			return result;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			StringBuilder result = new StringBuilder();
+			result.append("invocations=").append(getInvocationCount());
+			result.append(", interceptors=").append(getInterceptorNanos())
+					.append("ns, targets=").append(getTargetNanos()).append(
+							"ns");
+			for (JoinPointStatistics statistics : this.joinPoints) {
+				result.append("\n  ").append(statistics);
+			}
+			return result.toString();
+		}
+	}
+
+	/**
+	 * The statistics of one join point. Times are in nanoseconds, the time of
+	 * an interceptor excludes the time of the interceptors it proceeds to and
+	 * of the target.
+	 */
+	public static final class JoinPointStatistics {
+		/** The join point name. */
+		private final String	name;
+
+		/** The interceptor names. */
+		private final String[]	interceptors;
+
+		/** The number of invocations. */
+		private final long		invocationCount;
+
+		/** The allocated bytes. */
+		private final long		allocatedBytes;
+
+		/** The time of each interceptor. */
+		private final long[]	interceptorTimes;
+
+		/** The time of the target. */
+		private final long		targetNanos;
+
+		/**
+		 * Copies the statistics of the given join point.
+		 *
+		 * @param profile
+		 *            the join point
+		 * @param totals
+		 *            the totals of all slots
+		 */
+		JoinPointStatistics(JoinPointProfile profile, long[] totals) {
+
+			int offset = profile.offset;
+			int length = profile.interceptors.length;
+			this.name = profile.name;
+			this.interceptors = profile.interceptors;
+			this.invocationCount = totals[offset];
+			this.allocatedBytes = totals[offset + 1];
+			this.interceptorTimes = new long[length];
+			for (int i = 0; i < length; i++) {
+				this.interceptorTimes[i] = Math.max(0, totals[offset + 2 + i]
+						- totals[offset + 3 + i]);
+			}
+			this.targetNanos = totals[offset + 2 + length];
+		}
+
+		/**
+		 * Returns the join point name.
+		 */
+		public String getName() {
+
+			return this.name;
+		}
+
+		/**
+		 * Returns the number of interceptors.
+		 */
+		public int getInterceptorCount() {
+
+			return this.interceptors.length;
+		}
+
+		/**
+		 * Returns the name of the interceptor at the given index.
+		 */
+		public String getInterceptorName(int index) {
+
+			return this.interceptors[index];
+		}
+
+		/**
+		 * Returns the time spent inside the interceptor at the given index.
+		 */
+		public long getInterceptorNanos(int index) {
+
+			return this.interceptorTimes[index];
+		}
+
+		/**
+		 * Returns the number of invocations.
+		 */
+		public long getInvocationCount() {
+
+			return this.invocationCount;
+		}
+
+		/**
+		 * Returns the number of bytes allocated by the invocations, including
+		 * the target, <b>0</b> if allocations are not tracked.
+		 */
+		public long getAllocatedBytes() {
+
+			return this.allocatedBytes;
+		}
+
+		/**
+		 * Returns the time spent inside all interceptors.
+		 */
+		public long getInterceptorNanos() {
+
+			long result = 0;
+			for (long nanos : this.interceptorTimes) {
+				result += nanos;
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the time spent inside the target.
+		 */
+		public long getTargetNanos() {
+
+			return this.targetNanos;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			long count = Math.max(1, this.invocationCount);
+			StringBuilder result = new StringBuilder(this.name);
+			result.append(" count=").append(this.invocationCount);
+			result.append(" interceptors=").append(
+					getInterceptorNanos() / count).append("ns target=")
+					.append(this.targetNanos / count).append("ns alloc=")
+					.append(this.allocatedBytes / count).append("B [");
+			for (int i = 0; i < this.interceptors.length; i++) {
+				result.append(i == 0 ? "" : ", ").append(this.interceptors[i])
+						.append('=').append(this.interceptorTimes[i] / count)
+						.append("ns");
+			}
+			return result.append("] (per invocation)").toString();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept;
+
+/**
+ * The management interface of {@link InterceptionProfiler}.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see InterceptionProfiler
+ */
+public interface InterceptionProfilerMBean {
+	/**
+	 * Returns the number of profiled join points.
+	 */
+	public int getJoinPointCount();
+
+	/**
+	 * Returns the number of intercepted invocations of all join points.
+	 */
+	public long getInvocationCount();
+
+	/**
+	 * Returns the total time spent inside interceptors, excluding the time of
+	 * the targets, in nanoseconds.
+	 */
+	public long getInterceptorNanos();
+
+	/**
+	 * Returns the total time spent inside targets, in nanoseconds.
+	 */
+	public long getTargetNanos();
+
+	/**
+	 * Returns <b>true</b> if the bytes allocated by intercepted invocations
+	 * are recorded.
+	 */
+	public boolean isAllocationTracked();
+
+	/**
+	 * Returns the statistics of each join point, one line per join point,
+	 * sorted by decreasing interceptor time.
+	 */
+	public String[] getJoinPointStatistics();
+
+	/**
+	 * Resets all statistics.
+	 */
+	public void reset();
+}
@@ -17,16 +17,28 @@
  */
 package org.jgentleframework.core.intercept;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Method;
 
 import net.sf.cglib.proxy.MethodProxy;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.jgentleframework.core.intercept.InterceptionProfiler.JoinPointProfile;
+import org.jgentleframework.core.intercept.InterceptionProfiler.Recorder;
 import org.jgentleframework.utils.Assertor;
 
 /**
  * Intercepts a method with a stack of interceptors.
+ * <p>
+ * The {@link MethodInvocation} passed down the stack is reused: each thread
+ * keeps a few spare invocations, so an intercepted call does not allocate
+ * unless calls are nested deeper than the number of spares. An invocation is
+ * therefore only valid until the intercepted call returns, interceptors which
+ * need it afterwards (for instance on another thread) must copy its state.
+ * When the stack wraps a created bean, the method is invoked on it through its
+ * {@link MethodInvoker}. When {@link InterceptionProfiler profiling} is
+ * enabled, the time spent at each level of the stack is recorded.
  * 
  * @author LE QUOC CHUNG - mailto: <a
  *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
@@ -34,12 +46,25 @@ import org.jgentleframework.utils.Assertor;
  */
 public class MethodInterceptorStackCallback implements
 		net.sf.cglib.proxy.MethodInterceptor {
+	/** The spare invocations of each thread. */
+	private static final ThreadLocal<InvocationStack>	invocationStacks	= new ThreadLocal<InvocationStack>() {
+																				@Override
+																				protected InvocationStack initialValue() {
+
+																					return new InvocationStack();
+																				}
+																			};
+
 	/** The interceptors. */
-	final MethodInterceptor[]	interceptors;
+	final MethodInterceptor[]							interceptors;
 	/** The method. */
-	final Method				method;
+	final Method										method;
 	/** The created bean. */
-	final Object				createdBean;
+	final Object										createdBean;
+	/** The invoker of method on the created bean. */
+	final MethodInvoker									targetInvoker;
+	/** The profile of the join point, <b>null</b> if profiling is disabled. */
+	final JoinPointProfile								profile;
 
 	/**
 	 * Instantiates a new interceptor stack callback.
@@ -60,6 +85,10 @@ public class MethodInterceptorStackCallback implements
 				"The list of interceptors must not be empty !");
 		this.interceptors = interceptors != null ? interceptors.clone()
 				: interceptors;
+		this.targetInvoker = createdBean != null ? MethodInvoker
+				.getInvoker(method) : null;
+		this.profile = InterceptionProfiler.joinPointOf(method,
+				this.interceptors);
 	}
 
 	/*
@@ -72,32 +101,138 @@ public class MethodInterceptorStackCallback implements
 	public Object intercept(Object proxy, Method method, Object[] arguments,
 			MethodProxy methodProxy) throws Throwable {
 
-		return new InterceptedMethodInvocation(proxy, methodProxy, arguments)
-				.proceed();
+		InvocationStack stack = invocationStacks.get();
+		InterceptedMethodInvocation invocation = stack.acquire();
+		Recorder recorder = this.profile != null ? this.profile.recorder()
+				: null;
+		long allocated = recorder != null ? recorder.begin() : 0L;
+		try {
+			return invocation.start(this, proxy, methodProxy, arguments,
+					recorder);
+		}
+		finally {
+			stack.release(invocation);
+			if (recorder != null) {
+				recorder.end(this.profile, allocated);
+			}
+		}
+	}
+
+	/**
+	 * The spare invocations of one thread.
+	 */
+	static final class InvocationStack {
+		/** The max number of spare invocations. */
+		private static final int						MAX_SPARES	= 8;
+
+		/** The spare invocations. */
+		private final InterceptedMethodInvocation[]	spares		= new InterceptedMethodInvocation[MAX_SPARES];
+
+		/** The number of spare invocations. */
+		private int										size		= 0;
+
+		/**
+		 * Returns a spare invocation, or a new one if there is none.
+		 */
+		InterceptedMethodInvocation acquire() {
+
+			return this.size == 0 ? new InterceptedMethodInvocation()
+					: this.spares[--this.size];
+		}
+
+		/**
+		 * Clears the given invocation and keeps it as a spare.
+		 * 
+		 * @param invocation
+		 *            the invocation
+		 */
+		void release(InterceptedMethodInvocation invocation) {
+
+			invocation.clear();
+			if (this.size < MAX_SPARES) {
+				this.spares[this.size++] = invocation;
+			}
+		}
 	}
 
 	/**
 	 * The Class InterceptedMethodInvocation.
 	 */
-	class InterceptedMethodInvocation extends AbstractMethodInvocation
-			implements MethodInvocation {
+	static final class InterceptedMethodInvocation implements
+			MethodInvocation {
+		/** The callback, <b>null</b> when the invocation is not in use. */
+		MethodInterceptorStackCallback	callback;
+
+		/** The proxy. */
+		Object							proxy;
+
+		/** The method proxy. */
+		MethodProxy						methodProxy;
+
+		/** The arguments. */
+		Object[]						arguments;
+
 		/** The index. */
-		int	index	= -1;
+		int								index	= -1;
+
+		/** The profiling buffer, <b>null</b> if profiling is disabled. */
+		Recorder						recorder;
 
 		/**
-		 * The Constructor.
+		 * Starts the invocation of the given callback.
 		 * 
+		 * @param callback
+		 *            the callback
 		 * @param proxy
 		 *            the proxy
 		 * @param methodProxy
 		 *            the method proxy
 		 * @param arguments
 		 *            the arguments
+		 * @param recorder
+		 *            the profiling buffer, <b>null</b> if profiling is
+		 *            disabled.
+		 * @return the result of the intercepted method
+		 */
+		Object start(MethodInterceptorStackCallback callback, Object proxy,
+				MethodProxy methodProxy, Object[] arguments, Recorder recorder)
+				throws Throwable {
+
+			this.callback = callback;
+			this.proxy = proxy;
+			this.methodProxy = methodProxy;
+			this.arguments = arguments;
+			this.recorder = recorder;
+			this.index = -1;
+			return proceed();
+		}
+
+		/**
+		 * Clears this invocation.
+		 */
+		void clear() {
+
+			this.callback = null;
+			this.proxy = null;
+			this.methodProxy = null;
+			this.arguments = null;
+			this.recorder = null;
+		}
+
+		/**
+		 * Returns the current callback.
+		 * 
+		 * @throws IllegalStateException
+		 *             if the intercepted call has already returned.
 		 */
-		public InterceptedMethodInvocation(Object proxy,
-				MethodProxy methodProxy, Object[] arguments) {
+		private MethodInterceptorStackCallback callback() {
 
-			super(proxy, methodProxy, arguments);
+			MethodInterceptorStackCallback result = this.callback;
+			if (result == null) {
+				throw new IllegalStateException(
+						"The method invocation can not be used once the intercepted call returned !");
+			}
+			return result;
 		}
 
 		/*
@@ -107,23 +242,28 @@ public class MethodInterceptorStackCallback implements
 		 */
 		public Object proceed() throws Throwable {
 
+			MethodInterceptorStackCallback callback = callback();
+			Recorder recorder = this.recorder;
+			long start = recorder != null ? System.nanoTime() : 0L;
 			Object result = null;
 			try {
 				index++;
-				if (createdBean == null) {
-					result = index == interceptors.length ? methodProxy
-							.invokeSuper(proxy, arguments)
-							: interceptors[index].invoke(this);
+				if (index != callback.interceptors.length) {
+					result = callback.interceptors[index].invoke(this);
+				}
+				else if (callback.createdBean == null) {
+					result = methodProxy.invokeSuper(proxy, arguments);
 				}
 				else {
-					method.setAccessible(true);
-					result = index == interceptors.length ? method.invoke(
-							createdBean, arguments) : interceptors[index]
-							.invoke(this);
-					method.setAccessible(false);
+					result = callback.targetInvoker.invoke(
+							callback.createdBean, arguments);
 				}
 			}
 			finally {
+				if (recorder != null) {
+					recorder.time(callback.profile, index, System.nanoTime()
+							- start);
+				}
 				index--;
 			}
 			return result;
@@ -136,7 +276,40 @@ public class MethodInterceptorStackCallback implements
 		 */
 		public Method getMethod() {
 
-			return method;
+			return callback().method;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.aopalliance.intercept.Invocation#getArguments()
+		 */
+		public Object[] getArguments() {
+
+			callback();
+			return arguments != null && arguments.length != 0 ? arguments
+					.clone() : arguments;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.aopalliance.intercept.Joinpoint#getThis()
+		 */
+		public Object getThis() {
+
+			callback();
+			return proxy;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.aopalliance.intercept.Joinpoint#getStaticPart()
+		 */
+		public AccessibleObject getStaticPart() {
+
+			return getMethod();
 		}
 	}
 }
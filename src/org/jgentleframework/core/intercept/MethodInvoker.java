@@ -0,0 +1,489 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.cglib.core.ReflectUtils;
+import net.sf.cglib.reflect.FastClass;
+
+/**
+ * The invocation strategy of the container for reflective call sites. An
+ * invoker is created once per {@link Method} and cached: methods which can be
+ * reached from generated code are invoked through the {@link FastClass}
+ * created by {@link JGentleFastClass} for their declaring class, that is a
+ * direct call selected by index, other methods (private or protected methods,
+ * methods of the bootstrap classes) are invoked through an accessible copy of
+ * the {@link Method}.
+ * <p>
+ * The invokers and the fast class of a class are cached by weak keys and
+ * softly referenced, as the reflection metadata of the class is, so that they
+ * do not prevent the class and its class loader from being unloaded.
+ * <p>
+ * As with {@link Method#invoke(Object, Object...)}, an exception thrown by
+ * the invoked method is wrapped into an {@link InvocationTargetException}.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see JGentleFastClass
+ */
+public abstract class MethodInvoker {
+	/** The marker of classes no {@link FastClass} can be created for. */
+	private static final Object										NO_FAST_CLASS	= new Object();
+
+	/** The invokers of each class, by {@link ClassKey}. */
+	private static final Map<Object, SoftReference<ClassInvokers>>	cache			= new ConcurrentHashMap<Object, SoftReference<ClassInvokers>>();
+
+	/** The keys of the classes which have been unloaded. */
+	private static final ReferenceQueue<Class<?>>						unloaded		= new ReferenceQueue<Class<?>>();
+
+	/** The method. */
+	final Method													method;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param method
+	 *            the method
+	 */
+	MethodInvoker(Method method) {
+
+		this.method = method;
+	}
+
+	/**
+	 * Returns the invoker of the given method.
+	 *
+	 * @param method
+	 *            the method
+	 * @return the cached invoker
+	 */
+	public static MethodInvoker getInvoker(Method method) {
+
+		ClassInvokers invokers = invokersOf(method.getDeclaringClass());
+		MethodInvoker result = invokers.invokers.get(method);
+		if (result == null) {
+			result = createInvoker(invokers, method);
+			invokers.invokers.put(method, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the invoker of the public method of the given class which has
+	 * the given name and parameter types, as found by
+	 * {@link Class#getMethod(String, Class...)}.
+	 *
+	 * @param type
+	 *            the class
+	 * @param name
+	 *            the method name
+	 * @param parameterTypes
+	 *            the parameter types
+	 * @return the cached invoker
+	 * @throws NoSuchMethodException
+	 *             if a matching method is not found.
+	 */
+	public static MethodInvoker getInvoker(Class<?> type, String name,
+			Class<?>... parameterTypes) throws NoSuchMethodException {
+
+		ClassInvokers invokers = invokersOf(type);
+		MethodKey key = new MethodKey(name, parameterTypes);
+		MethodInvoker result = invokers.publicInvokers.get(key);
+		if (result == null) {
+			result = getInvoker(type.getMethod(name, parameterTypes));
+			invokers.publicInvokers.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the invokers of the given class.
+	 *
+	 * @param type
+	 *            the class
+	 * @return the cached invokers
+	 */
+	private static ClassInvokers invokersOf(Class<?> type) {
+
+		SoftReference<ClassInvokers> ref = cache.get(new LookupKey(type));
+		ClassInvokers result = ref != null ? ref.get() : null;
+		if (result == null) {
+			Reference<? extends Class<?>> key;
+			while ((key = unloaded.poll()) != null) {
+				cache.remove(key);
+			}
+			result = new ClassInvokers();
+			cache.put(new ClassKey(type, unloaded),
+					new SoftReference<ClassInvokers>(result));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the class referred to by the given cache key.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	private static Class<?> typeOf(Object key) {
+
+		if (key instanceof ClassKey) {
+			return ((ClassKey) key).get();
+		}
+		else if (key instanceof LookupKey) {
+			return ((LookupKey) key).type;
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the invoker of the given method.
+	 *
+	 * @param invokers
+	 *            the invokers of the declaring class of method
+	 * @param method
+	 *            the method
+	 */
+	private static MethodInvoker createInvoker(ClassInvokers invokers,
+			Method method) {
+
+		FastClass fastClass = getFastClass(invokers, method
+				.getDeclaringClass());
+		if (fastClass != null) {
+			int index = fastClass.getIndex(ReflectUtils.getSignature(method));
+			if (index >= 0) {
+				return new FastMethodInvoker(method, fastClass, index);
+			}
+		}
+		return new ReflectiveMethodInvoker(method);
+	}
+
+	/**
+	 * Returns the {@link FastClass} of the given class, or <b>null</b> if it
+	 * can not be created.
+	 */
+	private static FastClass getFastClass(ClassInvokers invokers,
+			Class<?> type) {
+
+		Object result = invokers.fastClass;
+		if (result == null) {
+			try {
+				result = type.getClassLoader() != null ? JGentleFastClass
+						.create(type) : NO_FAST_CLASS;
+			}
+			catch (RuntimeException e) {
+				result = NO_FAST_CLASS;
+			}
+			catch (LinkageError e) {
+				result = NO_FAST_CLASS;
+			}
+			invokers.fastClass = result;
+		}
+		return result != NO_FAST_CLASS ? (FastClass) result : null;
+	}
+
+	/**
+	 * Returns the method.
+	 */
+	public Method getMethod() {
+
+		return this.method;
+	}
+
+	/**
+	 * Invokes the method on the given target.
+	 *
+	 * @param target
+	 *            the target, ignored for a static method.
+	 * @param args
+	 *            the arguments
+	 * @return the result
+	 * @throws IllegalAccessException
+	 *             if the method can not be accessed.
+	 * @throws InvocationTargetException
+	 *             if the method throws an exception.
+	 */
+	public abstract Object invoke(Object target, Object... args)
+			throws IllegalAccessException, InvocationTargetException;
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return getClass().getSimpleName() + ": " + this.method;
+	}
+
+	/**
+	 * The invoker of a method reached through a {@link FastClass}.
+	 */
+	static final class FastMethodInvoker extends MethodInvoker {
+		/** The fast class. */
+		private final FastClass	fastClass;
+
+		/** The index of method in the fast class. */
+		private final int		index;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param method
+		 *            the method
+		 * @param fastClass
+		 *            the fast class
+		 * @param index
+		 *            the index of method in the fast class
+		 */
+		FastMethodInvoker(Method method, FastClass fastClass, int index) {
+
+			super(method);
+			this.fastClass = fastClass;
+			this.index = index;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * org.jgentleframework.core.intercept.MethodInvoker#invoke(java.lang
+		 * .Object, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(Object target, Object... args)
+				throws InvocationTargetException {
+
+			return this.fastClass.invoke(this.index, target, args);
+		}
+	}
+
+	/**
+	 * The invoker of a method reached through reflection.
+	 */
+	static final class ReflectiveMethodInvoker extends MethodInvoker {
+		/** The accessible copy of method. */
+		private final Method	accessibleMethod;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param method
+		 *            the method
+		 */
+		ReflectiveMethodInvoker(Method method) {
+
+			super(method);
+			Method copy = method;
+			try {
+				copy = method.getDeclaringClass().getDeclaredMethod(
+						method.getName(), method.getParameterTypes());
+				copy.setAccessible(true);
+			}
+			catch (NoSuchMethodException e) {
+				// can not happen, keeps the given method.
+			}
+			catch (SecurityException e) {
+				// keeps the given method.
+			}
+			this.accessibleMethod = copy;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * org.jgentleframework.core.intercept.MethodInvoker#invoke(java.lang
+		 * .Object, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(Object target, Object... args)
+				throws IllegalAccessException, InvocationTargetException {
+
+			return this.accessibleMethod.invoke(target, args);
+		}
+	}
+
+	/**
+	 * The invokers and the fast class of a class.
+	 */
+	private static final class ClassInvokers {
+		/** The {@link FastClass}, or {@link #NO_FAST_CLASS}. */
+		volatile Object											fastClass;
+
+		/** The invokers of the methods declared by the class, by method. */
+		final ConcurrentHashMap<Method, MethodInvoker>			invokers		= new ConcurrentHashMap<Method, MethodInvoker>();
+
+		/** The invokers of the public methods of the class, by signature. */
+		final ConcurrentHashMap<MethodKey, MethodInvoker>		publicInvokers	= new ConcurrentHashMap<MethodKey, MethodInvoker>();
+	}
+
+	/**
+	 * The key used to look up a class, which is not stored in the cache.
+	 */
+	private static final class LookupKey {
+		/** The class. */
+		private final Class<?>	type;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param type
+		 *            the class
+		 */
+		LookupKey(Class<?> type) {
+
+			this.type = type;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return System.identityHashCode(this.type);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			return obj == this || this.type == typeOf(obj);
+		}
+	}
+
+	/**
+	 * The key of a cached class, which does not prevent the class from being
+	 * unloaded.
+	 */
+	private static final class ClassKey extends WeakReference<Class<?>> {
+		/** The identity hash code of the class. */
+		private final int	hashCode;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param type
+		 *            the class
+		 * @param queue
+		 *            the queue the key is enqueued to once the class is
+		 *            unloaded
+		 */
+		ClassKey(Class<?> type, ReferenceQueue<Class<?>> queue) {
+
+			super(type, queue);
+			this.hashCode = System.identityHashCode(type);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return this.hashCode;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			if (obj == this) {
+				return true;
+			}
+			Class<?> type = get();
+			return type != null && type == typeOf(obj);
+		}
+	}
+
+	/**
+	 * The signature of a public method.
+	 */
+	static final class MethodKey {
+		/** The method name. */
+		private final String		name;
+
+		/** The parameter types. */
+		private final Class<?>[]	parameterTypes;
+
+		/** The hash code. */
+		private final int			hashCode;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param name
+		 *            the method name
+		 * @param parameterTypes
+		 *            the parameter types
+		 */
+		MethodKey(String name, Class<?>[] parameterTypes) {
+
+			this.name = name;
+			this.parameterTypes = parameterTypes != null ? parameterTypes
+					.clone() : new Class<?>[0];
+			this.hashCode = name.hashCode() * 31
+					+ Arrays.hashCode(this.parameterTypes);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return this.hashCode;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof MethodKey)) {
+				return false;
+			}
+			MethodKey other = (MethodKey) obj;
+			return this.name.equals(other.name)
+					&& Arrays.equals(this.parameterTypes, other.parameterTypes);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.cglib.proxy.CallbackFilter;
+import net.sf.cglib.proxy.Enhancer;
+
+/**
+ * A {@link CallbackFilter} whose identity is its interceptor layout, that is
+ * the callback index assigned to each method of the proxied class. The
+ * {@link Enhancer} class cache is keyed by the proxied types, the callback
+ * types and the callback filter, so two enhancers configured with equal
+ * {@link ProxyLayoutFilter layouts} share one generated class, even across
+ * different providers living in the same class loader.
+ * <p>
+ * The layout is computed once from the given filter, which is not retained.
+ * Classes generated this way must be instantiated with per-instance callbacks
+ * (see {@link Enhancer#registerCallbacks(Class, net.sf.cglib.proxy.Callback[])}
+ * ), static callbacks would be shared by every bean using the class.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see JGentleNamingPolicy
+ */
+public final class ProxyLayoutFilter implements CallbackFilter {
+	/** The proxied methods. */
+	private final Method[]				methods;
+
+	/** The callback index of each proxied method. */
+	private final int[]					layout;
+
+	/** The callback indexes. */
+	private final Map<Method, Integer>	indexes;
+
+	/** The hash code. */
+	private final int					hashCode;
+
+	/**
+	 * Creates the layout of the given filter over all methods the
+	 * {@link Enhancer} proxies for the given superclass and interfaces.
+	 *
+	 * @param superclass
+	 *            the superclass, <b>null</b> or an interface stands for
+	 *            {@link Object}.
+	 * @param interfaces
+	 *            the interfaces, may be <b>null</b>.
+	 * @param filter
+	 *            the callback filter
+	 */
+	@SuppressWarnings("unchecked")
+	public ProxyLayoutFilter(Class<?> superclass, Class<?>[] interfaces,
+			CallbackFilter filter) {
+
+		Class<?> sc = superclass == null || superclass.isInterface() ? Object.class
+				: superclass;
+		List<Method> methodList = new ArrayList<Method>();
+		Enhancer.getMethods(sc, interfaces, methodList);
+		this.methods = methodList.toArray(new Method[methodList.size()]);
+		this.layout = new int[this.methods.length];
+		this.indexes = new HashMap<Method, Integer>(this.methods.length * 2);
+		for (int i = 0; i < this.methods.length; i++) {
+			this.layout[i] = filter.accept(this.methods[i]);
+			this.indexes.put(this.methods[i], this.layout[i]);
+		}
+		this.hashCode = Arrays.hashCode(this.methods) * 31
+				+ Arrays.hashCode(this.layout);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.sf.cglib.proxy.CallbackFilter#accept(java.lang.reflect.Method)
+	 */
+	@Override
+	public int accept(Method method) {
+
+		Integer index = this.indexes.get(method);
+		if (index == null) {
+			throw new InterceptionException("The method [" + method
+					+ "] is not part of this layout !");
+		}
+		return index;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ProxyLayoutFilter)) {
+			return false;
+		}
+		ProxyLayoutFilter other = (ProxyLayoutFilter) obj;
+		return this.hashCode == other.hashCode
+				&& Arrays.equals(this.layout, other.layout)
+				&& Arrays.equals(this.methods, other.methods);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+
+		return this.hashCode;
+	}
+}
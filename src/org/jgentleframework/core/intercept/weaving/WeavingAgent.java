@@ -0,0 +1,98 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept.weaving;
+
+import java.lang.instrument.Instrumentation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The java agent enabling the load-time weaving mode. The jar containing this
+ * class must declare it as <code>Premain-Class</code> in its manifest, the
+ * packages to weave are given as agent options or through the
+ * <code>jgentle.weaving.packages</code> system property, separated by commas:
+ *
+ * <pre>
+ * java -javaagent:jgentle.jar=com.acme.service,com.acme.dao ...
+ * </pre>
+ *
+ * Beans whose class was woven are intercepted by their own code, the other
+ * beans keep being proxied by cglib subclasses.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see WeavingTransformer
+ */
+public final class WeavingAgent {
+	/** The system property naming the packages to weave. */
+	public static final String	PACKAGES_PROPERTY	= "jgentle.weaving.packages";
+
+	/** The log. */
+	private static final Log	log					= LogFactory
+															.getLog(WeavingAgent.class);
+
+	/**
+	 * Instantiates a new weaving agent.
+	 */
+	private WeavingAgent() {
+
+	}
+
+	/**
+	 * Registers the {@link WeavingTransformer} before the application starts.
+	 *
+	 * @param options
+	 *            the agent options
+	 * @param instrumentation
+	 *            the instrumentation
+	 */
+	public static void premain(String options, Instrumentation instrumentation) {
+
+		String packages = options != null && options.trim().length() != 0 ? options
+				: System.getProperty(PACKAGES_PROPERTY);
+		if (packages == null || packages.trim().length() == 0) {
+			if (log.isWarnEnabled()) {
+				log.warn("No package to weave, load-time weaving is disabled !");
+			}
+			return;
+		}
+		instrumentation.addTransformer(new WeavingTransformer(packages
+				.split(",")));
+		if (log.isInfoEnabled()) {
+			log.info("Load-time weaving enabled for packages [" + packages
+					+ "]");
+		}
+	}
+
+	/**
+	 * Registers the {@link WeavingTransformer} once the application started,
+	 * only the classes loaded afterwards are woven.
+	 *
+	 * @param options
+	 *            the agent options
+	 * @param instrumentation
+	 *            the instrumentation
+	 */
+	public static void agentmain(String options,
+			Instrumentation instrumentation) {
+
+		premain(options, instrumentation);
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept.weaving;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Resolves the join points of the classes rewritten by
+ * {@link WeavingTransformer}.
+ * <p>
+ * The join points of a woven class are its declared methods which are neither
+ * private, static, abstract, native nor synthetic, sorted by name and
+ * descriptor. The weaver and the container both use this rule, so the index
+ * of a join point needs not be stored in the woven class.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see WeavingAgent
+ */
+public final class WeavingSupport {
+	/** The name of the field holding the join points bound to an instance. */
+	public static final String								FIELD_NAME		= Woven.PREFIX
+																					+ "joinPoints";
+
+	/** The empty join point array. */
+	private static final Method[]							NO_JOIN_POINTS	= new Method[0];
+
+	/**
+	 * The join points of each woven class, by class. The classes are weakly
+	 * and the join points softly referenced, so that the cache does not
+	 * prevent a class from being unloaded.
+	 */
+	private static final Map<Class<?>, SoftReference<Method[]>>	joinPoints		= Collections
+																					.synchronizedMap(new WeakHashMap<Class<?>, SoftReference<Method[]>>());
+
+	/**
+	 * Instantiates a new weaving support.
+	 */
+	private WeavingSupport() {
+
+	}
+
+	/**
+	 * Returns <b>true</b> if a method declared with the given access flags and
+	 * name is a join point.
+	 *
+	 * @param access
+	 *            the access flags, as defined in the class file format.
+	 * @param name
+	 *            the name
+	 */
+	public static boolean isJoinPoint(int access, String name) {
+
+		return (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC
+				| Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE
+				| Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) == 0
+				&& name.charAt(0) != '<' && !name.startsWith(Woven.PREFIX);
+	}
+
+	/**
+	 * Returns <b>true</b> if the given member was generated by the weaver.
+	 *
+	 * @param member
+	 *            the member
+	 */
+	public static boolean isGenerated(Member member) {
+
+		return member.getName().startsWith(Woven.PREFIX);
+	}
+
+	/**
+	 * Returns the woven class the instances of the given class are bound
+	 * through, that is the given class or its nearest woven superclass.
+	 *
+	 * @param clazz
+	 *            the class
+	 * @return the woven class, or <b>null</b> if the given class was not
+	 *         woven.
+	 */
+	public static Class<?> getWovenClass(Class<?> clazz) {
+
+		if (!Woven.class.isAssignableFrom(clazz) || clazz.isInterface()) {
+			return null;
+		}
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.getName().equals(FIELD_NAME)) {
+					return c;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the join points the instances of the given class are bound
+	 * with.
+	 *
+	 * @param clazz
+	 *            the class
+	 * @return the join points of the woven class of the given class, an empty
+	 *         array if it was not woven.
+	 */
+	public static Method[] getJoinPoints(Class<?> clazz) {
+
+		if (!Woven.class.isAssignableFrom(clazz)) {
+			return NO_JOIN_POINTS;
+		}
+		SoftReference<Method[]> ref = joinPoints.get(clazz);
+		Method[] result = ref != null ? ref.get() : null;
+		if (result == null) {
+			Class<?> wovenClass = getWovenClass(clazz);
+			result = wovenClass == null ? NO_JOIN_POINTS
+					: declaredJoinPoints(wovenClass);
+			joinPoints.put(clazz, new SoftReference<Method[]>(result));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the given method in the given join points.
+	 *
+	 * @param joinPoints
+	 *            the join points
+	 * @param method
+	 *            the method
+	 * @return the index, or <b>-1</b> if the method is not a join point.
+	 */
+	public static int indexOf(Method[] joinPoints, Method method) {
+
+		for (int i = 0; i < joinPoints.length; i++) {
+			if (joinPoints[i].equals(method)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds to the given list of proxied methods of the given class the join
+	 * points which can not be proxied, such as final methods, unless a method
+	 * of the same signature is present.
+	 *
+	 * @param clazz
+	 *            the class
+	 * @param methods
+	 *            the proxied methods
+	 */
+	public static void addJoinPoints(Class<?> clazz, List<Method> methods) {
+
+		Method[] joinPoints = getJoinPoints(clazz);
+		if (joinPoints.length == 0) {
+			return;
+		}
+		List<Method> missing = new ArrayList<Method>();
+		for (Method joinPoint : joinPoints) {
+			boolean found = false;
+			for (Method method : methods) {
+				if (method.getName().equals(joinPoint.getName())
+						&& Arrays.equals(method.getParameterTypes(), joinPoint
+								.getParameterTypes())) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				missing.add(joinPoint);
+			}
+		}
+		methods.addAll(missing);
+	}
+
+	/**
+	 * Returns the sorted join points declared in the given class.
+	 */
+	private static Method[] declaredJoinPoints(Class<?> wovenClass) {
+
+		List<Method> result = new ArrayList<Method>();
+		for (Method method : wovenClass.getDeclaredMethods()) {
+			int access = method.getModifiers()
+					| (method.isSynthetic() ? Opcodes.ACC_SYNTHETIC : 0)
+					| (method.isBridge() ? Opcodes.ACC_BRIDGE : 0);
+			if (isJoinPoint(access, method.getName())) {
+				result.add(method);
+			}
+		}
+		Collections.sort(result, new Comparator<Method>() {
+			@Override
+			public int compare(Method m1, Method m2) {
+
+				return sortKey(m1.getName(), Type.getMethodDescriptor(m1))
+						.compareTo(
+								sortKey(m2.getName(), Type
+										.getMethodDescriptor(m2)));
+			}
+		});
+		return result.toArray(new Method[result.size()]);
+	}
+
+	/**
+	 * Returns the key join points are sorted by.
+	 *
+	 * @param name
+	 *            the method name
+	 * @param descriptor
+	 *            the method descriptor
+	 */
+	static String sortKey(String name, String descriptor) {
+
+		return name + descriptor;
+	}
+}
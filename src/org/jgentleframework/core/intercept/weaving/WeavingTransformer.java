@@ -0,0 +1,685 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept.weaving;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.EmptyVisitor;
+
+/**
+ * Rewrites classes at load time so that their methods can be intercepted
+ * without a proxy subclass.
+ * <p>
+ * The body of each join point (see {@link WeavingSupport}) is moved to a
+ * private method, the join point itself checks the {@link WovenJoinPoint join
+ * points} bound to the instance: if none is bound the body is called
+ * directly, otherwise the call goes through a {@link WovenMethodInvocation}.
+ * Annotations stay on the join point. Since interception happens inside the
+ * class, final methods and calls of a bean on itself are intercepted as well.
+ * <p>
+ * Only classes of the given packages are woven. The bundled ASM release does
+ * not compute stack map frames, so class files newer than Java 6 are left
+ * unchanged and woven Java 6 class files are written as Java 5 class files,
+ * which are verified without stack map frames.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see WeavingAgent
+ */
+public class WeavingTransformer implements ClassFileTransformer, Opcodes {
+	/** The internal name of {@link Woven}. */
+	private static final String	WOVEN				= Type
+															.getInternalName(Woven.class);
+
+	/** The descriptor of {@link WovenJoinPoint} array. */
+	private static final String	JOIN_POINTS_DESC	= Type
+															.getDescriptor(WovenJoinPoint[].class);
+
+	/** The internal name of {@link WovenMethodInvocation}. */
+	private static final String	INVOCATION			= Type
+															.getInternalName(WovenMethodInvocation.class);
+
+	/** The descriptor of {@link WovenMethodInvocation#invoke}. */
+	private static final String	INVOKE_DESC			= "(L" + WOVEN + ";"
+															+ Type
+																	.getDescriptor(WovenJoinPoint.class)
+															+ "[Ljava/lang/Object;)Ljava/lang/Object;";
+
+	/** The packages which are never woven. */
+	private static final String[]	EXCLUDED			= { "java/",
+			"javax/", "sun/", "com/sun/", "net/sf/cglib/", "org/objectweb/asm/",
+			"org/aopalliance/", "org/apache/commons/", "org/jgentleframework/" };
+
+	/** The log. */
+	private final Log			log					= LogFactory
+															.getLog(getClass());
+
+	/** The included packages, as internal names. */
+	private final String[]		packages;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param packages
+	 *            the names of the packages whose classes are woven, sub
+	 *            packages included.
+	 */
+	public WeavingTransformer(String... packages) {
+
+		this.packages = new String[packages.length];
+		for (int i = 0; i < packages.length; i++) {
+			String name = packages[i].trim().replace('.', '/');
+			this.packages[i] = name.endsWith("/") ? name : name + "/";
+		}
+	}
+
+	/**
+	 * Returns <b>true</b> if the class of the given internal name may be
+	 * woven.
+	 *
+	 * @param className
+	 *            the internal name of class
+	 */
+	public boolean isIncluded(String className) {
+
+		if (className == null || className.indexOf("$$") >= 0) {
+			return false;
+		}
+		for (String excluded : EXCLUDED) {
+			if (className.startsWith(excluded)) {
+				return false;
+			}
+		}
+		for (String name : this.packages) {
+			if (className.startsWith(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * java.lang.instrument.ClassFileTransformer#transform(java.lang.ClassLoader
+	 * , java.lang.String, java.lang.Class, java.security.ProtectionDomain,
+	 * byte[])
+	 */
+	@Override
+	public byte[] transform(ClassLoader loader, String className,
+			Class<?> classBeingRedefined, ProtectionDomain protectionDomain,
+			byte[] classfileBuffer) {
+
+		if (loader == null || classBeingRedefined != null
+				|| !isIncluded(className)) {
+			return null;
+		}
+		try {
+			return weave(classfileBuffer);
+		}
+		catch (Throwable e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Could not weave class '" + className + "' !", e);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Weaves the given class file.
+	 *
+	 * @param classfileBuffer
+	 *            the class file
+	 * @return the woven class file, or <b>null</b> if the class can not be
+	 *         woven.
+	 */
+	public byte[] weave(byte[] classfileBuffer) {
+
+		ClassReader reader = new ClassReader(classfileBuffer);
+		JoinPointCollector collector = new JoinPointCollector();
+		reader.accept(collector, true);
+		if (!collector.isWeavable() || collector.joinPoints.isEmpty()) {
+			return null;
+		}
+		Collections.sort(collector.joinPoints);
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		for (int i = 0; i < collector.joinPoints.size(); i++) {
+			indexes.put(collector.joinPoints.get(i), i);
+		}
+		ClassWriter writer = new ClassWriter(true);
+		reader.accept(new WeavingClassAdapter(writer, indexes), new Attribute[0],
+				false);
+		if (log.isDebugEnabled()) {
+			log.debug("Woven class '" + collector.name + "' with "
+					+ indexes.size() + " join points.");
+		}
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Pushes the given int constant.
+	 */
+	static void push(MethodVisitor mv, int value) {
+
+		if (value >= -1 && value <= 5) {
+			mv.visitInsn(ICONST_0 + value);
+		}
+		else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			mv.visitIntInsn(BIPUSH, value);
+		}
+		else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			mv.visitIntInsn(SIPUSH, value);
+		}
+		else {
+			mv.visitLdcInsn(new Integer(value));
+		}
+	}
+
+	/**
+	 * Boxes the value of the given type on top of the stack.
+	 */
+	static void box(MethodVisitor mv, Type type) {
+
+		String owner = null;
+		switch (type.getSort()) {
+		case Type.BOOLEAN:
+			owner = "java/lang/Boolean";
+			break;
+		case Type.BYTE:
+			owner = "java/lang/Byte";
+			break;
+		case Type.CHAR:
+			owner = "java/lang/Character";
+			break;
+		case Type.SHORT:
+			owner = "java/lang/Short";
+			break;
+		case Type.INT:
+			owner = "java/lang/Integer";
+			break;
+		case Type.LONG:
+			owner = "java/lang/Long";
+			break;
+		case Type.FLOAT:
+			owner = "java/lang/Float";
+			break;
+		case Type.DOUBLE:
+			owner = "java/lang/Double";
+			break;
+		default:
+			return;
+		}
+		mv.visitMethodInsn(INVOKESTATIC, owner, "valueOf", "("
+				+ type.getDescriptor() + ")L" + owner + ";");
+	}
+
+	/**
+	 * Converts the object on top of the stack to the given type.
+	 */
+	static void unbox(MethodVisitor mv, Type type) {
+
+		String name = null;
+		switch (type.getSort()) {
+		case Type.BOOLEAN:
+			name = "unboxBoolean";
+			break;
+		case Type.BYTE:
+			name = "unboxByte";
+			break;
+		case Type.CHAR:
+			name = "unboxChar";
+			break;
+		case Type.SHORT:
+			name = "unboxShort";
+			break;
+		case Type.INT:
+			name = "unboxInt";
+			break;
+		case Type.LONG:
+			name = "unboxLong";
+			break;
+		case Type.FLOAT:
+			name = "unboxFloat";
+			break;
+		case Type.DOUBLE:
+			name = "unboxDouble";
+			break;
+		case Type.ARRAY:
+			mv.visitTypeInsn(CHECKCAST, type.getDescriptor());
+			return;
+		default:
+			if (!type.getInternalName().equals("java/lang/Object")) {
+				mv.visitTypeInsn(CHECKCAST, type.getInternalName());
+			}
+			return;
+		}
+		mv.visitMethodInsn(INVOKESTATIC, INVOCATION, name,
+				"(Ljava/lang/Object;)" + type.getDescriptor());
+	}
+
+	/**
+	 * Collects the join points of a class.
+	 */
+	static final class JoinPointCollector extends EmptyVisitor {
+		/** The internal name of class. */
+		String				name;
+
+		/** The class file version. */
+		int					version;
+
+		/** The access flags of class. */
+		int					access;
+
+		/** The interfaces. */
+		String[]			interfaces;
+
+		/** The sort keys of join points. */
+		final List<String>	joinPoints	= new ArrayList<String>();
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.commons.EmptyVisitor#visit(int, int,
+		 * java.lang.String, java.lang.String, java.lang.String,
+		 * java.lang.String[])
+		 */
+		@Override
+		public void visit(int version, int access, String name,
+				String signature, String superName, String[] interfaces) {
+
+			this.version = version;
+			this.access = access;
+			this.name = name;
+			this.interfaces = interfaces;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.commons.EmptyVisitor#visitMethod(int,
+		 * java.lang.String, java.lang.String, java.lang.String,
+		 * java.lang.String[])
+		 */
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc,
+				String signature, String[] exceptions) {
+
+			if (WeavingSupport.isJoinPoint(access, name)) {
+				this.joinPoints.add(WeavingSupport.sortKey(name, desc));
+			}
+			return null;
+		}
+
+		/**
+		 * Returns <b>true</b> if the class can be woven.
+		 */
+		boolean isWeavable() {
+
+			if ((this.version & 0xFFFF) > V1_6
+					|| (this.access & (ACC_INTERFACE | ACC_ANNOTATION | ACC_ENUM)) != 0) {
+				return false;
+			}
+			if (this.interfaces != null) {
+				for (String interfaze : this.interfaces) {
+					if (interfaze.equals(WOVEN)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Weaves a class.
+	 */
+	static final class WeavingClassAdapter extends ClassAdapter {
+		/** The index of each join point, by sort key. */
+		private final Map<String, Integer>	indexes;
+
+		/** The name of each join point. */
+		private final String[]				names;
+
+		/** The descriptor of each join point. */
+		private final String[]				descriptors;
+
+		/** The internal name of class. */
+		private String						owner;
+
+		/**
+		 * Constructor.
+		 */
+		WeavingClassAdapter(ClassWriter writer, Map<String, Integer> indexes) {
+
+			super(writer);
+			this.indexes = indexes;
+			this.names = new String[indexes.size()];
+			this.descriptors = new String[indexes.size()];
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.ClassAdapter#visit(int, int,
+		 * java.lang.String, java.lang.String, java.lang.String,
+		 * java.lang.String[])
+		 */
+		@Override
+		public void visit(int version, int access, String name,
+				String signature, String superName, String[] interfaces) {
+
+			this.owner = name;
+			String[] woven = new String[interfaces == null ? 1
+					: interfaces.length + 1];
+			if (interfaces != null) {
+				System.arraycopy(interfaces, 0, woven, 0, interfaces.length);
+			}
+			woven[woven.length - 1] = WOVEN;
+			// Java 6 class files are verified with stack map frames
+			super.visit(version == V1_6 ? V1_5 : version, access, name,
+					signature, superName, woven);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.ClassAdapter#visitMethod(int,
+		 * java.lang.String, java.lang.String, java.lang.String,
+		 * java.lang.String[])
+		 */
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc,
+				String signature, String[] exceptions) {
+
+			Integer index = WeavingSupport.isJoinPoint(access, name) ? this.indexes
+					.get(WeavingSupport.sortKey(name, desc))
+					: null;
+			if (index == null) {
+				return new FrameRemover(super.visitMethod(access, name, desc,
+						signature, exceptions));
+			}
+			this.names[index] = name;
+			this.descriptors[index] = desc;
+			MethodVisitor joinPoint = super.visitMethod(access
+					& ~ACC_SYNCHRONIZED, name, desc, signature, exceptions);
+			MethodVisitor body = super.visitMethod(ACC_PRIVATE | ACC_SYNTHETIC
+					| (access & (ACC_SYNCHRONIZED | ACC_STRICT)), Woven.PREFIX
+					+ name, desc, signature, exceptions);
+			return new JoinPointAdapter(body, joinPoint, this.owner, name,
+					desc, index);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.ClassAdapter#visitEnd()
+		 */
+		@Override
+		public void visitEnd() {
+
+			cv.visitField(ACC_PRIVATE | ACC_TRANSIENT | ACC_SYNTHETIC,
+					WeavingSupport.FIELD_NAME, JOIN_POINTS_DESC, null, null)
+					.visitEnd();
+			generateBind();
+			generateDispatch();
+			super.visitEnd();
+		}
+
+		/**
+		 * Generates {@link Woven#$jgentle$bind(WovenJoinPoint[])}.
+		 */
+		private void generateBind() {
+
+			MethodVisitor mv = cv.visitMethod(ACC_PUBLIC | ACC_SYNTHETIC,
+					Woven.PREFIX + "bind", "(" + JOIN_POINTS_DESC + ")V",
+					null, null);
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitFieldInsn(PUTFIELD, this.owner, WeavingSupport.FIELD_NAME,
+					JOIN_POINTS_DESC);
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+
+		/**
+		 * Generates {@link Woven#$jgentle$dispatch(int, Object[])}.
+		 */
+		private void generateDispatch() {
+
+			MethodVisitor mv = cv.visitMethod(ACC_PUBLIC | ACC_SYNTHETIC,
+					Woven.PREFIX + "dispatch",
+					"(I[Ljava/lang/Object;)Ljava/lang/Object;", null,
+					new String[] { "java/lang/Throwable" });
+			mv.visitCode();
+			Label dflt = new Label();
+			Label[] labels = new Label[this.descriptors.length];
+			for (int i = 0; i < labels.length; i++) {
+				labels[i] = new Label();
+			}
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitTableSwitchInsn(0, labels.length - 1, dflt, labels);
+			for (int i = 0; i < labels.length; i++) {
+				mv.visitLabel(labels[i]);
+				String desc = this.descriptors[i];
+				mv.visitVarInsn(ALOAD, 0);
+				Type[] args = Type.getArgumentTypes(desc);
+				for (int j = 0; j < args.length; j++) {
+					mv.visitVarInsn(ALOAD, 2);
+					push(mv, j);
+					mv.visitInsn(AALOAD);
+					unbox(mv, args[j]);
+				}
+				mv.visitMethodInsn(INVOKESPECIAL, this.owner, Woven.PREFIX
+						+ this.names[i], desc);
+				Type returnType = Type.getReturnType(desc);
+				if (returnType.getSort() == Type.VOID) {
+					mv.visitInsn(ACONST_NULL);
+				}
+				else {
+					box(mv, returnType);
+				}
+				mv.visitInsn(ARETURN);
+			}
+			mv.visitLabel(dflt);
+			mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL,
+					"java/lang/IllegalArgumentException", "<init>", "()V");
+			mv.visitInsn(ATHROW);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+	}
+
+	/**
+	 * Drops the stack map frames of a method.
+	 */
+	static class FrameRemover extends MethodAdapter {
+		/**
+		 * Constructor.
+		 */
+		FrameRemover(MethodVisitor mv) {
+
+			super(mv);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * org.objectweb.asm.MethodAdapter#visitAttribute(org.objectweb.asm.
+		 * Attribute)
+		 */
+		@Override
+		public void visitAttribute(Attribute attr) {
+
+			if (!attr.type.startsWith("StackMap")) {
+				super.visitAttribute(attr);
+			}
+		}
+	}
+
+	/**
+	 * Moves the code of a join point to its body and generates the join point
+	 * code, annotations stay on the join point.
+	 */
+	static final class JoinPointAdapter extends FrameRemover {
+		/** The join point. */
+		private final MethodVisitor	joinPoint;
+
+		/** The internal name of class. */
+		private final String		owner;
+
+		/** The method name. */
+		private final String		name;
+
+		/** The method descriptor. */
+		private final String		desc;
+
+		/** The index of join point. */
+		private final int			index;
+
+		/**
+		 * Constructor.
+		 */
+		JoinPointAdapter(MethodVisitor body, MethodVisitor joinPoint,
+				String owner, String name, String desc, int index) {
+
+			super(body);
+			this.joinPoint = joinPoint;
+			this.owner = owner;
+			this.name = name;
+			this.desc = desc;
+			this.index = index;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.MethodAdapter#visitAnnotation(java.lang.String,
+		 * boolean)
+		 */
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+
+			return this.joinPoint.visitAnnotation(desc, visible);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.MethodAdapter#visitParameterAnnotation(int,
+		 * java.lang.String, boolean)
+		 */
+		@Override
+		public AnnotationVisitor visitParameterAnnotation(int parameter,
+				String desc, boolean visible) {
+
+			return this.joinPoint.visitParameterAnnotation(parameter, desc,
+					visible);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.objectweb.asm.MethodAdapter#visitEnd()
+		 */
+		@Override
+		public void visitEnd() {
+
+			super.visitEnd();
+			MethodVisitor mv = this.joinPoint;
+			Type[] args = Type.getArgumentTypes(this.desc);
+			Type returnType = Type.getReturnType(this.desc);
+			int local = 1;
+			for (Type arg : args) {
+				local += arg.getSize();
+			}
+			int joinPointsLocal = local;
+			int joinPointLocal = local + 1;
+			Label direct = new Label();
+			mv.visitCode();
+			// join points bound to this instance
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, this.owner, WeavingSupport.FIELD_NAME,
+					JOIN_POINTS_DESC);
+			mv.visitVarInsn(ASTORE, joinPointsLocal);
+			mv.visitVarInsn(ALOAD, joinPointsLocal);
+			mv.visitJumpInsn(IFNULL, direct);
+			mv.visitVarInsn(ALOAD, joinPointsLocal);
+			push(mv, this.index);
+			mv.visitInsn(AALOAD);
+			mv.visitVarInsn(ASTORE, joinPointLocal);
+			mv.visitVarInsn(ALOAD, joinPointLocal);
+			mv.visitJumpInsn(IFNULL, direct);
+			// intercepted call
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, joinPointLocal);
+			if (args.length == 0) {
+				mv.visitFieldInsn(GETSTATIC, INVOCATION, "NO_ARGUMENTS",
+						"[Ljava/lang/Object;");
+			}
+			else {
+				push(mv, args.length);
+				mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+			}
+			local = 1;
+			for (int i = 0; i < args.length; i++) {
+				mv.visitInsn(DUP);
+				push(mv, i);
+				mv.visitVarInsn(args[i].getOpcode(ILOAD), local);
+				box(mv, args[i]);
+				mv.visitInsn(AASTORE);
+				local += args[i].getSize();
+			}
+			mv.visitMethodInsn(INVOKESTATIC, INVOCATION, "invoke", INVOKE_DESC);
+			if (returnType.getSort() == Type.VOID) {
+				mv.visitInsn(POP);
+			}
+			else {
+				unbox(mv, returnType);
+			}
+			mv.visitInsn(returnType.getOpcode(IRETURN));
+			// direct call
+			mv.visitLabel(direct);
+			mv.visitVarInsn(ALOAD, 0);
+			local = 1;
+			for (Type arg : args) {
+				mv.visitVarInsn(arg.getOpcode(ILOAD), local);
+				local += arg.getSize();
+			}
+			mv.visitMethodInsn(INVOKESPECIAL, this.owner, Woven.PREFIX
+					+ this.name, this.desc);
+			mv.visitInsn(returnType.getOpcode(IRETURN));
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept.weaving;
+
+/**
+ * Implemented by the classes rewritten by {@link WeavingTransformer}. The
+ * methods of this interface are generated, they are not meant to be
+ * implemented by hand nor called by application code.
+ * <p>
+ * Each join point of a woven class checks the join points bound to the
+ * current instance: if none is bound, the original body runs directly,
+ * otherwise the call is passed to the bound interceptors.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see WeavingSupport
+ */
+public interface Woven {
+	/** The prefix of all members generated by the weaver. */
+	public static final String	PREFIX	= "$jgentle$";
+
+	/**
+	 * Binds the given join points to this instance.
+	 *
+	 * @param joinPoints
+	 *            the join points, indexed as returned by
+	 *            {@link WeavingSupport#getJoinPoints(Class)}, a <b>null</b>
+	 *            element means the method is not intercepted.
+	 */
+	public void $jgentle$bind(WovenJoinPoint[] joinPoints);
+
+	/**
+	 * Invokes the original body of the join point at the given index.
+	 *
+	 * @param index
+	 *            the index of join point
+	 * @param arguments
+	 *            the arguments
+	 * @return the result, boxed if the method returns a primitive,
+	 *         <b>null</b> if it is <code>void</code>.
+	 * @throws Throwable
+	 *             the exception thrown by the original body.
+	 */
+	public Object $jgentle$dispatch(int index, Object[] arguments)
+			throws Throwable;
+}
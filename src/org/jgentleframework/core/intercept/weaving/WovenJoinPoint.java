@@ -0,0 +1,87 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept.weaving;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.jgentleframework.core.intercept.InterceptionProfiler;
+import org.jgentleframework.core.intercept.InterceptionProfiler.JoinPointProfile;
+import org.jgentleframework.utils.Assertor;
+
+/**
+ * An intercepted method of a {@link Woven woven} class together with its
+ * interceptors.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see WovenMethodInvocation
+ */
+public final class WovenJoinPoint {
+	/** The index of join point in its woven class. */
+	final int					index;
+
+	/** The method. */
+	final Method				method;
+
+	/** The interceptors. */
+	final MethodInterceptor[]	interceptors;
+
+	/** The profile of the join point, <b>null</b> if profiling is disabled. */
+	final JoinPointProfile		profile;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param index
+	 *            the index of join point in its woven class
+	 * @param method
+	 *            the method
+	 * @param interceptors
+	 *            the interceptors
+	 */
+	public WovenJoinPoint(int index, Method method,
+			MethodInterceptor... interceptors) {
+
+		Assertor.notNull(method, "The method must not be null !");
+		Assertor.notEmpty(interceptors,
+				"The list of interceptors must not be empty !");
+		this.index = index;
+		this.method = method;
+		this.interceptors = interceptors.clone();
+		this.profile = InterceptionProfiler.joinPointOf(method,
+				this.interceptors);
+	}
+
+	/**
+	 * Returns the index of join point in its woven class.
+	 */
+	public int getIndex() {
+
+		return this.index;
+	}
+
+	/**
+	 * Returns the method.
+	 */
+	public Method getMethod() {
+
+		return this.method;
+	}
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.intercept.weaving;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.jgentleframework.core.intercept.InterceptionProfiler.Recorder;
+import org.jgentleframework.core.intercept.MethodInterceptorStackCallback;
+
+/**
+ * The {@link MethodInvocation} of a {@link Woven woven} join point. Once all
+ * interceptors have proceeded, the original body is invoked through
+ * {@link Woven#$jgentle$dispatch(int, Object[])}, without reflection.
+ * <p>
+ * As in {@link MethodInterceptorStackCallback}, invocations are reused: each
+ * thread keeps a few spare invocations, an invocation is therefore only valid
+ * until the intercepted call returns.
+ * <p>
+ * The static methods of this class are called by the woven code, the
+ * <code>unbox</code> methods convert the result of the interceptors back to
+ * the primitive return type of the join point, <b>null</b> being converted to
+ * zero or <b>false</b> as cglib proxies do.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see WeavingTransformer
+ */
+public final class WovenMethodInvocation implements MethodInvocation {
+	/** The arguments of join points without parameter. */
+	public static final Object[]						NO_ARGUMENTS		= new Object[0];
+
+	/** The spare invocations of each thread. */
+	private static final ThreadLocal<InvocationStack>	invocationStacks	= new ThreadLocal<InvocationStack>() {
+																				@Override
+																				protected InvocationStack initialValue() {
+
+																					return new InvocationStack();
+																				}
+																			};
+
+	/** The target, <b>null</b> when the invocation is not in use. */
+	private Woven										target;
+
+	/** The join point. */
+	private WovenJoinPoint								joinPoint;
+
+	/** The arguments. */
+	private Object[]									arguments;
+
+	/** The index of current interceptor. */
+	private int											index				= -1;
+
+	/** The profiling buffer, <b>null</b> if profiling is disabled. */
+	private Recorder									recorder;
+
+	/**
+	 * Instantiates a new woven method invocation.
+	 */
+	private WovenMethodInvocation() {
+
+	}
+
+	/**
+	 * Invokes the given join point through its interceptors.
+	 *
+	 * @param target
+	 *            the target
+	 * @param joinPoint
+	 *            the join point
+	 * @param arguments
+	 *            the arguments
+	 * @return the result
+	 * @throws Throwable
+	 *             the exception thrown by an interceptor or by the original
+	 *             body.
+	 */
+	public static Object invoke(Woven target, WovenJoinPoint joinPoint,
+			Object[] arguments) throws Throwable {
+
+		InvocationStack stack = invocationStacks.get();
+		WovenMethodInvocation invocation = stack.acquire();
+		invocation.target = target;
+		invocation.joinPoint = joinPoint;
+		invocation.arguments = arguments;
+		invocation.index = -1;
+		Recorder recorder = joinPoint.profile != null ? joinPoint.profile
+				.recorder() : null;
+		long allocated = recorder != null ? recorder.begin() : 0L;
+		invocation.recorder = recorder;
+		try {
+			return invocation.proceed();
+		}
+		finally {
+			stack.release(invocation);
+			if (recorder != null) {
+				recorder.end(joinPoint.profile, allocated);
+			}
+		}
+	}
+
+	/**
+	 * Returns the current target.
+	 *
+	 * @throws IllegalStateException
+	 *             if the intercepted call has already returned.
+	 */
+	private Woven target() {
+
+		Woven result = this.target;
+		if (result == null) {
+			throw new IllegalStateException(
+					"The method invocation can not be used once the intercepted call returned !");
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.aopalliance.intercept.Joinpoint#proceed()
+	 */
+	@Override
+	public Object proceed() throws Throwable {
+
+		Woven target = target();
+		Recorder recorder = this.recorder;
+		long start = recorder != null ? System.nanoTime() : 0L;
+		Object result = null;
+		try {
+			index++;
+			if (index != this.joinPoint.interceptors.length) {
+				result = this.joinPoint.interceptors[index].invoke(this);
+			}
+			else {
+				result = target.$jgentle$dispatch(this.joinPoint.index,
+						this.arguments);
+			}
+		}
+		finally {
+			if (recorder != null) {
+				recorder.time(this.joinPoint.profile, index, System.nanoTime()
+						- start);
+			}
+			index--;
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.aopalliance.intercept.MethodInvocation#getMethod()
+	 */
+	@Override
+	public Method getMethod() {
+
+		target();
+		return this.joinPoint.method;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.aopalliance.intercept.Invocation#getArguments()
+	 */
+	@Override
+	public Object[] getArguments() {
+
+		target();
+		return this.arguments.length != 0 ? this.arguments.clone()
+				: this.arguments;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.aopalliance.intercept.Joinpoint#getThis()
+	 */
+	@Override
+	public Object getThis() {
+
+		return target();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.aopalliance.intercept.Joinpoint#getStaticPart()
+	 */
+	@Override
+	public AccessibleObject getStaticPart() {
+
+		return getMethod();
+	}
+
+	/**
+	 * The spare invocations of one thread.
+	 */
+	static final class InvocationStack {
+		/** The max number of spare invocations. */
+		private static final int				MAX_SPARES	= 8;
+
+		/** The spare invocations. */
+		private final WovenMethodInvocation[]	spares		= new WovenMethodInvocation[MAX_SPARES];
+
+		/** The number of spare invocations. */
+		private int								size		= 0;
+
+		/**
+		 * Returns a spare invocation, or a new one if there is none.
+		 */
+		WovenMethodInvocation acquire() {
+
+			return this.size == 0 ? new WovenMethodInvocation()
+					: this.spares[--this.size];
+		}
+
+		/**
+		 * Clears the given invocation and keeps it as a spare.
+		 *
+		 * @param invocation
+		 *            the invocation
+		 */
+		void release(WovenMethodInvocation invocation) {
+
+			invocation.target = null;
+			invocation.joinPoint = null;
+			invocation.arguments = null;
+			invocation.recorder = null;
+			if (this.size < MAX_SPARES) {
+				this.spares[this.size++] = invocation;
+			}
+		}
+	}
+
+	/**
+	 * Unboxes the given boolean.
+	 */
+	public static boolean unboxBoolean(Object value) {
+
+		return value == null ? false : ((Boolean) value).booleanValue();
+	}
+
+	/**
+	 * Unboxes the given byte.
+	 */
+	public static byte unboxByte(Object value) {
+
+		return value == null ? 0 : ((Byte) value).byteValue();
+	}
+
+	/**
+	 * Unboxes the given char.
+	 */
+	public static char unboxChar(Object value) {
+
+		return value == null ? 0 : ((Character) value).charValue();
+	}
+
+	/**
+	 * Unboxes the given short.
+	 */
+	public static short unboxShort(Object value) {
+
+		return value == null ? 0 : ((Short) value).shortValue();
+	}
+
+	/**
+	 * Unboxes the given int.
+	 */
+	public static int unboxInt(Object value) {
+
+		return value == null ? 0 : ((Integer) value).intValue();
+	}
+
+	/**
+	 * Unboxes the given long.
+	 */
+	public static long unboxLong(Object value) {
+
+		return value == null ? 0 : ((Long) value).longValue();
+	}
+
+	/**
+	 * Unboxes the given float.
+	 */
+	public static float unboxFloat(Object value) {
+
+		return value == null ? 0 : ((Float) value).floatValue();
+	}
+
+	/**
+	 * Unboxes the given double.
+	 */
+	public static double unboxDouble(Object value) {
+
+		return value == null ? 0 : ((Double) value).doubleValue();
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.interceptor;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.jgentleframework.context.aop.advice.MethodBeforeAdvice;
+
+/**
+ * Handles the exceptions thrown by advices executed asynchronously by an
+ * {@link AdviceExecutor}.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see AdviceExecutor#setExceptionHandler(AdviceExceptionHandler)
+ */
+public interface AdviceExceptionHandler {
+	/**
+	 * Handles the exception thrown by the given advice.
+	 *
+	 * @param advice
+	 *            the advice
+	 * @param invocation
+	 *            the invocation the advice was executed for
+	 * @param exception
+	 *            the thrown exception
+	 */
+	public void handleException(MethodBeforeAdvice advice,
+			MethodInvocation invocation, Throwable exception);
+}
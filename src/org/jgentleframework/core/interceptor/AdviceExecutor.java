@@ -0,0 +1,443 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.core.interceptor;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.configure.aopweaving.annotation.Before;
+import org.jgentleframework.context.aop.advice.MethodBeforeAdvice;
+import org.jgentleframework.context.beans.Disposable;
+import org.jgentleframework.core.intercept.AbstractInterceptedAdviceInvocation;
+import org.jgentleframework.utils.Assertor;
+import org.jgentleframework.utils.data.LatencyHistogram;
+import org.jgentleframework.utils.data.StripedCounter;
+
+/**
+ * Executes the advices of {@link Before#parallel() parallel} before advice
+ * asynchronously, on a bounded number of daemon threads fed by a bounded
+ * queue. When the queue is full, the {@link RejectionPolicy} decides what
+ * happens to new advice tasks. Exceptions thrown by advices are passed to the
+ * {@link AdviceExceptionHandler}, which logs them by default.
+ * <p>
+ * The executor is a container-managed singleton: interceptors obtain it from
+ * their {@link org.jgentleframework.context.injecting.Provider Provider}, so it
+ * can be replaced by binding another implementation to this class. The
+ * default instance reads its configuration from the system properties
+ * <code>jgentle.adviceExecutor.threads</code>,
+ * <code>jgentle.adviceExecutor.queueCapacity</code>,
+ * <code>jgentle.adviceExecutor.rejectionPolicy</code> and
+ * <code>jgentle.adviceExecutor.batch</code>.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see BeforeAdviceStackMethodInterceptor
+ */
+public class AdviceExecutor implements Disposable {
+	/**
+	 * The policies applied to advice tasks which can not be queued.
+	 */
+	public static enum RejectionPolicy {
+		/** The advice runs in the thread of the intercepted call. */
+		CALLER_RUNS,
+		/** The advice is not executed. */
+		DISCARD,
+		/** The oldest queued advice is not executed. */
+		DISCARD_OLDEST,
+		/**
+		 * The intercepted call fails with a
+		 * {@link java.util.concurrent.RejectedExecutionException}.
+		 */
+		ABORT
+	}
+
+	/** The default queue capacity. */
+	public static final int					DEFAULT_QUEUE_CAPACITY	= 1024;
+
+	/** The prefix of configuration properties. */
+	private static final String				PROPERTY_PREFIX			= "jgentle.adviceExecutor.";
+
+	/** The log. */
+	private static final Log				log						= LogFactory
+																			.getLog(AdviceExecutor.class);
+
+	/** The executor. */
+	private final ThreadPoolExecutor		executor;
+
+	/** Whether the advices of one call run as a single task. */
+	private final boolean					batch;
+
+	/** The submitted advices. */
+	private final StripedCounter			submitted				= new StripedCounter();
+
+	/** The executed advices. */
+	private final StripedCounter			completed				= new StripedCounter();
+
+	/** The advices which threw an exception. */
+	private final StripedCounter			failed					= new StripedCounter();
+
+	/** The rejected advice tasks. */
+	private final StripedCounter			rejected				= new StripedCounter();
+
+	/** The latency from submission to the end of each advice. */
+	private final LatencyHistogram			latency					= new LatencyHistogram();
+
+	/** The exception handler. */
+	private volatile AdviceExceptionHandler	exceptionHandler		= new LoggingExceptionHandler();
+
+	/**
+	 * Instantiates a new advice executor configured from system properties.
+	 */
+	public AdviceExecutor() {
+
+		this(Integer.getInteger(PROPERTY_PREFIX + "threads", Runtime
+				.getRuntime().availableProcessors()), Integer.getInteger(
+				PROPERTY_PREFIX + "queueCapacity", DEFAULT_QUEUE_CAPACITY),
+				RejectionPolicy.valueOf(System.getProperty(PROPERTY_PREFIX
+						+ "rejectionPolicy", RejectionPolicy.CALLER_RUNS
+						.name())), Boolean.getBoolean(PROPERTY_PREFIX
+						+ "batch"));
+	}
+
+	/**
+	 * Instantiates a new advice executor.
+	 *
+	 * @param threads
+	 *            the max number of threads
+	 * @param queueCapacity
+	 *            the capacity of the task queue
+	 * @param rejectionPolicy
+	 *            the rejection policy
+	 * @param batch
+	 *            if <b>true</b>, the advices of one intercepted call are
+	 *            executed one after the other as a single task, otherwise each
+	 *            advice is a task of its own.
+	 */
+	public AdviceExecutor(int threads, int queueCapacity,
+			RejectionPolicy rejectionPolicy, boolean batch) {
+
+		Assertor.notNull(rejectionPolicy,
+				"The rejection policy must not be null !");
+		if (threads < 1 || queueCapacity < 1) {
+			throw new IllegalArgumentException(
+					"The number of threads and the queue capacity must be positive !");
+		}
+		this.batch = batch;
+		this.executor = new ThreadPoolExecutor(threads, threads, 60,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+						queueCapacity), new AdviceThreadFactory(),
+				new CountingRejectionHandler(handlerOf(rejectionPolicy)));
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the {@link RejectedExecutionHandler} of the given policy.
+	 */
+	private static RejectedExecutionHandler handlerOf(RejectionPolicy policy) {
+
+		switch (policy) {
+		case DISCARD:
+			return new ThreadPoolExecutor.DiscardPolicy();
+		case DISCARD_OLDEST:
+			return new ThreadPoolExecutor.DiscardOldestPolicy();
+		case ABORT:
+			return new ThreadPoolExecutor.AbortPolicy();
+		default:
+			return new ThreadPoolExecutor.CallerRunsPolicy();
+		}
+	}
+
+	/**
+	 * Executes the given advices for the given invocation. The invocation
+	 * must remain valid after the intercepted call returned.
+	 *
+	 * @param advices
+	 *            the advices
+	 * @param invocation
+	 *            the invocation
+	 */
+	public void execute(List<MethodBeforeAdvice> advices,
+			MethodInvocation invocation) {
+
+		MethodBeforeAdvice[] array = advices
+				.toArray(new MethodBeforeAdvice[advices.size()]);
+		long start = System.nanoTime();
+		this.submitted.add(array.length);
+		if (this.batch) {
+			this.executor.execute(new AdviceTask(array, invocation, start));
+		}
+		else {
+			for (MethodBeforeAdvice advice : array) {
+				this.executor.execute(new AdviceTask(
+						new MethodBeforeAdvice[] { advice }, invocation, start));
+			}
+		}
+	}
+
+	/**
+	 * Sets the exception handler.
+	 *
+	 * @param exceptionHandler
+	 *            the exception handler
+	 */
+	public void setExceptionHandler(AdviceExceptionHandler exceptionHandler) {
+
+		Assertor.notNull(exceptionHandler,
+				"The exception handler must not be null !");
+		this.exceptionHandler = exceptionHandler;
+	}
+
+	/**
+	 * Returns the exception handler.
+	 */
+	public AdviceExceptionHandler getExceptionHandler() {
+
+		return this.exceptionHandler;
+	}
+
+	/**
+	 * Returns the number of queued advice tasks.
+	 */
+	public int getQueueDepth() {
+
+		return this.executor.getQueue().size();
+	}
+
+	/**
+	 * Returns the number of threads currently executing advices.
+	 */
+	public int getActiveCount() {
+
+		return this.executor.getActiveCount();
+	}
+
+	/**
+	 * Returns the number of submitted advices.
+	 */
+	public long getSubmittedCount() {
+
+		return this.submitted.sum();
+	}
+
+	/**
+	 * Returns the number of executed advices, including failed ones.
+	 */
+	public long getCompletedCount() {
+
+		return this.completed.sum();
+	}
+
+	/**
+	 * Returns the number of advices which threw an exception.
+	 */
+	public long getFailedCount() {
+
+		return this.failed.sum();
+	}
+
+	/**
+	 * Returns the number of advice tasks handled by the rejection policy.
+	 */
+	public long getRejectedCount() {
+
+		return this.rejected.sum();
+	}
+
+	/**
+	 * Returns the latencies from the submission of advices to the end of their
+	 * execution.
+	 */
+	public LatencyHistogram getLatency() {
+
+		return this.latency;
+	}
+
+	/**
+	 * Returns <b>true</b> if the advices of one call are executed as a single
+	 * task.
+	 */
+	public boolean isBatch() {
+
+		return this.batch;
+	}
+
+	/**
+	 * Stops accepting advices, queued advices are still executed.
+	 */
+	public void shutdown() {
+
+		this.executor.shutdown();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.context.beans.Disposable#destroy()
+	 */
+	@Override
+	public void destroy() throws Exception {
+
+		shutdown();
+	}
+
+	/**
+	 * An advice task.
+	 */
+	private final class AdviceTask implements Runnable {
+		/** The advices. */
+		private final MethodBeforeAdvice[]	advices;
+
+		/** The invocation. */
+		private final MethodInvocation		invocation;
+
+		/** The submission time. */
+		private final long					start;
+
+		/**
+		 * Instantiates a new advice task.
+		 *
+		 * @param advices
+		 *            the advices
+		 * @param invocation
+		 *            the invocation
+		 * @param start
+		 *            the submission time, in nanoseconds.
+		 */
+		AdviceTask(MethodBeforeAdvice[] advices, MethodInvocation invocation,
+				long start) {
+
+			this.advices = advices;
+			this.invocation = invocation;
+			this.start = start;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+
+			for (MethodBeforeAdvice advice : this.advices) {
+				try {
+					advice.before(new AbstractInterceptedAdviceInvocation(
+							this.invocation) {
+						@Override
+						public Object proceed() throws Throwable {
+
+							return null;
+						}
+					});
+				}
+				catch (Throwable e) {
+					failed.increment();
+					exceptionHandler.handleException(advice, this.invocation,
+							e);
+				}
+				completed.increment();
+				latency.record(System.nanoTime() - this.start);
+			}
+		}
+	}
+
+	/**
+	 * Counts rejected tasks before applying the rejection policy.
+	 */
+	private final class CountingRejectionHandler implements
+			RejectedExecutionHandler {
+		/** The handler applying the rejection policy. */
+		private final RejectedExecutionHandler	handler;
+
+		/**
+		 * Instantiates a new counting rejection handler.
+		 *
+		 * @param handler
+		 *            the handler applying the rejection policy
+		 */
+		CountingRejectionHandler(RejectedExecutionHandler handler) {
+
+			this.handler = handler;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * java.util.concurrent.RejectedExecutionHandler#rejectedExecution(java
+		 * .lang.Runnable, java.util.concurrent.ThreadPoolExecutor)
+		 */
+		@Override
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+
+			rejected.increment();
+			this.handler.rejectedExecution(r, executor);
+		}
+	}
+
+	/**
+	 * The default exception handler, which logs exceptions.
+	 */
+	private static final class LoggingExceptionHandler implements
+			AdviceExceptionHandler {
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * org.jgentleframework.core.interceptor.AdviceExceptionHandler#handleException
+		 * (org.jgentleframework.context.aop.advice.MethodBeforeAdvice,
+		 * org.aopalliance.intercept.MethodInvocation, java.lang.Throwable)
+		 */
+		@Override
+		public void handleException(MethodBeforeAdvice advice,
+				MethodInvocation invocation, Throwable exception) {
+
+			if (log.isErrorEnabled()) {
+				log.error("The before advice [" + advice + "] of method ["
+						+ invocation.getMethod() + "] failed !", exception);
+			}
+		}
+	}
+
+	/**
+	 * The factory of advice threads.
+	 */
+	private static final class AdviceThreadFactory implements ThreadFactory {
+		/** The thread counter. */
+		private final AtomicInteger	counter	= new AtomicInteger();
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+		 */
+		@Override
+		public Thread newThread(Runnable r) {
+
+			Thread thread = new Thread(r, "jgentle-advice-"
+					+ this.counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -58,6 +58,9 @@ class AnnotationAroundAdviceMethodInterceptor extends AbstractBeforeAdvice
 	/** The outject method map. */
 	Map<Method, Outject>				outjectMethodMap	= new HashMap<Method, Outject>();
 
+	/** The attributes injected at each invocation. */
+	Map<Method, Inject>					invocationInjectMap	= new HashMap<Method, Inject>();
+
 	/** The provider. */
 	final Provider						provider;
 
@@ -110,6 +113,8 @@ class AnnotationAroundAdviceMethodInterceptor extends AbstractBeforeAdvice
 							injected = InOutExecutor.getInjectedDependency(
 									inject, method.getReturnType(),
 									this.provider);
+						else
+							this.invocationInjectMap.put(method, inject);
 						this.attributesMapping.put(method, injected);
 					}
 					if (defMethod.isAnnotationPresent(Outject.class)) {
@@ -142,38 +147,37 @@ class AnnotationAroundAdviceMethodInterceptor extends AbstractBeforeAdvice
 		Object result = null;
 		Method invoMethod = invocation.getMethod();
 		Object proxy = invocation.getThis();
-		try {
-			if (invoMethod.getName().equals("hashCode")) {
-				return this.hashCode(proxy);
-			}
-			else if (invoMethod.getName().equals("equals")) {
-				return equals(invocation.getArguments()[0], proxy);
-			}
-			else if (invoMethod.getName().equals("toString")) {
-				return toString(proxy);
-			}
-			else if (invoMethod.getName().equals("annotationType")) {
-				return annotationType();
+		// attributes are declared by the annotation type itself, the core
+		// methods by Object or Annotation.
+		if (invoMethod.getDeclaringClass() != this.targetClass) {
+			try {
+				if (invoMethod.getName().equals("hashCode")) {
+					return this.hashCode(proxy);
+				}
+				else if (invoMethod.getName().equals("equals")) {
+					return equals(invocation.getArguments()[0], proxy);
+				}
+				else if (invoMethod.getName().equals("toString")) {
+					return toString(proxy);
+				}
+				else if (invoMethod.getName().equals("annotationType")) {
+					return annotationType();
+				}
 			}
-		}
-		catch (Exception e) {
-			if (log.isFatalEnabled()) {
-				log.fatal("Could not invoke core method [" + invoMethod
-						+ "] of this annotation proxy !!", e);
+			catch (Exception e) {
+				if (log.isFatalEnabled()) {
+					log.fatal("Could not invoke core method [" + invoMethod
+							+ "] of this annotation proxy !!", e);
+				}
 			}
 		}
 		result = this.attributesMapping.get(invoMethod);
 		// executes wrapping
 		try {
-			Definition defMethod = this.definition
-					.getMemberDefinition(invoMethod);
-			if (defMethod != null
-					&& defMethod.isAnnotationPresent(Inject.class)) {
-				Inject inject = defMethod.getAnnotation(Inject.class);
-				if (inject.invocation()) {
-					result = InOutExecutor.getInjectedDependency(inject,
-							invoMethod.getReturnType(), this.provider);
-				}
+			Inject inject = this.invocationInjectMap.get(invoMethod);
+			if (inject != null) {
+				result = InOutExecutor.getInjectedDependency(inject,
+						invoMethod.getReturnType(), this.provider);
 			}
 			if (result == null)
 				result = invoMethod.getDefaultValue();
@@ -27,6 +27,7 @@ import org.jgentleframework.context.aop.advice.MethodBeforeAdvice;
 import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.core.factory.RequiredException;
 import org.jgentleframework.core.intercept.AbstractInterceptedAdviceInvocation;
+import org.jgentleframework.core.intercept.BasicMethodInvocation;
 import org.jgentleframework.core.intercept.InterceptionException;
 import org.jgentleframework.reflection.metadata.Definition;
 import org.jgentleframework.utils.ReflectUtils;
@@ -51,6 +52,9 @@ class BeforeAdviceStackMethodInterceptor extends AbstractBeforeAdvice implements
 	/** The runtime loading. */
 	private boolean				runtimeLoading		= false;
 
+	/** The executor of parallel advices, obtained from provider. */
+	private volatile AdviceExecutor	adviceExecutor		= null;
+
 	/**
 	 * Instantiates a new before advice method interceptor.
 	 * 
@@ -69,6 +73,19 @@ class BeforeAdviceStackMethodInterceptor extends AbstractBeforeAdvice implements
 		this.runtimeLoading = runtimeLoading;
 	}
 
+	/**
+	 * Returns the container-managed {@link AdviceExecutor}.
+	 */
+	AdviceExecutor adviceExecutor() {
+
+		AdviceExecutor result = this.adviceExecutor;
+		if (result == null) {
+			result = this.provider.getBean(AdviceExecutor.class);
+			this.adviceExecutor = result;
+		}
+		return result;
+	}
+
 	/**
 	 * Finds the advice instances.
 	 * 
@@ -171,11 +188,13 @@ class BeforeAdviceStackMethodInterceptor extends AbstractBeforeAdvice implements
 
 			if (parallel) {
 				if (beforeAdviceList != null && !beforeAdviceList.isEmpty()) {
-					for (MethodBeforeAdvice advice : beforeAdviceList) {
-						Thread thread = new Thread(new BeforeAdviceThread(
-								advice, this.invocation));
-						thread.start();
-					}
+					// the invocation is only valid during the intercepted call,
+					// advices running in parallel get a copy of its state.
+					MethodInvocation detached = new BasicMethodInvocation(
+							this.invocation.getThis(), this.invocation
+									.getMethod(), this.invocation
+									.getArguments());
+					adviceExecutor().execute(beforeAdviceList, detached);
 				}
 			}
 			else {
@@ -32,6 +32,7 @@ import org.jgentleframework.configure.annotation.Outject;
 import org.jgentleframework.context.beans.annotation.DisablesInOut;
 import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.core.factory.InOutExecutor;
+import org.jgentleframework.core.factory.InjectionPoint;
 import org.jgentleframework.reflection.metadata.Definition;
 import org.jgentleframework.utils.Assertor;
 import org.jgentleframework.utils.Utils;
@@ -49,28 +50,31 @@ import org.jgentleframework.utils.Utils;
 class InvocationInOutjectionMethodInterceptor implements MethodInterceptor,
 		RuntimeLoading {
 	/** The definition. */
-	private Definition		definition;
+	private Definition			definition;
 
 	/** The flag. */
-	private int				flag			= 0;
+	private int					flag			= 0;
 
 	/** The fields. */
-	private Field[]			injectedFields;
+	private Field[]				injectedFields;
+
+	/** The compiled injection points of injected fields and setters. */
+	private InjectionPoint[]	injectionPoints	= new InjectionPoint[0];
 
 	/** The setters. */
-	private Method[]		injectedSetters;
+	private Method[]			injectedSetters;
 
 	/** The outjected fields. */
-	private Field[]			outjectedFields;
+	private Field[]				outjectedFields;
 
 	/** The getters. */
-	private Method[]		outjectedGetters;
+	private Method[]			outjectedGetters;
 
 	/** The provider. */
-	private final Provider	provider;
+	private final Provider		provider;
 
 	/** The runtime loading. */
-	private boolean			runtimeLoading	= false;
+	private boolean				runtimeLoading	= false;
 
 	/**
 	 * Instantiates a new invocation in/outject method interceptor.
@@ -180,6 +184,45 @@ class InvocationInOutjectionMethodInterceptor implements MethodInterceptor,
 						"The given provider according to this interceptor must not be null !");
 		getInOutMethod();
 		getInOutField();
+		compileInjectionPoints();
+	}
+
+	/**
+	 * Compiles the injection points of the injected fields and setters. The
+	 * injection points which are still up to date are kept, so that their
+	 * resolved dependencies are not lost when the interceptor is reloaded at
+	 * run-time.
+	 */
+	private synchronized void compileInjectionPoints() {
+
+		Map<Object, InjectionPoint> compiled = new HashMap<Object, InjectionPoint>();
+		for (InjectionPoint point : this.injectionPoints) {
+			compiled.put(point.getSetter() != null ? point.getSetter() : point
+					.getField(), point);
+		}
+		List<InjectionPoint> points = new ArrayList<InjectionPoint>();
+		for (Field field : this.injectedFields) {
+			Definition defField = this.definition.getMemberDefinition(field);
+			InjectionPoint point = compiled.get(field);
+			if (point == null || !point.isCompiledFrom(defField)) {
+				point = InjectionPoint.forField(field, defField, this.provider);
+			}
+			if (point != null) {
+				points.add(point);
+			}
+		}
+		for (Method setter : this.injectedSetters) {
+			Definition defMethod = this.definition.getMemberDefinition(setter);
+			InjectionPoint point = compiled.get(setter);
+			if (point == null || !point.isCompiledFrom(defMethod)) {
+				point = InjectionPoint.forSetter(setter, defMethod,
+						(Class<?>) this.definition.getKey(), this.provider);
+			}
+			if (point != null) {
+				points.add(point);
+			}
+		}
+		this.injectionPoints = points.toArray(new InjectionPoint[points.size()]);
 	}
 
 	/*
@@ -281,8 +324,7 @@ class InvocationInOutjectionMethodInterceptor implements MethodInterceptor,
 		if (flag == 1
 				&& !this.definition.isAnnotationPresent(DisablesInOut.class)) {
 			map.putAll(InOutExecutor.executesInjectingAndFiltering(
-					injectedFields, injectedSetters, provider, proxy,
-					definition));
+					injectionPoints, proxy));
 		}
 	}
 }
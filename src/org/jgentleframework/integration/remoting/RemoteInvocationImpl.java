@@ -19,9 +19,9 @@ package org.jgentleframework.integration.remoting;
 
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 
 import org.aopalliance.intercept.MethodInvocation;
+import org.jgentleframework.core.intercept.MethodInvoker;
 import org.jgentleframework.reflection.metadata.SerializableMetadataControl;
 
 /**
@@ -166,9 +166,9 @@ public class RemoteInvocationImpl extends SerializableMetadataControl implements
 	public Object invoke(Object targetObject) throws NoSuchMethodException,
 			IllegalAccessException, InvocationTargetException {
 
-		Method method = targetObject.getClass().getMethod(this.methodName,
-				this.argsType);
-		return method.invoke(targetObject, this.args);
+		MethodInvoker invoker = MethodInvoker.getInvoker(targetObject
+				.getClass(), this.methodName, this.argsType);
+		return invoker.invoke(targetObject, this.args);
 	}
 
 	/*
@@ -57,6 +57,12 @@ class AnnotationMetadataImpl extends MetadataImpl implements Metadata, Annotatio
 	/** The type. */
 	Class<?>				type		= null;
 
+	/**
+	 * The {@link CompiledAnnotation} created from this annotation metadata,
+	 * discarded whenever the metadata is modified.
+	 */
+	volatile CompiledAnnotation	compiled	= null;
+
 	/**
 	 * The Constructor.
 	 * 
@@ -128,6 +134,7 @@ class AnnotationMetadataImpl extends MetadataImpl implements Metadata, Annotatio
 	@Override
 	public void clear() {
 
+		compiled = null;
 		metaList.clear();
 	}
 
@@ -225,6 +232,7 @@ class AnnotationMetadataImpl extends MetadataImpl implements Metadata, Annotatio
 	@Override
 	public Metadata putMetaData(Metadata data) {
 
+		compiled = null;
 		return metaList.put(data.getKey(), data);
 	}
 
@@ -237,6 +245,7 @@ class AnnotationMetadataImpl extends MetadataImpl implements Metadata, Annotatio
 	@Override
 	public Metadata removeMetadata(Object key) {
 
+		compiled = null;
 		return metaList.remove(key);
 	}
 
@@ -290,6 +299,8 @@ class AnnotationMetadataImpl extends MetadataImpl implements Metadata, Annotatio
 	@Override
 	public Map<Object, Metadata> getMetaList() {
 
+		// the returned map may be modified by the caller
+		compiled = null;
 		return metaList;
 	}
 
@@ -40,6 +40,7 @@ import org.jgentleframework.utils.ReflectUtils;
  * @date Oct 15, 2007
  * @see SetValueOfAnnotation
  * @see InvocationHandler
+ * @see CompiledAnnotation
  */
 class AnnotationProxy implements InvocationHandler, SetValueOfAnnotation {
 	/**
@@ -50,7 +51,9 @@ class AnnotationProxy implements InvocationHandler, SetValueOfAnnotation {
 	 * @param definition
 	 *            the current {@link Definition} holding
 	 *            {@link AnnotationMetadata} of original annotation instance.
-	 * @return returns an proxied annotation
+	 * @return returns an proxied annotation, a {@link CompiledAnnotation} if
+	 *         compiled annotations are enabled and the annotation type can be
+	 *         compiled.
 	 */
 	public static Object createProxy(Object obj, Definition definition) {
 
@@ -58,6 +61,15 @@ class AnnotationProxy implements InvocationHandler, SetValueOfAnnotation {
 			throw new RuntimeException(
 					"Target object of Proxy is not annotation.");
 		}
+		if (CompiledAnnotation.isEnabled()) {
+			Object result = CompiledAnnotationGenerator.create(
+					(Annotation) obj, definition,
+					(AnnotationMetadata) definition.getAnnotationMetadata()
+							.getMetadata(((Annotation) obj).annotationType()));
+			if (result != null) {
+				return result;
+			}
+		}
 		return Proxy.newProxyInstance(obj.getClass().getClassLoader(),
 				new Class[] { ((Annotation) obj).annotationType(),
 						SetValueOfAnnotation.class }, new AnnotationProxy(obj,
@@ -143,8 +155,27 @@ class AnnotationProxy implements InvocationHandler, SetValueOfAnnotation {
 	@Override
 	public Metadata setValueOfAnnotation(String valueName, Object value) {
 
-		Object resource = this.annotationMetadata.getMetadata(valueName)
-				.getValue();
+		return setValueOfAnnotation(this.annotationMetadata, valueName, value);
+	}
+
+	/**
+	 * Sets a new value to an attribute of the given {@link AnnotationMetadata}
+	 * , the new value must be of the same type as the current value.
+	 * 
+	 * @param annotationMetadata
+	 *            the annotation metadata
+	 * @param valueName
+	 *            name of specified attribute of annotation.
+	 * @param value
+	 *            new object value
+	 * @return returns the previous value associated with attribute.
+	 * @see SetValueOfAnnotation#setValueOfAnnotation(String, Object)
+	 */
+	static Metadata setValueOfAnnotation(
+			AnnotationMetadata annotationMetadata, String valueName,
+			Object value) {
+
+		Object resource = annotationMetadata.getMetadata(valueName).getValue();
 		if (resource.getClass().isArray()) {
 			if (!value.getClass().isArray()) {
 				throw new IllegalPropertyException("Setting value is invalid.");
@@ -153,7 +184,7 @@ class AnnotationProxy implements InvocationHandler, SetValueOfAnnotation {
 					value.getClass().getComponentType())) {
 				throw new IllegalPropertyException("Setting value is invalid.");
 			}
-			return this.annotationMetadata.putMetaData(MetaDataFactory
+			return annotationMetadata.putMetaData(MetaDataFactory
 					.createMetaData(valueName, value));
 		}
 		else {
@@ -167,7 +198,7 @@ class AnnotationProxy implements InvocationHandler, SetValueOfAnnotation {
 					throw new IllegalPropertyException(
 							"Setting value is invalid.");
 				}
-				return this.annotationMetadata.putMetaData(MetaDataFactory
+				return annotationMetadata.putMetaData(MetaDataFactory
 						.createMetaData(valueName, value));
 			}
 			else {
@@ -175,7 +206,7 @@ class AnnotationProxy implements InvocationHandler, SetValueOfAnnotation {
 					throw new IllegalPropertyException(
 							"Setting value is invalid.");
 				}
-				return this.annotationMetadata.putMetaData(MetaDataFactory
+				return annotationMetadata.putMetaData(MetaDataFactory
 						.createMetaData(valueName, value));
 			}
 		}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.reflection.metadata;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.aopalliance.reflect.Metadata;
+
+/**
+ * The compiled annotation of {@link Definition definition} data. A subclass is
+ * generated once per annotation type by {@link CompiledAnnotationGenerator},
+ * it implements the annotation type and holds the value of each attribute in a
+ * final field, so that reading an attribute is a plain field access instead of
+ * a {@link java.lang.reflect.Proxy proxy} invocation looking up the
+ * {@link AnnotationMetadata}.
+ * <p>
+ * A compiled annotation is an immutable snapshot of its
+ * {@link AnnotationMetadata}, its hash code is computed when it is created and
+ * its string representation is the one of the original annotation as with
+ * {@link AnnotationProxy}. The snapshot is returned by
+ * {@link Definition#getAnnotation(Class)} until the {@link AnnotationMetadata}
+ * is modified, values set through
+ * {@link #setValueOfAnnotation(String, Object)} are therefore seen by the
+ * annotations returned afterwards, not by the current one.
+ * <p>
+ * Compiled annotations are enabled by default, they can be disabled through
+ * the system property {@value #COMPILED_ANNOTATIONS_PROPERTY}, annotation
+ * types which can not be compiled are still proxied by {@link AnnotationProxy}
+ * .
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see AnnotationProxy
+ */
+public abstract class CompiledAnnotation implements Annotation,
+		SetValueOfAnnotation {
+	/** The system property disabling compiled annotations. */
+	public static final String			COMPILED_ANNOTATIONS_PROPERTY	= "jgentle.compiledAnnotations";
+
+	/** Whether compiled annotations are enabled. */
+	private static final boolean		enabled							= !"false"
+																				.equalsIgnoreCase(System
+																						.getProperty(COMPILED_ANNOTATIONS_PROPERTY));
+
+	/** The annotation type. */
+	final Class<? extends Annotation>	annotationType;
+
+	/** The attributes, in the order of the generated fields. */
+	final Method[]						attributes;
+
+	/** The original annotation, <b>null</b> for the prototype. */
+	final Annotation					original;
+
+	/** The values of attributes, <b>null</b> for the prototype. */
+	private final Object[]				values;
+
+	/** The definition. */
+	private final Definition			definition;
+
+	/** The annotation metadata. */
+	private final AnnotationMetadata	annotationMetadata;
+
+	/** The hash code. */
+	private final int					hashCode;
+
+	/**
+	 * Returns <b>true</b> if compiled annotations are enabled.
+	 */
+	public static boolean isEnabled() {
+
+		return enabled;
+	}
+
+	/**
+	 * Creates the prototype of a generated class.
+	 *
+	 * @param annotationType
+	 *            the annotation type
+	 * @param attributes
+	 *            the attributes, in the order of the generated fields
+	 */
+	protected CompiledAnnotation(Class<? extends Annotation> annotationType,
+			Method[] attributes) {
+
+		this.annotationType = annotationType;
+		this.attributes = attributes;
+		this.original = null;
+		this.values = null;
+		this.definition = null;
+		this.annotationMetadata = null;
+		this.hashCode = 0;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param prototype
+	 *            the prototype of the generated class
+	 * @param original
+	 *            the original annotation
+	 * @param values
+	 *            the values of attributes
+	 * @param definition
+	 *            the definition
+	 * @param annotationMetadata
+	 *            the annotation metadata
+	 */
+	protected CompiledAnnotation(CompiledAnnotation prototype,
+			Annotation original, Object[] values, Definition definition,
+			AnnotationMetadata annotationMetadata) {
+
+		this.annotationType = prototype.annotationType;
+		this.attributes = prototype.attributes;
+		this.original = original;
+		this.values = values;
+		this.definition = definition;
+		this.annotationMetadata = annotationMetadata;
+		int hashCode = 0;
+		for (int i = 0; i < values.length; i++) {
+			hashCode += (127 * this.attributes[i].getName().hashCode())
+					^ memberHashCode(values[i]);
+		}
+		this.hashCode = hashCode;
+	}
+
+	/**
+	 * Creates a new instance of the generated class. Only called on the
+	 * prototype.
+	 *
+	 * @param original
+	 *            the original annotation
+	 * @param values
+	 *            the values of attributes
+	 * @param definition
+	 *            the definition
+	 * @param annotationMetadata
+	 *            the annotation metadata
+	 * @return the compiled annotation
+	 */
+	protected abstract CompiledAnnotation newInstance(Annotation original,
+			Object[] values, Definition definition,
+			AnnotationMetadata annotationMetadata);
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.annotation.Annotation#annotationType()
+	 */
+	@Override
+	public Class<? extends Annotation> annotationType() {
+
+		return this.annotationType;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.core.reflection.metadata.SetValueOfAnnotation#
+	 * getDefinition()
+	 */
+	@Override
+	public Definition getDefinition() {
+
+		return this.definition;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.core.reflection.metadata.SetValueOfAnnotation#
+	 * setValueOfAnnotation(java.lang.String, java.lang.Object)
+	 */
+	@Override
+	public Metadata setValueOfAnnotation(String valueName, Object value) {
+
+		return AnnotationProxy.setValueOfAnnotation(this.annotationMetadata,
+				valueName, value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+
+		return this.hashCode;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+
+		if (obj == this) {
+			return true;
+		}
+		if (!this.annotationType.isInstance(obj)) {
+			return false;
+		}
+		if (obj instanceof CompiledAnnotation) {
+			CompiledAnnotation other = (CompiledAnnotation) obj;
+			if (other.hashCode != this.hashCode) {
+				return false;
+			}
+			for (int i = 0; i < this.values.length; i++) {
+				if (!memberEquals(this.values[i], other.values[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+		for (int i = 0; i < this.values.length; i++) {
+			Object value;
+			try {
+				value = this.attributes[i].invoke(obj);
+			}
+			catch (IllegalAccessException e) {
+				return false;
+			}
+			catch (InvocationTargetException e) {
+				return false;
+			}
+			if (!memberEquals(this.values[i], value)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return this.original.toString();
+	}
+
+	/**
+	 * Returns the hash code of the given attribute value.
+	 */
+	private static int memberHashCode(Object value) {
+
+		Class<?> type = value.getClass();
+		if (!type.isArray()) {
+			return value.hashCode();
+		}
+		else if (type == byte[].class) {
+			return Arrays.hashCode((byte[]) value);
+		}
+		else if (type == char[].class) {
+			return Arrays.hashCode((char[]) value);
+		}
+		else if (type == double[].class) {
+			return Arrays.hashCode((double[]) value);
+		}
+		else if (type == float[].class) {
+			return Arrays.hashCode((float[]) value);
+		}
+		else if (type == int[].class) {
+			return Arrays.hashCode((int[]) value);
+		}
+		else if (type == long[].class) {
+			return Arrays.hashCode((long[]) value);
+		}
+		else if (type == short[].class) {
+			return Arrays.hashCode((short[]) value);
+		}
+		else if (type == boolean[].class) {
+			return Arrays.hashCode((boolean[]) value);
+		}
+		return Arrays.hashCode((Object[]) value);
+	}
+
+	/**
+	 * Returns <b>true</b> if the given attribute values are equal.
+	 */
+	private static boolean memberEquals(Object value, Object other) {
+
+		Class<?> type = value.getClass();
+		if (!type.isArray()) {
+			return value.equals(other);
+		}
+		else if (value instanceof Object[] && other instanceof Object[]) {
+			return Arrays.equals((Object[]) value, (Object[]) other);
+		}
+		else if (other == null || other.getClass() != type) {
+			return false;
+		}
+		else if (type == byte[].class) {
+			return Arrays.equals((byte[]) value, (byte[]) other);
+		}
+		else if (type == char[].class) {
+			return Arrays.equals((char[]) value, (char[]) other);
+		}
+		else if (type == double[].class) {
+			return Arrays.equals((double[]) value, (double[]) other);
+		}
+		else if (type == float[].class) {
+			return Arrays.equals((float[]) value, (float[]) other);
+		}
+		else if (type == int[].class) {
+			return Arrays.equals((int[]) value, (int[]) other);
+		}
+		else if (type == long[].class) {
+			return Arrays.equals((long[]) value, (long[]) other);
+		}
+		else if (type == short[].class) {
+			return Arrays.equals((short[]) value, (short[]) other);
+		}
+		return Arrays.equals((boolean[]) value, (boolean[]) other);
+	}
+}
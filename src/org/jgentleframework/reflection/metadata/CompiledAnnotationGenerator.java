@@ -0,0 +1,497 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.reflection.metadata;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.reflect.Metadata;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates {@link CompiledAnnotation} classes with ASM. The generated class
+ * of an annotation type is defined in the package and the class loader of the
+ * annotation type, or in the package of {@link CompiledAnnotation} for public
+ * annotation types of the bootstrap class loader.
+ * <p>
+ * The prototype of a generated class is held by a static field of the class
+ * itself and is only weakly referenced by the generator. A class loader
+ * defining annotation types can therefore still be unloaded.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ */
+final class CompiledAnnotationGenerator implements Opcodes {
+	/** The log. */
+	private static final Log									log				= LogFactory
+																						.getLog(CompiledAnnotationGenerator.class);
+
+	/** The internal name of {@link CompiledAnnotation}. */
+	private static final String									SUPER_NAME		= Type
+																						.getInternalName(CompiledAnnotation.class);
+
+	/** Marks the annotation types which can not be compiled. */
+	private static final Object									NOT_COMPILED	= new Object();
+
+	/** The static field of a generated class holding its prototype. */
+	private static final String									PROTOTYPE_FIELD	= "prototype";
+
+	/** The prototype of the generated class of each annotation type. */
+	private static final Map<Class<?>, WeakReference<Object>>	prototypes		= Collections
+																						.synchronizedMap(new WeakHashMap<Class<?>, WeakReference<Object>>());
+
+	/** The counter of generated class names. */
+	private static final AtomicInteger							counter			= new AtomicInteger();
+
+	/** The <code>ClassLoader.defineClass</code> method. */
+	private static Method										defineClass		= null;
+	static {
+		try {
+			defineClass = ClassLoader.class.getDeclaredMethod("defineClass",
+					String.class, byte[].class, int.class, int.class,
+					ProtectionDomain.class);
+			defineClass.setAccessible(true);
+		}
+		catch (Exception e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Compiled annotations are not supported !", e);
+			}
+		}
+	}
+
+	/**
+	 * Instantiates a new compiled annotation generator.
+	 */
+	private CompiledAnnotationGenerator() {
+
+	}
+
+	/**
+	 * Returns the compiled annotation of the given annotation, the compiled
+	 * annotation is cached by the given annotation metadata until it is
+	 * modified.
+	 *
+	 * @param annotation
+	 *            the original annotation
+	 * @param definition
+	 *            the {@link Definition} holding the given annotation metadata.
+	 * @param annotationMetadata
+	 *            the {@link AnnotationMetadata} of the given annotation.
+	 * @return the compiled annotation, or <b>null</b> if the annotation type
+	 *         can not be compiled or if its metadata does not match its
+	 *         attributes.
+	 */
+	static CompiledAnnotation create(Annotation annotation,
+			Definition definition, AnnotationMetadata annotationMetadata) {
+
+		if (annotationMetadata == null) {
+			return null;
+		}
+		AnnotationMetadataImpl cache = annotationMetadata instanceof AnnotationMetadataImpl ? (AnnotationMetadataImpl) annotationMetadata
+				: null;
+		CompiledAnnotation result = cache != null ? cache.compiled : null;
+		if (result != null && result.original == annotation
+				&& result.getDefinition() == definition) {
+			return result;
+		}
+		Object prototype = prototypeOf(annotation.annotationType());
+		if (prototype == NOT_COMPILED) {
+			return null;
+		}
+		CompiledAnnotation compiled = (CompiledAnnotation) prototype;
+		Method[] attributes = compiled.attributes;
+		Object[] values = new Object[attributes.length];
+		for (int i = 0; i < attributes.length; i++) {
+			Metadata data = annotationMetadata.getMetadata(attributes[i]
+					.getName());
+			Object value = data != null ? data.getValue() : null;
+			if (!isAssignable(attributes[i].getReturnType(), value)) {
+				return null;
+			}
+			// the snapshot does not share arrays with the metadata.
+			values[i] = copyOf(value);
+		}
+		result = compiled.newInstance(annotation, values, definition,
+				annotationMetadata);
+		if (cache != null) {
+			cache.compiled = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the prototype of the generated class of the given annotation
+	 * type, the class is generated on first call.
+	 *
+	 * @param annotationType
+	 *            the annotation type
+	 * @return the prototype, or {@link #NOT_COMPILED} if the annotation type
+	 *         can not be compiled.
+	 */
+	private static Object prototypeOf(
+			Class<? extends Annotation> annotationType) {
+
+		WeakReference<Object> ref = prototypes.get(annotationType);
+		Object result = ref != null ? ref.get() : null;
+		if (result == null) {
+			result = generate(annotationType);
+			prototypes.put(annotationType, new WeakReference<Object>(result));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a copy of the given attribute value if it is an array, or else
+	 * the value itself.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the copy, or the value itself if it is not an array.
+	 */
+	private static Object copyOf(Object value) {
+
+		if (!value.getClass().isArray()) {
+			return value;
+		}
+		int length = Array.getLength(value);
+		Object result = Array.newInstance(value.getClass().getComponentType(),
+				length);
+		System.arraycopy(value, 0, result, 0, length);
+		return result;
+	}
+
+	/**
+	 * Generates the class of the given annotation type and returns its
+	 * prototype.
+	 *
+	 * @param annotationType
+	 *            the annotation type
+	 * @return the prototype, or {@link #NOT_COMPILED} if the annotation type
+	 *         can not be compiled.
+	 */
+	private static Object generate(Class<? extends Annotation> annotationType) {
+
+		Class<?> host = hostOf(annotationType);
+		if (defineClass == null || host == null) {
+			return NOT_COMPILED;
+		}
+		Method[] attributes = annotationType.getDeclaredMethods();
+		for (Method attribute : attributes) {
+			if (!isAccessible(attribute.getReturnType(), host)) {
+				return NOT_COMPILED;
+			}
+		}
+		String className = (host == annotationType ? annotationType.getName()
+				: CompiledAnnotation.class.getPackage().getName() + "."
+						+ annotationType.getSimpleName())
+				+ "$$AnnotationByJGentle$$"
+				+ Integer.toHexString(counter.incrementAndGet());
+		try {
+			for (Method attribute : attributes) {
+				attribute.setAccessible(true);
+			}
+			byte[] bytes = generateClass(className.replace('.', '/'),
+					annotationType, attributes);
+			Class<?> clazz = (Class<?>) defineClass.invoke(host
+					.getClassLoader(), className, bytes, 0, bytes.length, host
+					.getProtectionDomain());
+			Object prototype = clazz.getConstructor(Class.class,
+					Method[].class).newInstance(annotationType, attributes);
+			// the class loader of the class keeps the prototype reachable.
+			clazz.getField(PROTOTYPE_FIELD).set(null, prototype);
+			return prototype;
+		}
+		catch (Throwable e) {
+			if (log.isWarnEnabled()) {
+				log.warn("Could not compile annotation [" + annotationType
+						+ "]", e);
+			}
+			return NOT_COMPILED;
+		}
+	}
+
+	/**
+	 * Generates the class bytes.
+	 *
+	 * @param internalName
+	 *            the internal name
+	 * @param annotationType
+	 *            the annotation type
+	 * @param attributes
+	 *            the attributes
+	 * @return the class bytes
+	 */
+	private static byte[] generateClass(String internalName,
+			Class<? extends Annotation> annotationType, Method[] attributes) {
+
+		String metadataDesc = Type.getDescriptor(AnnotationMetadata.class);
+		String definitionDesc = Type.getDescriptor(Definition.class);
+		String superDesc = Type.getDescriptor(CompiledAnnotation.class);
+		String annotationDesc = Type.getDescriptor(Annotation.class);
+		String instanceDesc = "(" + superDesc + annotationDesc
+				+ "[Ljava/lang/Object;" + definitionDesc + metadataDesc + ")V";
+		ClassWriter cw = new ClassWriter(true);
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC,
+				internalName, null, SUPER_NAME, new String[] { Type
+						.getInternalName(annotationType) });
+		cw.visitField(ACC_PUBLIC | ACC_STATIC | ACC_SYNTHETIC, PROTOTYPE_FIELD,
+				"Ljava/lang/Object;", null, null).visitEnd();
+		for (int i = 0; i < attributes.length; i++) {
+			cw.visitField(ACC_PRIVATE | ACC_FINAL, "a" + i,
+					Type.getDescriptor(attributes[i].getReturnType()), null,
+					null).visitEnd();
+		}
+		// prototype constructor
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>",
+				"(Ljava/lang/Class;[Ljava/lang/reflect/Method;)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>",
+				"(Ljava/lang/Class;[Ljava/lang/reflect/Method;)V");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// instance constructor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", instanceDesc, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitVarInsn(ALOAD, 3);
+		mv.visitVarInsn(ALOAD, 4);
+		mv.visitVarInsn(ALOAD, 5);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", instanceDesc);
+		for (int i = 0; i < attributes.length; i++) {
+			Class<?> type = attributes[i].getReturnType();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 3);
+			mv.visitLdcInsn(Integer.valueOf(i));
+			mv.visitInsn(AALOAD);
+			unbox(mv, type);
+			mv.visitFieldInsn(PUTFIELD, internalName, "a" + i, Type
+					.getDescriptor(type));
+		}
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// newInstance(Annotation, Object[], Definition, AnnotationMetadata)
+		mv = cw.visitMethod(ACC_PROTECTED, "newInstance", "(" + annotationDesc
+				+ "[Ljava/lang/Object;" + definitionDesc + metadataDesc + ")"
+				+ superDesc, null, null);
+		mv.visitCode();
+		mv.visitTypeInsn(NEW, internalName);
+		mv.visitInsn(DUP);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitVarInsn(ALOAD, 3);
+		mv.visitVarInsn(ALOAD, 4);
+		mv.visitMethodInsn(INVOKESPECIAL, internalName, "<init>", instanceDesc);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		// attributes, arrays are cloned as the JDK does.
+		for (int i = 0; i < attributes.length; i++) {
+			Type type = Type.getReturnType(attributes[i]);
+			mv = cw.visitMethod(ACC_PUBLIC | ACC_FINAL, attributes[i]
+					.getName(), Type.getMethodDescriptor(attributes[i]), null,
+					null);
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, internalName, "a" + i, type
+					.getDescriptor());
+			if (type.getSort() == Type.ARRAY) {
+				mv.visitMethodInsn(INVOKEVIRTUAL, type.getDescriptor(),
+						"clone", "()Ljava/lang/Object;");
+				mv.visitTypeInsn(CHECKCAST, type.getDescriptor());
+			}
+			mv.visitInsn(type.getOpcode(IRETURN));
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Casts or unboxes the object on top of the stack to the given type.
+	 *
+	 * @param mv
+	 *            the method visitor
+	 * @param type
+	 *            the target type
+	 */
+	private static void unbox(MethodVisitor mv, Class<?> type) {
+
+		if (type.isPrimitive()) {
+			String wrapper = Type.getInternalName(wrapperOf(type));
+			mv.visitTypeInsn(CHECKCAST, wrapper);
+			mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getName()
+					+ "Value", "()" + Type.getDescriptor(type));
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	/**
+	 * Returns the wrapper class of the given primitive type.
+	 *
+	 * @param type
+	 *            the primitive type
+	 */
+	private static Class<?> wrapperOf(Class<?> type) {
+
+		if (type == int.class)
+			return Integer.class;
+		else if (type == long.class)
+			return Long.class;
+		else if (type == boolean.class)
+			return Boolean.class;
+		else if (type == double.class)
+			return Double.class;
+		else if (type == float.class)
+			return Float.class;
+		else if (type == char.class)
+			return Character.class;
+		else if (type == byte.class)
+			return Byte.class;
+		else
+			return Short.class;
+	}
+
+	/**
+	 * Returns <b>true</b> if the given value can be returned by an attribute
+	 * of the given type.
+	 *
+	 * @param type
+	 *            the attribute type
+	 * @param value
+	 *            the value
+	 */
+	private static boolean isAssignable(Class<?> type, Object value) {
+
+		if (value == null) {
+			return false;
+		}
+		return type.isPrimitive() ? wrapperOf(type) == value.getClass() : type
+				.isInstance(value);
+	}
+
+	/**
+	 * Returns the class the generated class of the given annotation type
+	 * shares its package and class loader with.
+	 *
+	 * @param annotationType
+	 *            the annotation type
+	 * @return the host class, or <b>null</b> if the generated class can not be
+	 *         defined.
+	 */
+	private static Class<?> hostOf(Class<? extends Annotation> annotationType) {
+
+		if (annotationType.getClassLoader() != null
+				&& isVisible(CompiledAnnotation.class, annotationType)) {
+			return annotationType;
+		}
+		else if (Modifier.isPublic(annotationType.getModifiers())
+				&& isVisible(annotationType, CompiledAnnotation.class)) {
+			return CompiledAnnotation.class;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns <b>true</b> if the given type can be referenced from a class
+	 * generated in the package of the given host class.
+	 *
+	 * @param type
+	 *            the type
+	 * @param host
+	 *            the host class
+	 */
+	private static boolean isAccessible(Class<?> type, Class<?> host) {
+
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive()) {
+			return true;
+		}
+		if (!isVisible(type, host) || Modifier.isPrivate(type.getModifiers())) {
+			return false;
+		}
+		return Modifier.isPublic(type.getModifiers())
+				|| isSamePackage(type, host);
+	}
+
+	/**
+	 * Returns <b>true</b> if the given type resolves to itself from the class
+	 * loader of the given host class.
+	 *
+	 * @param type
+	 *            the type
+	 * @param host
+	 *            the host class
+	 */
+	private static boolean isVisible(Class<?> type, Class<?> host) {
+
+		try {
+			return Class.forName(type.getName(), false, host.getClassLoader()) == type;
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns <b>true</b> if both classes belong to the same runtime package.
+	 *
+	 * @param type
+	 *            the type
+	 * @param host
+	 *            the host class
+	 */
+	private static boolean isSamePackage(Class<?> type, Class<?> host) {
+
+		if (type.getClassLoader() != host.getClassLoader()) {
+			return false;
+		}
+		String name = type.getName();
+		String hostName = host.getName();
+		int index = name.lastIndexOf('.');
+		int hostIndex = hostName.lastIndexOf('.');
+		return index == hostIndex
+				&& name.regionMatches(0, hostName, 0, Math.max(index, 0));
+	}
+}
@@ -92,6 +92,8 @@ public interface Definition extends DefinitionCore, Metadata, AnnotatedElement,
 	 * interpreted of {@link Method} or {@link Field} or {@link Constructor},
 	 * and is <i>not</i> interpreted of object class), the returned value is
 	 * <b>null</b>.
+	 * <p>
+	 * The returned list is shared and unmodifiable.
 	 * 
 	 * @return Returns a {@link List list} containing {@link Method} objects if
 	 *         they exist, otherwise returns <b>null</b>.
@@ -107,6 +109,8 @@ public interface Definition extends DefinitionCore, Metadata, AnnotatedElement,
 	 * interpreted of {@link Method} or {@link Field} or {@link Constructor},
 	 * and is <i>not</i> interpreted of object class), the returned value is
 	 * <b>null</b>.
+	 * <p>
+	 * The returned list is shared and unmodifiable.
 	 * 
 	 * @return Returns a {@link List list} containing all {@link Constructor}
 	 *         objects if they exist, otherwise returns <b>null</b>.
@@ -136,6 +140,8 @@ public interface Definition extends DefinitionCore, Metadata, AnnotatedElement,
 	 * class. This means that if returned value of
 	 * {@link DefinitionCore#isInterpretedOfClass()} method is <b>false</b>,
 	 * returned value of this method will also be <b>null</b>.
+	 * <p>
+	 * The returned list is shared and unmodifiable.
 	 * 
 	 * @param annotationClass
 	 *            the object class of given annotation.
@@ -173,6 +179,8 @@ public interface Definition extends DefinitionCore, Metadata, AnnotatedElement,
 	 * class. This means that if returned value of
 	 * {@link DefinitionCore#isInterpretedOfClass()} method is <b>false</b>,
 	 * returned value of this method will also be <b>null</b>.
+	 * <p>
+	 * The returned list is shared and unmodifiable.
 	 * 
 	 * @param annotationClass
 	 *            the object class of given annotation.
@@ -303,6 +311,8 @@ public interface Definition extends DefinitionCore, Metadata, AnnotatedElement,
 	 * class. This means that if returned value of
 	 * {@link DefinitionCore#isInterpretedOfClass()} method is <b>false</b>,
 	 * returned value of this method will also be <b>null</b>.
+	 * <p>
+	 * The returned list is shared and unmodifiable.
 	 * 
 	 * @param annotationClass
 	 *            the object class of given annotation.
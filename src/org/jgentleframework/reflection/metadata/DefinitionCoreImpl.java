@@ -60,19 +60,22 @@ abstract class DefinitionCoreImpl extends MetadataController implements
 	 * containing {@link Definition} of {@link Constructor} objects in case this
 	 * {@link Definition} is interpreted of object class.
 	 */
-	Map<Constructor<?>, Definition>	constructorDefList	= new HashMap<Constructor<?>, Definition>();
+	Map<Constructor<?>, Definition>	constructorDefList	= new MemberDefinitionMap<Constructor<?>>();
 
 	/**
 	 * containing {@link Definition} of {@link Field} objects in case this
 	 * {@link Definition} is interpreted of object class.
 	 */
-	Map<Field, Definition>			fieldDefList		= new HashMap<Field, Definition>();
+	Map<Field, Definition>			fieldDefList		= new MemberDefinitionMap<Field>();
 
 	/**
 	 * containing {@link Definition} of {@link Method} objects in case this
 	 * {@link Definition} is interpreted of object class.
 	 */
-	Map<Method, Definition>			methodDefList		= new HashMap<Method, Definition>();
+	Map<Method, Definition>			methodDefList		= new MemberDefinitionMap<Method>();
+
+	/** The modification count of member definitions. */
+	transient volatile int			memberModCount		= 0;
 
 	/**
 	 * The array containing all original annotations of this {@link Definition}
@@ -396,4 +399,58 @@ abstract class DefinitionCoreImpl extends MetadataController implements
 			return false;
 		return true;
 	}
+
+	/**
+	 * The map of member definitions, its modifications are counted by
+	 * {@link DefinitionCoreImpl#memberModCount}. Modifications made through
+	 * the views of the map are not counted.
+	 */
+	class MemberDefinitionMap<K> extends HashMap<K, Definition> {
+		/** The Constant serialVersionUID. */
+		private static final long	serialVersionUID	= 2931530914386342637L;
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.HashMap#put(java.lang.Object, java.lang.Object)
+		 */
+		@Override
+		public Definition put(K key, Definition value) {
+
+			memberModCount++;
+			return super.put(key, value);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.HashMap#putAll(java.util.Map)
+		 */
+		@Override
+		public void putAll(Map<? extends K, ? extends Definition> m) {
+
+			memberModCount++;
+			super.putAll(m);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.HashMap#remove(java.lang.Object)
+		 */
+		@Override
+		public Definition remove(Object key) {
+
+			memberModCount++;
+			return super.remove(key);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.HashMap#clear()
+		 */
+		@Override
+		public void clear() {
+
+			memberModCount++;
+			super.clear();
+		}
+	}
 }
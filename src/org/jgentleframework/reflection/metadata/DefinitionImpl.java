@@ -56,6 +56,9 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	/** The visitor. */
 	transient IAnnotationVisitor	visitor				= null;
 
+	/** The index of annotated members, rebuilt when they are modified. */
+	transient volatile MemberIndex	memberIndex			= null;
+
 	/**
 	 * Instantiates a new definition impl.
 	 * 
@@ -88,6 +91,21 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 		this.visitor = visitor;
 	}
 
+	/**
+	 * Returns the index of annotated members, built once and rebuilt only if
+	 * member definitions were modified since.
+	 */
+	MemberIndex memberIndex() {
+
+		MemberIndex result = this.memberIndex;
+		int modCount = this.memberModCount;
+		if (result == null || result.modCount != modCount) {
+			result = new MemberIndex(this, modCount);
+			this.memberIndex = result;
+		}
+		return result;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -151,18 +169,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	@Override
 	public List<Constructor<?>> getAllConstructorsAnnotatedParameter() {
 
-		List<Constructor<?>> result = null;
-		if (isInterpretedOfClass()) {
-			result = new ArrayList<Constructor<?>>();
-			for (Entry<Constructor<?>, Definition> entry : this
-					.getConstructorDefList().entrySet()) {
-				Definition def = entry.getValue();
-				if (def.isAnnotationPresentOnAnyParameters()) {
-					result.add(entry.getKey());
-				}
-			}
-		}
-		return result;
+		return isInterpretedOfClass() ? memberIndex().constructorsAnnotatedParameter
+				: null;
 	}
 
 	/*
@@ -173,18 +181,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	@Override
 	public List<Method> getAllMethodsAnnotatedParameter() {
 
-		ArrayList<Method> result = null;
-		if (isInterpretedOfClass()) {
-			result = new ArrayList<Method>();
-			for (Entry<Method, Definition> entry : this.getMethodDefList()
-					.entrySet()) {
-				Definition def = entry.getValue();
-				if (def.isAnnotationPresentOnAnyParameters()) {
-					result.add(entry.getKey());
-				}
-			}
-		}
-		return result;
+		return isInterpretedOfClass() ? memberIndex().methodsAnnotatedParameter
+				: null;
 	}
 
 	/*
@@ -247,18 +245,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	public List<Constructor<?>> getConstructorsAnnotatedWith(
 			Class<? extends Annotation> annotationClass) {
 
-		List<Constructor<?>> result = null;
-		if (isInterpretedOfClass()) {
-			for (Entry<Constructor<?>, Definition> entry : getConstructorDefList()
-					.entrySet()) {
-				if (entry.getValue().isAnnotationPresent(annotationClass)) {
-					if (result == null)
-						result = new ArrayList<Constructor<?>>();
-					result.add(entry.getKey());
-				}
-			}
-		}
-		return result;
+		return isInterpretedOfClass() ? memberIndex().getConstructors(
+				annotationClass) : null;
 	}
 
 	/*
@@ -304,17 +292,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	public List<Field> getFieldsAnnotatedWith(
 			Class<? extends Annotation> annotationClass) {
 
-		List<Field> result = null;
-		if (isInterpretedOfClass()) {
-			for (Entry<Field, Definition> entry : getFieldDefList().entrySet()) {
-				if (entry.getValue().isAnnotationPresent(annotationClass)) {
-					if (result == null)
-						result = new ArrayList<Field>();
-					result.add(entry.getKey());
-				}
-			}
-		}
-		return result;
+		return isInterpretedOfClass() ? memberIndex().getFields(
+				annotationClass) : null;
 	}
 
 	/*
@@ -507,18 +486,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	public List<Method> getMethodsAnnotatedWith(
 			Class<? extends Annotation> annotationClass) {
 
-		ArrayList<Method> result = null;
-		if (isInterpretedOfClass()) {
-			for (Entry<Method, Definition> entry : getMethodDefList()
-					.entrySet()) {
-				if (entry.getValue().isAnnotationPresent(annotationClass)) {
-					if (result == null)
-						result = new ArrayList<Method>();
-					result.add(entry.getKey());
-				}
-			}
-		}
-		return result;
+		return isInterpretedOfClass() ? memberIndex().getMethods(
+				annotationClass) : null;
 	}
 
 	/*
@@ -658,14 +627,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	public boolean isAnnotationPresentOnAnyConstructors(
 			Class<? extends Annotation> annotationClass) {
 
-		if (isInterpretedOfClass()) {
-			for (Definition def : getConstructorDefList().values()) {
-				if (def.isAnnotationPresent(annotationClass)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return isInterpretedOfClass()
+				&& memberIndex().getConstructors(annotationClass) != null;
 	}
 
 	/*
@@ -693,17 +656,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	public boolean isAnnotationPresentOnAnyFields(
 			Class<? extends Annotation> annotationClass) {
 
-		if (isInterpretedOfClass()) {
-			for (Definition def : getFieldDefList().values()) {
-				if (def.isAnnotationPresent(annotationClass)) {
-					return true;
-				}
-			}
-		}
-		else {
-			return false;
-		}
-		return false;
+		return isInterpretedOfClass()
+				&& memberIndex().getFields(annotationClass) != null;
 	}
 
 	/*
@@ -731,14 +685,8 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 	public boolean isAnnotationPresentOnAnyMethods(
 			Class<? extends Annotation> annotationClass) {
 
-		if (isInterpretedOfClass()) {
-			for (Definition def : getMethodDefList().values()) {
-				if (def.isAnnotationPresent(annotationClass)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return isInterpretedOfClass()
+				&& memberIndex().getMethods(annotationClass) != null;
 	}
 
 	/*
@@ -798,7 +746,7 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 				}
 				else {
 					for (Definition def : this.parameterDefList) {
-						if (def.isAnnotationPresent(annotationClass)) {
+						if (def != null && def.isAnnotationPresent(annotationClass)) {
 							return true;
 						}
 					}
@@ -807,23 +755,7 @@ class DefinitionImpl extends DefinitionCoreImpl implements Metadata, Definition
 			}
 		}
 		else if (isInterpretedOfClass()) {
-			for (Entry<Method, Definition> entry : this.getMethodDefList()
-					.entrySet()) {
-				Definition def = entry.getValue();
-				if (def.isAnnotationPresentOnAnyParameters(annotationClass)) {
-					return true;
-				}
-			}
-			for (Entry<Constructor<?>, Definition> entry : this
-					.getConstructorDefList().entrySet()) {
-				Definition def = entry.getValue();
-				if (def.isAnnotationPresentOnAnyParameters(annotationClass)) {
-					return true;
-				}
-			}
-		}
-		else {
-			return false;
+			return memberIndex().isParameterAnnotated(annotationClass);
 		}
 		return false;
 	}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.reflection.metadata;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+
+/**
+ * The index of the annotated members of a {@link Definition} interpreted of an
+ * object class, from annotation type to members. The index is immutable, it is
+ * built from the member definitions of the {@link Definition} and is replaced
+ * whenever they are modified, its lists are shared and unmodifiable.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see DefinitionImpl
+ */
+final class MemberIndex {
+	/** The modification count of member definitions the index was built at. */
+	final int													modCount;
+
+	/** The annotated fields, by annotation type. */
+	private final Map<Class<?>, List<Field>>					fields;
+
+	/** The annotated methods, by annotation type. */
+	private final Map<Class<?>, List<Method>>					methods;
+
+	/** The annotated constructors, by annotation type. */
+	private final Map<Class<?>, List<Constructor<?>>>			constructors;
+
+	/** The annotation types present on any parameter. */
+	private final Set<Class<?>>									parameterAnnotationTypes;
+
+	/** The methods having annotated parameters. */
+	final List<Method>											methodsAnnotatedParameter;
+
+	/** The constructors having annotated parameters. */
+	final List<Constructor<?>>									constructorsAnnotatedParameter;
+
+	/**
+	 * Builds the index of the given definition.
+	 *
+	 * @param definition
+	 *            the definition, interpreted of an object class.
+	 * @param modCount
+	 *            the current modification count of its member definitions
+	 */
+	MemberIndex(DefinitionCoreImpl definition, int modCount) {
+
+		this.modCount = modCount;
+		this.fields = index(definition.fieldDefList);
+		this.methods = index(definition.methodDefList);
+		this.constructors = index(definition.constructorDefList);
+		this.parameterAnnotationTypes = new HashSet<Class<?>>();
+		this.methodsAnnotatedParameter = annotatedParameter(
+				definition.methodDefList, this.parameterAnnotationTypes);
+		this.constructorsAnnotatedParameter = annotatedParameter(
+				definition.constructorDefList, this.parameterAnnotationTypes);
+	}
+
+	/**
+	 * Returns the fields annotated with the given annotation type, or
+	 * <b>null</b> if none.
+	 */
+	List<Field> getFields(Class<? extends Annotation> annotationClass) {
+
+		return this.fields.get(annotationClass);
+	}
+
+	/**
+	 * Returns the methods annotated with the given annotation type, or
+	 * <b>null</b> if none.
+	 */
+	List<Method> getMethods(Class<? extends Annotation> annotationClass) {
+
+		return this.methods.get(annotationClass);
+	}
+
+	/**
+	 * Returns the constructors annotated with the given annotation type, or
+	 * <b>null</b> if none.
+	 */
+	List<Constructor<?>> getConstructors(
+			Class<? extends Annotation> annotationClass) {
+
+		return this.constructors.get(annotationClass);
+	}
+
+	/**
+	 * Returns <b>true</b> if a parameter of any method or constructor is
+	 * annotated with the given annotation type.
+	 */
+	boolean isParameterAnnotated(Class<? extends Annotation> annotationClass) {
+
+		return this.parameterAnnotationTypes.contains(annotationClass);
+	}
+
+	/**
+	 * Indexes the given member definitions by annotation type.
+	 */
+	private static <M> Map<Class<?>, List<M>> index(
+			Map<M, Definition> memberDefinitions) {
+
+		Map<Class<?>, List<M>> result = new HashMap<Class<?>, List<M>>();
+		for (Entry<M, Definition> entry : memberDefinitions.entrySet()) {
+			for (Annotation annotation : entry.getValue()
+					.getOriginalAnnotations()) {
+				List<M> members = result.get(annotation.annotationType());
+				if (members == null) {
+					members = new ArrayList<M>();
+					result.put(annotation.annotationType(), members);
+				}
+				if (members.isEmpty()
+						|| members.get(members.size() - 1) != entry.getKey()) {
+					members.add(entry.getKey());
+				}
+			}
+		}
+		for (Entry<Class<?>, List<M>> entry : result.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the members of the given definitions having parameters, and
+	 * collects the annotation types of their parameters.
+	 */
+	private static <M> List<M> annotatedParameter(
+			Map<M, Definition> memberDefinitions,
+			Set<Class<?>> parameterAnnotationTypes) {
+
+		List<M> result = new ArrayList<M>();
+		for (Entry<M, Definition> entry : memberDefinitions.entrySet()) {
+			Definition def = entry.getValue();
+			if (def.isAnnotationPresentOnAnyParameters()) {
+				result.add(entry.getKey());
+				Definition[] parameterDefs = def instanceof DefinitionCoreImpl ? ((DefinitionCoreImpl) def).parameterDefList
+						: def.getParameterDefList();
+				for (int i = 0; parameterDefs != null
+						&& i < parameterDefs.length; i++) {
+					Definition parameterDef = parameterDefs[i];
+					if (parameterDef != null) {
+						for (Annotation annotation : parameterDef
+								.getOriginalAnnotations()) {
+							parameterAnnotationTypes.add(annotation
+									.annotationType());
+						}
+					}
+				}
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+}
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 
+import org.jgentleframework.core.intercept.MethodInvoker;
 import org.jgentleframework.services.eventservices.annotation.Subscriber;
 import org.jgentleframework.services.eventservices.context.EventServiceContext;
 import org.jgentleframework.services.eventservices.objectmeta.ISubscriber;
@@ -170,14 +171,14 @@ public class EventClassImpl extends Observable implements EventClass {
 		else {
 			List<String> authenticationCodes = Arrays.asList(anno
 					.authenticationCode());
-			method.setAccessible(true);
+			MethodInvoker invoker = MethodInvoker.getInvoker(method);
 			if (authenticationCodes.size() == 1
 					&& authenticationCodes.get(0).isEmpty()) {
-				method.invoke(source, args);
+				invoker.invoke(source, args);
 			}
 			else {
 				if (authenticationCodes.contains(authenticationCode)) {
-					method.invoke(source, args);
+					invoker.invoke(source, args);
 				}
 			}
 		}
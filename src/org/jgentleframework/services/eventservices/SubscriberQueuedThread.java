@@ -18,11 +18,11 @@
 package org.jgentleframework.services.eventservices;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.jgentleframework.core.intercept.MethodInvoker;
 import org.jgentleframework.services.eventservices.annotation.Subscriber;
 import org.jgentleframework.services.eventservices.objectmeta.ISubscriber;
 
@@ -61,7 +61,8 @@ public class SubscriberQueuedThread implements Runnable {
 			}
 			else {
 				SubscriberMessages data = queue.poll();
-				Method method = subscriber.getSubscriberMethod();
+				MethodInvoker invoker = MethodInvoker.getInvoker(subscriber
+						.getSubscriberMethod());
 				Object source = subscriber.getSource();
 				Subscriber anno = subscriber.getDefinition().getAnnotation(
 						Subscriber.class);
@@ -70,8 +71,7 @@ public class SubscriberQueuedThread implements Runnable {
 				if (authenticationCodes.size() == 1
 						&& authenticationCodes.get(0).isEmpty()) {
 					try {
-						method.setAccessible(true);
-						method.invoke(source, data.getArgs());
+						invoker.invoke(source, data.getArgs());
 					}
 					catch (IllegalArgumentException e) {
 					}
@@ -85,8 +85,7 @@ public class SubscriberQueuedThread implements Runnable {
 						if (authenticationCodes.contains(data
 								.getAuthenticationCode())) {
 							try {
-								method.setAccessible(true);
-								method.invoke(source, data.getArgs());
+								invoker.invoke(source, data.getArgs());
 							}
 							catch (IllegalArgumentException e) {
 							}
@@ -23,9 +23,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.TooManyListenersException;
 
-import net.sf.cglib.reflect.FastClass;
-import net.sf.cglib.reflect.FastMethod;
-
 import org.jgentleframework.context.beans.Disposable;
 import org.jgentleframework.context.beans.ProviderAware;
 import org.jgentleframework.context.beans.annotation.DisposableMethod;
@@ -33,6 +30,7 @@ import org.jgentleframework.context.injecting.Provider;
 import org.jgentleframework.context.support.CoreInstantiationSelector;
 import org.jgentleframework.context.support.CoreInstantiationSelectorImpl;
 import org.jgentleframework.core.factory.BeanCreationProcessor;
+import org.jgentleframework.core.intercept.MethodInvoker;
 import org.jgentleframework.services.objectpooling.annotation.ActivateMethod;
 import org.jgentleframework.services.objectpooling.annotation.CanBePooledMethod;
 import org.jgentleframework.services.objectpooling.annotation.DeactivateMethod;
@@ -58,25 +56,25 @@ import org.jgentleframework.utils.data.TimestampObjectBean;
 public abstract class AbstractBaseController extends AbstractBasePooling
 		implements ProviderAware {
 	/** The can be pooled method lst. */
-	protected List<FastMethod>	canBePooledMethodLst	= null;
+	protected List<MethodInvoker>	canBePooledMethodLst	= null;
 
 	/** The deactivate method lst. */
-	protected List<FastMethod>	deactivateMethodLst		= null;
+	protected List<MethodInvoker>	deactivateMethodLst		= null;
 
 	/** The disposable method lst. */
-	protected List<FastMethod>	disposableMethodLst		= null;
+	protected List<MethodInvoker>	disposableMethodLst		= null;
 
 	/** The init method lst. */
-	protected List<FastMethod>	activateMethodLst		= null;
+	protected List<MethodInvoker>	activateMethodLst		= null;
 
 	/** The num active. */
-	protected int				numActive				= 0;
+	protected volatile int			numActive				= 0;
 
 	/** The current {@link Provider}. */
-	protected Provider			provider				= null;
+	protected Provider				provider				= null;
 
 	/** The validate method lst. */
-	protected List<FastMethod>	validateMethodLst		= null;
+	protected List<MethodInvoker>	validateMethodLst		= null;
 
 	/*
 	 * (non-Javadoc)
@@ -101,11 +99,10 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 								new UnsupportedOperationException());
 					}
 				}
-				FastClass fclass = FastClass.create(method.getDeclaringClass());
-				FastMethod fmethod = fclass.getMethod(method);
+				MethodInvoker invoker = MethodInvoker.getInvoker(method);
 				if (this.activateMethodLst == null)
-					this.activateMethodLst = new ArrayList<FastMethod>();
-				this.activateMethodLst.add(fmethod);
+					this.activateMethodLst = new ArrayList<MethodInvoker>();
+				this.activateMethodLst.add(invoker);
 			}
 		}
 		// Find canBePooled methods
@@ -129,11 +126,10 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 								new UnsupportedOperationException());
 					}
 				}
-				FastClass fclass = FastClass.create(method.getDeclaringClass());
-				FastMethod fmethod = fclass.getMethod(method);
+				MethodInvoker invoker = MethodInvoker.getInvoker(method);
 				if (this.canBePooledMethodLst == null)
-					this.canBePooledMethodLst = new ArrayList<FastMethod>();
-				this.canBePooledMethodLst.add(fmethod);
+					this.canBePooledMethodLst = new ArrayList<MethodInvoker>();
+				this.canBePooledMethodLst.add(invoker);
 			}
 		}
 		// Find deactivate methods
@@ -149,11 +145,10 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 								new UnsupportedOperationException());
 					}
 				}
-				FastClass fclass = FastClass.create(method.getDeclaringClass());
-				FastMethod fmethod = fclass.getMethod(method);
+				MethodInvoker invoker = MethodInvoker.getInvoker(method);
 				if (this.deactivateMethodLst == null)
-					this.deactivateMethodLst = new ArrayList<FastMethod>();
-				this.deactivateMethodLst.add(fmethod);
+					this.deactivateMethodLst = new ArrayList<MethodInvoker>();
+				this.deactivateMethodLst.add(invoker);
 			}
 		}
 		// Find disposable methods
@@ -169,11 +164,10 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 								new UnsupportedOperationException());
 					}
 				}
-				FastClass fclass = FastClass.create(method.getDeclaringClass());
-				FastMethod fmethod = fclass.getMethod(method);
+				MethodInvoker invoker = MethodInvoker.getInvoker(method);
 				if (this.disposableMethodLst == null)
-					this.disposableMethodLst = new ArrayList<FastMethod>();
-				this.disposableMethodLst.add(fmethod);
+					this.disposableMethodLst = new ArrayList<MethodInvoker>();
+				this.disposableMethodLst.add(invoker);
 			}
 		}
 		// Find validate methods
@@ -197,11 +191,10 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 								new UnsupportedOperationException());
 					}
 				}
-				FastClass fclass = FastClass.create(method.getDeclaringClass());
-				FastMethod fmethod = fclass.getMethod(method);
+				MethodInvoker invoker = MethodInvoker.getInvoker(method);
 				if (this.validateMethodLst == null)
-					this.validateMethodLst = new ArrayList<FastMethod>();
-				this.validateMethodLst.add(fmethod);
+					this.validateMethodLst = new ArrayList<MethodInvoker>();
+				this.validateMethodLst.add(invoker);
 			}
 		}
 	}
@@ -221,8 +214,8 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 				if (ReflectUtils.isCast(Activate.class, obj))
 					((Activate) obj).activate();
 				else if (this.activateMethodLst != null) {
-					for (FastMethod method : activateMethodLst) {
-						method.invoke(obj, null);
+					for (MethodInvoker method : activateMethodLst) {
+						method.invoke(obj);
 					}
 				}
 			}
@@ -242,24 +235,41 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 
 		synchronized (obj) {
 			try {
-				if (obj != null) {
-					if (this.isCanBePooled()
-							&& ReflectUtils.isCast(CanBePooled.class, obj)) {
-						return ((CanBePooled) obj).canBePooled();
-					}
-					else if (this.canBePooledMethodLst != null) {
-						for (FastMethod method : canBePooledMethodLst) {
-							return (Boolean) method.invoke(obj, null);
-						}
-					}
-				}
+				return invokesCanBePooled(obj);
 			}
 			catch (Exception e) {
 				// object cannot be activated or is invalid
 				destroyObject(obj);
-				synchronized (this) {
-					this.numActive--;
-					notifyAll();
+				decrementsNumActive();
+			}
+			// return default value of CanBePooled attribute.
+			return SystemPooling.DEFAULT_CAN_BE_POOLED;
+		}
+	}
+
+	/**
+	 * Invokes the <code>CanBePooled</code> callback of the given object. As
+	 * opposed to {@link #canBePooled(Object)}, an exception thrown by the
+	 * callback is propagated and the object is left untouched.
+	 * 
+	 * @param obj
+	 *            the obj
+	 * @return true, if can be pooled
+	 * @throws Exception
+	 *             the exception thrown by the callback
+	 */
+	protected boolean invokesCanBePooled(Object obj) throws Exception {
+
+		synchronized (obj) {
+			if (obj != null) {
+				if (this.isCanBePooled()
+						&& ReflectUtils.isCast(CanBePooled.class, obj)) {
+					return ((CanBePooled) obj).canBePooled();
+				}
+				else if (this.canBePooledMethodLst != null) {
+					for (MethodInvoker method : canBePooledMethodLst) {
+						return (Boolean) method.invoke(obj);
+					}
 				}
 			}
 			// return default value of CanBePooled attribute.
@@ -278,37 +288,61 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 	 */
 	protected Object createsBean() throws Exception {
 
-		synchronized (this) {
-			this.numActive++;
-		}
+		incrementsNumActive();
+		return instantiatesBean();
+	}
+
+	/**
+	 * Creates bean, the number of active objects of which has already been
+	 * incremented. It is decremented again if the bean can not be created.
+	 * 
+	 * @return the object, <b>null</b> if the bean can not be created.
+	 * @throws Exception
+	 *             the exception
+	 */
+	protected Object instantiatesBean() throws Exception {
+
 		// create new object when needed
 		boolean newlyCreated = false;
 		Object result = null;
 		TimestampObjectBean<Object> pair = null;
 		try {
-			CoreInstantiationSelector coreSelector = null;
+			long start = System.nanoTime();
 			if (selector instanceof CoreInstantiationSelectorImpl) {
-				coreSelector = (CoreInstantiationSelector) selector;
+				CoreInstantiationSelector coreSelector = (CoreInstantiationSelector) selector;
 				Pair<Class<?>[], Object[]> pairCons = DefinitionUtils
 						.findArgsOfDefaultConstructor(selector.getDefinition(),
 								provider);
 				Class<?>[] argTypes = pairCons.getKeyPair();
 				Object[] args = pairCons.getValuePair();
-				coreSelector.setArgTypes(argTypes);
-				coreSelector.setArgs(args);
-			}
-			try {
-				result = this.provider.getServiceHandler().getService(this,
-						BeanCreationProcessor.class, selector);
-			}
-			catch (TooManyListenersException e) {
-				if (log.isFatalEnabled()) {
-					log.fatal("Could not get service !", e);
+				// beans are created concurrently, the shared selector holds
+				// the arguments until the bean is created.
+				synchronized (coreSelector) {
+					coreSelector.setArgTypes(argTypes);
+					coreSelector.setArgs(args);
+					if (args != null && args.length > 0) {
+						result = dispatchesCreation();
+					}
+				}
+				if (args == null || args.length == 0) {
+					result = dispatchesCreation();
 				}
 			}
+			else {
+				result = dispatchesCreation();
+			}
 			if (result != null) {
 				pair = new TimestampObjectBean<Object>(result);
 				newlyCreated = true;
+				long nanos = System.nanoTime() - start;
+				AdaptiveSizingPolicy policy = this.sizingPolicy;
+				if (policy != null) {
+					policy.created(nanos);
+				}
+				PoolMetrics metrics = this.metrics;
+				if (metrics != null) {
+					metrics.created(result, nanos);
+				}
 			}
 		}
 		catch (Exception e) {
@@ -320,15 +354,37 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 		}
 		finally {
 			if (!newlyCreated) {
-				synchronized (this) {
-					this.numActive--;
-					notifyAll();
+				decrementsNumActive();
+				PoolMetrics metrics = this.metrics;
+				if (metrics != null) {
+					metrics.creationFailed();
 				}
 			}
 		}
 		return pair != null ? pair.getValue() : null;
 	}
 
+	/**
+	 * Dispatches the creation of a bean to the {@link BeanCreationProcessor}.
+	 * 
+	 * @return the created bean, <b>null</b> if the service is not available.
+	 * @throws Exception
+	 *             the exception
+	 */
+	private Object dispatchesCreation() throws Exception {
+
+		try {
+			return this.provider.getServiceHandler().dispatchService(this,
+					BeanCreationProcessor.class, selector);
+		}
+		catch (TooManyListenersException e) {
+			if (log.isFatalEnabled()) {
+				log.fatal("Could not get service !", e);
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Deactivate object.
 	 * 
@@ -341,23 +397,37 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 
 		synchronized (obj) {
 			try {
-				if (obj != null) {
-					if (ReflectUtils.isCast(Deactivate.class, obj)) {
-						((Deactivate) obj).deactivate();
-					}
-					else if (this.deactivateMethodLst != null) {
-						for (FastMethod method : deactivateMethodLst) {
-							method.invoke(obj, null);
-						}
-					}
-				}
+				invokesDeactivate(obj);
 			}
 			catch (Exception e) {
 				// object cannot be activated or is invalid
 				destroyObject(obj);
-				synchronized (this) {
-					this.numActive--;
-					notifyAll();
+				decrementsNumActive();
+			}
+		}
+	}
+
+	/**
+	 * Invokes the deactivate callbacks of the given object. As opposed to
+	 * {@link #deactivateObject(Object)}, an exception thrown by a callback is
+	 * propagated and the object is left untouched.
+	 * 
+	 * @param obj
+	 *            the obj
+	 * @throws Exception
+	 *             the exception thrown by the callback
+	 */
+	protected void invokesDeactivate(Object obj) throws Exception {
+
+		synchronized (obj) {
+			if (obj != null) {
+				if (ReflectUtils.isCast(Deactivate.class, obj)) {
+					((Deactivate) obj).deactivate();
+				}
+				else if (this.deactivateMethodLst != null) {
+					for (MethodInvoker method : deactivateMethodLst) {
+						method.invoke(obj);
+					}
 				}
 			}
 		}
@@ -373,14 +443,15 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 	 */
 	protected void destroyObject(Object obj) throws Exception {
 
+		long start = startsTiming();
 		synchronized (obj) {
 			try {
 				if (obj != null) {
 					if (ReflectUtils.isCast(Disposable.class, obj))
 						((Disposable) obj).destroy();
 					else if (this.disposableMethodLst != null) {
-						for (FastMethod method : disposableMethodLst) {
-							method.invoke(obj, null);
+						for (MethodInvoker method : disposableMethodLst) {
+							method.invoke(obj);
 						}
 					}
 				}
@@ -389,6 +460,109 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 				obj = null;
 				throw e;
 			}
+			finally {
+				PoolMetrics metrics = this.metrics;
+				if (metrics != null && obj != null) {
+					metrics.destroyed(obj, System.nanoTime() - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Increments the number of active objects, called before an object bean
+	 * is created.
+	 */
+	protected void incrementsNumActive() {
+
+		synchronized (this) {
+			this.numActive++;
+		}
+	}
+
+	/**
+	 * Decrements the number of active objects and wakes up the threads
+	 * waiting for an object, called when an active object is returned or
+	 * destroyed.
+	 */
+	protected void decrementsNumActive() {
+
+		synchronized (this) {
+			this.numActive--;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the start time of a pool operation timed by the pool metrics, as
+	 * returned by {@link System#nanoTime()}, or 0 if metrics are disabled.
+	 */
+	protected long startsTiming() {
+
+		return this.metrics != null ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Records an obtained object.
+	 * 
+	 * @param obj
+	 *            the obtained object
+	 * @param start
+	 *            the start time of the obtain, see {@link #startsTiming()}.
+	 * @param waitNanos
+	 *            the time the caller waited for the object, in nanoseconds, 0
+	 *            if it did not wait.
+	 */
+	protected void recordsObtain(Object obj, long start, long waitNanos) {
+
+		AdaptiveSizingPolicy policy = this.sizingPolicy;
+		if (policy != null) {
+			policy.obtained(waitNanos);
+		}
+		PoolMetrics metrics = this.metrics;
+		if (metrics != null) {
+			metrics.obtained(obj, System.nanoTime() - start, waitNanos);
+		}
+	}
+
+	/**
+	 * Records an obtained object which has been returned or invalidated.
+	 * 
+	 * @param start
+	 *            the start time of the return, see {@link #startsTiming()}.
+	 */
+	protected void recordsReturn(long start) {
+
+		AdaptiveSizingPolicy policy = this.sizingPolicy;
+		if (policy != null) {
+			policy.returned();
+		}
+		PoolMetrics metrics = this.metrics;
+		if (metrics != null) {
+			metrics.returned(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Records an obtain which failed because the pool was exhausted.
+	 * 
+	 * @param timeout
+	 *            <b>true</b> if the obtain timed out waiting for an object.
+	 */
+	protected void recordsFailure(boolean timeout) {
+
+		AdaptiveSizingPolicy policy = this.sizingPolicy;
+		if (policy != null) {
+			policy.failed();
+		}
+		PoolMetrics metrics = this.metrics;
+		if (metrics != null) {
+			if (timeout) {
+				metrics.timedOut();
+			}
+			else {
+				metrics.exhausted();
+			}
 		}
 	}
 
@@ -397,7 +571,7 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 	 * @see org.jgentleframework.services.objectpooling.Pool#getNumActive()
 	 */
 	@Override
-	public synchronized int getNumActive() {
+	public int getNumActive() {
 
 		return this.numActive;
 	}
@@ -410,14 +584,13 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 	@Override
 	public void invalidateObject(Object obj) throws Exception {
 
+		long start = startsTiming();
 		try {
 			destroyObject(obj);
 		}
 		finally {
-			synchronized (this) {
-				this.numActive--;
-				notifyAll();
-			}
+			decrementsNumActive();
+			recordsReturn(start);
 		}
 	}
 
@@ -446,27 +619,55 @@ public abstract class AbstractBaseController extends AbstractBasePooling
 
 		synchronized (obj) {
 			try {
-				if (obj != null) {
-					if (this.isTestOnObtain()
-							&& ReflectUtils.isCast(Validate.class, obj)) {
-						if (!((Validate) obj).validate())
-							throw new Exception("Validate failed !!");
-					}
-					else if (this.validateMethodLst != null) {
-						for (FastMethod method : validateMethodLst) {
-							if (!(Boolean) method.invoke(obj, null))
-								throw new Exception("Validate failed !!");
-						}
-					}
-				}
+				if (!invokesValidate(obj))
+					throw new Exception("Validate failed !!");
 			}
 			catch (Exception e) {
 				destroyObject(obj);
-				synchronized (this) {
-					this.numActive--;
-					notifyAll();
+				decrementsNumActive();
+			}
+		}
+	}
+
+	/**
+	 * Invokes the validate callbacks of the given object. As opposed to
+	 * {@link #validatesObject(Object)}, an invalid object is not destroyed and
+	 * an exception thrown by a callback is propagated.
+	 * 
+	 * @param obj
+	 *            the given object need to be validated.
+	 * @return <b>false</b> if the object is invalid.
+	 * @throws Exception
+	 *             the exception thrown by the callback
+	 */
+	protected boolean invokesValidate(Object obj) throws Exception {
+
+		synchronized (obj) {
+			if (obj != null) {
+				long start = startsTiming();
+				Boolean valid = null;
+				if (this.isTestOnObtain()
+						&& ReflectUtils.isCast(Validate.class, obj)) {
+					valid = ((Validate) obj).validate();
+				}
+				else if (this.validateMethodLst != null) {
+					valid = true;
+					for (MethodInvoker method : validateMethodLst) {
+						if (!(Boolean) method.invoke(obj)) {
+							valid = false;
+							break;
+						}
+					}
+				}
+				if (valid != null) {
+					PoolMetrics metrics = this.metrics;
+					if (metrics != null) {
+						metrics.validated(System.nanoTime() - start, valid);
+					}
+					return valid;
 				}
 			}
+			return true;
 		}
 	}
 }
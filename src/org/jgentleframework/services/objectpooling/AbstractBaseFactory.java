@@ -83,10 +83,7 @@ public abstract class AbstractBaseFactory extends AbstractBaseController {
 			}
 		}
 		if (decrementNumActive) {
-			synchronized (this) {
-				this.numActive--;
-				notifyAll();
-			}
+			decrementsNumActive();
 		}
 	}
 
@@ -109,6 +106,61 @@ public abstract class AbstractBaseFactory extends AbstractBaseController {
 		notifyAll();
 	}
 
+	/**
+	 * Performs one run of the idle object evictor, see
+	 * {@link PoolStaticUtils#evict(AbstractBaseFactory, boolean)}.
+	 * 
+	 * @param lifo
+	 *            if is <code>'last in first out'</code>
+	 * @throws Exception
+	 *             if the pool is closed or eviction fails.
+	 */
+	protected void evict(boolean lifo) throws Exception {
+
+		PoolStaticUtils.evict(this, lifo);
+	}
+
+	/**
+	 * Destroys up to the given number of idle objects, the oldest first, see
+	 * {@link PoolStaticUtils#resize(AbstractBaseFactory, boolean)}.
+	 * 
+	 * @param count
+	 *            the number of idle objects to destroy
+	 * @param lifo
+	 *            if is <code>'last in first out'</code>
+	 * @return the number of destroyed objects
+	 */
+	protected int destroysIdleObjects(int count, boolean lifo) {
+
+		return PoolStaticUtils.destroyIdle(this, count, lifo);
+	}
+
+	/**
+	 * Requests a new object bean from the background creator of all pools,
+	 * see {@link PoolStaticUtils.ObjectCreator}. The created object, which has
+	 * never been activated, is added to the idle objects without the
+	 * callbacks of a returned object and the waiting threads are notified, so
+	 * that it is obtained by the first of them. If it can not be added, its
+	 * slot is released and the creation fails. On a
+	 * creator thread, the object is created at once. The pool lock must be
+	 * held.
+	 * 
+	 * @return the creation
+	 */
+	protected Creation requestsCreation() {
+
+		// the slot of the object is reserved until it is created.
+		incrementsNumActive();
+		Creation creation = new Creation();
+		if (PoolStaticUtils.ObjectCreator.isCreatorThread()) {
+			creation.run();
+		}
+		else {
+			PoolStaticUtils.ObjectCreator.execute(creation);
+		}
+		return creation;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.jgentleframework.services.objectpooling.Pool#returnObject(java
@@ -117,7 +169,9 @@ public abstract class AbstractBaseFactory extends AbstractBaseController {
 	@Override
 	public void returnObject(Object obj) throws Exception {
 
+		long start = startsTiming();
 		addObjectToPool(obj, true);
+		recordsReturn(start);
 	}
 
 	/*
@@ -125,7 +179,7 @@ public abstract class AbstractBaseFactory extends AbstractBaseController {
 	 * @see org.jgentleframework.services.objectpooling.Pool#getNumIdle()
 	 */
 	@Override
-	public synchronized int getNumIdle() throws UnsupportedOperationException {
+	public int getNumIdle() throws UnsupportedOperationException {
 
 		return pool.size();
 	}
@@ -139,4 +193,72 @@ public abstract class AbstractBaseFactory extends AbstractBaseController {
 
 		return this.pool.isEmpty();
 	}
+
+	/**
+	 * The creation of an object bean requested by a borrower, see
+	 * {@link AbstractBaseFactory#requestsCreation()}.
+	 */
+	protected final class Creation implements Runnable {
+		/** <b>true</b> once the creation is over. */
+		private volatile boolean	done	= false;
+
+		/** The failure, <b>null</b> if the object bean has been created. */
+		private volatile Exception	failure	= null;
+
+		/**
+		 * Returns the failure, <b>null</b> if the object bean has been created
+		 * or the creation is not over.
+		 */
+		public Exception getFailure() {
+
+			return this.failure;
+		}
+
+		/**
+		 * Returns <b>true</b> once the creation is over.
+		 */
+		public boolean isDone() {
+
+			return this.done;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+
+			AbstractBaseFactory pool = AbstractBaseFactory.this;
+			try {
+				Object obj = pool.instantiatesBean();
+				if (obj == null) {
+					this.failure = new PoolOperationException(
+							"The object bean can not be created !!");
+				}
+				else {
+					try {
+						synchronized (pool) {
+							pool.assertDisable();
+							pool.pool.add(new TimestampObjectBean<Object>(obj));
+						}
+					}
+					catch (IllegalStateException ex) {
+						pool.decrementsNumActive();
+						pool.destroyObject(obj);
+						throw ex;
+					}
+				}
+			}
+			catch (Exception e) {
+				this.failure = e;
+			}
+			finally {
+				synchronized (pool) {
+					this.done = true;
+					pool.notifyAll();
+				}
+			}
+		}
+	}
 }
@@ -17,8 +17,6 @@
  */
 package org.jgentleframework.services.objectpooling;
 
-import java.util.TimerTask;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jgentleframework.context.beans.Initializing;
@@ -38,68 +36,74 @@ import org.jgentleframework.utils.Assertor;
 public abstract class AbstractBasePooling implements Pool, Initializing,
 		BasePooling {
 	/** The can be pooled. */
-	protected boolean		canBePooled					= SystemPooling.DEFAULT_CAN_BE_POOLED;
+	protected volatile boolean				canBePooled					= SystemPooling.DEFAULT_CAN_BE_POOLED;
 
 	/** The creation time out. */
-	protected long			creationTimeOut				= SystemPooling.DEFAULT_CREATION_TIME_OUT;
+	protected volatile long					creationTimeOut				= SystemPooling.DEFAULT_CREATION_TIME_OUT;
 
 	/** The enable. */
-	protected boolean		enable						= true;
+	protected volatile boolean				enable						= true;
 
-	/** My idle object eviction {@link TimerTask}, if any. */
-	protected Evictor		evictor						= null;
+	/** My idle object {@link Evictor}, if any. */
+	protected volatile Evictor				evictor						= null;
 
 	/** The exhausted action type. */
-	protected byte			exhaustedActionType			= SystemPooling.EXHAUSTED_BLOCK;
+	protected volatile byte					exhaustedActionType			= SystemPooling.EXHAUSTED_BLOCK;
 
 	/** The invocation. */
-	protected boolean		justInTime					= SystemPooling.DEFAULT_JUST_IN_TIME;
+	protected volatile boolean				justInTime					= SystemPooling.DEFAULT_JUST_IN_TIME;
 
 	/** The lifo. */
-	protected boolean		lifo						= SystemPooling.DEFAULT_LIFO;
+	protected volatile boolean				lifo						= SystemPooling.DEFAULT_LIFO;
 
 	/** The max idle. */
-	protected int			maxIdle						= SystemPooling.DEFAULT_MAX_IDLE;
+	protected volatile int					maxIdle						= SystemPooling.DEFAULT_MAX_IDLE;
 
 	/** The max pool size. */
-	protected int			maxPoolSize					= SystemPooling.DEFAULT_MAX_POOL_SIZE;
+	protected volatile int					maxPoolSize					= SystemPooling.DEFAULT_MAX_POOL_SIZE;
+
+	/** The pool metrics, <b>null</b> if disabled. */
+	protected volatile PoolMetrics			metrics						= null;
 
 	/** The min evictable idle time. */
-	protected long			minEvictableIdleTime		= SystemPooling.DEFAULT_MIN_EVICTABLE_IDLE_TIME;
+	protected volatile long					minEvictableIdleTime		= SystemPooling.DEFAULT_MIN_EVICTABLE_IDLE_TIME;
 
 	/** The min idle. */
-	protected int			minIdle						= SystemPooling.DEFAULT_MIN_IDLE;
+	protected volatile int					minIdle						= SystemPooling.DEFAULT_MIN_IDLE;
 
 	/** The min pool size. */
-	protected int			minPoolSize					= SystemPooling.DEFAULT_MIN_POOL_SIZE;
+	protected volatile int					minPoolSize					= SystemPooling.DEFAULT_MIN_POOL_SIZE;
 
 	/** The num tests per eviction run. */
-	protected int			numTestsPerEvictionRun		= SystemPooling.DEFAULT_NUM_TESTS_PER_EVICTION_RUN;
+	protected volatile int					numTestsPerEvictionRun		= SystemPooling.DEFAULT_NUM_TESTS_PER_EVICTION_RUN;
+
+	/** The adaptive sizing policy, <b>null</b> if disabled. */
+	protected volatile AdaptiveSizingPolicy	sizingPolicy				= null;
 
 	/** The soft min evictable idle time. */
-	protected long			softMinEvictableIdleTime	= SystemPooling.DEFAULT_SOFT_MIN_EVICTABLE_IDLE_TIME;
+	protected volatile long					softMinEvictableIdleTime	= SystemPooling.DEFAULT_SOFT_MIN_EVICTABLE_IDLE_TIME;
 
 	/** The test on obtain. */
-	protected boolean		testOnObtain				= SystemPooling.DEFAULT_TEST_ON_OBTAIN;
+	protected volatile boolean				testOnObtain				= SystemPooling.DEFAULT_TEST_ON_OBTAIN;
 
 	/** The test while idle. */
-	protected boolean		testWhileIdle				= SystemPooling.DEFAULT_TEST_WHILE_IDLE;
+	protected volatile boolean				testWhileIdle				= SystemPooling.DEFAULT_TEST_WHILE_IDLE;
 
 	/** The time between eviction runs. */
-	protected long			timeBetweenEvictionRuns		= SystemPooling.DEFAULT_TIME_BETWEEN_EVICTION_RUNS;
+	protected volatile long					timeBetweenEvictionRuns		= SystemPooling.DEFAULT_TIME_BETWEEN_EVICTION_RUNS;
 
 	/** The config. */
-	protected Pooling		config						= null;
+	protected Pooling						config						= null;
 
 	/** The definition. */
-	protected Definition	definition					= null;
+	protected Definition					definition					= null;
 
 	/** The selector. */
-	protected Selector		selector					= null;
+	protected Selector						selector					= null;
 
 	/** The log. */
-	protected final Log		log							= LogFactory
-																.getLog(getClass());
+	protected final Log						log							= LogFactory
+																	.getLog(getClass());
 
 	/*
 	 * (non-Javadoc)
@@ -108,7 +112,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * ()
 	 */
 	@Override
-	public synchronized long getCreationTimeOut() {
+	public long getCreationTimeOut() {
 
 		return creationTimeOut;
 	}
@@ -118,7 +122,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * @see org.jgentleframework.services.objectpooling.BasePooling#getEvictor()
 	 */
 	@Override
-	public synchronized Evictor getEvictor() {
+	public Evictor getEvictor() {
 
 		return evictor;
 	}
@@ -129,7 +133,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * getExhaustedActionType()
 	 */
 	@Override
-	public synchronized byte getExhaustedActionType() {
+	public byte getExhaustedActionType() {
 
 		return exhaustedActionType;
 	}
@@ -139,7 +143,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * @see org.jgentleframework.services.objectpooling.BasePooling#getMaxIdle()
 	 */
 	@Override
-	public synchronized int getMaxIdle() {
+	public int getMaxIdle() {
 
 		return maxIdle;
 	}
@@ -150,7 +154,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * org.jgentleframework.services.objectpooling.BasePooling#getMaxPoolSize()
 	 */
 	@Override
-	public synchronized int getMaxPoolSize() {
+	public int getMaxPoolSize() {
 
 		return maxPoolSize;
 	}
@@ -161,7 +165,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * getMinEvictableIdleTime()
 	 */
 	@Override
-	public synchronized long getMinEvictableIdleTime() {
+	public long getMinEvictableIdleTime() {
 
 		return minEvictableIdleTime;
 	}
@@ -171,7 +175,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * @see org.jgentleframework.services.objectpooling.BasePooling#getMinIdle()
 	 */
 	@Override
-	public synchronized int getMinIdle() {
+	public int getMinIdle() {
 
 		return minIdle;
 	}
@@ -182,7 +186,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * org.jgentleframework.services.objectpooling.BasePooling#getMinPoolSize()
 	 */
 	@Override
-	public synchronized int getMinPoolSize() {
+	public int getMinPoolSize() {
 
 		return minPoolSize;
 	}
@@ -193,7 +197,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * getNumTestsPerEvictionRun()
 	 */
 	@Override
-	public synchronized int getNumTestsPerEvictionRun() {
+	public int getNumTestsPerEvictionRun() {
 
 		return numTestsPerEvictionRun;
 	}
@@ -204,7 +208,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * getSoftMinEvictableIdleTime()
 	 */
 	@Override
-	public synchronized long getSoftMinEvictableIdleTime() {
+	public long getSoftMinEvictableIdleTime() {
 
 		return softMinEvictableIdleTime;
 	}
@@ -215,18 +219,48 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * getTimeBetweenEvictionRuns()
 	 */
 	@Override
-	public synchronized long getTimeBetweenEvictionRuns() {
+	public long getTimeBetweenEvictionRuns() {
 
 		return timeBetweenEvictionRuns;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.services.objectpooling.BasePooling#getMetrics()
+	 */
+	@Override
+	public PoolMetrics getMetrics() {
+
+		return metrics;
+	}
+
+	/**
+	 * Returns the adaptive sizing policy, <b>null</b> if disabled.
+	 */
+	public AdaptiveSizingPolicy getSizingPolicy() {
+
+		return sizingPolicy;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.BasePooling#isAdaptiveSizing
+	 * ()
+	 */
+	@Override
+	public boolean isAdaptiveSizing() {
+
+		return sizingPolicy != null;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
 	 * org.jgentleframework.services.objectpooling.BasePooling#isCanBePooled()
 	 */
 	@Override
-	public synchronized boolean isCanBePooled() {
+	public boolean isCanBePooled() {
 
 		return canBePooled;
 	}
@@ -236,7 +270,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * @see org.jgentleframework.services.objectpooling.BasePooling#isEnable()
 	 */
 	@Override
-	public final synchronized boolean isEnable() {
+	public final boolean isEnable() {
 
 		return enable;
 	}
@@ -247,7 +281,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * org.jgentleframework.services.objectpooling.BasePooling#isJustInTime()
 	 */
 	@Override
-	public synchronized boolean isJustInTime() {
+	public boolean isJustInTime() {
 
 		return this.justInTime;
 	}
@@ -257,7 +291,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * @see org.jgentleframework.services.objectpooling.BasePooling#isLifo()
 	 */
 	@Override
-	public synchronized boolean isLifo() {
+	public boolean isLifo() {
 
 		return lifo;
 	}
@@ -268,7 +302,7 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * org.jgentleframework.services.objectpooling.BasePooling#isTestOnObtain()
 	 */
 	@Override
-	public synchronized boolean isTestOnObtain() {
+	public boolean isTestOnObtain() {
 
 		return testOnObtain;
 	}
@@ -279,11 +313,28 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 	 * org.jgentleframework.services.objectpooling.BasePooling#isTestWhileIdle()
 	 */
 	@Override
-	public synchronized boolean isTestWhileIdle() {
+	public boolean isTestWhileIdle() {
 
 		return testWhileIdle;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.BasePooling#setAdaptiveSizing
+	 * (boolean)
+	 */
+	@Override
+	public synchronized void setAdaptiveSizing(boolean adaptiveSizing) {
+
+		if (!adaptiveSizing) {
+			this.sizingPolicy = null;
+		}
+		else if (this.sizingPolicy == null) {
+			this.sizingPolicy = new AdaptiveSizingPolicy();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -528,5 +579,31 @@ public abstract class AbstractBasePooling implements Pool, Initializing,
 		this.timeBetweenEvictionRuns = systemConfig.timeBetweenEvictionRuns();
 		this.softMinEvictableIdleTime = systemConfig.softMinEvictableIdleTime();
 		this.lifo = systemConfig.LIFO();
+		if (systemConfig.adaptiveSizing()) {
+			this.sizingPolicy = new AdaptiveSizingPolicy();
+			if (this.timeBetweenEvictionRuns <= 0) {
+				this.timeBetweenEvictionRuns = SystemPooling.DEFAULT_ADAPTIVE_SIZING_PERIOD;
+			}
+		}
+		if (this.metrics == null && PoolMetrics.isEnabled()) {
+			Class<?> targetClass = selector != null ? selector.getTargetClass()
+					: null;
+			this.metrics = new PoolMetrics(this,
+					targetClass != null ? targetClass.getName() : getClass()
+							.getName());
+			this.metrics.registerMBean();
+		}
+	}
+
+	/**
+	 * Unregisters the pool metrics MBean, if any, called when the pool is
+	 * closed.
+	 */
+	protected void unregistersMetrics() {
+
+		PoolMetrics metrics = this.metrics;
+		if (metrics != null) {
+			metrics.unregisterMBean();
+		}
 	}
 }
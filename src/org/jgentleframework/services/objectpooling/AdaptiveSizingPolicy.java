@@ -0,0 +1,214 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.services.objectpooling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jgentleframework.services.objectpooling.annotation.SystemPooling;
+
+/**
+ * The adaptive sizing policy of a pool, enabled by
+ * {@link SystemPooling#adaptiveSizing()}. The pool records its obtained,
+ * returned and created objects and the time callers waited for an object,
+ * and on each run of the evictor the policy computes the number of idle
+ * objects the pool should hold until the next run:
+ * <ul>
+ * <li>the demand is the peak number of obtained objects during the last
+ * interval, extrapolated by its rise during the last interval for as long as
+ * creating an object takes; it follows a rise at once and a decrease with a
+ * half-life of {@link #HALF_LIFE};</li>
+ * <li>a headroom is added while callers wait for an object or fail to obtain
+ * one, and decreases again once they do not.</li>
+ * </ul>
+ * The target is bounded by the configured pool sizes and idle counts.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see PoolStaticUtils#resize(AbstractBaseFactory, boolean)
+ */
+public class AdaptiveSizingPolicy {
+	/** The half-life of a decrease of the demand, in nanoseconds. */
+	public static final long	HALF_LIFE		= TimeUnit.SECONDS.toNanos(1);
+
+	/** The number of created objects. */
+	private final AtomicLong	creations		= new AtomicLong();
+
+	/** The total time spent creating objects, in nanoseconds. */
+	private final AtomicLong	creationNanos	= new AtomicLong();
+
+	/** The number of failed obtains during the current interval. */
+	private final AtomicInteger	failures		= new AtomicInteger();
+
+	/** The number of obtained objects. */
+	private final AtomicInteger	inUse			= new AtomicInteger();
+
+	/** The peak number of obtained objects during the current interval. */
+	private final AtomicInteger	peakInUse		= new AtomicInteger();
+
+	/** The number of obtains which waited during the current interval. */
+	private final AtomicInteger	waits			= new AtomicInteger();
+
+	/** The estimated demand. */
+	private double				demand			= 0;
+
+	/** The headroom added to the demand. */
+	private int					headroom		= 0;
+
+	/** The peak number of obtained objects during the previous interval. */
+	private int					lastPeak		= 0;
+
+	/** The time of the previous run, as returned by {@link System#nanoTime()}. */
+	private long				lastRun			= System.nanoTime();
+
+	/**
+	 * Records an obtained object.
+	 *
+	 * @param waitNanos
+	 *            the time the caller waited for the object, in nanoseconds, 0
+	 *            if it did not wait.
+	 */
+	public void obtained(long waitNanos) {
+
+		int current = this.inUse.incrementAndGet();
+		int peak;
+		while ((peak = this.peakInUse.get()) < current
+				&& !this.peakInUse.compareAndSet(peak, current)) {
+		}
+		if (waitNanos > 0) {
+			this.waits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records an obtained object which has been returned or invalidated.
+	 */
+	public void returned() {
+
+		this.inUse.decrementAndGet();
+	}
+
+	/**
+	 * Records an obtain which failed because the pool was exhausted.
+	 */
+	public void failed() {
+
+		this.failures.incrementAndGet();
+	}
+
+	/**
+	 * Records a created object.
+	 *
+	 * @param nanos
+	 *            the creation time, in nanoseconds
+	 */
+	public void created(long nanos) {
+
+		this.creations.incrementAndGet();
+		this.creationNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * Returns the average creation time of an object, in nanoseconds.
+	 */
+	public long getAverageCreationNanos() {
+
+		long count = this.creations.get();
+		return count > 0 ? this.creationNanos.get() / count : 0L;
+	}
+
+	/**
+	 * Returns the estimated demand, that is the number of objects expected to
+	 * be obtained at a time.
+	 */
+	public synchronized double getDemand() {
+
+		return this.demand;
+	}
+
+	/**
+	 * Returns the number of obtained objects.
+	 */
+	public int getInUse() {
+
+		return this.inUse.get();
+	}
+
+	/**
+	 * Ends the current interval and returns the number of idle objects the
+	 * given pool should hold.
+	 *
+	 * @param pool
+	 *            the pool
+	 * @return the target number of idle objects
+	 */
+	public synchronized int computesTargetIdle(AbstractBasePooling pool) {
+
+		long now = System.nanoTime();
+		long interval = Math.max(1L, now - this.lastRun);
+		this.lastRun = now;
+		int current = Math.max(0, this.inUse.get());
+		int peak = Math.max(current, this.peakInUse.getAndSet(current));
+		int waited = this.waits.getAndSet(0) + this.failures.getAndSet(0);
+		// a rise of the demand goes on while the new objects are created.
+		double rise = Math.max(0, peak - this.lastPeak)
+				* Math.max(1.0, (double) getAverageCreationNanos() / interval);
+		this.lastPeak = peak;
+		double predicted = peak + rise;
+		if (predicted >= this.demand) {
+			this.demand = predicted;
+		}
+		else {
+			double weight = 1.0 - Math.pow(0.5, (double) interval / HALF_LIFE);
+			this.demand += weight * (predicted - this.demand);
+		}
+		if (waited > 0) {
+			this.headroom += Math.max(1, (int) Math.ceil(this.demand / 4));
+		}
+		else {
+			this.headroom /= 2;
+		}
+		long target = Math.round(this.demand) + this.headroom;
+		target = Math.max(target, pool.getMinPoolSize());
+		int maxPoolSize = pool.getMaxPoolSize();
+		if (maxPoolSize >= 0) {
+			target = Math.min(target, maxPoolSize);
+			this.headroom = Math.min(this.headroom, maxPoolSize);
+		}
+		long result = Math.max(target - current, pool.getMinIdle());
+		int maxIdle = pool.getMaxIdle();
+		if (maxIdle >= 0) {
+			result = Math.min(result, maxIdle);
+		}
+		return (int) Math.max(0L, result);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return "AdaptiveSizingPolicy [inUse=" + getInUse() + ", demand="
+				+ getDemand() + ", averageCreationNanos="
+				+ getAverageCreationNanos() + "]";
+	}
+}
@@ -92,6 +92,13 @@ public interface BasePooling extends Pool {
 	 */
 	public int getMinIdle();
 
+	/**
+	 * Returns the metrics of the pool, <b>null</b> if metrics are disabled.
+	 * 
+	 * @see PoolMetrics#isEnabled()
+	 */
+	public PoolMetrics getMetrics();
+
 	/**
 	 * Returns the minimum objects that must be maintained in the pool at all
 	 * times.
@@ -127,6 +134,14 @@ public interface BasePooling extends Pool {
 	 */
 	public long getTimeBetweenEvictionRuns();
 
+	/**
+	 * Returns <b>true</b> if the number of idle objects is adapted to the
+	 * observed demand.
+	 * 
+	 * @see SystemPooling#adaptiveSizing()
+	 */
+	public boolean isAdaptiveSizing();
+
 	/**
 	 * When <b>true</b>, objects will be validated by
 	 * {@link CanBePooled#canBePooled()} before being returned to the pool
@@ -174,6 +189,17 @@ public interface BasePooling extends Pool {
 	 */
 	public boolean isTestWhileIdle();
 
+	/**
+	 * Enables or disables the adaptive sizing of the pool, which takes effect
+	 * on the next run of the idle object evictor.
+	 * 
+	 * @param adaptiveSizing
+	 *            <code>true</code> to adapt the number of idle objects to the
+	 *            observed demand.
+	 * @see SystemPooling#adaptiveSizing()
+	 */
+	public void setAdaptiveSizing(boolean adaptiveSizing);
+
 	/**
 	 * When <b>true</b>, objects will be validated by
 	 * {@link CanBePooled#canBePooled()} before being returned to the pool
@@ -69,7 +69,7 @@ public class CommonPool extends AbstractBaseFactory {
 	 * @see org.jgentleframework.services.objectpooling.Pool#addObject()
 	 */
 	@Override
-	public synchronized void addObject() throws UnsupportedOperationException,
+	public void addObject() throws UnsupportedOperationException,
 			Exception {
 
 		assertDisable();
@@ -89,6 +89,7 @@ public class CommonPool extends AbstractBaseFactory {
 			clear();
 			PoolStaticUtils.startEvictor(evictor, -1L, this, false);
 		}
+		unregistersMetrics();
 	}
 
 	/*
@@ -98,8 +99,11 @@ public class CommonPool extends AbstractBaseFactory {
 	@Override
 	public Object obtainObject() throws NoSuchElementException, Exception {
 
+		long start = startsTiming();
 		Object result = null;
 		long starttime = System.currentTimeMillis();
+		long waitNanos = 0L;
+		Creation creation = null;
 		while (true) {
 			TimestampObjectBean<Object> pair = null;
 			synchronized (this) {
@@ -107,18 +111,44 @@ public class CommonPool extends AbstractBaseFactory {
 				pair = (TimestampObjectBean<Object>) (((Queue<TimestampObjectBean<Object>>) pool)
 						.poll());
 				if (pair == null) {
+					if (creation != null) {
+						if (!creation.isDone()) {
+							// the first object returned or created is
+							// obtained.
+							final long waitStart = System.nanoTime();
+							try {
+								wait();
+							}
+							catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+								if (log.isErrorEnabled()) {
+									log.error(e.getMessage(), e);
+								}
+							}
+							waitNanos += System.nanoTime() - waitStart;
+							continue;
+						}
+						Exception failure = creation.getFailure();
+						creation = null;
+						if (failure != null) {
+							throw failure;
+						}
+					}
 					if (this.maxPoolSize < 0
 							|| this.getNumActive() <= this.maxPoolSize) {
-						result = createsBean();
+						creation = requestsCreation();
+						continue;
 					}
 					else {
 						switch (this.exhaustedActionType) {
 						case SystemPooling.EXHAUSTED_GROW:
 							result = createsBean();
 						case SystemPooling.EXHAUSTED_FAIL:
+							recordsFailure(false);
 							throw new NoSuchElementException(
 									"Pool exhausted !!");
 						case SystemPooling.EXHAUSTED_BLOCK:
+							final long waitStart = System.nanoTime();
 							try {
 								if (this.creationTimeOut <= 0) {
 									wait();
@@ -139,8 +169,10 @@ public class CommonPool extends AbstractBaseFactory {
 									log.error(e.getMessage(), e);
 								}
 							}
+							waitNanos += System.nanoTime() - waitStart;
 							if (this.creationTimeOut > 0
 									&& ((System.currentTimeMillis() - starttime) >= this.creationTimeOut)) {
+								recordsFailure(true);
 								throw new NoSuchElementException(
 										"Timeout waiting for idle object");
 							}
@@ -160,6 +192,7 @@ public class CommonPool extends AbstractBaseFactory {
 				}
 				activatesObject(result);
 				validatesObject(result);
+				recordsObtain(result, start, waitNanos);
 				return result;
 			}
 		}
@@ -0,0 +1,773 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.services.objectpooling;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jgentleframework.context.beans.Initializing;
+import org.jgentleframework.context.beans.ProviderAware;
+import org.jgentleframework.services.objectpooling.annotation.SystemPooling;
+
+/**
+ * A lock-free, thread-affine implementation of {@link Pool}. Each pooled
+ * object is held by an entry which is obtained by a compare-and-set of its
+ * state, so that obtaining and returning an object never locks the pool:
+ * <ul>
+ * <li>each thread first obtains again the entry it used last, which is the
+ * common case of a thread obtaining and returning one object at a time;</li>
+ * <li>otherwise the idle entries are searched in the shared list of entries,
+ * which is only copied when an object is created or destroyed;</li>
+ * <li>threads are parked only when the pool is exhausted and the
+ * {@link SystemPooling#exhaustedActionType() exhausted action} is
+ * {@link SystemPooling#EXHAUSTED_BLOCK}, each returned or destroyed object
+ * unparks one of them.</li>
+ * </ul>
+ * The <code>maxPoolSize</code> bounds the number of objects held by the pool,
+ * that is the number of objects which can be obtained at a given time, a
+ * negative value meaning no limit.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see Pool
+ * @see CommonPool
+ * @see ProviderAware
+ * @see Initializing
+ */
+public class ConcurrentPool extends AbstractBaseFactory {
+	/** The state of an idle entry. */
+	static final int								IDLE		= 0;
+
+	/** The state of an obtained entry. */
+	static final int								BORROWED	= 1;
+
+	/** The state of an idle entry tested by the evictor. */
+	static final int								TESTING		= 2;
+
+	/** The state of a destroyed entry. */
+	static final int								REMOVED		= 3;
+
+	/** The entries of all objects held by the pool, idle or obtained. */
+	private final CopyOnWriteArrayList<PooledEntry>	entries		= new CopyOnWriteArrayList<PooledEntry>();
+
+	/** The entry each thread obtained or returned last. */
+	private final ThreadLocal<PooledEntry>			lastEntry	= new ThreadLocal<PooledEntry>();
+
+	/** The number of held objects, including the objects being created. */
+	private final AtomicInteger						size		= new AtomicInteger();
+
+	/** The threads waiting for an object. */
+	private final ConcurrentLinkedQueue<Waiter>		waiters		= new ConcurrentLinkedQueue<Waiter>();
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseFactory#initialize
+	 * ()
+	 */
+	@Override
+	public void initialize() {
+
+		super.initialize();
+		PoolStaticUtils.startEvictor(this.getEvictor(), this
+				.getTimeBetweenEvictionRuns(), this, this.isLifo());
+		try {
+			PoolStaticUtils.initIdleObject(this, this.minPoolSize);
+		}
+		catch (Exception e) {
+			if (log.isFatalEnabled()) {
+				log.fatal("Could not initialize min pool size !! ", e);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.services.objectpooling.Pool#addObject()
+	 */
+	@Override
+	public void addObject() throws UnsupportedOperationException, Exception {
+
+		assertDisable();
+		this.size.incrementAndGet();
+		releasesEntry(createsEntry());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.services.objectpooling.AbstractBaseFactory#clear()
+	 */
+	@Override
+	public void clear() throws UnsupportedOperationException, Exception {
+
+		for (PooledEntry entry : this.entries) {
+			if (entry.compareAndSet(IDLE, REMOVED)) {
+				removesEntry(entry);
+				try {
+					destroyObject(entry.value);
+				}
+				catch (Exception e) {
+					if (log.isErrorEnabled()) {
+						log.error("Could not destroy the object bean !! ", e);
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.services.objectpooling.Pool#close()
+	 */
+	@Override
+	public void close() throws Exception {
+
+		setEnable(false);
+		clear();
+		PoolStaticUtils.startEvictor(evictor, -1L, this, this.isLifo());
+		// the waiting threads wake up and fail on the disabled pool.
+		Waiter waiter;
+		while ((waiter = this.waiters.poll()) != null) {
+			waiter.signals();
+		}
+		unregistersMetrics();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.services.objectpooling.Pool#obtainObject()
+	 */
+	@Override
+	public Object obtainObject() throws NoSuchElementException, Exception {
+
+		long start = startsTiming();
+		long deadline = 0L;
+		long waitNanos = 0L;
+		boolean blocked = false;
+		while (true) {
+			assertDisable();
+			PooledEntry entry = claimsIdleEntry();
+			if (entry != null) {
+				if (activatesEntry(entry, false)) {
+					recordsObtain(entry.value, start, waitNanos);
+					return entry.value;
+				}
+				continue;
+			}
+			if (reservesSlot()) {
+				entry = createsEntry();
+				activatesEntry(entry, true);
+				recordsObtain(entry.value, start, waitNanos);
+				return entry.value;
+			}
+			switch (this.exhaustedActionType) {
+			case SystemPooling.EXHAUSTED_GROW:
+				this.size.incrementAndGet();
+				entry = createsEntry();
+				activatesEntry(entry, true);
+				recordsObtain(entry.value, start, waitNanos);
+				return entry.value;
+			case SystemPooling.EXHAUSTED_FAIL:
+				recordsFailure(false);
+				throw new NoSuchElementException("Pool exhausted !!");
+			case SystemPooling.EXHAUSTED_BLOCK:
+				if (!blocked) {
+					blocked = true;
+					deadline = System.nanoTime()
+							+ TimeUnit.MILLISECONDS
+									.toNanos(this.creationTimeOut);
+				}
+				final long waitStart = System.nanoTime();
+				awaits(this.creationTimeOut > 0, deadline);
+				waitNanos += System.nanoTime() - waitStart;
+				break;
+			default:
+				throw new IllegalArgumentException(
+						"ExhaustedActionType property "
+								+ this.exhaustedActionType + " not recognized.");
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseFactory#returnObject
+	 * (java.lang.Object)
+	 */
+	@Override
+	public void returnObject(Object obj) throws Exception {
+
+		long start = startsTiming();
+		PooledEntry entry = entryOf(obj);
+		if (entry == null) {
+			// an object which was not created by this pool is adopted.
+			this.size.incrementAndGet();
+			entry = new PooledEntry(obj);
+			this.entries.add(entry);
+		}
+		else if (entry.state != BORROWED) {
+			if (log.isWarnEnabled()) {
+				log.warn("The object bean [" + obj
+						+ "] is not obtained from the pool !!");
+			}
+			return;
+		}
+		else {
+			recordsReturn(start);
+		}
+		releasesEntry(entry);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseController#
+	 * invalidateObject(java.lang.Object)
+	 */
+	@Override
+	public void invalidateObject(Object obj) throws Exception {
+
+		long start = startsTiming();
+		PooledEntry entry = entryOf(obj);
+		try {
+			destroyObject(obj);
+		}
+		finally {
+			if (entry != null && entry.state == BORROWED) {
+				removesEntry(entry);
+				recordsReturn(start);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseController#getNumActive
+	 * ()
+	 */
+	@Override
+	public int getNumActive() {
+
+		return countsEntries(BORROWED);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseFactory#getNumIdle
+	 * ()
+	 */
+	@Override
+	public int getNumIdle() throws UnsupportedOperationException {
+
+		return countsEntries(IDLE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseFactory#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+
+		for (PooledEntry entry : this.entries) {
+			if (entry.state == IDLE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseFactory#evict
+	 * (boolean)
+	 */
+	@Override
+	protected void evict(boolean lifo) throws Exception {
+
+		assertDisable();
+		int numTests = PoolStaticUtils.getNumTests(this);
+		for (PooledEntry entry : this.entries) {
+			if (numTests <= 0) {
+				break;
+			}
+			// the tested entry can not be obtained meanwhile.
+			if (!entry.compareAndSet(IDLE, TESTING)) {
+				continue;
+			}
+			numTests--;
+			if (PoolStaticUtils.isEvictable(this, entry.value, entry.tstamp)) {
+				entry.state = REMOVED;
+				removesEntry(entry);
+				try {
+					destroyObject(entry.value);
+				}
+				catch (Throwable e) {
+				}
+			}
+			else {
+				entry.state = IDLE;
+				if (!this.waiters.isEmpty()) {
+					signalsWaiter();
+				}
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.AbstractBaseFactory#
+	 * destroysIdleObjects(int, boolean)
+	 */
+	@Override
+	protected int destroysIdleObjects(int count, boolean lifo) {
+
+		int destroyed = 0;
+		for (PooledEntry entry : this.entries) {
+			if (destroyed >= count) {
+				break;
+			}
+			if (entry.compareAndSet(IDLE, REMOVED)) {
+				destroyed++;
+				removesEntry(entry);
+				try {
+					destroyObject(entry.value);
+				}
+				catch (Throwable e) {
+				}
+			}
+		}
+		return destroyed;
+	}
+
+	/**
+	 * The objects are counted by their entries, the <code>numActive</code>
+	 * property is not maintained.
+	 */
+	@Override
+	protected void incrementsNumActive() {
+
+	}
+
+	/**
+	 * The objects are counted by their entries, the <code>numActive</code>
+	 * property is not maintained.
+	 */
+	@Override
+	protected void decrementsNumActive() {
+
+	}
+
+	/**
+	 * Activates and validates the given obtained entry. If the object can not
+	 * be activated or is invalid, it is destroyed.
+	 *
+	 * @param entry
+	 *            the entry
+	 * @param created
+	 *            <b>true</b> if the object has just been created, in which
+	 *            case a failure is thrown.
+	 * @return <b>true</b> if the object can be given out.
+	 * @throws Exception
+	 *             if the created object can not be activated or is invalid.
+	 */
+	private boolean activatesEntry(PooledEntry entry, boolean created)
+			throws Exception {
+
+		Exception failure = null;
+		try {
+			activatesObject(entry.value);
+			if (invokesValidate(entry.value)) {
+				return true;
+			}
+			failure = new NoSuchElementException("Validate failed !!");
+		}
+		catch (Exception e) {
+			failure = e;
+		}
+		entry.state = REMOVED;
+		removesEntry(entry);
+		try {
+			destroyObject(entry.value);
+		}
+		catch (Exception e) {
+			if (log.isErrorEnabled()) {
+				log.error("Could not destroy the object bean !! ", e);
+			}
+		}
+		if (created) {
+			throw failure;
+		}
+		return false;
+	}
+
+	/**
+	 * Parks the current thread until an object is returned to or destroyed by
+	 * the pool.
+	 *
+	 * @param timed
+	 *            <b>true</b> if the deadline applies
+	 * @param deadline
+	 *            the deadline, as returned by {@link System#nanoTime()}
+	 * @throws NoSuchElementException
+	 *             if the deadline is passed or the thread is interrupted.
+	 */
+	private void awaits(boolean timed, long deadline)
+			throws NoSuchElementException {
+
+		Waiter waiter = new Waiter();
+		this.waiters.offer(waiter);
+		// an object returned before the waiter was queued did not signal it.
+		if (!isEmpty() || hasFreeSlot()) {
+			cancels(waiter);
+			return;
+		}
+		while (waiter.state.get() == Waiter.WAITING) {
+			if (timed) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					if (cancels(waiter)) {
+						recordsFailure(true);
+						throw new NoSuchElementException(
+								"Timeout waiting for idle object");
+					}
+					return;
+				}
+				LockSupport.parkNanos(this, remaining);
+			}
+			else {
+				LockSupport.park(this);
+			}
+			if (Thread.interrupted()) {
+				if (!cancels(waiter)) {
+					signalsWaiter();
+				}
+				Thread.currentThread().interrupt();
+				throw new NoSuchElementException(
+						"Interrupted while waiting for idle object");
+			}
+		}
+	}
+
+	/**
+	 * Cancels the given waiter.
+	 *
+	 * @param waiter
+	 *            the waiter
+	 * @return <b>false</b> if the waiter has already been signalled.
+	 */
+	private boolean cancels(Waiter waiter) {
+
+		if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+			this.waiters.remove(waiter);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Obtains an idle entry, the entry the current thread used last first.
+	 *
+	 * @return the obtained entry, or <b>null</b> if there is no idle entry.
+	 */
+	private PooledEntry claimsIdleEntry() {
+
+		PooledEntry last = this.lastEntry.get();
+		if (last != null && last.compareAndSet(IDLE, BORROWED)) {
+			return last;
+		}
+		for (PooledEntry entry : this.entries) {
+			if (entry.state == IDLE && entry.compareAndSet(IDLE, BORROWED)) {
+				this.lastEntry.set(entry);
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Counts the entries in the given state.
+	 *
+	 * @param state
+	 *            the state
+	 */
+	private int countsEntries(int state) {
+
+		int result = 0;
+		for (PooledEntry entry : this.entries) {
+			if (entry.state == state) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates an object bean and its obtained entry, the slot of which has
+	 * already been reserved.
+	 *
+	 * @return the entry
+	 * @throws PoolOperationException
+	 *             if the object bean can not be created.
+	 */
+	private PooledEntry createsEntry() {
+
+		Object obj = null;
+		try {
+			obj = createsBean();
+		}
+		catch (Exception e) {
+			// the cause has been logged.
+		}
+		if (obj == null) {
+			releasesSlot();
+			throw new PoolOperationException(
+					"The object bean can not be created !!");
+		}
+		PooledEntry result = new PooledEntry(obj);
+		this.entries.add(result);
+		this.lastEntry.set(result);
+		return result;
+	}
+
+	/**
+	 * Returns the entry of the given object, the entry the current thread
+	 * used last first.
+	 *
+	 * @param obj
+	 *            the object
+	 * @return the entry, or <b>null</b> if the object is not held by the pool.
+	 */
+	private PooledEntry entryOf(Object obj) {
+
+		PooledEntry last = this.lastEntry.get();
+		if (last != null && last.value == obj && last.state != REMOVED) {
+			return last;
+		}
+		for (PooledEntry entry : this.entries) {
+			if (entry.value == obj) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns <b>true</b> if an object can be created without exceeding the
+	 * <code>maxPoolSize</code>.
+	 */
+	private boolean hasFreeSlot() {
+
+		int max = this.maxPoolSize;
+		return max < 0 || this.size.get() < max;
+	}
+
+	/**
+	 * Makes the given obtained entry idle, or destroys its object if it can
+	 * not be pooled.
+	 *
+	 * @param entry
+	 *            the entry
+	 * @throws Exception
+	 *             if the object can not be destroyed.
+	 */
+	private void releasesEntry(PooledEntry entry) throws Exception {
+
+		Object obj = entry.value;
+		boolean pooled = isEnable();
+		if (pooled) {
+			try {
+				pooled = invokesCanBePooled(obj);
+				if (pooled) {
+					invokesDeactivate(obj);
+				}
+			}
+			catch (Exception e) {
+				pooled = false;
+			}
+		}
+		int max = this.maxIdle;
+		if (pooled && max >= 0 && this.size.get() > max
+				&& getNumIdle() >= max) {
+			pooled = false;
+		}
+		if (pooled) {
+			entry.tstamp = System.currentTimeMillis();
+			entry.state = IDLE;
+			if (this.lastEntry.get() != entry) {
+				this.lastEntry.set(entry);
+			}
+			if (!this.waiters.isEmpty()) {
+				signalsWaiter();
+			}
+		}
+		else {
+			entry.state = REMOVED;
+			removesEntry(entry);
+			destroyObject(obj);
+		}
+	}
+
+	/**
+	 * Releases the slot of an object which is not held by the pool any more.
+	 */
+	private void releasesSlot() {
+
+		this.size.decrementAndGet();
+		if (!this.waiters.isEmpty()) {
+			signalsWaiter();
+		}
+	}
+
+	/**
+	 * Removes the given entry from the pool.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void removesEntry(PooledEntry entry) {
+
+		if (this.entries.remove(entry)) {
+			releasesSlot();
+		}
+	}
+
+	/**
+	 * Reserves the slot of a new object if the <code>maxPoolSize</code> is not
+	 * reached.
+	 *
+	 * @return <b>true</b> if the slot is reserved.
+	 */
+	private boolean reservesSlot() {
+
+		while (true) {
+			int current = this.size.get();
+			int max = this.maxPoolSize;
+			if (max >= 0 && current >= max) {
+				return false;
+			}
+			if (this.size.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Wakes up one of the waiting threads.
+	 */
+	private void signalsWaiter() {
+
+		Waiter waiter;
+		while ((waiter = this.waiters.poll()) != null) {
+			if (waiter.signals()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * The entry of a pooled object.
+	 */
+	static final class PooledEntry {
+		/** The updater of state. */
+		private static final AtomicIntegerFieldUpdater<PooledEntry>	STATE	= AtomicIntegerFieldUpdater
+																.newUpdater(PooledEntry.class, "state");
+
+		/** The object. */
+		final Object	value;
+
+		/** The state. */
+		volatile int	state	= BORROWED;
+
+		/** The time the object was made idle. */
+		volatile long	tstamp;
+
+		/**
+		 * Constructor, the entry is obtained.
+		 *
+		 * @param value
+		 *            the object
+		 */
+		PooledEntry(Object value) {
+
+			this.value = value;
+			this.tstamp = System.currentTimeMillis();
+		}
+
+		/**
+		 * Atomically sets the state to the given updated value if the current
+		 * state is the expected value.
+		 *
+		 * @param expect
+		 *            the expected state
+		 * @param update
+		 *            the new state
+		 * @return <b>true</b> if successful.
+		 */
+		boolean compareAndSet(int expect, int update) {
+
+			return STATE.compareAndSet(this, expect, update);
+		}
+	}
+
+	/**
+	 * A thread waiting for an object.
+	 */
+	static final class Waiter {
+		/** The state of a waiting thread. */
+		static final int	WAITING		= 0;
+
+		/** The state of a signalled thread. */
+		static final int	SIGNALLED	= 1;
+
+		/** The state of a thread which stopped waiting. */
+		static final int	CANCELLED	= 2;
+
+		/** The state. */
+		final AtomicInteger	state		= new AtomicInteger(WAITING);
+
+		/** The thread. */
+		final Thread		thread		= Thread.currentThread();
+
+		/**
+		 * Wakes up the thread if it is still waiting.
+		 *
+		 * @return <b>true</b> if the thread was waiting.
+		 */
+		boolean signals() {
+
+			if (this.state.compareAndSet(WAITING, SIGNALLED)) {
+				LockSupport.unpark(this.thread);
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -17,22 +17,28 @@
  */
 package org.jgentleframework.services.objectpooling;
 
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
 
 /**
- * The idle object evictor {@link TimerTask}.
+ * The idle object evictor task, run by the eviction scheduler shared by all
+ * pools (see
+ * {@link PoolStaticUtils#startEvictor(Evictor, long, AbstractBaseFactory, boolean)}
+ * ).
  * 
  * @author Quoc Chung - mailto: <a
  *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
  * @date Apr 13, 2009
  */
-public class Evictor extends TimerTask {
+public class Evictor implements Runnable {
 	/** The base pool. */
 	private final AbstractBaseFactory	basePool;
 
 	/** The lifo. */
 	private final boolean				lifo;
 
+	/** The scheduled execution, <b>null</b> if not scheduled. */
+	volatile ScheduledFuture<?>			future;
+
 	/**
 	 * Instantiates a new evictor.
 	 * 
@@ -49,18 +55,24 @@ public class Evictor extends TimerTask {
 
 	/*
 	 * (non-Javadoc)
-	 * @see java.util.TimerTask#run()
+	 * @see java.lang.Runnable#run()
 	 */
+	@Override
 	public void run() {
 
 		try {
-			PoolStaticUtils.evict(this.basePool, this.lifo);
+			this.basePool.evict(this.lifo);
 		}
 		catch (Exception e) {
 			// ignored
 		}
 		try {
-			PoolStaticUtils.ensureMinIdle(this.basePool);
+			if (this.basePool.getSizingPolicy() != null) {
+				PoolStaticUtils.resize(this.basePool, this.lifo);
+			}
+			else {
+				PoolStaticUtils.ensureMinIdle(this.basePool);
+			}
 		}
 		catch (Throwable e) {
 			// ignored
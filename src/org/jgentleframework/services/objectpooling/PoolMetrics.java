@@ -0,0 +1,1088 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.services.objectpooling;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.context.injecting.ContainerMetrics;
+import org.jgentleframework.utils.data.LatencyHistogram;
+import org.jgentleframework.utils.data.StripedCounter;
+
+/**
+ * Collects the runtime statistics of one pool: obtain and return latencies,
+ * the time obtains were blocked, creation, validation and destruction counts
+ * and latencies, exhaustion and timeout counts, and the age and use count of
+ * each object held by the pool. The statistics are exposed through
+ * {@link #snapshot()} and, once {@link #registerMBean() registered}, as a JMX
+ * MBean.
+ * <p>
+ * Like {@link ContainerMetrics}, pool metrics are enabled through the system
+ * property {@value ContainerMetrics#METRICS_PROPERTY}. When they are disabled,
+ * the pool has no {@link PoolMetrics} and instrumented code paths only perform
+ * a null check. Recording never locks: counters are striped between threads
+ * and objects are tracked in a concurrent map which does not keep them
+ * reachable.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see BasePooling#getMetrics()
+ */
+public class PoolMetrics implements PoolMetricsMBean {
+	/** The MBean id counter. */
+	private static final AtomicInteger						idCounter			= new AtomicInteger();
+
+	/** The log. */
+	private static final Log								log					= LogFactory
+																						.getLog(PoolMetrics.class);
+
+	/** The pool. */
+	private final BasePooling								pool;
+
+	/** The name of the pool. */
+	private final String									poolName;
+
+	/** The obtain latencies. */
+	private final LatencyHistogram							obtains				= new LatencyHistogram();
+
+	/** The time blocked obtains waited for an object. */
+	private final LatencyHistogram							blocked				= new LatencyHistogram();
+
+	/** The return latencies. */
+	private final LatencyHistogram							returns				= new LatencyHistogram();
+
+	/** The creation latencies. */
+	private final LatencyHistogram							creations			= new LatencyHistogram();
+
+	/** The validation latencies. */
+	private final LatencyHistogram							validations			= new LatencyHistogram();
+
+	/** The destruction latencies. */
+	private final LatencyHistogram							destructions		= new LatencyHistogram();
+
+	/** The lifetimes of destroyed objects. */
+	private final LatencyHistogram							lifetimes			= new LatencyHistogram();
+
+	/** The failed creations. */
+	private final StripedCounter							creationFailures	= new StripedCounter();
+
+	/** The failed validations. */
+	private final StripedCounter							validationFailures	= new StripedCounter();
+
+	/** The obtains which failed on an exhausted pool. */
+	private final StripedCounter							exhaustions			= new StripedCounter();
+
+	/** The obtains which timed out. */
+	private final StripedCounter							timeouts			= new StripedCounter();
+
+	/** The tracked objects. */
+	private final ConcurrentMap<Object, ObjectRecord>		objects				= new ConcurrentHashMap<Object, ObjectRecord>();
+
+	/** The keys of tracked objects which have been garbage collected. */
+	private final ReferenceQueue<Object>					collected			= new ReferenceQueue<Object>();
+
+	/** The registered MBean name, or <b>null</b>. */
+	private ObjectName										objectName			= null;
+
+	/**
+	 * Instantiates new metrics of the given pool.
+	 *
+	 * @param pool
+	 *            the pool
+	 * @param poolName
+	 *            the name of the pool
+	 */
+	public PoolMetrics(BasePooling pool, String poolName) {
+
+		this.pool = pool;
+		this.poolName = poolName;
+	}
+
+	/**
+	 * Returns <b>true</b> if metrics are enabled.
+	 *
+	 * @see ContainerMetrics#isEnabled()
+	 */
+	public static boolean isEnabled() {
+
+		return ContainerMetrics.isEnabled();
+	}
+
+	/**
+	 * Records an obtained object.
+	 *
+	 * @param obj
+	 *            the object
+	 * @param nanos
+	 *            the obtain latency, in nanoseconds.
+	 * @param waitNanos
+	 *            the time the obtain was blocked, in nanoseconds, 0 if it was
+	 *            not.
+	 */
+	public void obtained(Object obj, long nanos, long waitNanos) {
+
+		this.obtains.record(nanos);
+		if (waitNanos > 0) {
+			this.blocked.record(waitNanos);
+		}
+		if (obj != null) {
+			recordOf(obj).uses.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records a returned or invalidated object.
+	 *
+	 * @param nanos
+	 *            the return latency, in nanoseconds.
+	 */
+	public void returned(long nanos) {
+
+		this.returns.record(nanos);
+	}
+
+	/**
+	 * Records an obtain which failed on an exhausted pool.
+	 */
+	public void exhausted() {
+
+		this.exhaustions.increment();
+	}
+
+	/**
+	 * Records an obtain which timed out.
+	 */
+	public void timedOut() {
+
+		this.timeouts.increment();
+	}
+
+	/**
+	 * Records a created object.
+	 *
+	 * @param obj
+	 *            the object
+	 * @param nanos
+	 *            the creation latency, in nanoseconds.
+	 */
+	public void created(Object obj, long nanos) {
+
+		this.creations.record(nanos);
+		recordOf(obj);
+	}
+
+	/**
+	 * Records an object which could not be created.
+	 */
+	public void creationFailed() {
+
+		this.creationFailures.increment();
+	}
+
+	/**
+	 * Records a validated object.
+	 *
+	 * @param nanos
+	 *            the validation latency, in nanoseconds.
+	 * @param valid
+	 *            <b>false</b> if the object was found invalid.
+	 */
+	public void validated(long nanos, boolean valid) {
+
+		this.validations.record(nanos);
+		if (!valid) {
+			this.validationFailures.increment();
+		}
+	}
+
+	/**
+	 * Records a destroyed object.
+	 *
+	 * @param obj
+	 *            the object
+	 * @param nanos
+	 *            the destruction latency, in nanoseconds.
+	 */
+	public void destroyed(Object obj, long nanos) {
+
+		this.destructions.record(nanos);
+		ObjectRecord record = this.objects.remove(new LookupKey(obj));
+		if (record != null) {
+			this.lifetimes.record(System.nanoTime() - record.created);
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the current statistics.
+	 */
+	public Snapshot snapshot() {
+
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Registers this object to the platform MBean server under the domain
+	 * {@value ContainerMetrics#JMX_DOMAIN}. Calling this method again has no
+	 * effect.
+	 *
+	 * @return the name of the registered MBean, or <b>null</b> if it could not
+	 *         be registered.
+	 */
+	public synchronized ObjectName registerMBean() {
+
+		if (this.objectName == null) {
+			try {
+				ObjectName name = new ObjectName(ContainerMetrics.JMX_DOMAIN
+						+ ":type=PoolMetrics,pool="
+						+ ObjectName.quote(this.poolName) + ",id="
+						+ idCounter.incrementAndGet());
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+						name);
+				this.objectName = name;
+			}
+			catch (JMException e) {
+				if (log.isWarnEnabled()) {
+					log.warn("Could not register pool metrics MBean !", e);
+				}
+			}
+		}
+		return this.objectName;
+	}
+
+	/**
+	 * Unregisters this object from the platform MBean server.
+	 */
+	public synchronized void unregisterMBean() {
+
+		if (this.objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+						this.objectName);
+			}
+			catch (JMException e) {
+				if (log.isWarnEnabled()) {
+					log.warn("Could not unregister pool metrics MBean !", e);
+				}
+			}
+			this.objectName = null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.PoolMetricsMBean#getPoolName()
+	 */
+	@Override
+	public String getPoolName() {
+
+		return this.poolName;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.PoolMetricsMBean#getNumActive
+	 * ()
+	 */
+	@Override
+	public int getNumActive() {
+
+		return this.pool.getNumActive();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.PoolMetricsMBean#getNumIdle()
+	 */
+	@Override
+	public int getNumIdle() {
+
+		return this.pool.getNumIdle();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.PoolMetricsMBean#getObtainCount
+	 * ()
+	 */
+	@Override
+	public long getObtainCount() {
+
+		return this.obtains.getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.PoolMetricsMBean#getReturnCount
+	 * ()
+	 */
+	@Override
+	public long getReturnCount() {
+
+		return this.returns.getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.PoolMetricsMBean#getBlockedCount
+	 * ()
+	 */
+	@Override
+	public long getBlockedCount() {
+
+		return this.blocked.getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getExhaustedCount()
+	 */
+	@Override
+	public long getExhaustedCount() {
+
+		return this.exhaustions.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * org.jgentleframework.services.objectpooling.PoolMetricsMBean#getTimeoutCount
+	 * ()
+	 */
+	@Override
+	public long getTimeoutCount() {
+
+		return this.timeouts.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getCreationCount()
+	 */
+	@Override
+	public long getCreationCount() {
+
+		return this.creations.getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getCreationFailureCount()
+	 */
+	@Override
+	public long getCreationFailureCount() {
+
+		return this.creationFailures.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getValidationCount()
+	 */
+	@Override
+	public long getValidationCount() {
+
+		return this.validations.getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getValidationFailureCount()
+	 */
+	@Override
+	public long getValidationFailureCount() {
+
+		return this.validationFailures.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getDestructionCount()
+	 */
+	@Override
+	public long getDestructionCount() {
+
+		return this.destructions.getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getLatencyStatistics()
+	 */
+	@Override
+	public String[] getLatencyStatistics() {
+
+		List<LatencyStatistics> list = snapshot().getLatencies();
+		String[] result = new String[list.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = list.get(i).toString();
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @seeorg.jgentleframework.services.objectpooling.PoolMetricsMBean#
+	 * getObjectStatistics()
+	 */
+	@Override
+	public String[] getObjectStatistics() {
+
+		List<ObjectStatistics> list = snapshot().getObjects();
+		String[] result = new String[list.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = list.get(i).toString();
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jgentleframework.services.objectpooling.PoolMetricsMBean#reset()
+	 */
+	@Override
+	public void reset() {
+
+		this.obtains.reset();
+		this.blocked.reset();
+		this.returns.reset();
+		this.creations.reset();
+		this.validations.reset();
+		this.destructions.reset();
+		this.lifetimes.reset();
+		this.creationFailures.reset();
+		this.validationFailures.reset();
+		this.exhaustions.reset();
+		this.timeouts.reset();
+		for (ObjectRecord record : this.objects.values()) {
+			record.uses.set(0);
+		}
+	}
+
+	/**
+	 * Removes the records of the tracked objects which have been garbage
+	 * collected without being destroyed.
+	 */
+	private void expunges() {
+
+		Reference<? extends Object> key;
+		while ((key = this.collected.poll()) != null) {
+			this.objects.remove(key);
+		}
+	}
+
+	/**
+	 * Returns the record of the given object, which is tracked from now on if
+	 * it is not yet.
+	 *
+	 * @param obj
+	 *            the object
+	 */
+	private ObjectRecord recordOf(Object obj) {
+
+		ObjectRecord result = this.objects.get(new LookupKey(obj));
+		if (result == null) {
+			expunges();
+			result = new ObjectRecord(obj);
+			ObjectRecord existing = this.objects.putIfAbsent(new TrackedKey(
+					obj, this.collected), result);
+			result = existing != null ? existing : result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the object referred to by the given key.
+	 */
+	private static Object referentOf(Object key) {
+
+		if (key instanceof TrackedKey) {
+			return ((TrackedKey) key).get();
+		}
+		else if (key instanceof LookupKey) {
+			return ((LookupKey) key).obj;
+		}
+		return null;
+	}
+
+	/**
+	 * The key of an object looked up in the tracked objects, which compares
+	 * objects by identity.
+	 */
+	private static final class LookupKey {
+		/** The object. */
+		private final Object	obj;
+
+		/**
+		 * Instantiates a new lookup key.
+		 *
+		 * @param obj
+		 *            the object
+		 */
+		LookupKey(Object obj) {
+
+			this.obj = obj;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object other) {
+
+			return other == this || this.obj == referentOf(other);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return System.identityHashCode(this.obj);
+		}
+	}
+
+	/**
+	 * The key of a tracked object, which compares objects by identity and does
+	 * not keep its object reachable.
+	 */
+	private static final class TrackedKey extends WeakReference<Object> {
+		/** The identity hash code of the object. */
+		private final int	hash;
+
+		/**
+		 * Instantiates a new tracked key.
+		 *
+		 * @param obj
+		 *            the object
+		 * @param queue
+		 *            the queue the key is enqueued to once the object is
+		 *            garbage collected
+		 */
+		TrackedKey(Object obj, ReferenceQueue<Object> queue) {
+
+			super(obj, queue);
+			this.hash = System.identityHashCode(obj);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object other) {
+
+			if (other == this) {
+				return true;
+			}
+			Object obj = get();
+			return obj != null && obj == referentOf(other);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return this.hash;
+		}
+	}
+
+	/**
+	 * The record of a tracked object.
+	 */
+	private static final class ObjectRecord {
+		/** The display name of the object. */
+		private final String		name;
+
+		/** The time the object was tracked, as returned by System#nanoTime(). */
+		private final long			created	= System.nanoTime();
+
+		/** The number of times the object was obtained. */
+		private final AtomicLong	uses	= new AtomicLong();
+
+		/**
+		 * Instantiates a new record of the given object.
+		 *
+		 * @param obj
+		 *            the object
+		 */
+		ObjectRecord(Object obj) {
+
+			this.name = obj.getClass().getName() + "@"
+					+ Integer.toHexString(System.identityHashCode(obj));
+		}
+	}
+
+	/**
+	 * An immutable copy of the statistics of a {@link PoolMetrics}.
+	 */
+	public static final class Snapshot {
+		/** The name of the pool. */
+		private final String					poolName;
+
+		/** The number of obtained objects. */
+		private final int						numActive;
+
+		/** The number of idle objects. */
+		private final int						numIdle;
+
+		/** The obtains which failed on an exhausted pool. */
+		private final long						exhaustedCount;
+
+		/** The obtains which timed out. */
+		private final long						timeoutCount;
+
+		/** The failed creations. */
+		private final long						creationFailureCount;
+
+		/** The failed validations. */
+		private final long						validationFailureCount;
+
+		/** The obtain latencies. */
+		private final LatencyStatistics			obtain;
+
+		/** The time blocked obtains waited for an object. */
+		private final LatencyStatistics			blocked;
+
+		/** The return latencies. */
+		private final LatencyStatistics			returns;
+
+		/** The creation latencies. */
+		private final LatencyStatistics			creation;
+
+		/** The validation latencies. */
+		private final LatencyStatistics			validation;
+
+		/** The destruction latencies. */
+		private final LatencyStatistics			destruction;
+
+		/** The lifetimes of destroyed objects. */
+		private final LatencyStatistics			lifetime;
+
+		/** The tracked objects, the oldest first. */
+		private final List<ObjectStatistics>	objects;
+
+		/**
+		 * Copies the statistics of the given metrics.
+		 *
+		 * @param metrics
+		 *            the metrics
+		 */
+		Snapshot(PoolMetrics metrics) {
+
+			this.poolName = metrics.getPoolName();
+			this.numActive = metrics.getNumActive();
+			this.numIdle = metrics.getNumIdle();
+			this.exhaustedCount = metrics.getExhaustedCount();
+			this.timeoutCount = metrics.getTimeoutCount();
+			this.creationFailureCount = metrics.getCreationFailureCount();
+			this.validationFailureCount = metrics.getValidationFailureCount();
+			this.obtain = new LatencyStatistics("obtain", metrics.obtains);
+			this.blocked = new LatencyStatistics("blocked", metrics.blocked);
+			this.returns = new LatencyStatistics("return", metrics.returns);
+			this.creation = new LatencyStatistics("creation",
+					metrics.creations);
+			this.validation = new LatencyStatistics("validation",
+					metrics.validations);
+			this.destruction = new LatencyStatistics("destruction",
+					metrics.destructions);
+			this.lifetime = new LatencyStatistics("lifetime",
+					metrics.lifetimes);
+			metrics.expunges();
+			long now = System.nanoTime();
+			List<ObjectStatistics> list = new ArrayList<ObjectStatistics>();
+			for (ObjectRecord record : metrics.objects.values()) {
+				list.add(new ObjectStatistics(record.name, now
+						- record.created, record.uses.get()));
+			}
+			Collections.sort(list, new Comparator<ObjectStatistics>() {
+				@Override
+				public int compare(ObjectStatistics o1, ObjectStatistics o2) {
+
+					return o1.age < o2.age ? 1 : o1.age == o2.age ? 0 : -1;
+				}
+			});
+			this.objects = Collections.unmodifiableList(list);
+		}
+
+		/**
+		 * Returns the name of the pool.
+		 */
+		public String getPoolName() {
+
+			return this.poolName;
+		}
+
+		/**
+		 * Returns the number of obtained objects.
+		 */
+		public int getNumActive() {
+
+			return this.numActive;
+		}
+
+		/**
+		 * Returns the number of idle objects.
+		 */
+		public int getNumIdle() {
+
+			return this.numIdle;
+		}
+
+		/**
+		 * Returns the number of obtains which failed on an exhausted pool.
+		 */
+		public long getExhaustedCount() {
+
+			return this.exhaustedCount;
+		}
+
+		/**
+		 * Returns the number of obtains which timed out.
+		 */
+		public long getTimeoutCount() {
+
+			return this.timeoutCount;
+		}
+
+		/**
+		 * Returns the number of objects which could not be created.
+		 */
+		public long getCreationFailureCount() {
+
+			return this.creationFailureCount;
+		}
+
+		/**
+		 * Returns the number of objects found invalid.
+		 */
+		public long getValidationFailureCount() {
+
+			return this.validationFailureCount;
+		}
+
+		/**
+		 * Returns the obtain latencies.
+		 */
+		public LatencyStatistics getObtain() {
+
+			return this.obtain;
+		}
+
+		/**
+		 * Returns the time blocked obtains waited for an object.
+		 */
+		public LatencyStatistics getBlocked() {
+
+			return this.blocked;
+		}
+
+		/**
+		 * Returns the return latencies.
+		 */
+		public LatencyStatistics getReturn() {
+
+			return this.returns;
+		}
+
+		/**
+		 * Returns the creation latencies.
+		 */
+		public LatencyStatistics getCreation() {
+
+			return this.creation;
+		}
+
+		/**
+		 * Returns the validation latencies.
+		 */
+		public LatencyStatistics getValidation() {
+
+			return this.validation;
+		}
+
+		/**
+		 * Returns the destruction latencies.
+		 */
+		public LatencyStatistics getDestruction() {
+
+			return this.destruction;
+		}
+
+		/**
+		 * Returns the lifetimes of destroyed objects.
+		 */
+		public LatencyStatistics getLifetime() {
+
+			return this.lifetime;
+		}
+
+		/**
+		 * Returns all latency statistics, in the order of the getters.
+		 */
+		public List<LatencyStatistics> getLatencies() {
+
+			List<LatencyStatistics> result = new ArrayList<LatencyStatistics>();
+			result.add(this.obtain);
+			result.add(this.blocked);
+			result.add(this.returns);
+			result.add(this.creation);
+			result.add(this.validation);
+			result.add(this.destruction);
+			result.add(this.lifetime);
+			return result;
+		}
+
+		/**
+		 * Returns the statistics of the tracked objects, the oldest first.
+		 */
+		public List<ObjectStatistics> getObjects() {
+
+			return this.objects;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			StringBuilder result = new StringBuilder(this.poolName);
+			result.append(" active=").append(this.numActive);
+			result.append(" idle=").append(this.numIdle);
+			result.append(" exhausted=").append(this.exhaustedCount);
+			result.append(" timeouts=").append(this.timeoutCount);
+			result.append(" creationFailures=").append(
+					this.creationFailureCount);
+			result.append(" validationFailures=").append(
+					this.validationFailureCount);
+			for (LatencyStatistics statistics : getLatencies()) {
+				result.append("\n  ").append(statistics);
+			}
+			for (ObjectStatistics statistics : this.objects) {
+				result.append("\n  ").append(statistics);
+			}
+			return result.toString();
+		}
+	}
+
+	/**
+	 * The latency statistics of one pool operation. Latencies are in
+	 * nanoseconds, percentiles are upper bounds with a relative error of at
+	 * most a factor of two.
+	 */
+	public static final class LatencyStatistics {
+		/** The operation name. */
+		private final String	name;
+
+		/** The number of operations. */
+		private final long		count;
+
+		/** The mean latency. */
+		private final long		mean;
+
+		/** The median latency. */
+		private final long		p50;
+
+		/** The 99th percentile latency. */
+		private final long		p99;
+
+		/** The max latency. */
+		private final long		max;
+
+		/**
+		 * Copies the given histogram.
+		 *
+		 * @param name
+		 *            the operation name
+		 * @param histogram
+		 *            the histogram
+		 */
+		LatencyStatistics(String name, LatencyHistogram histogram) {
+
+			this.name = name;
+			this.count = histogram.getCount();
+			this.mean = histogram.getMean();
+			this.p50 = histogram.getPercentile(50);
+			this.p99 = histogram.getPercentile(99);
+			this.max = histogram.getMax();
+		}
+
+		/**
+		 * Returns the operation name.
+		 */
+		public String getName() {
+
+			return this.name;
+		}
+
+		/**
+		 * Returns the number of operations.
+		 */
+		public long getCount() {
+
+			return this.count;
+		}
+
+		/**
+		 * Returns the mean latency.
+		 */
+		public long getMean() {
+
+			return this.mean;
+		}
+
+		/**
+		 * Returns the median latency.
+		 */
+		public long getP50() {
+
+			return this.p50;
+		}
+
+		/**
+		 * Returns the 99th percentile latency.
+		 */
+		public long getP99() {
+
+			return this.p99;
+		}
+
+		/**
+		 * Returns the max latency.
+		 */
+		public long getMax() {
+
+			return this.max;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			return this.name + " count=" + this.count + " mean=" + this.mean
+					+ "ns p50<=" + this.p50 + "ns p99<=" + this.p99 + "ns max="
+					+ this.max + "ns";
+		}
+	}
+
+	/**
+	 * The statistics of one object held by a pool.
+	 */
+	public static final class ObjectStatistics {
+		/** The display name of the object. */
+		private final String	name;
+
+		/** The age of the object, in nanoseconds. */
+		private final long		age;
+
+		/** The number of times the object was obtained. */
+		private final long		uses;
+
+		/**
+		 * Instantiates new object statistics.
+		 *
+		 * @param name
+		 *            the display name of the object
+		 * @param age
+		 *            the age of the object, in nanoseconds
+		 * @param uses
+		 *            the number of times the object was obtained
+		 */
+		ObjectStatistics(String name, long age, long uses) {
+
+			this.name = name;
+			this.age = age;
+			this.uses = uses;
+		}
+
+		/**
+		 * Returns the display name of the object.
+		 */
+		public String getName() {
+
+			return this.name;
+		}
+
+		/**
+		 * Returns the age of the object, in nanoseconds.
+		 */
+		public long getAge() {
+
+			return this.age;
+		}
+
+		/**
+		 * Returns the number of times the object was obtained since it was
+		 * created or the metrics were reset.
+		 */
+		public long getUses() {
+
+			return this.uses;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+
+			return this.name + " age=" + this.age / 1000000L + "ms uses="
+					+ this.uses;
+		}
+	}
+}
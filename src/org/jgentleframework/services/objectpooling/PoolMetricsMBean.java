@@ -0,0 +1,114 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.services.objectpooling;
+
+/**
+ * The management interface of {@link PoolMetrics}.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see PoolMetrics
+ */
+public interface PoolMetricsMBean {
+	/**
+	 * Returns the name of the pool, that is the name of its pooled class.
+	 */
+	public String getPoolName();
+
+	/**
+	 * Returns the number of obtained objects.
+	 */
+	public int getNumActive();
+
+	/**
+	 * Returns the number of idle objects.
+	 */
+	public int getNumIdle();
+
+	/**
+	 * Returns the number of objects obtained from the pool.
+	 */
+	public long getObtainCount();
+
+	/**
+	 * Returns the number of objects returned to or invalidated by the pool.
+	 */
+	public long getReturnCount();
+
+	/**
+	 * Returns the number of obtains which were blocked until an object was
+	 * returned or created.
+	 */
+	public long getBlockedCount();
+
+	/**
+	 * Returns the number of obtains which failed because the pool was
+	 * exhausted.
+	 */
+	public long getExhaustedCount();
+
+	/**
+	 * Returns the number of obtains which timed out waiting for an object.
+	 */
+	public long getTimeoutCount();
+
+	/**
+	 * Returns the number of created objects.
+	 */
+	public long getCreationCount();
+
+	/**
+	 * Returns the number of objects which could not be created.
+	 */
+	public long getCreationFailureCount();
+
+	/**
+	 * Returns the number of validated objects.
+	 */
+	public long getValidationCount();
+
+	/**
+	 * Returns the number of objects found invalid.
+	 */
+	public long getValidationFailureCount();
+
+	/**
+	 * Returns the number of destroyed objects.
+	 */
+	public long getDestructionCount();
+
+	/**
+	 * Returns the latency statistics of obtains, blocked obtains, returns,
+	 * creations, validations, destructions and object lifetimes, one line per
+	 * operation.
+	 */
+	public String[] getLatencyStatistics();
+
+	/**
+	 * Returns the age and use count of each object held by the pool, one line
+	 * per object, the oldest first.
+	 */
+	public String[] getObjectStatistics();
+
+	/**
+	 * Resets all counters. The tracked objects are kept, their use counts are
+	 * reset.
+	 */
+	public void reset();
+}
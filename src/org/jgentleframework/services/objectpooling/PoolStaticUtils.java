@@ -17,12 +17,19 @@
  */
 package org.jgentleframework.services.objectpooling;
 
-import java.util.Iterator;
-import java.util.NoSuchElementException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Stack;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jgentleframework.utils.ReflectUtils;
 import org.jgentleframework.utils.data.TimestampObjectBean;
@@ -37,78 +44,207 @@ import org.jgentleframework.utils.data.TimestampObjectBean;
 public final class PoolStaticUtils {
 	// private final static Log log = LogFactory.getLog(PoolUtils.class);
 	/**
-	 * Provides a shared idle object eviction timer for all pools. This class
-	 * wraps the standard {@link Timer} and keeps track of how many pools are
-	 * using it. If no pools are using the timer, it is canceled. This prevents
-	 * a thread being left running which, in application server environments,
-	 * can lead to memory leads and/or prevent applications from shutting down
-	 * or reloading cleanly.
+	 * Provides a shared idle object eviction scheduler for all pools. This
+	 * class wraps a {@link ScheduledThreadPoolExecutor} of daemon threads, so
+	 * that the evictors of different pools run concurrently, and keeps track
+	 * of how many pools are using it. If no pools are using the scheduler, it
+	 * is shut down. This prevents a thread being left running which, in
+	 * application server environments, can lead to memory leads and/or
+	 * prevent applications from shutting down or reloading cleanly.
 	 * <p>
 	 * This class has package scope to prevent its inclusion in the pool public
 	 * API. The class declaration below should *not* be changed to public.
 	 */
-	static class EvictionTimer {
-		/** The _timer. */
-		private static Timer	timer;
+	static class EvictionScheduler {
+		/** The executor. */
+		private static ScheduledThreadPoolExecutor	executor;
 
-		/** The _usage count. */
-		private static int		usageCount;
+		/** The usage count. */
+		private static int							usageCount;
 
 		/**
-		 * Remove the specified eviction task from the timer.
+		 * Remove the specified evictor from the scheduler.
 		 * 
-		 * @param task
-		 *            Task to be scheduled
+		 * @param evictor
+		 *            the evictor to be canceled
 		 */
-		static synchronized void cancel(TimerTask task) {
+		static synchronized void cancel(Evictor evictor) {
 
-			task.cancel();
+			if (evictor.future == null) {
+				return;
+			}
+			evictor.future.cancel(false);
+			evictor.future = null;
 			usageCount--;
 			if (usageCount == 0) {
-				timer.cancel();
-				timer = null;
+				executor.shutdown();
+				executor = null;
 			}
 		}
 
 		/**
-		 * Add the specified eviction task to the timer. Tasks that are added
-		 * with a call to this method *must* call {@link #cancel(TimerTask)} to
+		 * Add the specified evictor to the scheduler. Evictors that are added
+		 * with a call to this method *must* call {@link #cancel(Evictor)} to
 		 * cancel the task to prevent memory and/or thread leaks in application
-		 * server environments.
+		 * server environments. A run of the evictor starts the given period
+		 * after the end of the previous one, so that slow runs never pile up.
 		 * 
-		 * @param task
-		 *            Task to be scheduled
+		 * @param evictor
+		 *            the evictor to be scheduled
 		 * @param delay
 		 *            Delay in milliseconds before task is executed
 		 * @param period
 		 *            Time in milliseconds between executions
 		 */
-		static synchronized void schedule(TimerTask task, long delay,
+		static synchronized void schedule(Evictor evictor, long delay,
 				long period) {
 
-			if (null == timer) {
-				timer = new Timer(true);
+			if (null == executor) {
+				// evictors mostly wait for validation callbacks, at least two
+				// pools are evicted at a time.
+				executor = new ScheduledThreadPoolExecutor(Math.max(2, Runtime
+						.getRuntime().availableProcessors()),
+						new DaemonThreadFactory("jgentle-evictor-"));
 			}
 			usageCount++;
-			timer.schedule(task, delay, period);
+			evictor.future = executor.scheduleWithFixedDelay(evictor, delay,
+					period, TimeUnit.MILLISECONDS);
 		}
 
 		/**
-		 * Instantiates a new eviction timer.
+		 * Instantiates a new eviction scheduler.
 		 */
-		private EvictionTimer() {
+		private EvictionScheduler() {
 
 		}
 	}
 
+	/**
+	 * Provides the shared background creator of pooled objects for all pools,
+	 * used to prefill pools in parallel and to create the objects requested by
+	 * borrowers. Its daemon threads are started on demand and stop after being
+	 * idle for {@link #KEEP_ALIVE} seconds, so that no thread is left running
+	 * once the pools are idle.
+	 * <p>
+	 * This class has package scope to prevent its inclusion in the pool public
+	 * API. The class declaration below should *not* be changed to public.
+	 */
+	static class ObjectCreator {
+		/** The prefix of the names of the creator threads. */
+		private static final String			PREFIX		= "jgentle-creator-";
+
+		/** The time an idle creator thread is kept alive, in seconds. */
+		private static final long			KEEP_ALIVE	= 60L;
+
+		/** The executor. */
+		private static ThreadPoolExecutor	executor;
+
+		/**
+		 * Executes the given creation on a creator thread.
+		 * 
+		 * @param creation
+		 *            the creation
+		 */
+		static void execute(Runnable creation) {
+
+			getExecutor().execute(creation);
+		}
+
+		/**
+		 * Returns <b>true</b> if the current thread is a creator thread, in
+		 * which case it must not wait for other creations, which could wait
+		 * for a creator thread in turn.
+		 */
+		static boolean isCreatorThread() {
+
+			return Thread.currentThread().getName().startsWith(PREFIX);
+		}
+
+		/**
+		 * Submits the given creation to a creator thread.
+		 * 
+		 * @param creation
+		 *            the creation
+		 * @return the pending result of the creation
+		 */
+		static <T> Future<T> submit(Callable<T> creation) {
+
+			return getExecutor().submit(creation);
+		}
+
+		/**
+		 * Returns the executor, which is created if needed.
+		 */
+		private static synchronized ThreadPoolExecutor getExecutor() {
+
+			if (null == executor) {
+				// creations mostly wait for resources such as connections,
+				// more of them run at a time than there are processors.
+				int threads = Math.max(4, 2 * Runtime.getRuntime()
+						.availableProcessors());
+				executor = new ThreadPoolExecutor(threads, threads,
+						KEEP_ALIVE, TimeUnit.SECONDS,
+						new LinkedBlockingQueue<Runnable>(),
+						new DaemonThreadFactory(PREFIX));
+				executor.allowCoreThreadTimeOut(true);
+			}
+			return executor;
+		}
+
+		/**
+		 * Instantiates a new object creator.
+		 */
+		private ObjectCreator() {
+
+		}
+	}
+
+	/**
+	 * The factory of the evictor and creator threads.
+	 */
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		/** The thread counter. */
+		private final AtomicInteger	counter	= new AtomicInteger();
+
+		/** The prefix of the thread names. */
+		private final String		prefix;
+
+		/**
+		 * Instantiates a new daemon thread factory.
+		 * 
+		 * @param prefix
+		 *            the prefix of the thread names
+		 */
+		DaemonThreadFactory(String prefix) {
+
+			this.prefix = prefix;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+		 */
+		@Override
+		public Thread newThread(Runnable r) {
+
+			Thread thread = new Thread(r, this.prefix
+					+ this.counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 	/**
 	 * Call <code>addObject()</code> on <code>pool</code> <code>count</code>
-	 * number of times.
+	 * number of times. The objects are created in parallel by the
+	 * {@link ObjectCreator} and the calling thread, which returns once all of
+	 * them are added.
 	 * 
 	 * @param pool the pool to prefill.
 	 * @param count the number of idle objects to add.
 	 * 
-	 * @throws Exception the exception
+	 * @throws Exception the first exception thrown by <code>addObject()</code>
 	 */
 	public static void initIdleObject(final BasePooling pool, final int count)
 			throws Exception {
@@ -116,8 +252,45 @@ public final class PoolStaticUtils {
 		if (pool == null) {
 			throw new IllegalArgumentException("pool must not be null.");
 		}
-		for (int i = 0; i < count; i++) {
-			pool.addObject();
+		if (ObjectCreator.isCreatorThread()) {
+			for (int i = 0; i < count; i++) {
+				pool.addObject();
+			}
+			return;
+		}
+		List<Future<Object>> creations = new ArrayList<Future<Object>>();
+		for (int i = 1; i < count; i++) {
+			creations.add(ObjectCreator.submit(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+
+					pool.addObject();
+					return null;
+				}
+			}));
+		}
+		Exception failure = null;
+		if (count > 0) {
+			try {
+				pool.addObject();
+			}
+			catch (Exception e) {
+				failure = e;
+			}
+		}
+		for (Future<Object> creation : creations) {
+			try {
+				creation.get();
+			}
+			catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof Exception ? (Exception) e
+							.getCause() : e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
 		}
 	}
 
@@ -152,17 +325,86 @@ public final class PoolStaticUtils {
 	 */
 	public static void ensureMinIdle(BasePooling basePool) throws Throwable {
 
-		// this method isn't synchronized so the
-		// calculateDeficit is done at the beginning
-		// as a loop limit and a second time inside the loop
-		// to stop when another thread already returned the
-		// needed objects
+		// the missing objects are created in parallel.
 		int objectDeficit = calculateDeficit(basePool);
-		for (int j = 0; j < objectDeficit && calculateDeficit(basePool) > 0; j++) {
-			basePool.addObject();
+		if (objectDeficit > 0) {
+			initIdleObject(basePool, objectDeficit);
 		}
 	}
 
+	/**
+	 * Grows or shrinks the idle objects of the given pool towards the target
+	 * computed by its {@link AdaptiveSizingPolicy}. Missing idle objects are
+	 * created in parallel ahead of the demand, within the maximum pool size;
+	 * surplus idle objects are destroyed half at a time, so that the pool
+	 * shrinks gradually after a burst.
+	 * 
+	 * @param pool
+	 *            the pool
+	 * @param lifo
+	 *            if is <code>'last in first out'</code>
+	 * @throws Throwable
+	 *             when {@link Pool#addObject()} fails.
+	 */
+	public static void resize(AbstractBaseFactory pool, boolean lifo)
+			throws Throwable {
+
+		AdaptiveSizingPolicy policy = pool.getSizingPolicy();
+		if (policy == null) {
+			return;
+		}
+		int target = policy.computesTargetIdle(pool);
+		int surplus = pool.getNumIdle() - target;
+		if (surplus > 0) {
+			pool.destroysIdleObjects((surplus + 1) / 2, lifo);
+		}
+		else if (surplus < 0 && pool.isEnable()) {
+			int deficit = -surplus;
+			if (pool.getMaxPoolSize() > 0) {
+				synchronized (pool) {
+					deficit = Math.min(deficit, pool.getMaxPoolSize()
+							- pool.getNumActive() - pool.getNumIdle());
+				}
+			}
+			if (deficit > 0) {
+				initIdleObject(pool, deficit);
+			}
+		}
+	}
+
+	/**
+	 * Destroys up to <code>count</code> idle objects of the given pool, the
+	 * oldest first. Each object is taken out of the pool while holding the
+	 * pool lock and destroyed without it.
+	 * 
+	 * @param pool
+	 *            the pool
+	 * @param count
+	 *            the number of idle objects to destroy
+	 * @param lifo
+	 *            if is <code>'last in first out'</code>
+	 * @return the number of destroyed objects
+	 */
+	static int destroyIdle(AbstractBaseFactory pool, int count, boolean lifo) {
+
+		int destroyed = 0;
+		for (; destroyed < count; destroyed++) {
+			TimestampObjectBean<Object> pair = null;
+			synchronized (pool) {
+				pair = takesIdle(pool, lifo, 0);
+			}
+			if (pair == null) {
+				break;
+			}
+			try {
+				pool.destroyObject(pair.getValue());
+			}
+			catch (Throwable e) {
+			}
+		}
+		return destroyed;
+	}
+
 	/**
 	 * Gets the num tests.
 	 * 
@@ -170,7 +412,7 @@ public final class PoolStaticUtils {
 	 *            the base pool
 	 * @return the num tests
 	 */
-	private static int getNumTests(AbstractBasePooling basePool) {
+	static int getNumTests(AbstractBasePooling basePool) {
 
 		int numTestsPerEvictionRun = basePool.getNumTestsPerEvictionRun();
 		if (numTestsPerEvictionRun >= 0) {
@@ -184,127 +426,161 @@ public final class PoolStaticUtils {
 
 	/**
 	 * Perform <code>numTests</code> idle object eviction tests, evicting
-	 * examined objects that meet the criteria for eviction. If
-	 * <code>testWhileIdle</code> is true, examined objects are validated when
-	 * visited (and removed if invalid); otherwise only objects that have been
-	 * idle for more than <code>minEvicableIdletimeMillis</code> are removed.
+	 * examined objects that meet the criteria for eviction (see
+	 * {@link #isEvictable(AbstractBaseFactory, Object, long)}).
 	 * <p>
-	 * Successive activations of this method examine objects in in sequence,
-	 * cycling through objects in oldest-to-youngest order.
+	 * The objects are examined one at a time, oldest first: each examined
+	 * object is taken out of the pool while holding the pool lock, then
+	 * tested, validated or destroyed without it, so that the pool is never
+	 * locked for longer than a borrow and borrowers never wait for user
+	 * callbacks. A kept object is put back at its place in a stack and at the
+	 * end of a queue, so that successive activations of this method cycle
+	 * through the objects of a queue. Passes of different pools run
+	 * concurrently.
 	 * 
 	 * @param pool
 	 *            the pool
+	 * @param lifo
+	 *            if is <code>'last in first out'</code>
 	 * @throws Exception
 	 *             if the pool is closed or eviction fails.
 	 */
-	public synchronized static void evict(AbstractBaseFactory pool, boolean lifo)
+	public static void evict(AbstractBaseFactory pool, boolean lifo)
 			throws Exception {
 
-		synchronized (pool) {
-			pool.assertDisable();
-			if (pool.isEmpty()) {
-				int numTest = 0;
-				int numTestsPerRun = getNumTests(pool);
-				TimestampObjectBean<Object> pair = null;
-				if (!lifo) {
-					if (ReflectUtils.isCast(Queue.class, pool.pool)) {
-						for (Iterator<TimestampObjectBean<Object>> iterator = pool.pool
-								.iterator(); iterator.hasNext();) {
-							numTest++;
-							if (numTest > numTestsPerRun)
-								break;
-							else {
-								try {
-									pair = (TimestampObjectBean<Object>) iterator
-											.next();
-								}
-								catch (NoSuchElementException e) {
-									break;
-								}
-								evict(pair, pool);
-							}
-						}
-					}
+		pool.assertDisable();
+		int numTestsPerRun = getNumTests(pool);
+		int position = 0;
+		for (int numTest = 0; numTest < numTestsPerRun; numTest++) {
+			TimestampObjectBean<Object> pair = null;
+			synchronized (pool) {
+				pair = takesIdle(pool, lifo, position);
+			}
+			if (pair == null) {
+				break;
+			}
+			boolean remove = isEvictable(pool, pair.getValue(), pair
+					.getTstamp());
+			if (!remove) {
+				synchronized (pool) {
+					remove = !(pool.isEnable() && putsBack(pool, pair, lifo,
+							position));
+					pool.notifyAll();
+				}
+				position++;
+			}
+			if (remove) {
+				try {
+					pool.destroyObject(pair.getValue());
 				}
-				else {
-					if (ReflectUtils.isCast(Stack.class, pool.pool)) {
-						Stack<TimestampObjectBean<Object>> stack = (Stack<TimestampObjectBean<Object>>) pool.pool;
-						while (stack.size() > 0) {
-							numTest++;
-							if (numTest > numTestsPerRun)
-								break;
-							else {
-								try {
-									pair = (TimestampObjectBean<Object>) stack
-											.get(stack.size() - numTest);
-								}
-								catch (ArrayIndexOutOfBoundsException e) {
-									break;
-								}
-								evict(pair, pool);
-							}
-						}
-					}
+				catch (Throwable e) {
 				}
 			}
 		}
 	}
 
 	/**
-	 * Evict.
+	 * Returns <b>true</b> if the given idle object, which has been taken out
+	 * of the pool, must be evicted: either it has been idle for more than
+	 * <code>minEvictableIdleTime</code>, or for more than
+	 * <code>softMinEvictableIdleTime</code> while the pool holds at least
+	 * <code>minIdle</code> other idle objects, or <code>testWhileIdle</code>
+	 * is set and the object can not be activated, validated and deactivated.
 	 * 
-	 * @param pair
-	 *            the pair
 	 * @param pool
 	 *            the pool
+	 * @param obj
+	 *            the idle object
+	 * @param tstamp
+	 *            the time the object became idle
 	 */
-	private static void evict(TimestampObjectBean<Object> pair,
-			AbstractBaseFactory pool) {
-
-		synchronized (pool) {
-			if (pair != null) {
-				boolean remove = false;
-				final long idleTimeMilis = System.currentTimeMillis()
-						- pair.getTstamp();
-				// check minimum evictable idle time
-				if ((pool.getMinEvictableIdleTime() > 0)
-						&& (idleTimeMilis > pool.getMinEvictableIdleTime())) {
-					remove = true;
-				}
-				else if ((pool.getSoftMinEvictableIdleTime() > 0)
-						&& (idleTimeMilis > pool.getSoftMinEvictableIdleTime())
-						&& (pool.getNumIdle() > pool.getMinIdle())) {
-					remove = true;
-				}
-				if (pool.isTestWhileIdle() && !remove) {
-					boolean active = false;
-					try {
-						pool.activatesObject(pair.getValue());
-						active = true;
-					}
-					catch (Exception e) {
-						remove = true;
-					}
-					if (active) {
-						try {
-							pool.validatesObject(pair.getValue());
-							pool.deactivateObject(pair.getValue());
-						}
-						catch (Throwable e) {
-							remove = true;
-						}
-					}
-				}
-				if (remove) {
-					pool.pool.remove(pair);
-					try {
-						pool.destroyObject(pair.getValue());
-					}
-					catch (Throwable e) {
-					}
+	static boolean isEvictable(AbstractBaseFactory pool, Object obj,
+			long tstamp) {
+
+		final long idleTimeMilis = System.currentTimeMillis() - tstamp;
+		// check minimum evictable idle time
+		if ((pool.getMinEvictableIdleTime() > 0)
+				&& (idleTimeMilis > pool.getMinEvictableIdleTime())) {
+			return true;
+		}
+		else if ((pool.getSoftMinEvictableIdleTime() > 0)
+				&& (idleTimeMilis > pool.getSoftMinEvictableIdleTime())
+				&& (pool.getNumIdle() >= pool.getMinIdle())) {
+			return true;
+		}
+		if (pool.isTestWhileIdle()) {
+			try {
+				pool.activatesObject(obj);
+				if (!pool.invokesValidate(obj)) {
+					return true;
 				}
+				pool.invokesDeactivate(obj);
 			}
+			catch (Exception e) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Puts back an examined object into the idle objects of the given pool,
+	 * the pool lock must be held.
+	 * 
+	 * @param pool
+	 *            the pool
+	 * @param pair
+	 *            the examined object
+	 * @param lifo
+	 *            if is <code>'last in first out'</code>
+	 * @param position
+	 *            the position of the object in a stack, from the bottom
+	 * @return <b>false</b> if the pool can not hold the object any more.
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean putsBack(AbstractBaseFactory pool,
+			TimestampObjectBean<Object> pair, boolean lifo, int position) {
+
+		if (lifo && ReflectUtils.isCast(Stack.class, pool.pool)) {
+			Stack<TimestampObjectBean<Object>> stack = (Stack<TimestampObjectBean<Object>>) pool.pool;
+			stack.add(Math.min(position, stack.size()), pair);
+			return true;
+		}
+		else if (!lifo && ReflectUtils.isCast(Queue.class, pool.pool)) {
+			return ((Queue<TimestampObjectBean<Object>>) pool.pool)
+					.offer(pair);
+		}
+		return false;
+	}
+
+	/**
+	 * Takes the next idle object to be examined out of the given pool, that is
+	 * the head of a queue or the object at the given position from the bottom
+	 * of a stack. The pool lock must be held.
+	 * 
+	 * @param pool
+	 *            the pool
+	 * @param lifo
+	 *            if is <code>'last in first out'</code>
+	 * @param position
+	 *            the position of the object in a stack, from the bottom
+	 * @return the idle object, or <b>null</b> if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	private static TimestampObjectBean<Object> takesIdle(
+			AbstractBaseFactory pool, boolean lifo, int position) {
+
+		if (pool.pool == null) {
+			return null;
+		}
+		if (lifo && ReflectUtils.isCast(Stack.class, pool.pool)) {
+			Stack<TimestampObjectBean<Object>> stack = (Stack<TimestampObjectBean<Object>>) pool.pool;
+			return position < stack.size() ? stack.remove(position) : null;
+		}
+		else if (!lifo && ReflectUtils.isCast(Queue.class, pool.pool)) {
+			return ((Queue<TimestampObjectBean<Object>>) pool.pool).poll();
 		}
+		return null;
 	}
 
 	/**
@@ -325,13 +601,14 @@ public final class PoolStaticUtils {
 
 		synchronized (basePool) {
 			if (null != evictor) {
-				EvictionTimer.cancel(evictor);
+				EvictionScheduler.cancel(evictor);
 				evictor = null;
 			}
 			if (delay > 0) {
 				evictor = new Evictor(basePool, lifo);
-				EvictionTimer.schedule(evictor, delay, delay);
+				EvictionScheduler.schedule(evictor, delay, delay);
 			}
+			basePool.setEvictor(evictor);
 		}
 	}
 }
@@ -92,6 +92,7 @@ public class StackPool extends AbstractBaseFactory {
 			clear();
 			PoolStaticUtils.startEvictor(evictor, -1L, this, true);
 		}
+		unregistersMetrics();
 	}
 
 	/*
@@ -101,8 +102,11 @@ public class StackPool extends AbstractBaseFactory {
 	@Override
 	public Object obtainObject() throws NoSuchElementException, Exception {
 
+		long start = startsTiming();
 		Object result = null;
 		long starttime = System.currentTimeMillis();
+		long waitNanos = 0L;
+		Creation creation = null;
 		while (true) {
 			TimestampObjectBean<Object> pair = null;
 			synchronized (this) {
@@ -115,18 +119,44 @@ public class StackPool extends AbstractBaseFactory {
 					pair = null;
 				}
 				if (pair == null) {
+					if (creation != null) {
+						if (!creation.isDone()) {
+							// the first object returned or created is
+							// obtained.
+							final long waitStart = System.nanoTime();
+							try {
+								wait();
+							}
+							catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+								if (log.isErrorEnabled()) {
+									log.error(e.getMessage(), e);
+								}
+							}
+							waitNanos += System.nanoTime() - waitStart;
+							continue;
+						}
+						Exception failure = creation.getFailure();
+						creation = null;
+						if (failure != null) {
+							throw failure;
+						}
+					}
 					if (this.maxPoolSize < 0
 							|| this.getNumActive() < this.maxPoolSize) {
-						result = createsBean();
+						creation = requestsCreation();
+						continue;
 					}
 					else {
 						switch (this.exhaustedActionType) {
 						case SystemPooling.EXHAUSTED_GROW:
 							result = createsBean();
 						case SystemPooling.EXHAUSTED_FAIL:
+							recordsFailure(false);
 							throw new NoSuchElementException(
 									"Pool exhausted !!");
 						case SystemPooling.EXHAUSTED_BLOCK:
+							final long waitStart = System.nanoTime();
 							try {
 								if (this.creationTimeOut <= 0) {
 									wait();
@@ -147,8 +177,10 @@ public class StackPool extends AbstractBaseFactory {
 									log.error(e.getMessage(), e);
 								}
 							}
+							waitNanos += System.nanoTime() - waitStart;
 							if (this.creationTimeOut > 0
 									&& ((System.currentTimeMillis() - starttime) >= this.creationTimeOut)) {
+								recordsFailure(true);
 								throw new NoSuchElementException(
 										"Timeout waiting for idle object");
 							}
@@ -167,6 +199,7 @@ public class StackPool extends AbstractBaseFactory {
 					result = pair.getValue();
 				activatesObject(result);
 				validatesObject(result);
+				recordsObtain(result, start, waitNanos);
 				return result;
 			}
 		}
@@ -92,6 +92,7 @@ public class WeakPool extends AbstractBaseController implements ProviderAware {
 
 		this.enable = false;
 		clear();
+		unregistersMetrics();
 	}
 
 	/*
@@ -137,6 +138,7 @@ public class WeakPool extends AbstractBaseController implements ProviderAware {
 	@Override
 	public synchronized Object obtainObject() throws NoSuchElementException {
 
+		long start = startsTiming();
 		assertDisable();
 		Object obj = null;
 		try {
@@ -164,6 +166,7 @@ public class WeakPool extends AbstractBaseController implements ProviderAware {
 		synchronized (this) {
 			numActive++;
 		}
+		recordsObtain(obj, start, 0L);
 		return obj;
 	}
 
@@ -192,6 +195,7 @@ public class WeakPool extends AbstractBaseController implements ProviderAware {
 	@Override
 	public synchronized void returnObject(Object obj) throws Exception {
 
+		long start = startsTiming();
 		boolean success = !isEnable();
 		if (!this.canBePooled(obj)) {
 			success = false;
@@ -206,6 +210,7 @@ public class WeakPool extends AbstractBaseController implements ProviderAware {
 			}
 			notifyAll();
 		}
+		recordsReturn(start);
 	}
 
 	/*
@@ -38,6 +38,12 @@ import org.jgentleframework.services.objectpooling.context.Validate;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface SystemPooling {
+	/** The Constant DEFAULT_ADAPTIVE_SIZING. */
+	public static final boolean	DEFAULT_ADAPTIVE_SIZING					= false;
+
+	/** The Constant DEFAULT_ADAPTIVE_SIZING_PERIOD. */
+	public static final long	DEFAULT_ADAPTIVE_SIZING_PERIOD			= 1000L;
+
 	/** The Constant DEFAULT_CAN_BE_POOLED. */
 	public static final boolean	DEFAULT_CAN_BE_POOLED					= true;
 
@@ -112,6 +118,22 @@ public @interface SystemPooling {
 	 */
 	byte exhaustedActionType() default EXHAUSTED_BLOCK;
 
+	/**
+	 * When <b>true</b>, the number of idle objects is adapted to the observed
+	 * demand instead of being kept at {@link #minIdle()}: on each run of the
+	 * evictor thread, the pool pre-creates objects when the number of obtained
+	 * objects rises or when callers had to wait for an object (the more so as
+	 * objects are slow to create), and destroys idle objects when the demand
+	 * decreases. The pool always stays within {@link Pooling#MinPoolSize()},
+	 * {@link Pooling#MaxPoolSize()}, {@link #minIdle()} and {@link #maxIdle()}.
+	 * <p>
+	 * When {@link #timeBetweenEvictionRuns()} is not positive, the evictor
+	 * thread runs every {@link #DEFAULT_ADAPTIVE_SIZING_PERIOD} milliseconds.
+	 * <p>
+	 * The default setting for this parameter is <b>false</b>.
+	 */
+	boolean adaptiveSizing() default DEFAULT_ADAPTIVE_SIZING;
+
 	/**
 	 * The pool can be configured to behave as a LIFO queue with respect to idle
 	 * objects - always returning the most recently used object from the pool,
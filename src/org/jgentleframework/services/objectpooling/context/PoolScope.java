@@ -79,7 +79,15 @@ public enum PoolScope implements ScopeImplementation {
 	 * if it determines that there is a need to reclaim memory for other
 	 * memory-intensive operations.
 	 */
-	WeakPool;
+	WeakPool,
+	/**
+	 * The <code>[Concurrent Pool]</code> is a lock-free implementation of
+	 * ObjectPool. Each thread obtains again the object it returned last
+	 * whenever it is idle, and threads only wait when the pool is exhausted,
+	 * so that obtaining and returning objects scales with the number of
+	 * threads.
+	 */
+	ConcurrentPool;
 	/** The log. */
 	private final Log			log				= LogFactory.getLog(getClass());
 
@@ -107,11 +115,16 @@ public enum PoolScope implements ScopeImplementation {
 		}
 		PoolScope scope = null;
 		Map<String, ScopeInstance> scopeList = objFactory.getScopeList();
+		Pool pool = this.poolServices.get(scopeName);
+		if (pool instanceof org.jgentleframework.services.objectpooling.ConcurrentPool) {
+			// the concurrent pool is not locked while obtaining an instance.
+			return this.obtainInstance(pool, poolingConfig, targetClass);
+		}
 		synchronized (scopeList) {
 			scope = (PoolScope) scopeList.get(scopeName);
 		}
 		synchronized (scopeName) {
-			Pool pool = this.poolServices.get(scopeName);
+			pool = this.poolServices.get(scopeName);
 			if (pool != null) {
 				synchronized (pool) {
 					result = this.obtainInstance(pool, poolingConfig,
@@ -130,6 +143,9 @@ public enum PoolScope implements ScopeImplementation {
 				case WeakPool:
 					clazz = org.jgentleframework.services.objectpooling.WeakPool.class;
 					break;
+				case ConcurrentPool:
+					clazz = org.jgentleframework.services.objectpooling.ConcurrentPool.class;
+					break;
 				default:
 					if (log.isErrorEnabled()) {
 						log.error("The specified scope is invalid !",
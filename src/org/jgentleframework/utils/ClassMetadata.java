@@ -0,0 +1,662 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.utils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The reflection metadata of a class, built once per class and shared by
+ * {@link ReflectUtils}, {@link ObjectClassUtils} and {@link Utils}. It holds
+ * the flattened member tables of the class hierarchy and the name-indexed
+ * lookups of declared members, so that the class hierarchy is only walked the
+ * first time a table or a lookup is requested.
+ * <p>
+ * The tables are immutable, callers receive copies of them, but the
+ * {@link Field} and {@link Method} objects are shared. The metadata is cached
+ * by weak keys and softly referenced, so that it does not prevent a class from
+ * being unloaded, and is looked up without locking.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see ReflectUtils
+ */
+final class ClassMetadata {
+	/** The marker of members which are not found. */
+	private static final Object											NOT_FOUND			= new Object();
+
+	/** The metadata of each class, by {@link ClassKey}. */
+	private static final Map<Object, SoftReference<ClassMetadata>>		cache				= new ConcurrentHashMap<Object, SoftReference<ClassMetadata>>();
+
+	/** The keys of the classes which have been unloaded. */
+	private static final ReferenceQueue<Class<?>>						unloaded			= new ReferenceQueue<Class<?>>();
+
+	/** The class. */
+	private final Class<?>												type;
+
+	/** The fields declared by the class. */
+	private final Field[]												declaredFields;
+
+	/** The fields declared by the class, by name. */
+	private final Map<String, Field>									declaredFieldsByName;
+
+	/** The methods declared by the class. */
+	private final Method[]												declaredMethods;
+
+	/** The methods declared by the class, by name. */
+	private final Map<String, Method[]>									declaredMethodsByName;
+
+	/** The interfaces directly implemented by the class. */
+	private final Class<?>[]											interfaces;
+
+	/** The field tables of the class hierarchy, by {@link #tableIndex}. */
+	private final AtomicReferenceArray<Field[]>							fieldTables			= new AtomicReferenceArray<Field[]>(4);
+
+	/** The method tables of the class hierarchy, by {@link #tableIndex}. */
+	private final AtomicReferenceArray<Method[]>						methodTables		= new AtomicReferenceArray<Method[]>(4);
+
+	/**
+	 * The interface and super class tables, the interfaces of the class, the
+	 * interfaces of the class hierarchy, the super classes excluding and
+	 * including {@link Object}.
+	 */
+	private final AtomicReferenceArray<Class<?>[]>						classTables			= new AtomicReferenceArray<Class<?>[]>(4);
+
+	/** The methods of the class hierarchy and of all its interfaces. */
+	private volatile Method[]											allDeclaredMethods;
+
+	/** The resolved supported fields, by name. */
+	private final ConcurrentHashMap<String, Object>						supportedFields		= new ConcurrentHashMap<String, Object>();
+
+	/** The resolved supported methods, by signature. */
+	private final ConcurrentHashMap<Signature, Object>					supportedMethods	= new ConcurrentHashMap<Signature, Object>();
+
+	/** The fields matching a name pattern, by pattern. */
+	private final ConcurrentHashMap<String, Field[]>					fieldsByPattern		= new ConcurrentHashMap<String, Field[]>();
+
+	/** The methods matching a name pattern, by pattern. */
+	private final ConcurrentHashMap<String, Method[]>					methodsByPattern	= new ConcurrentHashMap<String, Method[]>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param type
+	 *            the class
+	 */
+	private ClassMetadata(Class<?> type) {
+
+		this.type = type;
+		this.declaredFields = type.getDeclaredFields();
+		this.declaredMethods = type.getDeclaredMethods();
+		this.interfaces = type.getInterfaces();
+		this.declaredFieldsByName = new HashMap<String, Field>();
+		for (Field field : this.declaredFields) {
+			this.declaredFieldsByName.put(field.getName(), field);
+		}
+		Map<String, List<Method>> methods = new HashMap<String, List<Method>>();
+		for (Method method : this.declaredMethods) {
+			List<Method> list = methods.get(method.getName());
+			if (list == null) {
+				list = new ArrayList<Method>(1);
+				methods.put(method.getName(), list);
+			}
+			list.add(method);
+		}
+		this.declaredMethodsByName = new HashMap<String, Method[]>();
+		for (Map.Entry<String, List<Method>> entry : methods.entrySet()) {
+			this.declaredMethodsByName.put(entry.getKey(), entry.getValue()
+					.toArray(new Method[entry.getValue().size()]));
+		}
+	}
+
+	/**
+	 * Returns the metadata of the given class.
+	 *
+	 * @param type
+	 *            the class
+	 * @return the cached metadata
+	 */
+	static ClassMetadata of(Class<?> type) {
+
+		SoftReference<ClassMetadata> ref = cache.get(new LookupKey(type));
+		ClassMetadata result = ref != null ? ref.get() : null;
+		if (result == null) {
+			Reference<? extends Class<?>> key;
+			while ((key = unloaded.poll()) != null) {
+				cache.remove(key);
+			}
+			result = new ClassMetadata(type);
+			cache.put(new ClassKey(type, unloaded),
+					new SoftReference<ClassMetadata>(result));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the class referred to by the given cache key.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	private static Class<?> typeOf(Object key) {
+
+		if (key instanceof ClassKey) {
+			return ((ClassKey) key).get();
+		}
+		else if (key instanceof LookupKey) {
+			return ((LookupKey) key).type;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the interfaces directly implemented by the class. The returned
+	 * array is shared and must not be modified.
+	 */
+	Class<?>[] getInterfaces() {
+
+		return this.interfaces;
+	}
+
+	/**
+	 * Returns the number of methods declared by the class with the given name.
+	 *
+	 * @param name
+	 *            the method name
+	 */
+	int getDeclaredMethodCount(String name) {
+
+		Method[] methods = this.declaredMethodsByName.get(name);
+		return methods != null ? methods.length : 0;
+	}
+
+	/**
+	 * Returns the method declared by the class with the given name and
+	 * parameter types, as {@link Class#getDeclaredMethod(String, Class...)}
+	 * does.
+	 *
+	 * @param name
+	 *            the method name
+	 * @param paramTypes
+	 *            the parameter types
+	 * @return the method, or <b>null</b> if it is not found.
+	 */
+	Method getDeclaredMethod(String name, Class<?>[] paramTypes) {
+
+		return findDeclaredMethod(name, paramTypes);
+	}
+
+	/**
+	 * Returns the method declared by the class with the given name and
+	 * parameter types, the one with the most specific return type if there are
+	 * several of them.
+	 */
+	private Method findDeclaredMethod(String name, Class<?>[] paramTypes) {
+
+		Method[] methods = this.declaredMethodsByName.get(name);
+		if (methods == null) {
+			return null;
+		}
+		if (paramTypes == null) {
+			paramTypes = new Class<?>[0];
+		}
+		Method result = null;
+		for (Method method : methods) {
+			if (Arrays.equals(method.getParameterTypes(), paramTypes)
+					&& (result == null || result.getReturnType()
+							.isAssignableFrom(method.getReturnType()))) {
+				result = method;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the field of the given name declared by the class or
+	 * by the nearest of its super classes.
+	 *
+	 * @param name
+	 *            the field name
+	 * @return the field, or <b>null</b> if it is not found.
+	 */
+	Field getSupportedField(String name) {
+
+		Object result = this.supportedFields.get(name);
+		if (result == null) {
+			result = this.declaredFieldsByName.get(name);
+			if (result == null) {
+				Class<?> superClass = this.type.getSuperclass();
+				result = superClass != null ? of(superClass).getSupportedField(
+						name) : null;
+			}
+			this.supportedFields.put(name, result != null ? result : NOT_FOUND);
+		}
+		return result != NOT_FOUND ? (Field) result : null;
+	}
+
+	/**
+	 * Returns the method of the given name and parameter types
+	 * declared by the class or by the nearest of its super classes.
+	 *
+	 * @param name
+	 *            the method name
+	 * @param paramTypes
+	 *            the parameter types
+	 * @return the method, or <b>null</b> if it is not found.
+	 */
+	Method getSupportedMethod(String name, Class<?>[] paramTypes) {
+
+		Signature signature = new Signature(name, paramTypes);
+		Object result = this.supportedMethods.get(signature);
+		if (result == null) {
+			result = findDeclaredMethod(name, paramTypes);
+			if (result == null) {
+				Class<?> superClass = this.type.getSuperclass();
+				result = superClass != null ? of(superClass)
+						.getSupportedMethod(name, paramTypes) : null;
+			}
+			this.supportedMethods.put(signature, result != null ? result
+					: NOT_FOUND);
+		}
+		return result != NOT_FOUND ? (Method) result : null;
+	}
+
+	/**
+	 * Returns the fields of the class hierarchy, as
+	 * {@link ReflectUtils#getDeclaredFields(Class, boolean, boolean)} does.
+	 */
+	Field[] getDeclaredFields(boolean includeStatic, boolean non_multiple) {
+
+		return fieldTable(includeStatic, non_multiple).clone();
+	}
+
+	/**
+	 * Returns the methods of the class hierarchy, as
+	 * {@link ReflectUtils#getDeclaredMethods(Class, boolean, boolean)} does.
+	 */
+	Method[] getDeclaredMethods(boolean includeStatic, boolean non_multiple) {
+
+		return methodTable(includeStatic, non_multiple).clone();
+	}
+
+	/**
+	 * Returns the methods of the class hierarchy and of all its interfaces, as
+	 * {@link ReflectUtils#getAllDeclaredMethods(Class)} does.
+	 */
+	Method[] getAllDeclaredMethods() {
+
+		Method[] result = this.allDeclaredMethods;
+		if (result == null) {
+			List<Method> list = new ArrayList<Method>();
+			list.addAll(Arrays.asList(methodTable(false, false)));
+			for (Class<?> interfaze : getAllInterfaces(true)) {
+				list.addAll(Arrays.asList(of(interfaze).methodTable(false,
+						false)));
+			}
+			result = list.toArray(new Method[list.size()]);
+			this.allDeclaredMethods = result;
+		}
+		return result.clone();
+	}
+
+	/**
+	 * Returns the fields whose name matches the given pattern, as
+	 * {@link ReflectUtils#fields(String, Class, boolean)} does.
+	 */
+	Field[] fields(String name, boolean superClass) {
+
+		String key = (superClass ? "+" : "-") + name;
+		Field[] result = this.fieldsByPattern.get(key);
+		if (result == null) {
+			List<Field> list = new ArrayList<Field>();
+			for (Field field : superClass ? fieldTable(false, true)
+					: this.declaredFields) {
+				if (RegularToolkit.matches(name, field.getName())) {
+					list.add(field);
+				}
+			}
+			result = list.toArray(new Field[list.size()]);
+			this.fieldsByPattern.put(key, result);
+		}
+		return result.clone();
+	}
+
+	/**
+	 * Returns the methods whose name matches the given pattern, as
+	 * {@link ReflectUtils#methods(String, Class, boolean)} does.
+	 */
+	Method[] methods(String name, boolean superClass) {
+
+		String key = (superClass ? "+" : "-") + name;
+		Method[] result = this.methodsByPattern.get(key);
+		if (result == null) {
+			List<Method> list = new ArrayList<Method>();
+			for (Method method : superClass ? methodTable(false, true)
+					: this.declaredMethods) {
+				if (RegularToolkit.matches(name, method.getName())) {
+					list.add(method);
+				}
+			}
+			result = list.toArray(new Method[list.size()]);
+			this.methodsByPattern.put(key, result);
+		}
+		return result.clone();
+	}
+
+	/**
+	 * Returns the interfaces implemented by the class, as
+	 * {@link ReflectUtils#getAllInterfaces(Class, boolean)} does. The returned
+	 * array is shared and must not be modified.
+	 */
+	Class<?>[] getAllInterfaces(boolean superClass) {
+
+		int index = superClass ? 1 : 0;
+		Class<?>[] result = this.classTables.get(index);
+		if (result == null) {
+			Set<Class<?>> set = new LinkedHashSet<Class<?>>();
+			Set<Class<?>> temp = new LinkedHashSet<Class<?>>(Arrays
+					.asList(this.interfaces));
+			while (temp.size() != 0) {
+				set.addAll(temp);
+				Set<Class<?>> current = temp;
+				temp = new LinkedHashSet<Class<?>>();
+				for (Class<?> obj : current) {
+					temp.addAll(Arrays.asList(of(obj).interfaces));
+				}
+			}
+			if (superClass == true) {
+				for (Class<?> scl : getAllSuperClass(false)) {
+					set.addAll(Arrays.asList(of(scl).getAllInterfaces(false)));
+				}
+			}
+			result = set.toArray(new Class<?>[set.size()]);
+			this.classTables.set(index, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the super classes of the class, as
+	 * {@link ReflectUtils#getAllSuperClass(Class, boolean)} does. The returned
+	 * array is shared and must not be modified.
+	 */
+	Class<?>[] getAllSuperClass(boolean includesObjectClass) {
+
+		int index = includesObjectClass ? 3 : 2;
+		Class<?>[] result = this.classTables.get(index);
+		if (result == null) {
+			List<Class<?>> list = new ArrayList<Class<?>>();
+			Class<?> temp = this.type.getSuperclass();
+			while (temp != null) {
+				if (includesObjectClass == false && temp == Object.class) {
+					break;
+				}
+				list.add(temp);
+				temp = temp.getSuperclass();
+			}
+			result = list.toArray(new Class<?>[list.size()]);
+			this.classTables.set(index, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the field table of the class hierarchy.
+	 */
+	private Field[] fieldTable(boolean includeStatic, boolean non_multiple) {
+
+		int index = tableIndex(includeStatic, non_multiple);
+		Field[] result = this.fieldTables.get(index);
+		if (result == null) {
+			List<Field> accum = new ArrayList<Field>();
+			Class<?> clazz = this.type;
+			while (clazz != null && clazz != Object.class) {
+				Field[] fields = of(clazz).declaredFields;
+				for (int i = 0; i < fields.length; i++) {
+					int modifiers = fields[i].getModifiers();
+					if (includeStatic == Modifier.isStatic(modifiers)
+							&& !accum.contains(fields[i])) {
+						if (non_multiple) {
+							int check = 0;
+							for (Field field : accum) {
+								if (ReflectUtils.equals(field, fields[i])) {
+									check++;
+								}
+							}
+							if (check == 0)
+								accum.add(fields[i]);
+						}
+						else
+							accum.add(fields[i]);
+					}
+				}
+				clazz = clazz.getSuperclass();
+			}
+			result = accum.toArray(new Field[accum.size()]);
+			this.fieldTables.set(index, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the method table of the class hierarchy.
+	 */
+	private Method[] methodTable(boolean includeStatic, boolean non_multiple) {
+
+		int index = tableIndex(includeStatic, non_multiple);
+		Method[] result = this.methodTables.get(index);
+		if (result == null) {
+			List<Method> accum = new ArrayList<Method>();
+			Class<?> clazz = this.type;
+			while (clazz != null && clazz != Object.class) {
+				Method[] methods = of(clazz).declaredMethods;
+				for (int i = 0; i < methods.length; i++) {
+					int modifiers = methods[i].getModifiers();
+					if (includeStatic == Modifier.isStatic(modifiers)
+							&& !accum.contains(methods[i])) {
+						if (non_multiple) {
+							int check = 0;
+							for (Method method : accum) {
+								if (ReflectUtils.equals(method, methods[i])) {
+									check++;
+								}
+							}
+							if (check == 0)
+								accum.add(methods[i]);
+						}
+						else
+							accum.add(methods[i]);
+					}
+				}
+				clazz = clazz.getSuperclass();
+			}
+			result = accum.toArray(new Method[accum.size()]);
+			this.methodTables.set(index, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the member table of the given flags.
+	 */
+	private static int tableIndex(boolean includeStatic, boolean non_multiple) {
+
+		return (includeStatic ? 2 : 0) + (non_multiple ? 1 : 0);
+	}
+
+	/**
+	 * The key of a class looked up in the cache.
+	 */
+	private static final class LookupKey {
+		/** The class. */
+		private final Class<?>	type;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param type
+		 *            the class
+		 */
+		LookupKey(Class<?> type) {
+
+			this.type = type;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return System.identityHashCode(this.type);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			return obj == this || this.type == typeOf(obj);
+		}
+	}
+
+	/**
+	 * The key of a cached class, which does not prevent the class from being
+	 * unloaded.
+	 */
+	private static final class ClassKey extends WeakReference<Class<?>> {
+		/** The identity hash code of the class. */
+		private final int	hashCode;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param type
+		 *            the class
+		 * @param queue
+		 *            the queue the key is enqueued to once the class is
+		 *            unloaded
+		 */
+		ClassKey(Class<?> type, ReferenceQueue<Class<?>> queue) {
+
+			super(type, queue);
+			this.hashCode = System.identityHashCode(type);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return this.hashCode;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			if (obj == this) {
+				return true;
+			}
+			Class<?> type = get();
+			return type != null && type == typeOf(obj);
+		}
+	}
+
+	/**
+	 * The name and parameter types of a method.
+	 */
+	private static final class Signature {
+		/** The method name. */
+		private final String		name;
+
+		/** The parameter types. */
+		private final Class<?>[]	paramTypes;
+
+		/** The hash code. */
+		private final int			hashCode;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param name
+		 *            the method name
+		 * @param paramTypes
+		 *            the parameter types
+		 */
+		Signature(String name, Class<?>[] paramTypes) {
+
+			this.name = name;
+			this.paramTypes = paramTypes != null ? paramTypes.clone()
+					: new Class<?>[0];
+			this.hashCode = name.hashCode() * 31
+					+ Arrays.hashCode(this.paramTypes);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+
+			return this.hashCode;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			return this.name.equals(other.name)
+					&& Arrays.equals(this.paramTypes, other.paramTypes);
+		}
+	}
+}
@@ -661,15 +661,9 @@ public final class ObjectClassUtils {
 
 		Assertor.notNull(clazz, "Class must not be null");
 		Assertor.notNull(methodName, "Method name must not be null");
-		int count = 0;
-		Method[] declaredMethods = clazz.getDeclaredMethods();
-		for (int i = 0; i < declaredMethods.length; i++) {
-			Method method = declaredMethods[i];
-			if (methodName.equals(method.getName())) {
-				count++;
-			}
-		}
-		Class<?>[] ifcs = clazz.getInterfaces();
+		ClassMetadata metadata = ClassMetadata.of(clazz);
+		int count = metadata.getDeclaredMethodCount(methodName);
+		Class<?>[] ifcs = metadata.getInterfaces();
 		for (int i = 0; i < ifcs.length; i++) {
 			count += getMethodCountForName(ifcs[i], methodName);
 		}
@@ -694,14 +688,11 @@ public final class ObjectClassUtils {
 
 		Assertor.notNull(clazz, "Class must not be null");
 		Assertor.notNull(methodName, "Method name must not be null");
-		Method[] declaredMethods = clazz.getDeclaredMethods();
-		for (int i = 0; i < declaredMethods.length; i++) {
-			Method method = declaredMethods[i];
-			if (method.getName().equals(methodName)) {
-				return true;
-			}
+		ClassMetadata metadata = ClassMetadata.of(clazz);
+		if (metadata.getDeclaredMethodCount(methodName) != 0) {
+			return true;
 		}
-		Class<?>[] ifcs = clazz.getInterfaces();
+		Class<?>[] ifcs = metadata.getInterfaces();
 		for (int i = 0; i < ifcs.length; i++) {
 			if (hasAtLeastOneMethodWithName(ifcs[i], methodName)) {
 				return true;
@@ -764,13 +755,10 @@ public final class ObjectClassUtils {
 
 		Assertor.notNull(clazz, "Class must not be null");
 		Assertor.notNull(methodName, "Method name must not be null");
-		try {
-			Method method = clazz.getDeclaredMethod(methodName, args);
-			if ((method.getModifiers() & Modifier.STATIC) != 0) {
-				return method;
-			}
-		}
-		catch (NoSuchMethodException ex) {
+		Method method = ClassMetadata.of(clazz).getDeclaredMethod(methodName,
+				args);
+		if (method != null && (method.getModifiers() & Modifier.STATIC) != 0) {
+			return method;
 		}
 		return null;
 	}
@@ -1049,8 +1037,9 @@ public final class ObjectClassUtils {
 		}
 		List<Class<?>> interfaces = new ArrayList<Class<?>>();
 		while (clazz != null) {
-			for (int i = 0; i < clazz.getInterfaces().length; i++) {
-				Class<?> ifc = clazz.getInterfaces()[i];
+			Class<?>[] ifcs = ClassMetadata.of(clazz).getInterfaces();
+			for (int i = 0; i < ifcs.length; i++) {
+				Class<?> ifc = ifcs[i];
 				if (!interfaces.contains(ifc)
 						&& (classLoader == null || isVisible(ifc, classLoader))) {
 					interfaces.add(ifc);
@@ -1112,8 +1101,9 @@ public final class ObjectClassUtils {
 		}
 		Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
 		while (clazz != null) {
-			for (int i = 0; i < clazz.getInterfaces().length; i++) {
-				Class<?> ifc = clazz.getInterfaces()[i];
+			Class<?>[] ifcs = ClassMetadata.of(clazz).getInterfaces();
+			for (int i = 0; i < ifcs.length; i++) {
+				Class<?> ifc = ifcs[i];
 				if (classLoader == null || isVisible(ifc, classLoader)) {
 					interfaces.add(ifc);
 				}
@@ -356,20 +356,7 @@ public final class ReflectUtils {
 	 */
 	public static Field[] fields(String name, Class<?> clazz, boolean superClass) {
 
-		List<Field> lst = new ArrayList<Field>();
-		Field[] fields = null;
-		if (superClass) {
-			fields = ReflectUtils.getDeclaredFields(clazz, false, true);
-		}
-		else {
-			fields = clazz.getDeclaredFields();
-		}
-		for (Field field : fields) {
-			if (RegularToolkit.matches(name, field.getName())) {
-				lst.add(field);
-			}
-		}
-		return lst.toArray(new Field[lst.size()]);
+		return ClassMetadata.of(clazz).fields(name, superClass);
 	}
 
 	/**
@@ -382,9 +369,7 @@ public final class ReflectUtils {
 	 */
 	public static Field[] getAllDeclaredFields(Class<?> clazz) {
 
-		List<Field> result = new ArrayList<Field>();
-		result.addAll(Arrays.asList(getDeclaredFields(clazz, false, false)));
-		return result.toArray(new Field[result.size()]);
+		return getDeclaredFields(clazz, false, false);
 	}
 
 	/**
@@ -399,16 +384,7 @@ public final class ReflectUtils {
 	 */
 	public static Method[] getAllDeclaredMethods(Class<?> clazz) {
 
-		List<Method> result = new ArrayList<Method>();
-		result.addAll(Arrays.asList(getDeclaredMethods(clazz, false, false)));
-		Set<Class<?>> interfaces = getAllInterfaces(clazz, true);
-		for (Class<?> interfaze : interfaces) {
-			Method[] methods = getDeclaredMethods(interfaze, false, false);
-			for (Method target : methods) {
-				result.add(target);
-			}
-		}
-		return result.toArray(new Method[result.size()]);
+		return ClassMetadata.of(clazz).getAllDeclaredMethods();
 	}
 
 	/**
@@ -499,36 +475,8 @@ public final class ReflectUtils {
 	public static Set<Class<?>> getAllInterfaces(Class<?> clazz,
 			boolean superClass) {
 
-		Set<Class<?>> temp = new LinkedHashSet<Class<?>>();
-		temp.addAll(Arrays.asList(clazz.getInterfaces()));
-		Set<Class<?>> result = new LinkedHashSet<Class<?>>();
-		while (temp.size() != 0) {
-			for (Class<?> obj : temp) {
-				if (!result.contains(obj)) {
-					result.add(obj);
-				}
-			}
-			Set<Class<?>> current = new LinkedHashSet<Class<?>>();
-			current.addAll(temp);
-			temp.clear();
-			for (Class<?> obj : current) {
-				temp.addAll(Arrays.asList(obj.getInterfaces()));
-			}
-		}
-		if (superClass == true) {
-			List<Class<?>> superClassList = ReflectUtils.getAllSuperClass(
-					clazz, false);
-			for (Class<?> scl : superClassList) {
-				Set<Class<?>> sclInterfaces = ReflectUtils.getAllInterfaces(
-						scl, false);
-				for (Class<?> sclinterface : sclInterfaces) {
-					if (!result.contains(sclinterface)) {
-						result.add(sclinterface);
-					}
-				}
-			}
-		}
-		return result;
+		return new LinkedHashSet<Class<?>>(Arrays.asList(ClassMetadata.of(
+				clazz).getAllInterfaces(superClass)));
 	}
 
 	/**
@@ -546,18 +494,8 @@ public final class ReflectUtils {
 	public static List<Class<?>> getAllSuperClass(Class<?> clazz,
 			boolean includesObjectClass) {
 
-		List<Class<?>> result = new ArrayList<Class<?>>();
-		Class<?> temp = clazz.getSuperclass();
-		while (temp != null) {
-			if (includesObjectClass == false) {
-				if (temp == Object.class) {
-					break;
-				}
-			}
-			result.add(temp);
-			temp = temp.getSuperclass();
-		}
-		return result;
+		return new ArrayList<Class<?>>(Arrays.asList(ClassMetadata.of(clazz)
+				.getAllSuperClass(includesObjectClass)));
 	}
 
 	/**
@@ -614,31 +552,11 @@ public final class ReflectUtils {
 	public static Field[] getDeclaredFields(Class<?> clazz,
 			boolean includeStatic, boolean non_multiple) {
 
-		List<Field> accum = new ArrayList<Field>();
-		while (clazz != null && clazz != Object.class) {
-			Field[] fields = clazz.getDeclaredFields();
-			for (int i = 0; i < fields.length; i++) {
-				int modifiers = fields[i].getModifiers();
-				if (includeStatic == Modifier.isStatic(modifiers)
-						&& !accum.contains(fields[i])) {
-					if (non_multiple) {
-						int check = 0;
-						for (Field field : accum) {
-							if (equals(field, fields[i])) {
-								check++;
-							}
-						}
-						if (check == 0)
-							accum.add(fields[i]);
-					}
-					else
-						accum.add(fields[i]);
-				}
-			}
-			clazz = clazz.getSuperclass();
+		if (clazz == null) {
+			return new Field[0];
 		}
-		Field[] retvalue = new Field[accum.size()];
-		return (Field[]) accum.toArray(retvalue);
+		return ClassMetadata.of(clazz).getDeclaredFields(includeStatic,
+				non_multiple);
 	}
 
 	/**
@@ -677,31 +595,11 @@ public final class ReflectUtils {
 	public static Method[] getDeclaredMethods(Class<?> clazz,
 			boolean includeStatic, boolean non_multiple) {
 
-		List<Method> accum = new ArrayList<Method>();
-		while (clazz != null && clazz != Object.class) {
-			Method[] methods = clazz.getDeclaredMethods();
-			for (int i = 0; i < methods.length; i++) {
-				int modifiers = methods[i].getModifiers();
-				if (includeStatic == Modifier.isStatic(modifiers)
-						&& !accum.contains(methods[i])) {
-					if (non_multiple) {
-						int check = 0;
-						for (Method method : accum) {
-							if (equals(method, methods[i])) {
-								check++;
-							}
-						}
-						if (check == 0)
-							accum.add(methods[i]);
-					}
-					else
-						accum.add(methods[i]);
-				}
-			}
-			clazz = clazz.getSuperclass();
+		if (clazz == null) {
+			return new Method[0];
 		}
-		Method[] retvalue = new Method[accum.size()];
-		return (Method[]) accum.toArray(retvalue);
+		return ClassMetadata.of(clazz).getDeclaredMethods(includeStatic,
+				non_multiple);
 	}
 
 	/**
@@ -769,18 +667,13 @@ public final class ReflectUtils {
 	public static Field getSupportedField(Class<?> cls, String name)
 			throws NoSuchFieldException {
 
-		if (cls != null) {
-			try {
-				return cls.getDeclaredField(name);
-			}
-			catch (NoSuchFieldException e) {
-				return getSupportedField(cls.getSuperclass(), name);
-			}
-		}
-		else {
+		Field result = cls != null ? ClassMetadata.of(cls).getSupportedField(
+				name) : null;
+		if (result == null) {
 			throw new NoSuchFieldException("Could not find the field ['" + name
 					+ "'] !");
 		}
+		return result;
 	}
 
 	/**
@@ -805,16 +698,13 @@ public final class ReflectUtils {
 	public static Method getSupportedMethod(Class<?> clazz, String name,
 			Class<?>[] paramTypes) throws NoSuchMethodException {
 
-		if (clazz == null) {
+		Method result = clazz != null ? ClassMetadata.of(clazz)
+				.getSupportedMethod(name, paramTypes) : null;
+		if (result == null) {
 			throw new NoSuchMethodException("Method '" + name
 					+ "' is not existed.");
 		}
-		try {
-			return clazz.getDeclaredMethod(name, paramTypes);
-		}
-		catch (NoSuchMethodException ex) {
-			return getSupportedMethod(clazz.getSuperclass(), name, paramTypes);
-		}
+		return result;
 	}
 
 	/**
@@ -1305,20 +1195,7 @@ public final class ReflectUtils {
 	public static Method[] methods(String name, Class<?> clazz,
 			boolean superClass) {
 
-		List<Method> lst = new ArrayList<Method>();
-		Method[] methods = null;
-		if (superClass) {
-			methods = ReflectUtils.getDeclaredMethods(clazz, false, true);
-		}
-		else {
-			methods = clazz.getDeclaredMethods();
-		}
-		for (Method method : methods) {
-			if (RegularToolkit.matches(name, method.getName())) {
-				lst.add(method);
-			}
-		}
-		return lst.toArray(new Method[lst.size()]);
+		return ClassMetadata.of(clazz).methods(name, superClass);
 	}
 
 	/** The Constant MODIFIERS_FIELD. */
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.reflect.FastClass;
 import net.sf.cglib.reflect.FastConstructor;
 
@@ -82,6 +83,35 @@ public final class Utils {
 			final Definition definition, Class<?> clazz,
 			Class<?>[] parameterTypes, final MetaDefObject mdo) {
 
+		return createConstructionProxy(definition, clazz, parameterTypes, mdo,
+				null);
+	}
+
+	/**
+	 * Creates a construction proxy given a class generated by cglib
+	 * {@link net.sf.cglib.proxy.Enhancer} and the callbacks bound to each
+	 * instance it creates. Since callbacks are bound per instance rather than
+	 * registered as static callbacks, the generated class can be shared among
+	 * beans having the same interceptor layout.
+	 * 
+	 * @param definition
+	 *            the definition
+	 * @param clazz
+	 *            the clazz
+	 * @param parameterTypes
+	 *            the parameter types
+	 * @param mdo
+	 *            the meta def object
+	 * @param callbacks
+	 *            the callbacks, if <b>null</b>, instances are created without
+	 *            binding callbacks.
+	 * @return the cached constructor
+	 */
+	public static CachedConstructor createConstructionProxy(
+			final Definition definition, final Class<?> clazz,
+			Class<?>[] parameterTypes, final MetaDefObject mdo,
+			final Callback[] callbacks) {
+
 		FastConstructor constructor = null;
 		try {
 			FastClass fastClass = JGentleFastClass.create(clazz);
@@ -116,6 +146,8 @@ public final class Utils {
 			}
 		}
 		final FastConstructor fastConstructor = constructor;
+		final Method callbacksSetter = callbacks == null ? null
+				: getThreadCallbacksSetter(clazz);
 		return new CachedConstructor() {
 			MetaDefObject	mdoInner	= mdo;
 
@@ -128,7 +160,16 @@ public final class Utils {
 			public Object newInstance(Object... arguments)
 					throws InvocationTargetException {
 
-				return fastConstructor.newInstance(arguments);
+				if (callbacks == null) {
+					return fastConstructor.newInstance(arguments);
+				}
+				setThreadCallbacks(callbacksSetter, callbacks);
+				try {
+					return fastConstructor.newInstance(arguments);
+				}
+				finally {
+					setThreadCallbacks(callbacksSetter, null);
+				}
 			}
 
 			@Override
@@ -151,6 +192,48 @@ public final class Utils {
 		};
 	}
 
+	/**
+	 * Returns the method registering thread callbacks of the given class
+	 * generated by cglib {@link net.sf.cglib.proxy.Enhancer}.
+	 * 
+	 * @param clazz
+	 *            the generated class
+	 * @return the method
+	 */
+	private static Method getThreadCallbacksSetter(Class<?> clazz) {
+
+		Method result = ClassMetadata.of(clazz).getDeclaredMethod(
+				"CGLIB$SET_THREAD_CALLBACKS", new Class<?>[] { Callback[].class });
+		if (result == null) {
+			throw new IllegalArgumentException("[" + clazz
+					+ "] is not generated by cglib Enhancer !");
+		}
+		result.setAccessible(true);
+		return result;
+	}
+
+	/**
+	 * Registers the given callbacks to be bound to the next instance created
+	 * by the current thread.
+	 * 
+	 * @param setter
+	 *            the thread callbacks setter
+	 * @param callbacks
+	 *            the callbacks, <b>null</b> to clear.
+	 * @throws InvocationTargetException
+	 *             the invocation target exception
+	 */
+	private static void setThreadCallbacks(Method setter, Callback[] callbacks)
+			throws InvocationTargetException {
+
+		try {
+			setter.invoke(null, (Object) callbacks);
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	/**
 	 * Creates the instance object from the given {@link Constructor}.
 	 * 
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.jgentleframework.core.intercept.MethodInvoker;
 import org.jgentleframework.utils.ReflectUtils;
 
 /**
@@ -67,6 +68,9 @@ public class Delegator {
 		/** The m_ method. */
 		private final Method		m_Method;
 
+		/** The invoker of method. */
+		private final MethodInvoker	m_Invoker;
+
 		/** The m_ target. */
 		private final Object		m_Target;
 
@@ -92,6 +96,7 @@ public class Delegator {
 			m_Target = target;
 			Method meth = findSuitableMethod(targetClass, MethodName, template);
 			m_Method = meth;
+			m_Invoker = MethodInvoker.getInvoker(meth);
 		}
 
 		/**
@@ -199,7 +204,7 @@ public class Delegator {
 
 			// validateArgs(args);
 			try {
-				Object ret = getMethod().invoke(getTarget(), args);
+				Object ret = m_Invoker.invoke(getTarget(), args);
 				return (ret);
 			}
 			catch (IllegalAccessException ex1) {
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.utils.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds. Durations are recorded
+ * into power-of-two buckets, so percentiles are reported as the upper bound of
+ * the bucket they fall in, that is with a relative error of at most a factor
+ * of two.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ */
+public final class LatencyHistogram {
+	/** The number of buckets, bucket <code>i</code> holds durations below 2^i. */
+	private static final int		BUCKETS	= 64;
+
+	/** The buckets. */
+	private final AtomicLongArray	buckets	= new AtomicLongArray(BUCKETS);
+
+	/** The number of recorded durations. */
+	private final StripedCounter	count	= new StripedCounter();
+
+	/** The total of recorded durations. */
+	private final StripedCounter	total	= new StripedCounter();
+
+	/** The maximum recorded duration. */
+	private final AtomicLong		max		= new AtomicLong();
+
+	/**
+	 * Records the given duration.
+	 *
+	 * @param nanos
+	 *            the duration, in nanoseconds.
+	 */
+	public void record(long nanos) {
+
+		long value = nanos < 0 ? 0 : nanos;
+		this.buckets.incrementAndGet(BUCKETS
+				- Long.numberOfLeadingZeros(value));
+		this.count.increment();
+		this.total.add(value);
+		long current = this.max.get();
+		while (value > current && !this.max.compareAndSet(current, value)) {
+			current = this.max.get();
+		}
+	}
+
+	/**
+	 * Returns the number of recorded durations.
+	 */
+	public long getCount() {
+
+		return this.count.sum();
+	}
+
+	/**
+	 * Returns the maximum recorded duration, in nanoseconds.
+	 */
+	public long getMax() {
+
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the mean recorded duration, in nanoseconds.
+	 */
+	public long getMean() {
+
+		long n = this.count.sum();
+		return n == 0 ? 0 : this.total.sum() / n;
+	}
+
+	/**
+	 * Returns the upper bound of the given percentile, in nanoseconds.
+	 *
+	 * @param percentile
+	 *            the percentile, between <b>0</b> and <b>100</b>.
+	 * @return the upper bound of the bucket holding the percentile, or
+	 *         <b>0</b> if nothing was recorded.
+	 */
+	public long getPercentile(double percentile) {
+
+		long[] snapshot = new long[BUCKETS];
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = this.buckets.get(i);
+			n += snapshot[i];
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(n * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank && snapshot[i] != 0) {
+				return Math.min((1L << i) - 1, this.max.get());
+			}
+		}
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the total of recorded durations, in nanoseconds.
+	 */
+	public long getTotal() {
+
+		return this.total.sum();
+	}
+
+	/**
+	 * Resets the histogram.
+	 */
+	public void reset() {
+
+		for (int i = 0; i < BUCKETS; i++) {
+			this.buckets.set(i, 0);
+		}
+		this.count.reset();
+		this.total.reset();
+		this.max.set(0);
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.jgentleframework.utils.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter spread over several cells in order to avoid contention between
+ * threads updating it concurrently. Each thread updates the cell selected by
+ * its thread id, cells are padded so that two of them never share a cache
+ * line. Updates never lock, the {@link #sum()} is not an atomic snapshot
+ * while the counter is being updated.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ */
+public final class StripedCounter {
+	/** The number of array slots per cell, 64 bytes. */
+	private static final int		PADDING	= 8;
+
+	/** The number of cells. */
+	private static final int		STRIPES	= stripes();
+
+	/** The cells, with one padding cell at each end. */
+	private final AtomicLongArray	cells	= new AtomicLongArray(
+													(STRIPES + 2) * PADDING);
+
+	/**
+	 * Returns the number of cells, the smallest power of two not less than
+	 * twice the number of available processors.
+	 */
+	private static int stripes() {
+
+		int n = Runtime.getRuntime().availableProcessors() * 2;
+		int result = 1;
+		while (result < n) {
+			result <<= 1;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the array index of the cell of the current thread.
+	 */
+	private static int index() {
+
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32));
+		h ^= (h >>> 16);
+		h *= 0x9E3779B1;
+		return ((h >>> 16 & (STRIPES - 1)) + 1) * PADDING;
+	}
+
+	/**
+	 * Adds the given value.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void add(long value) {
+
+		this.cells.addAndGet(index(), value);
+	}
+
+	/**
+	 * Increments the counter by one.
+	 */
+	public void increment() {
+
+		this.cells.incrementAndGet(index());
+	}
+
+	/**
+	 * Resets the counter to zero.
+	 */
+	public void reset() {
+
+		for (int i = 1; i <= STRIPES; i++) {
+			this.cells.set(i * PADDING, 0);
+		}
+	}
+
+	/**
+	 * Returns the current sum of all cells.
+	 */
+	public long sum() {
+
+		long result = 0;
+		for (int i = 1; i <= STRIPES; i++) {
+			result += this.cells.get(i * PADDING);
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return String.valueOf(sum());
+	}
+}
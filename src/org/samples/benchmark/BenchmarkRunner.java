@@ -0,0 +1,248 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.samples.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A minimal benchmark harness. Each benchmark runs a number of warm-up
+ * iterations followed by measured iterations of fixed duration, on one or
+ * more threads released together. For every benchmark the harness reports
+ * the mean throughput and its range over the measured iterations, the mean
+ * time per operation and, when the JVM supports per-thread allocation
+ * counters, the number of bytes allocated per operation.
+ * <p>
+ * Results of operations are consumed so that the JIT compiler can not
+ * eliminate them.
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ */
+public class BenchmarkRunner {
+	/**
+	 * A benchmarked operation.
+	 */
+	public interface Operation {
+		/**
+		 * Runs the operation once.
+		 *
+		 * @return the result, consumed by the harness.
+		 */
+		Object run() throws Exception;
+	}
+
+	/** The allocation counter method, or <b>null</b> if not supported. */
+	private static final Method	allocatedBytes	= allocatedBytesMethod();
+
+	/** The thread MX bean. */
+	private static final ThreadMXBean	threadBean		= ManagementFactory
+															.getThreadMXBean();
+
+	/** The sink consuming operation results. */
+	static volatile int			sink;
+
+	/** The number of warm-up iterations. */
+	private final int			warmupIterations;
+
+	/** The number of measured iterations. */
+	private final int			iterations;
+
+	/** The duration of an iteration, in milliseconds. */
+	private final long			iterationMillis;
+
+	/**
+	 * Instantiates a new benchmark runner.
+	 *
+	 * @param warmupIterations
+	 *            the number of warm-up iterations
+	 * @param iterations
+	 *            the number of measured iterations
+	 * @param iterationMillis
+	 *            the duration of an iteration, in milliseconds
+	 */
+	public BenchmarkRunner(int warmupIterations, int iterations,
+			long iterationMillis) {
+
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationMillis = iterationMillis;
+	}
+
+	/**
+	 * Prints the header of the result table.
+	 */
+	public static void printHeader() {
+
+		System.out.println(String.format("%-32s %7s %14s %22s %10s %10s",
+				"benchmark", "threads", "ops/s", "(min .. max)", "ns/op",
+				"B/op"));
+	}
+
+	/**
+	 * Runs the given benchmark and prints its result.
+	 *
+	 * @param name
+	 *            the benchmark name
+	 * @param threads
+	 *            the number of threads
+	 * @param operation
+	 *            the operation
+	 */
+	public void run(String name, int threads, Operation operation)
+			throws Exception {
+
+		for (int i = 0; i < this.warmupIterations; i++) {
+			iterate(threads, operation);
+		}
+		long[] opsPerSecond = new long[this.iterations];
+		long totalOps = 0;
+		long totalBytes = 0;
+		for (int i = 0; i < this.iterations; i++) {
+			long[] result = iterate(threads, operation);
+			opsPerSecond[i] = result[0] * 1000 / this.iterationMillis;
+			totalOps += result[0];
+			totalBytes += result[1];
+		}
+		long min = Long.MAX_VALUE;
+		long max = 0;
+		long sum = 0;
+		for (long value : opsPerSecond) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			sum += value;
+		}
+		long mean = sum / opsPerSecond.length;
+		double nanosPerOp = mean == 0 ? 0 : 1e9 * threads / mean;
+		String bytesPerOp = totalBytes < 0 || totalOps == 0 ? "n/a" : String
+				.valueOf(totalBytes / totalOps);
+		System.out.println(String.format("%-32s %7d %14d %22s %10.1f %10s",
+				name, threads, mean, "(" + min + " .. " + max + ")",
+				nanosPerOp, bytesPerOp));
+	}
+
+	/**
+	 * Runs one iteration.
+	 *
+	 * @param threads
+	 *            the number of threads
+	 * @param operation
+	 *            the operation
+	 * @return the number of operations and the number of allocated bytes, or
+	 *         <b>-1</b> if allocations can not be measured.
+	 */
+	private long[] iterate(int threads, final Operation operation)
+			throws Exception {
+
+		final AtomicLong ops = new AtomicLong();
+		final AtomicLong bytes = new AtomicLong();
+		final AtomicLong failures = new AtomicLong();
+		final CyclicBarrier start = new CyclicBarrier(threads);
+		final CountDownLatch end = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+
+					try {
+						start.await();
+						long before = allocatedBytes();
+						long count = 0;
+						int local = 0;
+						long deadline = System.currentTimeMillis()
+								+ iterationMillis;
+						do {
+							for (int j = 0; j < 100; j++) {
+								Object result = operation.run();
+								local += result == null ? 0 : 1;
+							}
+							count += 100;
+						}
+						while (System.currentTimeMillis() < deadline);
+						long after = allocatedBytes();
+						sink += local;
+						ops.addAndGet(count);
+						if (before < 0 || after < 0) {
+							bytes.set(Long.MIN_VALUE);
+						}
+						else {
+							bytes.addAndGet(after - before);
+						}
+					}
+					catch (Throwable e) {
+						e.printStackTrace();
+						failures.incrementAndGet();
+					}
+					finally {
+						end.countDown();
+					}
+				}
+			}.start();
+		}
+		end.await();
+		if (failures.get() != 0) {
+			throw new IllegalStateException("Benchmark operation failed !");
+		}
+		return new long[] { ops.get(), bytes.get() < 0 ? -1 : bytes.get() };
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread.
+	 *
+	 * @return the number of bytes, or <b>-1</b> if not supported.
+	 */
+	private static long allocatedBytes() {
+
+		if (allocatedBytes == null) {
+			return -1;
+		}
+		try {
+			return (Long) allocatedBytes.invoke(threadBean, Thread
+					.currentThread().getId());
+		}
+		catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns the per-thread allocation counter of the JVM, if any.
+	 */
+	private static Method allocatedBytesMethod() {
+
+		try {
+			Class<?> clazz = Class
+					.forName("com.sun.management.ThreadMXBean");
+			if (!clazz.isInstance(ManagementFactory.getThreadMXBean())) {
+				return null;
+			}
+			Method method = clazz.getMethod("getThreadAllocatedBytes",
+					long.class);
+			method.setAccessible(true);
+			return method;
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+}
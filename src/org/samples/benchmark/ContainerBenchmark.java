@@ -0,0 +1,339 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.samples.benchmark;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jgentleframework.configure.Configurable;
+import org.jgentleframework.configure.Location;
+import org.jgentleframework.configure.REF;
+import org.jgentleframework.configure.annotation.Inject;
+import org.jgentleframework.configure.enums.Scope;
+import org.jgentleframework.context.JGentle;
+import org.jgentleframework.context.injecting.ContainerMetrics;
+import org.jgentleframework.context.injecting.Provider;
+import org.jgentleframework.reflection.ReflectIdentification;
+import org.jgentleframework.reflection.metadata.Definition;
+import org.jgentleframework.services.objectpooling.Pool;
+import org.jgentleframework.services.objectpooling.annotation.Pooling;
+import org.jgentleframework.services.objectpooling.context.PoolScope;
+import org.samples.benchmark.BenchmarkRunner.Operation;
+
+/**
+ * Benchmarks the bean lookup and injection paths of the container:
+ * {@link Provider#getBean(Class)} for singleton, prototype and pooled beans,
+ * {@link Provider#getBean(String)} for alias (<code>REF_MAPPING</code>) and
+ * constant (<code>REF_CONSTANT</code>) references, round trips through the
+ * {@link Pool}s backing the pooled beans (a common and a concurrent pool), an
+ * attribute read through
+ * {@link Definition#getAnnotation(Class)}, field and setter injection, and
+ * invocations of non-intercepted beans, of beans intercepted by one and by a
+ * chain of three interceptors and of beans whose dependencies are injected at
+ * invocation time. Each benchmark runs on a single thread and on
+ * twice the number of available processors in order to expose contention.
+ * When container metrics are enabled, their snapshot is printed at the end of
+ * the run. Running it with the weaving agent on this package measures the
+ * intercepted invocations in load-time weaving mode (see
+ * {@link org.jgentleframework.core.intercept.weaving.WeavingAgent}).
+ * <p>
+ * Usage:
+ * <code>ContainerBenchmark [milliseconds per iteration] [name filter]</code>
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ * @see BenchmarkRunner
+ */
+public class ContainerBenchmark {
+	public static void main(String[] args) throws Exception {
+
+		long millis = args.length > 0 ? Long.parseLong(args[0]) : 500;
+		String filter = args.length > 1 ? args[1] : "";
+		final Provider provider = JGentle
+				.buildServiceProvider(ContainerBenchmarkConfig.class);
+		final PlainService plain = provider.getBean(PlainService.class);
+		final InterceptedService intercepted = provider
+				.getBean(InterceptedService.class);
+		final ChainedService chained = provider.getBean(ChainedService.class);
+		final InvocationInjected invocationInjected = provider
+				.getBean(InvocationInjected.class);
+		final String alias = REF.refMapping("benchmarkAlias");
+		final String constant = REF.refConstant("benchmarkConstant");
+		final Pool pool = PoolScope.CommonPool.getPool(provider
+				.getBean(PooledService.class));
+		final Pool concurrentPool = PoolScope.ConcurrentPool.getPool(provider
+				.getBean(ConcurrentPooledService.class));
+		final Definition definition = provider.getDefinitionManager()
+				.getDefinition(PooledService.class);
+		Map<String, Operation> benchmarks = new LinkedHashMap<String, Operation>();
+		benchmarks.put("getBean.singleton", new Operation() {
+			@Override
+			public Object run() {
+
+				return provider.getBean(SingletonService.class);
+			}
+		});
+		benchmarks.put("getBean.prototype", new Operation() {
+			@Override
+			public Object run() {
+
+				return provider.getBean(PrototypeService.class);
+			}
+		});
+		benchmarks.put("getBean.alias", new Operation() {
+			@Override
+			public Object run() {
+
+				return provider.getBean(alias);
+			}
+		});
+		benchmarks.put("getBean.constant", new Operation() {
+			@Override
+			public Object run() {
+
+				return provider.getBean(constant);
+			}
+		});
+		benchmarks.put("getBean.pooled", new Operation() {
+			@Override
+			public Object run() {
+
+				return provider.getBean(PooledService.class);
+			}
+		});
+		benchmarks.put("pool.obtainReturn", new Operation() {
+			@Override
+			public Object run() throws Exception {
+
+				Object bean = pool.obtainObject();
+				pool.returnObject(bean);
+				return bean;
+			}
+		});
+		benchmarks.put("pool.concurrent.obtainReturn", new Operation() {
+			@Override
+			public Object run() throws Exception {
+
+				Object bean = concurrentPool.obtainObject();
+				concurrentPool.returnObject(bean);
+				return bean;
+			}
+		});
+		benchmarks.put("definition.getAnnotation", new Operation() {
+			@Override
+			public Object run() {
+
+				return definition.getAnnotation(Pooling.class).MinPoolSize();
+			}
+		});
+		benchmarks.put("inject.fields", new Operation() {
+			@Override
+			public Object run() {
+
+				return provider.getBean(FieldInjected.class);
+			}
+		});
+		benchmarks.put("inject.setters", new Operation() {
+			@Override
+			public Object run() {
+
+				return provider.getBean(SetterInjected.class);
+			}
+		});
+		benchmarks.put("invoke.plain", new Operation() {
+			@Override
+			public Object run() {
+
+				return plain.work();
+			}
+		});
+		benchmarks.put("invoke.intercepted", new Operation() {
+			@Override
+			public Object run() {
+
+				return intercepted.work();
+			}
+		});
+		benchmarks.put("invoke.chained", new Operation() {
+			@Override
+			public Object run() {
+
+				return chained.work("argument");
+			}
+		});
+		benchmarks.put("invoke.invocationInjected", new Operation() {
+			@Override
+			public Object run() {
+
+				return invocationInjected.work();
+			}
+		});
+		BenchmarkRunner runner = new BenchmarkRunner(3, 5, millis);
+		int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+		BenchmarkRunner.printHeader();
+		for (Entry<String, Operation> entry : benchmarks.entrySet()) {
+			if (entry.getKey().startsWith(filter)) {
+				runner.run(entry.getKey(), 1, entry.getValue());
+				runner.run(entry.getKey(), maxThreads, entry.getValue());
+			}
+		}
+		ContainerMetrics metrics = provider.getContainerMetrics();
+		if (metrics != null) {
+			System.out.println(metrics.snapshot());
+		}
+	}
+}
+
+abstract class ContainerBenchmarkConfig implements Configurable {
+	@Override
+	public void configure() {
+
+		attach(SingletonService.class).to(SingletonService.class).scope(
+				Scope.SINGLETON);
+		attach(PrototypeService.class).to(PrototypeService.class).scope(
+				Scope.PROTOTYPE);
+		attach(AliasService.class).named("benchmarkAlias").to(
+				SingletonService.class).scope(Scope.SINGLETON);
+		attachConstant("benchmarkConstant").to(42);
+		attach(PooledService.class).to(PooledService.class).scope(
+				PoolScope.CommonPool);
+		attach(ConcurrentPooledService.class).to(ConcurrentPooledService.class)
+				.scope(PoolScope.ConcurrentPool);
+		attach(FieldInjected.class).to(FieldInjected.class).scope(
+				Scope.PROTOTYPE);
+		attach(SetterInjected.class).to(SetterInjected.class).scope(
+				Scope.PROTOTYPE);
+		attach(PlainService.class).to(PlainService.class).scope(
+				Scope.SINGLETON);
+		attach(InterceptedService.class).to(InterceptedService.class).scope(
+				Scope.SINGLETON);
+		attach(ChainedService.class).to(ChainedService.class).scope(
+				Scope.SINGLETON);
+		attach(InvocationInjected.class).to(InvocationInjected.class).scope(
+				Scope.SINGLETON);
+		interceptMethod(refMapping(PassThroughInterceptor.class),
+				ReflectIdentification.methods("*"), annotatedWith(
+						Location.TYPE, Intercepted.class));
+		for (int i = 0; i < 3; i++) {
+			interceptMethod(new PassThroughInterceptor(), ReflectIdentification
+					.methods("work"), annotatedWith(Location.TYPE,
+					Chained.class));
+		}
+	}
+}
+
+interface AliasService {
+}
+
+class SingletonService implements AliasService {
+}
+
+class PrototypeService {
+}
+
+@Pooling
+class PooledService {
+}
+
+@Pooling
+class ConcurrentPooledService {
+}
+
+class FieldInjected {
+	@Inject
+	SingletonService	service;
+
+	@Inject("benchmarkConstant")
+	int					value;
+}
+
+class SetterInjected {
+	SingletonService	service;
+
+	PlainService		plain;
+
+	@Inject
+	public void setService(@Inject SingletonService service) {
+
+		this.service = service;
+	}
+
+	@Inject
+	public void setPlain(@Inject PlainService plain) {
+
+		this.plain = plain;
+	}
+}
+
+class InvocationInjected {
+	@Inject(invocation = true)
+	SingletonService	service;
+
+	@Inject(value = "benchmarkAlias", invocation = true)
+	AliasService		alias;
+
+	public Object work() {
+
+		return this.alias != null ? this.service : null;
+	}
+}
+
+class PlainService {
+	public Object work() {
+
+		return this;
+	}
+}
+
+@Retention(RetentionPolicy.RUNTIME)
+@interface Intercepted {
+}
+
+@Intercepted
+class InterceptedService {
+	public Object work() {
+
+		return this;
+	}
+}
+
+@Retention(RetentionPolicy.RUNTIME)
+@interface Chained {
+}
+
+@Chained
+class ChainedService {
+	public Object work(Object argument) {
+
+		return argument;
+	}
+}
+
+class PassThroughInterceptor implements MethodInterceptor {
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+
+		return invocation.proceed();
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2007-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Project: JGentleFramework
+ */
+package org.samples.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jgentleframework.configure.Configurable;
+import org.jgentleframework.configure.enums.Scope;
+import org.jgentleframework.context.JGentle;
+import org.jgentleframework.context.injecting.Provider;
+
+/**
+ * Measures the throughput of singleton lookups through
+ * {@link Provider#getBean(Class)} while the number of concurrent threads grows
+ * from one up to twice the number of available processors.
+ * <p>
+ * Usage: <code>SingletonContention [seconds per round]</code>
+ *
+ * @author Quoc Chung - mailto: <a
+ *         href="mailto:skydunkpro@yahoo.com">skydunkpro@yahoo.com</a>
+ * @date Oct 18, 2009
+ */
+public class SingletonContention {
+	public static void main(String[] args) throws InterruptedException {
+
+		long duration = (args.length > 0 ? Long.parseLong(args[0]) : 2) * 1000;
+		final Provider provider = JGentle
+				.buildProvider(SingletonContentionConfig.class);
+		int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+		// warm up
+		runRound(provider, 1, duration);
+		System.out.println("threads\tops/s");
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			long ops = runRound(provider, threads, duration);
+			System.out.println(threads + "\t" + (ops * 1000 / duration));
+		}
+	}
+
+	/**
+	 * Runs one round.
+	 *
+	 * @param provider
+	 *            the provider
+	 * @param threads
+	 *            the number of threads
+	 * @param duration
+	 *            the duration in milliseconds
+	 * @return the total number of lookups
+	 */
+	static long runRound(final Provider provider, int threads,
+			final long duration) throws InterruptedException {
+
+		final AtomicLong total = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch end = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					long ops = 0;
+					long deadline = System.currentTimeMillis() + duration;
+					do {
+						for (int j = 0; j < 1000; j++) {
+							if (provider.getBean(SharedService.class) == null) {
+								throw new IllegalStateException();
+							}
+						}
+						ops += 1000;
+					}
+					while (System.currentTimeMillis() < deadline);
+					total.addAndGet(ops);
+					end.countDown();
+				}
+			}.start();
+		}
+		start.countDown();
+		end.await();
+		return total.get();
+	}
+}
+
+abstract class SingletonContentionConfig implements Configurable {
+	@Override
+	public void configure() {
+
+		attach(SharedService.class).to(SharedService.class).scope(
+				Scope.SINGLETON);
+	}
+}
+
+class SharedService {
+}